@@ -0,0 +1,74 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse.BugReport;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
+import com.hackathon.storywriter.service.agent.AgentJsonReader;
+import com.hackathon.storywriter.service.agent.SeverityAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of agent output into the artifact sections with {@link AgentJsonReader}, as in the
+ * agents: a whole answer as the writers read it, and the severity answer fed in small
+ * chunks with its early fields reported, as {@code SeverityAgent} reads it while streaming.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentOutputParseBenchmark {
+
+    /** A few tokens: the model writes its answer in small pieces, each read as it arrives. */
+    private static final int CHUNK_BYTES = 32;
+
+    private ObjectMapper objectMapper;
+    private byte[] severityBytes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Mappers.objectMapper(true);
+        severityBytes = Payloads.SEVERITY_OUTPUT.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BugReport bugReport() throws IOException {
+        return AgentJsonReader.read(objectMapper, Payloads.BUG_REPORT_OUTPUT, BugReport.class);
+    }
+
+    @Benchmark
+    public UserStory userStory() throws IOException {
+        return AgentJsonReader.read(objectMapper, Payloads.USER_STORY_OUTPUT, UserStory.class);
+    }
+
+    @Benchmark
+    public SeverityAssessment severity() throws IOException {
+        return AgentJsonReader.read(objectMapper, Payloads.SEVERITY_OUTPUT, SeverityAssessment.class);
+    }
+
+    @Benchmark
+    public SeverityAssessment severityStreamed(Blackhole earlyFields) throws IOException {
+        AgentJsonReader reader = new AgentJsonReader(objectMapper, SeverityAgent.EARLY_FIELDS,
+                (field, value) -> earlyFields.consume(value));
+        for (int offset = 0; offset < severityBytes.length; offset += CHUNK_BYTES) {
+            reader.onOutput(severityBytes, offset, Math.min(CHUNK_BYTES, severityBytes.length - offset));
+        }
+        return reader.value(SeverityAssessment.class);
+    }
+}
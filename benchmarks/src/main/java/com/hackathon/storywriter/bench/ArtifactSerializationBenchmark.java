@@ -0,0 +1,48 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a complete {@link ArtifactResponse}, with and without
+ * {@code spring.jackson.serialization.indent-output}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArtifactSerializationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean indentOutput;
+
+    private ObjectMapper objectMapper;
+    private ArtifactResponse artifact;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Mappers.objectMapper(indentOutput);
+        artifact = Payloads.artifact(objectMapper);
+    }
+
+    @Benchmark
+    public byte[] artifactResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(artifact);
+    }
+}
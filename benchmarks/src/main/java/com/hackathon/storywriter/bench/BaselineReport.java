@@ -0,0 +1,108 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares two JMH result files ({@code -rf json}) and prints a Markdown table of time and
+ * allocation per operation, flagging regressions.
+ *
+ * <pre>java -cp target/benchmarks.jar com.hackathon.storywriter.bench.BaselineReport baseline.json current.json [threshold%]</pre>
+ *
+ * A benchmark regresses when its score grows by more than the threshold (default 10%) and by
+ * more than the combined error margins, or when {@code gc.alloc.rate.norm} (present with
+ * {@code -prof gc}) grows by more than the threshold. Exits with status 1 on any regression.
+ */
+public final class BaselineReport {
+
+    private record Result(double score, double error, String unit, Double allocBytes) {}
+
+    private BaselineReport() {
+        // command-line tool – no instances
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineReport <baseline.json> <current.json> [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        System.out.println("| Benchmark | Baseline | Current | Time change | Baseline B/op | Current B/op | Alloc change | |");
+        System.out.println("|-----------|---------:|--------:|-------:|--------------:|-------------:|--------:|-|");
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "| %s | - | %s | | - | %s | | new |%n",
+                        entry.getKey(), score(now), bytes(now.allocBytes()));
+                continue;
+            }
+            double timeDelta = delta(before.score(), now.score());
+            Double allocDelta = before.allocBytes() != null && now.allocBytes() != null
+                    ? delta(before.allocBytes(), now.allocBytes()) : null;
+            boolean slower = timeDelta > threshold && now.score() - before.score() > now.error() + before.error();
+            boolean heavier = allocDelta != null && allocDelta > threshold;
+            if (slower || heavier) regressions++;
+            System.out.printf(Locale.ROOT, "| %s | %s | %s | %+.1f%% | %s | %s | %s | %s |%n",
+                    entry.getKey(), score(before), score(now), timeDelta * 100,
+                    bytes(before.allocBytes()), bytes(now.allocBytes()),
+                    allocDelta != null ? String.format(Locale.ROOT, "%+.1f%%", allocDelta * 100) : "",
+                    slower || heavier ? "**regression**" : "");
+        }
+        for (String removed : baseline.keySet()) {
+            if (!current.containsKey(removed)) System.out.printf("| %s | | | | | | | removed |%n", removed);
+        }
+        System.out.printf(Locale.ROOT, "%n%d regression(s) over %.0f%%%n", regressions, threshold * 100);
+        if (regressions > 0) System.exit(1);
+    }
+
+    /** Results keyed by benchmark method and parameters, e.g. {@code PromptBenchmark.severityPrompt[source=LOG]}. */
+    private static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            String benchmark = run.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            JsonNode params = run.path("params");
+            if (params.size() > 0) {
+                StringJoiner values = new StringJoiner(",", "[", "]");
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    values.add(param.getKey() + "=" + param.getValue().asText());
+                }
+                key.append(values);
+            }
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode alloc = run.path("secondaryMetrics").path("gc.alloc.rate.norm");
+            // a single measurement iteration has no error margin ("NaN")
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, primary.path("scoreUnit").asText(),
+                    alloc.isMissingNode() ? null : alloc.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    private static double delta(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before;
+    }
+
+    private static String score(Result result) {
+        return String.format(Locale.ROOT, "%.3f +- %.3f %s", result.score(), result.error(), result.unit());
+    }
+
+    private static String bytes(Double allocBytes) {
+        return allocBytes != null ? String.format(Locale.ROOT, "%.0f", allocBytes) : "-";
+    }
+}
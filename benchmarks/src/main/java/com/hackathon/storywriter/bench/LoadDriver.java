@@ -0,0 +1,207 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.TestFailureEvent;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load driver for {@code POST /api/events}.
+ *
+ * <pre>java -cp target/benchmarks.jar com.hackathon.storywriter.bench.LoadDriver
+ *     [--url http://localhost:8080] [--rps 5] [--duration 60s] [--events events.jsonl] [--unique]</pre>
+ *
+ * Requests are started on a fixed schedule of {@code rps} per second, whatever the service's
+ * response times, and each latency is measured from the scheduled start, so a saturated
+ * service shows up as growing latency instead of a silently lower request rate.
+ *
+ * <p>Events are read from {@code --events}: a {@code .jsonl} file with one event per line, or
+ * an {@code .http} file whose JSON bodies are events. The default is the bundled
+ * {@code requests.http}. They are replayed round-robin. With {@code --unique}, every request
+ * gets its own test name, so the artifact cache and request coalescing do not absorb the load.
+ *
+ * <p>Once a second the driver reads {@code /actuator/prometheus} for in-flight pipelines,
+ * running copilot calls and heap usage, and counts local {@code copilot} processes. The report
+ * lists throughput, latency percentiles, status codes and the peaks of those samples.
+ */
+public final class LoadDriver {
+
+    private LoadDriver() {
+        // command-line tool – no instances
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        double rps = 5;
+        Duration duration = Duration.ofSeconds(60);
+        Path eventsFile = null;
+        boolean unique = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--rps" -> rps = Double.parseDouble(args[++i]);
+                case "--duration" -> duration = Duration.parse("PT" + args[++i].toUpperCase(Locale.ROOT));
+                case "--events" -> eventsFile = Path.of(args[++i]);
+                case "--unique" -> unique = true;
+                default -> {
+                    System.err.println("unknown option " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        ObjectMapper objectMapper = Mappers.objectMapper(false);
+        List<TestFailureEvent> events = events(objectMapper, eventsFile);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        URI eventsUri = URI.create(url + "/api/events");
+        URI metricsUri = URI.create(url + "/actuator/prometheus");
+
+        long total = (long) (rps * duration.toSeconds());
+        long intervalNanos = (long) (1_000_000_000 / rps);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        Map<String, AtomicLong> statuses = new ConcurrentHashMap<>();
+        Peaks peaks = new Peaks();
+
+        System.out.printf(Locale.ROOT, "Sending %d requests at %.1f rps to %s (%d distinct events%s)%n",
+                total, rps, eventsUri, events.size(), unique ? ", unique test names" : "");
+        Thread sampler = Thread.ofVirtual().start(() -> sample(client, metricsUri, peaks));
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; n < total; n++) {
+                long scheduled = start + n * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                TestFailureEvent event = events.get((int) (n % events.size()));
+                if (unique) {
+                    event = new TestFailureEvent(event.source(), event.testName() + " [load-" + n + "]",
+                            event.errorMessage(), event.stackTrace(), event.context());
+                }
+                byte[] body = objectMapper.writeValueAsBytes(event);
+                requests.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(eventsUri)
+                            .timeout(Duration.ofMinutes(5))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                            .build();
+                    String status;
+                    try {
+                        status = Integer.toString(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                    } catch (IOException e) {
+                        status = e.getClass().getSimpleName();
+                    }
+                    latencies.add(System.nanoTime() - scheduled);
+                    statuses.computeIfAbsent(status, k -> new AtomicLong()).incrementAndGet();
+                    return null;
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        sampler.interrupt();
+        report(latencies, statuses, peaks, elapsedSeconds);
+    }
+
+    private static List<TestFailureEvent> events(ObjectMapper objectMapper, Path file) throws IOException {
+        if (file == null) return Payloads.events(objectMapper);
+        if (file.toString().endsWith(".jsonl")) {
+            List<TestFailureEvent> events = new ArrayList<>();
+            for (String line : Files.readAllLines(file)) {
+                if (!line.isBlank()) events.add(objectMapper.readValue(line, TestFailureEvent.class));
+            }
+            if (events.isEmpty()) throw new IllegalArgumentException("no events in " + file);
+            return events;
+        }
+        return Payloads.events(objectMapper, Files.readString(file));
+    }
+
+    // -------------------------------------------------------------------------
+    // Sampling
+    // -------------------------------------------------------------------------
+
+    /** Peak values of the once-a-second samples. */
+    private static final class Peaks {
+        volatile double pipelines;
+        volatile double copilotCalls;
+        volatile double heapBytes;
+        volatile long copilotProcesses;
+    }
+
+    private static void sample(HttpClient client, URI metricsUri, Peaks peaks) {
+        HttpRequest request = HttpRequest.newBuilder(metricsUri).timeout(Duration.ofSeconds(5)).GET().build();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                String metrics = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+                peaks.pipelines = Math.max(peaks.pipelines, sum(metrics, "pipeline_inflight", ""));
+                peaks.copilotCalls = Math.max(peaks.copilotCalls, sum(metrics, "copilot_cli_processes_active", ""));
+                peaks.heapBytes = Math.max(peaks.heapBytes, sum(metrics, "jvm_memory_used_bytes", "area=\"heap\""));
+            } catch (IOException e) {
+                // actuator not reachable: report request metrics only
+            } catch (InterruptedException e) {
+                return;
+            }
+            long processes = ProcessHandle.allProcesses()
+                    .filter(p -> p.info().command().map(c -> c.endsWith("copilot")).orElse(false)
+                            || p.info().commandLine().map(c -> c.contains("fake-copilot")).orElse(false))
+                    .count();
+            peaks.copilotProcesses = Math.max(peaks.copilotProcesses, processes);
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /** Sum of the samples of Prometheus metric {@code name} whose labels contain {@code label}. */
+    private static double sum(String metrics, String name, String label) {
+        double sum = 0;
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(name + "{") && line.contains(label)) {
+                sum += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        return sum;
+    }
+
+    // -------------------------------------------------------------------------
+    // Report
+    // -------------------------------------------------------------------------
+
+    private static void report(ConcurrentLinkedQueue<Long> latencies, Map<String, AtomicLong> statuses,
+                               Peaks peaks, double elapsedSeconds) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        long ok = statuses.getOrDefault("200", new AtomicLong()).get();
+        System.out.printf(Locale.ROOT, "%nCompleted %d requests in %.1fs: %.2f req/s, %.2f ok/s%n",
+                sorted.length, elapsedSeconds, sorted.length / elapsedSeconds, ok / elapsedSeconds);
+        System.out.printf(Locale.ROOT, "Latency ms: p50 %d  p95 %d  p99 %d  max %d%n",
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                percentileMs(sorted, 1.0));
+        System.out.println("Status: " + new TreeMap<>(statuses));
+        System.out.printf(Locale.ROOT, "Peak in-flight pipelines %.0f, running copilot calls %.0f, "
+                        + "local copilot processes %d, heap used %.0f MB%n",
+                peaks.pipelines, peaks.copilotCalls, peaks.copilotProcesses, peaks.heapBytes / (1024 * 1024));
+    }
+
+    private static long percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,21 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Object mappers configured the way Spring Boot configures the service's mapper.
+ */
+final class Mappers {
+
+    private Mappers() {
+        // utility class – no instances
+    }
+
+    /**
+     * @param indentOutput {@code spring.jackson.serialization.indent-output}
+     */
+    static ObjectMapper objectMapper(boolean indentOutput) {
+        return Jackson2ObjectMapperBuilder.json().indentOutput(indentOutput).build();
+    }
+}
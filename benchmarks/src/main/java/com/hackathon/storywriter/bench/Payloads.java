@@ -0,0 +1,174 @@
+package com.hackathon.storywriter.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.ArtifactResponse.BugReport;
+import com.hackathon.storywriter.model.ArtifactResponse.RootCause;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import com.hackathon.storywriter.model.ArtifactResponse.TechnicalAnalysis;
+import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Realistic inputs for the benchmarks.
+ *
+ * <p>Failure events are the JSON bodies of {@code requests.http}; agent templates are read
+ * from the service's {@code application.yml}; agent outputs are typical model answers, code
+ * fences included.
+ */
+final class Payloads {
+
+    private Payloads() {
+        // utility class – no instances
+    }
+
+    /** Technical analysis as returned by the TechnicalAnalyzer agent. */
+    static final String TECHNICAL_ANALYSIS = """
+            1. Error type and classification
+               MysqlXAException (XA_RBDEADLOCK): the database rolled back the transaction branch after detecting a deadlock.
+               This is a concurrency failure in the persistence layer, not an application logic error.
+
+            2. Component / layer where the failure originated
+               GroupServiceCollectionEndpoint.post (line 103) → service layer → MySQL XA connection (end of branch).
+
+            3. Key observations from the stack trace
+               - The exception is raised in MysqlXAConnection.end, i.e. while ending the XA branch.
+               - mapXAExceptionFromSQLException translates a MySQL deadlock error (1213) into XA_RBDEADLOCK.
+               - No application frames between the endpoint and the driver: the transaction spans the whole request.
+
+            4. Unit-level or integration-level
+               Integration-level: it needs concurrent requests against a real MySQL instance to reproduce.
+            """;
+
+    /** Root cause as returned by the RootCause agent. */
+    static final String ROOT_CAUSE = """
+            Most probable root cause: two concurrent POST requests insert groups that touch the same rows of the
+            group/service link table in different orders, so InnoDB detects a lock cycle and rolls back one branch.
+
+            Evidence: XA_RBDEADLOCK is raised at XA END, the endpoint performs several writes in one distributed
+            transaction, and the failure only appears under parallel load.
+
+            Fix directions:
+            1. Acquire row locks in a deterministic order (sort by primary key before updating).
+            2. Shorten the transaction: move reads and validation out of the XA scope.
+            3. Retry the whole request on XA_RBDEADLOCK with jittered backoff.
+            """;
+
+    /** Bug report JSON as returned by the BugWriter agent. */
+    static final String BUG_REPORT_OUTPUT = """
+            ```json
+            {
+              "title": "POST /groups fails with XA_RBDEADLOCK under concurrent requests",
+              "description": "Creating a group through GroupServiceCollectionEndpoint.post intermittently fails with MysqlXAException XA_RBDEADLOCK when several requests run in parallel. The XA transaction branch is rolled back by MySQL after a deadlock on the group/service link table.",
+              "stepsToReproduce": "1. Start the portal API against MySQL with XA enabled\\n2. Send 20 concurrent POST /customers/{id}/groups requests for the same customer\\n3. Observe HTTP 500 responses and XA_RBDEADLOCK in the log",
+              "expectedBehavior": "All groups are created, or conflicting requests are retried transparently.",
+              "actualBehavior": "Some requests fail with HTTP 500: XA_RBDEADLOCK: Transaction branch was rolled back: deadlock was detected",
+              "confidence": 0.86
+            }
+            ```""";
+
+    /** User story JSON as returned by the StoryWriter agent. */
+    static final String USER_STORY_OUTPUT = """
+            ```json
+            {
+              "description": "As a portal administrator, I want group creation to succeed under concurrent load, so that bulk provisioning does not fail at random.",
+              "whatToDo": "Order row locks deterministically in the group service, shorten the XA transaction scope, and retry requests that fail with XA_RBDEADLOCK.",
+              "acceptanceCriteria": "Given 20 concurrent group creation requests for one customer\\nWhen they are processed\\nThen every group is created\\nAnd no request fails with XA_RBDEADLOCK",
+              "additionalInformation": "Component: GroupServiceCollectionEndpoint, group/service link table. Related: MySQL deadlock 1213.",
+              "confidence": 0.8
+            }
+            ```""";
+
+    /** Severity JSON as returned by the Severity agent. */
+    static final String SEVERITY_OUTPUT = """
+            ```json
+            {"level": "Critical", "rationale": "Provisioning fails intermittently under normal concurrent load; data is rolled back but users must retry manually.", "confidence": 0.9}
+            ```""";
+
+    /** The {@code POST /api/events} bodies of the bundled {@code requests.http}. */
+    static List<TestFailureEvent> events(ObjectMapper objectMapper) {
+        return events(objectMapper, resource("requests.http"));
+    }
+
+    /** The single-event JSON bodies of an HTTP client file in the format of {@code requests.http}. */
+    static List<TestFailureEvent> events(ObjectMapper objectMapper, String file) {
+        List<TestFailureEvent> events = new ArrayList<>();
+        for (String request : file.split("(?m)^###")) {
+            int body = request.indexOf("\n{");
+            if (body < 0) continue;
+            try {
+                JsonNode json = objectMapper.readTree(request.substring(body));
+                if (json.has("source") && json.has("errorMessage")) {
+                    events.add(objectMapper.treeToValue(json, TestFailureEvent.class));
+                }
+            } catch (IOException e) {
+                // batch requests and other bodies are not single events
+            }
+        }
+        if (events.isEmpty()) throw new IllegalStateException("no events found");
+        return events;
+    }
+
+    /** The first event of {@code source} in {@code requests.http}. */
+    static TestFailureEvent event(ObjectMapper objectMapper, String source) {
+        return events(objectMapper).stream()
+                .filter(event -> event.source().name().equals(source))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("no " + source + " event in requests.http"));
+    }
+
+    /** The {@code user-template} of {@code agent} from the service's {@code application.yml}. */
+    static String userTemplate(String agent) {
+        return property("copilot.cli.agents." + agent + ".user-template");
+    }
+
+    /** The configured {@code system} prompt of {@code agent}. */
+    static String systemPrompt(String agent) {
+        return property("copilot.cli.agents." + agent + ".system");
+    }
+
+    /** A property of the service's {@code application.yml}. */
+    static String property(String key) {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+        String value = properties != null ? properties.getProperty(key) : null;
+        if (value == null) throw new IllegalArgumentException("no " + key + " in application.yml");
+        return value;
+    }
+
+    /** A complete artifact built from the agent outputs above. */
+    static ArtifactResponse artifact(ObjectMapper objectMapper) throws IOException {
+        return new ArtifactResponse(
+                new TechnicalAnalysis(TECHNICAL_ANALYSIS, 8_412L),
+                new RootCause(ROOT_CAUSE, 11_930L),
+                objectMapper.readValue(unfenced(BUG_REPORT_OUTPUT), BugReport.class),
+                objectMapper.readValue(unfenced(USER_STORY_OUTPUT), UserStory.class),
+                objectMapper.readValue(unfenced(SEVERITY_OUTPUT), SeverityAssessment.class),
+                31_877L);
+    }
+
+    private static String unfenced(String output) {
+        return output.substring(output.indexOf('{'), output.lastIndexOf('}') + 1);
+    }
+
+    private static String resource(String name) {
+        try (InputStream in = Payloads.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) throw new IllegalStateException(name + " not on the classpath");
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.hackathon.storywriter.bench;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.agent.SeverityAgent;
+import com.hackathon.storywriter.service.agent.TechnicalAnalyzerAgent;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
+import com.hackathon.storywriter.util.Strings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt construction as done by the agents: the event fields (TechnicalAnalyzer), or the event
+ * plus upstream agent output (Severity), fitted to the prompt's token budget by
+ * {@link ContextCompactor} with the configured {@code copilot.cli.context} settings, then filled
+ * into the configured {@code user-template}, compiled into a {@link PromptTemplate}.
+ *
+ * <p>{@code technicalAnalyzerPrompt} and {@code severityPrompt} materialize the prompt as one
+ * string, as the argv transport does; {@code severityPromptToStdin} writes its segments the
+ * way the stdin and pooled transports do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptBenchmark {
+
+    /** Failure source of the {@code requests.http} event used. */
+    @Param({"LOG", "JUNIT", "MOCK_MVC", "CONCORDION"})
+    public String source;
+
+    private TestFailureEvent event;
+    private PromptTemplate technicalAnalyzerTemplate;
+    private PromptTemplate severityTemplate;
+    private ContextCompactor.PromptBudget technicalAnalyzerBudget;
+    private ContextCompactor.PromptBudget severityBudget;
+    private final Writer stdin = Writer.nullWriter();
+
+    @Setup
+    public void setUp() {
+        event = Payloads.event(Mappers.objectMapper(false), source);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        technicalAnalyzerTemplate = new PromptTemplate("technical-analyzer",
+                Payloads.userTemplate("technical-analyzer"), TechnicalAnalyzerAgent.PARAMETERS, registry);
+        severityTemplate = new PromptTemplate("severity",
+                Payloads.userTemplate("severity"), SeverityAgent.PARAMETERS, registry);
+        ContextCompactor compactor = new ContextCompactor(new StandardEnvironment(), registry,
+                Boolean.parseBoolean(Payloads.property("copilot.cli.context.enabled")),
+                Integer.parseInt(Payloads.property("copilot.cli.context.max-prompt-tokens")),
+                Payloads.property("copilot.cli.context.app-packages"),
+                Payloads.property("copilot.cli.context.framework-packages"));
+        technicalAnalyzerBudget = compactor.budget("technical-analyzer", "gpt-4.1",
+                Payloads.systemPrompt("technical-analyzer").strip(), technicalAnalyzerTemplate);
+        severityBudget = compactor.budget("severity", "gpt-4.1",
+                Payloads.systemPrompt("severity").strip(), severityTemplate);
+    }
+
+    @Benchmark
+    public String technicalAnalyzerPrompt() {
+        String[] fitted = technicalAnalyzerBudget.fit(
+                Field.text(event.testName()),
+                Field.text(event.errorMessage()),
+                Field.stackTrace(event.stackTrace(), 3000),
+                Field.text(event.context()));
+        return technicalAnalyzerTemplate.render(
+                event.source(),
+                Strings.nvl(fitted[0]),
+                fitted[1],
+                Strings.nvl(fitted[2]),
+                Strings.nvl(fitted[3])).toString();
+    }
+
+    @Benchmark
+    public String severityPrompt() {
+        return severityPrompt(event).toString();
+    }
+
+    @Benchmark
+    public int severityPromptToStdin() throws IOException {
+        Prompt prompt = severityPrompt(event);
+        prompt.writeTo(stdin);
+        return prompt.length();
+    }
+
+    private Prompt severityPrompt(TestFailureEvent event) {
+        String[] fitted = severityBudget.fit(
+                Field.text(event.errorMessage()),
+                Field.text(event.testName()),
+                Field.text(event.context()),
+                Field.text(Payloads.TECHNICAL_ANALYSIS),
+                Field.text(Payloads.ROOT_CAUSE));
+        return severityTemplate.render(
+                fitted[0],
+                event.source(),
+                Strings.nvl(fitted[1]),
+                Strings.nvl(fitted[2]),
+                fitted[3],
+                fitted[4]);
+    }
+}
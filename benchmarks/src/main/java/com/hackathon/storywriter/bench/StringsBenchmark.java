@@ -0,0 +1,49 @@
+package com.hackathon.storywriter.bench;
+
+import com.hackathon.storywriter.util.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Strings#truncate} on stack traces, as run for every event when context compaction is
+ * off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringsBenchmark {
+
+    private String shortTrace;
+    private String longTrace;
+
+    @Setup
+    public void setUp() {
+        shortTrace = Payloads.event(Mappers.objectMapper(false), "LOG").stackTrace();
+        StringBuilder trace = new StringBuilder(shortTrace);
+        while (trace.length() < 20_000) trace.append("\n\tat ").append(shortTrace, 0, Math.min(120, shortTrace.length()));
+        longTrace = trace.toString();
+    }
+
+    @Benchmark
+    public String truncateWithinLimit() {
+        return Strings.truncate(shortTrace, 3000);
+    }
+
+    @Benchmark
+    public String truncateOverLimit() {
+        return Strings.truncate(longTrace, 3000);
+    }
+}
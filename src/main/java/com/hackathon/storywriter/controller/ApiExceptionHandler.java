@@ -0,0 +1,45 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps pipeline exceptions to HTTP responses for all {@code /api} controllers.
+ *
+ * <p>Spring matches handlers against the whole cause chain, so a
+ * {@link CapacityExceededException} wrapped by the orchestrator is still handled here.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    /**
+     * Admission control rejected an agent call: 429 when the launch queue is full,
+     * 503 when the caller waited too long in the queue or the model's circuit breaker is
+     * open. Both carry {@code Retry-After}.
+     *
+     * @param e the rejection
+     * @return 429 / 503 problem response
+     */
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<ProblemDetail> handleCapacityExceeded(CapacityExceededException e) {
+        HttpStatus status = e.reason() == CapacityExceededException.Reason.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Rejecting request with {}: {}", status.value(), e.getMessage());
+
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, e.getMessage());
+        problem.setTitle("Agent capacity exceeded");
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .body(problem);
+    }
+}
@@ -0,0 +1,90 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.ArtifactPage;
+import com.hackathon.storywriter.model.StoredArtifact;
+import com.hackathon.storywriter.service.store.ArtifactStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+/**
+ * Queries over previously returned artifacts.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code GET /api/artifacts} — stored artifacts filtered by fingerprint, test name,
+ *       severity and time, newest first, paginated with a cursor</li>
+ *   <li>{@code GET /api/artifacts/{id}} — one stored artifact</li>
+ * </ul>
+ */
+@Tag(name = "Artifacts", description = "Query artifacts returned earlier")
+@RestController
+@RequestMapping("/api")
+public class ArtifactController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final ArtifactStore artifactStore;
+
+    public ArtifactController(ArtifactStore artifactStore) {
+        this.artifactStore = artifactStore;
+    }
+
+    /**
+     * Returns one page of stored artifacts matching all given filters, newest first.
+     *
+     * @return 200 OK with {@link ArtifactPage}; pass its {@code nextCursor} as {@code cursor} for the next page
+     */
+    @Operation(summary = "Query stored artifacts",
+            description = "Filters stored artifacts by event fingerprint, test name, severity level and storage time; results are newest first and paginated with a cursor.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of artifacts, possibly empty",
+                    content = @Content(schema = @Schema(implementation = ArtifactPage.class)))
+    })
+    @GetMapping("/artifacts")
+    public ResponseEntity<ArtifactPage> queryArtifacts(
+            @Parameter(description = "Exact event fingerprint") @RequestParam(required = false) String fingerprint,
+            @Parameter(description = "Exact test name") @RequestParam(required = false) String testName,
+            @Parameter(description = "Severity level, case-insensitive", example = "Critical")
+            @RequestParam(required = false) String severity,
+            @Parameter(description = "Stored at or after (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Stored before (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size (max 200)") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(artifactStore.query(new ArtifactStore.Query(
+                fingerprint, testName, severity, from, to, cursor, Math.min(limit, MAX_LIMIT))));
+    }
+
+    /**
+     * Returns the stored artifact with {@code id}.
+     *
+     * @param id store id
+     * @return 200 OK with {@link StoredArtifact}, or 404 when unknown or compacted away
+     */
+    @Operation(summary = "Get a stored artifact")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Artifact found",
+                    content = @Content(schema = @Schema(implementation = StoredArtifact.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown id, or removed by compaction",
+                    content = @Content)
+    })
+    @GetMapping("/artifacts/{id}")
+    public ResponseEntity<StoredArtifact> getArtifact(@PathVariable long id) {
+        return ResponseEntity.of(artifactStore.get(id));
+    }
+}
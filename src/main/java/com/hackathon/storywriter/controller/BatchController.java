@@ -0,0 +1,119 @@
+package com.hackathon.storywriter.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hackathon.storywriter.model.BatchResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.batch.BatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Batch ingestion of failure events.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code POST /api/events/batch} — submit a JSON array or an NDJSON stream
+ *       ({@code application/x-ndjson}, one event per line) of test failure events</li>
+ * </ul>
+ */
+@Tag(name = "Events", description = "Submit test failure events and receive AI-generated artifacts")
+@RestController
+@RequestMapping("/api")
+public class BatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchController.class);
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final BatchService batchService;
+    private final ObjectReader eventReader;
+    private final Validator validator;
+    private final int maxEvents;
+
+    public BatchController(
+            BatchService batchService,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${pipeline.batch.max-events:10000}") int maxEvents) {
+        this.batchService = batchService;
+        this.eventReader = objectMapper.readerFor(TestFailureEvent.class);
+        this.validator = validator;
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Clusters the submitted events by stack-trace signature, runs the pipeline once per
+     * cluster and returns per-cluster artifacts with a cluster pointer for every event.
+     *
+     * @param body JSON array or NDJSON stream of {@link TestFailureEvent}s
+     * @return 200 OK with {@link BatchResponse}, or 400 if any event is invalid
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(
+            summary = "Process a batch of test failure events",
+            description = "Accepts a JSON array or NDJSON stream of events, clusters them by stack-trace signature and runs the pipeline once per cluster."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed",
+                    content = @Content(schema = @Schema(implementation = BatchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Malformed body, invalid event, or too many events",
+                    content = @Content)
+    })
+    @PostMapping(value = "/events/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResponse> processBatch(InputStream body) throws IOException {
+        List<TestFailureEvent> events = readEvents(body);
+        log.info("POST /api/events/batch received: {} events", events.size());
+        return ResponseEntity.ok(batchService.process(events));
+    }
+
+    /**
+     * Reads either a root-level JSON array or a whitespace-separated sequence of objects,
+     * validating every event as it is read.
+     */
+    private List<TestFailureEvent> readEvents(InputStream body) throws IOException {
+        List<TestFailureEvent> events = new ArrayList<>();
+        try (MappingIterator<TestFailureEvent> it = eventReader.readValues(body)) {
+            while (it.hasNextValue()) {
+                TestFailureEvent event = it.nextValue();
+                Set<ConstraintViolation<TestFailureEvent>> violations = validator.validate(event);
+                if (!violations.isEmpty()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "event[" + events.size() + "]: " + violations.iterator().next().getMessage());
+                }
+                events.add(event);
+                if (events.size() > maxEvents) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "batch exceeds " + maxEvents + " events");
+                }
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "event[" + events.size() + "]: " + e.getOriginalMessage());
+        }
+        return events;
+    }
+}
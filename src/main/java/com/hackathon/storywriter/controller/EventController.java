@@ -1,8 +1,14 @@
 package com.hackathon.storywriter.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.JobStatus;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.PipelineListener;
+import com.hackathon.storywriter.service.job.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,8 +18,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * REST entry point for the story-writer pipeline.
@@ -21,6 +36,10 @@ import org.springframework.web.bind.annotation.*;
  * <p>Endpoints:
  * <ul>
  *   <li>{@code POST /api/events} — submit a test failure event and receive a full artifact JSON</li>
+ *   <li>{@code POST /api/events?async=true} — submit an event as a background job (202 + job id);
+ *       poll it via {@link JobController}</li>
+ *   <li>{@code POST /api/events/stream} (or {@code POST /api/events} with
+ *       {@code Accept: text/event-stream}) — stream each artifact section as a Server-Sent Event</li>
  *   <li>{@code GET  /_system/ping} — simple liveness check (see {@link SystemController})</li>
  * </ul>
  */
@@ -32,9 +51,20 @@ public class EventController {
     private static final Logger log = LoggerFactory.getLogger(EventController.class);
 
     private final OrchestratorService orchestratorService;
+    private final JobService jobService;
+    private final Duration streamTimeout;
+    /** Single-line JSON writer: SSE {@code data:} fields must not contain raw newlines. */
+    private final ObjectWriter sseWriter;
 
-    public EventController(OrchestratorService orchestratorService) {
+    public EventController(
+            OrchestratorService orchestratorService,
+            JobService jobService,
+            ObjectMapper objectMapper,
+            @Value("${pipeline.stream.timeout:5m}") Duration streamTimeout) {
         this.orchestratorService = orchestratorService;
+        this.jobService = jobService;
+        this.streamTimeout = streamTimeout;
+        this.sseWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
     }
 
     /**
@@ -64,7 +94,11 @@ public class EventController {
                     content = @Content(schema = @Schema(implementation = ArtifactResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request body (validation failed)",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Agent launch queue is full; retry after the Retry-After delay",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal error during agent execution",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Timed out waiting for agent capacity; retry after the Retry-After delay",
                     content = @Content)
     })
     @PostMapping("/events")
@@ -73,4 +107,104 @@ public class EventController {
         ArtifactResponse response = orchestratorService.process(event);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Accepts a test-failure event as an asynchronous job and returns immediately.
+     *
+     * <p>The response carries the job id and a {@code Location} header pointing at
+     * {@code GET /api/jobs/{id}}, which reports status and partial results.
+     *
+     * @param event validated test failure event payload
+     * @return 202 Accepted with the initial {@link JobStatus}
+     */
+    @Operation(
+            summary = "Process a test failure event asynchronously",
+            description = "Starts the multi-agent pipeline in the background and returns 202 with a job id; poll GET /api/jobs/{id} for status and partial results."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Job accepted",
+                    content = @Content(schema = @Schema(implementation = JobStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request body (validation failed)",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Job store is full of running jobs; retry after the Retry-After delay",
+                    content = @Content)
+    })
+    @PostMapping(value = "/events", params = "async=true")
+    public ResponseEntity<JobStatus> submitEvent(@Valid @RequestBody TestFailureEvent event) {
+        log.info("POST /api/events?async=true received: source={}, test={}", event.source(), event.testName());
+        JobStatus job = jobService.submit(event);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    /**
+     * Runs the pipeline and streams each artifact section as a Server-Sent Event the moment
+     * its agent finishes.
+     *
+     * <p>Event names are the {@link ArtifactResponse} property names ({@code technicalAnalysis},
+     * {@code rootCause}, {@code bugReport}, {@code userStory}, {@code severity}); each payload is
+     * the section record including its {@code durationMs}. The stream ends with a
+     * {@code complete} event carrying {@code totalMs} and {@code sectionStatus} (sections that timed
+     * out, failed or were skipped are never sent), or an {@code error} event.
+     *
+     * <p>Fields an agent reports before it finishes arrive earlier as {@code preview} events
+     * with {@code section}, {@code field} and {@code value}, e.g. the severity {@code level}
+     * while the model is still writing its rationale. The section event that follows is
+     * authoritative.
+     *
+     * @param event validated test failure event payload
+     * @return SSE stream of artifact sections
+     */
+    @Operation(
+            summary = "Process a test failure event and stream sections",
+            description = "Runs the multi-agent pipeline and pushes each artifact section as a Server-Sent Event as soon as its agent finishes."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream of artifact sections",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+            @ApiResponse(responseCode = "400", description = "Invalid request body (validation failed)",
+                    content = @Content)
+    })
+    @PostMapping(value = {"/events/stream", "/events"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvent(@Valid @RequestBody TestFailureEvent event) {
+        log.info("POST /api/events (stream) received: source={}, test={}", event.source(), event.testName());
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+        PipelineListener listener = new PipelineListener() {
+            @Override
+            public void onSection(String section, Object value) {
+                send(emitter, section, value);
+            }
+
+            @Override
+            public void onField(String section, String field, Object value) {
+                Map<String, Object> preview = new LinkedHashMap<>();
+                preview.put("section", section);
+                preview.put("field", field);
+                preview.put("value", value);
+                send(emitter, "preview", preview);
+            }
+        };
+        orchestratorService.submit(event, listener)
+                .whenComplete((artifact, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        send(emitter, "error", Map.of("message", String.valueOf(cause.getMessage())));
+                    } else {
+                        send(emitter, "complete", Map.of(
+                                "totalMs", artifact.totalMs(), "sectionStatus", artifact.sectionStatus()));
+                    }
+                    emitter.complete();
+                });
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(sseWriter.writeValueAsString(data)));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE client gone, dropping '{}' event: {}", name, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.JobStatus;
+import com.hackathon.storywriter.service.job.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Status endpoint for asynchronous pipeline jobs.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code GET /api/jobs/{id}} — status and partial results of a job started with
+ *       {@code POST /api/events?async=true}</li>
+ * </ul>
+ */
+@Tag(name = "Jobs", description = "Poll asynchronous pipeline jobs")
+@RestController
+@RequestMapping("/api")
+public class JobController {
+
+    private static final Logger log = LoggerFactory.getLogger(JobController.class);
+
+    private final JobService jobService;
+
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Returns the current status of a job, including every section finished so far.
+     *
+     * @param id job identifier
+     * @return 200 OK with {@link JobStatus}, or 404 when the job is unknown or expired
+     */
+    @Operation(summary = "Get job status", description = "Returns status, partial sections and, once finished, the full artifact of an asynchronous job.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job found",
+                    content = @Content(schema = @Schema(implementation = JobStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job id",
+                    content = @Content)
+    })
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable String id) {
+        log.debug("GET /api/jobs/{}", id);
+        return ResponseEntity.of(jobService.get(id));
+    }
+}
@@ -0,0 +1,74 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.IngestResponse;
+import com.hackathon.storywriter.service.ingest.LogIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ingestion of raw application logs.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code POST /api/logs} — upload a plain or gzip log; its error entries are turned into
+ *       {@code LOG} events, clustered by stack-trace signature and run through the pipeline</li>
+ * </ul>
+ */
+@Tag(name = "Events", description = "Submit test failure events and receive AI-generated artifacts")
+@RestController
+@RequestMapping("/api")
+public class LogController {
+
+    private static final Logger log = LoggerFactory.getLogger(LogController.class);
+
+    private static final String APPLICATION_GZIP_VALUE = "application/gzip";
+
+    private final LogIngestService logIngestService;
+
+    public LogController(LogIngestService logIngestService) {
+        this.logIngestService = logIngestService;
+    }
+
+    /**
+     * Streams the uploaded log through the entry parser and returns one artifact per cluster of
+     * error entries. The body is read as it arrives and never held in memory.
+     *
+     * @param name log name recorded in event context; defaults to {@code upload}
+     * @param body plain or gzip log (gzip is detected from its magic bytes)
+     * @return 200 OK with {@link IngestResponse}
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(
+            summary = "Ingest a raw application log",
+            description = "Accepts a plain or gzip log in the log4j2 pattern, turns ERROR entries (with their stack traces) into LOG events, clusters them by stack-trace signature and runs the pipeline once per cluster."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Log ingested",
+                    content = @Content(schema = @Schema(implementation = IngestResponse.class)))
+    })
+    @PostMapping(value = "/logs", consumes = {MediaType.TEXT_PLAIN_VALUE, APPLICATION_GZIP_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<IngestResponse> ingestLog(
+            @Parameter(description = "Log name recorded in event context", example = "story-writer.log")
+            @RequestParam(defaultValue = "upload") String name,
+            InputStream body) throws IOException {
+        log.info("POST /api/logs received: {}", name);
+        return ResponseEntity.ok(logIngestService.ingest(body, name));
+    }
+}
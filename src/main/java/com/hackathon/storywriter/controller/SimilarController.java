@@ -0,0 +1,74 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.SimilarResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.similar.SimilarFailureIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Lookup of previously triaged failures that resemble a new one.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code GET /api/events/similar} — nearest previous artifacts for a stack trace (see
+ *       {@link SimilarFailureIndex})</li>
+ * </ul>
+ */
+@Tag(name = "Events", description = "Submit test failure events and receive AI-generated artifacts")
+@RestController
+@RequestMapping("/api")
+public class SimilarController {
+
+    private final SimilarFailureIndex similarIndex;
+
+    public SimilarController(SimilarFailureIndex similarIndex) {
+        this.similarIndex = similarIndex;
+    }
+
+    /**
+     * Returns the artifacts of the indexed failures nearest to the given stack trace, so an
+     * earlier triage can be reused instead of running the pipeline again.
+     *
+     * @param stackTrace   stack trace to match; frames are normalized before matching
+     * @param errorMessage error message, used when the stack trace has no frames
+     * @param limit        maximum number of matches
+     * @param maxDistance  maximum SimHash distance (0 = same normalized trace)
+     * @return 200 OK with {@link SimilarResponse}, or 400 when neither input is given
+     */
+    @Operation(
+            summary = "Find previous artifacts for similar failures",
+            description = "Normalizes the stack trace, fingerprints it and returns the nearest previously triaged failures from the in-memory LSH index."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Nearest matches, possibly none",
+                    content = @Content(schema = @Schema(implementation = SimilarResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Neither stackTrace nor errorMessage given",
+                    content = @Content)
+    })
+    @GetMapping("/events/similar")
+    public ResponseEntity<SimilarResponse> findSimilar(
+            @Parameter(description = "Stack trace to match") @RequestParam(required = false) String stackTrace,
+            @Parameter(description = "Error message, used when the stack trace has no frames")
+            @RequestParam(required = false) String errorMessage,
+            @Parameter(description = "Maximum number of matches") @RequestParam(defaultValue = "5") int limit,
+            @Parameter(description = "Maximum SimHash distance") @RequestParam(defaultValue = "64") int maxDistance) {
+        if ((stackTrace == null || stackTrace.isBlank()) && (errorMessage == null || errorMessage.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stackTrace or errorMessage is required");
+        }
+        TestFailureEvent query = new TestFailureEvent(null, null, errorMessage, stackTrace, null);
+        return ResponseEntity.ok(similarIndex.nearest(query, Math.min(limit, 100), maxDistance));
+    }
+}
@@ -0,0 +1,18 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One page of an artifact store query, newest first.
+ */
+@Schema(description = "Page of stored artifacts, newest first")
+public record ArtifactPage(
+
+        @Schema(description = "Artifacts on this page")
+        List<StoredArtifact> items,
+
+        @Schema(description = "Pass as cursor to get the next page; null on the last page")
+        Long nextCursor
+) {}
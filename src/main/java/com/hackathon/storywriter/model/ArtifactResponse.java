@@ -2,8 +2,16 @@ package com.hackathon.storywriter.model;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Final aggregated artifact produced by the orchestrator from all sub-agent outputs.
+ *
+ * <p>The artifact may be partial: a section whose agent timed out, failed or was skipped
+ * is {@code null}, and {@link #sectionStatus()} tells why. {@link #generatedBy()} tells
+ * whether the agents wrote it or a deterministic triage rule did.
  */
 @Schema(description = "Aggregated artifact produced by the multi-agent pipeline")
 public record ArtifactResponse(
@@ -24,9 +32,63 @@ public record ArtifactResponse(
         SeverityAssessment severity,
 
         @Schema(description = "Total wall-clock time for the full pipeline (ms)")
-        long totalMs
+        long totalMs,
+
+        @Schema(description = "Outcome of each section, keyed by section name (technicalAnalysis, rootCause, ...)")
+        Map<String, SectionStatus> sectionStatus,
+
+        @Schema(description = "Producer of the artifact: \"agents\", or \"rule:<id>\" for a deterministic triage rule",
+                example = "agents")
+        String generatedBy
 ) {
 
+    /** {@link #generatedBy()} of artifacts written by the agent pipeline. */
+    public static final String GENERATED_BY_AGENTS = "agents";
+
+    /** Prefix of {@link #generatedBy()} for artifacts emitted by a triage rule. */
+    public static final String GENERATED_BY_RULE_PREFIX = "rule:";
+
+    public ArtifactResponse {
+        sectionStatus = sectionStatus != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(sectionStatus))
+                : Map.of();
+        if (generatedBy == null) generatedBy = GENERATED_BY_AGENTS;
+    }
+
+    /**
+     * Creates a complete artifact; every non-null section is marked {@link SectionStatus#OK}.
+     */
+    public ArtifactResponse(TechnicalAnalysis technicalAnalysis, RootCause rootCause, BugReport bugReport,
+                            UserStory userStory, SeverityAssessment severity, long totalMs) {
+        this(technicalAnalysis, rootCause, bugReport, userStory, severity, totalMs, GENERATED_BY_AGENTS);
+    }
+
+    /**
+     * Creates a complete artifact produced by {@code generatedBy}; every non-null section is
+     * marked {@link SectionStatus#OK}.
+     */
+    public ArtifactResponse(TechnicalAnalysis technicalAnalysis, RootCause rootCause, BugReport bugReport,
+                            UserStory userStory, SeverityAssessment severity, long totalMs, String generatedBy) {
+        this(technicalAnalysis, rootCause, bugReport, userStory, severity, totalMs,
+                okStatus(technicalAnalysis, rootCause, bugReport, userStory, severity), generatedBy);
+    }
+
+    private static Map<String, SectionStatus> okStatus(Object... sections) {
+        String[] names = {"technicalAnalysis", "rootCause", "bugReport", "userStory", "severity"};
+        Map<String, SectionStatus> status = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (sections[i] != null) status.put(names[i], SectionStatus.OK);
+        }
+        return status;
+    }
+
+    /**
+     * Outcome of one section.
+     */
+    @Schema(description = "Section outcome: OK, TIMEOUT (agent exceeded its deadline), FAILED, or SKIPPED (disabled, "
+            + "not applicable to the source, or an upstream agent produced nothing)")
+    public enum SectionStatus { OK, TIMEOUT, FAILED, SKIPPED }
+
     /**
      * Technical analysis produced by TechnicalAnalyzerAgent.
      */
@@ -0,0 +1,45 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Result of a batch submission: one artifact per stack-trace cluster, plus a pointer
+ * from every submitted event to its cluster.
+ */
+@Schema(description = "Batch result: one artifact per failure cluster and the cluster of each event")
+public record BatchResponse(
+
+        @Schema(description = "Clusters of events sharing a stack-trace signature, each with its artifact")
+        List<Cluster> clusters,
+
+        @Schema(description = "Per-event results in submission order")
+        List<EventResult> events,
+
+        @Schema(description = "Total wall-clock time for the batch (ms)")
+        long totalMs
+) {
+
+    /**
+     * Events sharing a stack-trace signature; the pipeline ran once for the whole cluster.
+     */
+    @Schema(description = "Cluster of events with the same stack-trace signature")
+    public record Cluster(
+            @Schema(description = "Cluster identifier (short stack-trace signature)") String clusterId,
+            @Schema(description = "Number of events in the cluster") int size,
+            @Schema(description = "Index of the event the pipeline ran on") int representativeIndex,
+            @Schema(description = "Artifact produced for the representative event; null when it failed") ArtifactResponse artifact,
+            @Schema(description = "Failure message when the pipeline failed for this cluster") String error
+    ) {}
+
+    /**
+     * Points one submitted event to the cluster that holds its artifact.
+     */
+    @Schema(description = "Per-event pointer to its cluster")
+    public record EventResult(
+            @Schema(description = "Zero-based position of the event in the request") int index,
+            @Schema(description = "Test name of the event") String testName,
+            @Schema(description = "Cluster holding the artifact for this event") String clusterId
+    ) {}
+}
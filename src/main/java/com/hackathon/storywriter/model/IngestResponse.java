@@ -0,0 +1,44 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Result of ingesting a raw application log: the error entries found in it, clustered by
+ * stack-trace signature, with one artifact per cluster.
+ */
+@Schema(description = "Log ingestion result: error entries clustered by stack-trace signature, one artifact per cluster")
+public record IngestResponse(
+
+        @Schema(description = "Name of the ingested log", example = "story-writer-2026-02-01-1.log.gz")
+        String origin,
+
+        @Schema(description = "Lines read")
+        long lines,
+
+        @Schema(description = "Error entries found (one event each)")
+        long entries,
+
+        @Schema(description = "Clusters of entries sharing a stack-trace signature, each with its artifact")
+        List<Cluster> clusters,
+
+        @Schema(description = "Entries not processed because the cluster limit was reached")
+        long droppedEntries,
+
+        @Schema(description = "Total wall-clock time for the ingestion (ms)")
+        long totalMs
+) {
+
+    /**
+     * Entries sharing a stack-trace signature; the pipeline ran once, on the first of them.
+     */
+    @Schema(description = "Cluster of log entries with the same stack-trace signature")
+    public record Cluster(
+            @Schema(description = "Cluster identifier (short stack-trace signature)") String clusterId,
+            @Schema(description = "Number of entries in the cluster") long size,
+            @Schema(description = "Where the first entry starts, as log:line", example = "app.log:1042") String firstSeen,
+            @Schema(description = "Artifact produced for the first entry; null when it failed") ArtifactResponse artifact,
+            @Schema(description = "Failure message when the pipeline failed for this cluster") String error
+    ) {}
+}
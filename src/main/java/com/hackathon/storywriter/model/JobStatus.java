@@ -0,0 +1,49 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Snapshot of an asynchronous pipeline job.
+ *
+ * @param jobId       job identifier returned by {@code POST /api/events?async=true}
+ * @param state       lifecycle state
+ * @param submittedAt time the job was accepted
+ * @param completedAt time the job finished, {@code null} while running
+ * @param sections    sections produced so far, keyed by {@link ArtifactResponse} property name
+ * @param artifact    the full artifact once the job succeeded
+ * @param error       failure message once the job failed
+ */
+@Schema(description = "Status and (partial) results of an asynchronous pipeline job")
+public record JobStatus(
+
+        @Schema(description = "Job identifier", example = "3f2b9c1e-0d5a-4c1e-9f0a-1b2c3d4e5f60")
+        String jobId,
+
+        @Schema(description = "Lifecycle state of the job")
+        State state,
+
+        @Schema(description = "Time the job was accepted")
+        Instant submittedAt,
+
+        @Schema(description = "Time the job finished; null while running")
+        Instant completedAt,
+
+        @Schema(description = "Sections finished so far, keyed by ArtifactResponse property name")
+        Map<String, Object> sections,
+
+        @Schema(description = "Full artifact once the job has succeeded")
+        ArtifactResponse artifact,
+
+        @Schema(description = "Failure message once the job has failed")
+        String error
+) {
+    @Schema(description = "Lifecycle state of an asynchronous job")
+    public enum State {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
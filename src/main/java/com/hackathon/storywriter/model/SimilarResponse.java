@@ -0,0 +1,35 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Previous artifacts whose failures are the nearest to a queried stack trace.
+ */
+@Schema(description = "Nearest previous artifacts for a stack trace, nearest first")
+public record SimilarResponse(
+
+        @Schema(description = "Short exact signature of the queried stack trace")
+        String signature,
+
+        @Schema(description = "Matches, nearest first; empty when nothing is within the distance limit")
+        List<Match> matches,
+
+        @Schema(description = "Time spent in the index lookup (µs)")
+        long lookupMicros
+) {
+
+    /**
+     * One previously triaged failure near the query.
+     */
+    @Schema(description = "Previously triaged failure near the query")
+    public record Match(
+            @Schema(description = "Short exact signature of the stored failure") String signature,
+            @Schema(description = "SimHash Hamming distance to the query; 0 for the same normalized trace") int distance,
+            @Schema(description = "Test name of the stored failure") String testName,
+            @Schema(description = "Artifact produced for the stored failure") ArtifactResponse artifact,
+            @Schema(description = "When the artifact was indexed") Instant storedAt
+    ) {}
+}
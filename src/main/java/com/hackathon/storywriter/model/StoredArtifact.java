@@ -0,0 +1,30 @@
+package com.hackathon.storywriter.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * An artifact as kept in the artifact store, with the keys it can be queried by.
+ */
+@Schema(description = "Stored artifact with the event keys it is indexed by")
+public record StoredArtifact(
+
+        @Schema(description = "Store-assigned id, increasing in storage order")
+        long id,
+
+        @Schema(description = "When the artifact was stored")
+        Instant storedAt,
+
+        @Schema(description = "Fingerprint of the event the artifact was produced for")
+        String fingerprint,
+
+        @Schema(description = "Test name of the event", example = "com.example.PaymentServiceTest#shouldProcessPayment")
+        String testName,
+
+        @Schema(description = "Origin of the failure")
+        TestFailureEvent.FailureSource source,
+
+        @Schema(description = "The artifact returned for the event")
+        ArtifactResponse artifact
+) {}
@@ -1,38 +1,127 @@
 package com.hackathon.storywriter.service;
 
+import com.hackathon.storywriter.service.cache.PromptMemoizer;
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
+import com.hackathon.storywriter.service.limit.LaunchGate;
+import com.hackathon.storywriter.service.limit.ModelCircuitBreakers;
+import com.hackathon.storywriter.service.llm.CopilotCliException;
+import com.hackathon.storywriter.service.llm.LlmBackend;
+import com.hackathon.storywriter.service.llm.OutputListener;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.util.LatencyWindow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
- * Thin wrapper around the {@code copilot} CLI.
+ * Entry point for all agent calls to the {@code copilot} CLI.
  *
  * <p>Each agent call combines the system persona and the user prompt into a
- * single text block and invokes:
- * <pre>copilot --model &lt;model&gt; -s -p "&lt;combined prompt&gt;" --yolo</pre>
- * Flags used:
- * <ul>
- *   <li>{@code --model} — LLM model passed by each individual agent</li>
- *   <li>{@code -s} — silent / suppress interactive UI</li>
- *   <li>{@code -p} — non-interactive prompt</li>
- *   <li>{@code --yolo} — skip confirmation prompts, run non-interactively</li>
- * </ul>
+ * single text block and hands it to the configured {@link LlmBackend}:
+ * {@link com.hackathon.storywriter.service.llm.SpawnCopilotBackend} (default) starts one
+ * {@code copilot} process per call, while
+ * {@link com.hackathon.storywriter.service.llm.PooledCopilotBackend}
+ * ({@code copilot.cli.backend=pooled}) reuses long-lived worker processes.
+ *
+ * <p>Responses are memoized by {@link PromptMemoizer}, so byte-identical prompts for
+ * the same model reuse an earlier (or concurrently running) CLI call. Every actual
+ * call holds a {@link LaunchGate} permit, which bounds concurrent
+ * {@code copilot} calls globally and per model.
+ *
+ * <p><b>Hedging:</b> when a call has not answered within {@code copilot.cli.hedge.percentile}
+ * of the recent latencies of the same agent and model, an identical second call is started
+ * if a launch permit is free right away. The first successful answer wins and the other call
+ * is cancelled, which kills its process.
+ *
+ * <p><b>Retries:</b> a call whose CLI exits non-zero ({@link CopilotCliException}) is retried
+ * up to {@code copilot.cli.retry.max-attempts} times in total, sleeping a random time of up to
+ * {@code backoff × 2^(attempt-1)} (capped at {@code max-backoff}) between attempts.
+ *
+ * <p><b>Circuit breaking:</b> every call is admitted by {@link ModelCircuitBreakers} first.
+ * While a model's breaker is open, calls fail fast with
+ * {@link CapacityExceededException.Reason#CIRCUIT_OPEN}, or are routed to the model's
+ * configured fallback model. Call outcomes also drive the adaptive per-model limit of the
+ * {@link LaunchGate}.
+ *
+ * <p>Prompt and response lengths of calls that reach the backend are recorded per agent and
+ * model ({@code copilot.cli.prompt.size}, {@code copilot.cli.response.size}); memoized
+ * answers are not counted.
  */
 @Service
 public class CopilotCliService {
 
     private static final Logger log = LoggerFactory.getLogger(CopilotCliService.class);
 
-    @Value("${copilot.cli.timeout-seconds:60}")
-    private int timeoutSeconds;
+    private final PromptMemoizer promptMemoizer;
+    private final LaunchGate launchGate;
+    private final LlmBackend backend;
+    private final ModelCircuitBreakers breakers;
+    private final MeterRegistry meterRegistry;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final int hedgeMinSamples;
+    private final int hedgeWindow;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+
+    /** Recent call latencies keyed by agent role and model. */
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    /** Runs the individual calls so that the caller can wait for whichever answers first. */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CopilotCliService(
+            PromptMemoizer promptMemoizer,
+            LaunchGate launchGate,
+            LlmBackend backend,
+            ModelCircuitBreakers breakers,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.hedge.enabled:true}") boolean hedgingEnabled,
+            @Value("${copilot.cli.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${copilot.cli.hedge.min-samples:20}") int hedgeMinSamples,
+            @Value("${copilot.cli.hedge.window:200}") int hedgeWindow,
+            @Value("${copilot.cli.retry.max-attempts:3}") int maxAttempts,
+            @Value("${copilot.cli.retry.backoff:500ms}") Duration backoff,
+            @Value("${copilot.cli.retry.max-backoff:5s}") Duration maxBackoff) {
+        this.promptMemoizer = promptMemoizer;
+        this.launchGate = launchGate;
+        this.backend = backend;
+        this.breakers = breakers;
+        this.meterRegistry = meterRegistry;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinSamples = Math.max(1, hedgeMinSamples);
+        this.hedgeWindow = hedgeWindow;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
 
     /**
      * Sends {@code systemMsg} + {@code userPrompt} to the Copilot CLI and returns the
@@ -43,62 +132,247 @@ public class CopilotCliService {
      * @param systemMsg  System message that configures the agent's persona
      * @param userPrompt Constructed user prompt with failure context
      * @return AI-generated text response
+     * @throws CapacityExceededException when no launch permit could be obtained, or the model's
+     *         circuit breaker is open and no fallback model is configured
+     * @throws CopilotCliException when the CLI still exits non-zero after all retries
      */
     public String ask(String agentRole, String model, String systemMsg, String userPrompt) {
-        log.info("[{}] Invoking copilot CLI (model={})", agentRole, model);
-        return askViaCopilotCli(agentRole, model, systemMsg, userPrompt);
+        return ask(agentRole, model, systemMsg, Prompt.of(userPrompt.strip()));
+    }
+
+    /**
+     * Same as {@link #ask(String, String, String, String)} for a prompt rendered by a
+     * {@link com.hackathon.storywriter.service.llm.PromptTemplate}; its segments reach the
+     * backend without being joined.
+     */
+    public String ask(String agentRole, String model, String systemMsg, Prompt userPrompt) {
+        return ask(agentRole, model, systemMsg, userPrompt, () -> OutputListener.NONE);
+    }
+
+    /**
+     * Same as {@link #ask(String, String, String, Prompt)}, streaming the output of every
+     * backend call to a listener while the call runs.
+     *
+     * <p>Each call gets its own listener from {@code listeners}, so a hedge or a retry never
+     * interleaves with another call's output. Memoized answers are not streamed.
+     *
+     * @param listeners creates the listener of one backend call
+     */
+    public String ask(String agentRole, String model, String systemMsg, Prompt userPrompt,
+                      Supplier<? extends OutputListener> listeners) {
+        try {
+            return promptMemoizer.memoize(agentRole, model, systemMsg, userPrompt,
+                    () -> askViaCopilotCli(agentRole, model, systemMsg, userPrompt, listeners));
+        } catch (CapacityExceededException e) {
+            String fallback = breakers.fallbackModel(model);
+            if (e.reason() != CapacityExceededException.Reason.CIRCUIT_OPEN || fallback == null) throw e;
+            log.warn("[{}] circuit for model {} is open, falling back to {}", agentRole, model, fallback);
+            Counter.builder("copilot.cli.fallbacks")
+                    .tag("model", model)
+                    .tag("fallback", fallback)
+                    .description("copilot calls routed to a fallback model while the model's circuit was open")
+                    .register(meterRegistry)
+                    .increment();
+            // Memoized under the fallback model, so degraded answers are not served for the original model later.
+            return promptMemoizer.memoize(agentRole, fallback, systemMsg, userPrompt,
+                    () -> askViaCopilotCli(agentRole, fallback, systemMsg, userPrompt, listeners));
+        }
     }
 
     // -------------------------------------------------------------------------
     // copilot CLI
     // -------------------------------------------------------------------------
 
-    private String askViaCopilotCli(String agentRole, String model, String systemMsg, String userPrompt) {
-        // Combine system persona and user request into a single prompt.
-        String combinedPrompt = systemMsg.strip() + "\n\n" + userPrompt.strip();
+    private String askViaCopilotCli(String agentRole, String model, String systemMsg, Prompt userPrompt,
+                                    Supplier<? extends OutputListener> listeners) {
+        // System persona and user request, delivered as segments without concatenating them.
+        Prompt prompt = userPrompt.prepend(systemMsg.strip(), "\n\n");
 
         log.debug("[{}] ── INPUT PROMPT ─────────────────────────────────────\n{}\n──────────────────────────────────────────────────────",
-                agentRole, combinedPrompt);
+                agentRole, prompt);
+
+        recordSize("copilot.cli.prompt.size", "Prompt length per copilot call", agentRole, model, prompt.length());
+        String stdout = withRetries(agentRole, model, prompt, listeners);
+        recordSize("copilot.cli.response.size", "Response length per copilot call", agentRole, model, stdout.length());
+
+        log.debug("[{}] ── OUTPUT ({} chars) ────────────────────────────────\n{}\n──────────────────────────────────────────────────────",
+                agentRole, stdout.length(), stdout);
+        return stdout;
+    }
 
+    private String withRetries(String agentRole, String model, Prompt prompt, Supplier<? extends OutputListener> listeners) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return hedged(agentRole, model, prompt, listeners);
+            } catch (CopilotCliException e) {
+                if (attempt >= maxAttempts) throw e;
+                long pauseMs = jitteredBackoffMs(attempt);
+                log.warn("[{}] copilot exited {} (attempt {}/{}), retrying in {}ms",
+                        agentRole, e.exitCode(), attempt, maxAttempts, pauseMs);
+                Counter.builder("copilot.cli.retries")
+                        .tag("model", model)
+                        .tag("exit", Integer.toString(e.exitCode()))
+                        .description("copilot calls retried after a non-zero exit code")
+                        .register(meterRegistry)
+                        .increment();
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("[" + agentRole + "] interrupted while backing off", ie);
+                }
+            }
+        }
+    }
+
+    /** "Full jitter": uniformly random in [0, min(max-backoff, backoff × 2^(attempt-1))]. */
+    private long jitteredBackoffMs(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Runs one call, hedging it with a second identical call when it is slower than the
+     * configured percentile, and returns the first successful answer.
+     */
+    private String hedged(String agentRole, String model, Prompt prompt, Supplier<? extends OutputListener> listeners) {
+        long start = System.nanoTime();
+        Duration hedgeAfter = hedgeDelay(agentRole, model);
+        ExecutorCompletionService<String> race = new ExecutorCompletionService<>(executor);
+        List<Future<String>> calls = new ArrayList<>(2);
         try {
-            ProcessBuilder pb = new ProcessBuilder(
-                    "copilot", "--model", model, "-s", "-p", combinedPrompt, "--yolo"
-            );
-            pb.redirectErrorStream(false);
-
-            Process process = pb.start();
-            String stdout = readStream(process.getInputStream());
-            String stderr = readStream(process.getErrorStream());
-
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                throw new RuntimeException("[" + agentRole + "] copilot timed out after " + timeoutSeconds + "s");
+            breakers.admit(model);
+            LaunchGate.Permit permit;
+            try {
+                permit = launchGate.acquire(model);
+            } catch (RuntimeException | InterruptedException e) {
+                breakers.onIgnored(model);
+                throw e;
             }
+            log.info("[{}] Invoking copilot CLI (model={})", agentRole, model);
+            calls.add(race.submit(() -> call(agentRole, model, prompt, listeners.get(), permit)));
 
-            if (process.exitValue() != 0) {
-                log.error("[{}] copilot exited {}: {}", agentRole, process.exitValue(), stderr);
-                throw new RuntimeException("[" + agentRole + "] copilot failed: " + stderr);
+            int running = 1;
+            ExecutionException failure = null;
+            while (running > 0) {
+                Future<String> done = hedgeAfter != null
+                        ? race.poll(hedgeAfter.toNanos() - (System.nanoTime() - start), TimeUnit.NANOSECONDS)
+                        : race.take();
+                if (done == null) {
+                    hedgeAfter = null;
+                    if (startHedge(agentRole, model, prompt, listeners, race, calls)) running++;
+                    continue;
+                }
+                running--;
+                try {
+                    String output = done.get();
+                    recordCall(agentRole, model, start, calls.size() > 1, done == calls.get(calls.size() - 1));
+                    return output;
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e;
+                }
             }
+            throw unwrap(failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("[" + agentRole + "] interrupted while waiting for copilot", e);
+        } finally {
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
 
-            log.debug("[{}] ── OUTPUT ({} chars) ────────────────────────────────\n{}\n──────────────────────────────────────────────────────",
-                    agentRole, stdout.length(), stdout);
-            return stdout;
+    private boolean startHedge(String agentRole, String model, Prompt prompt, Supplier<? extends OutputListener> listeners,
+                               ExecutorCompletionService<String> race, List<Future<String>> calls) {
+        // A model that is failing or being probed gets no extra load.
+        LaunchGate.Permit permit = breakers.isClosed(model) ? launchGate.tryAcquire(model) : null;
+        Counter.builder("copilot.cli.hedge")
+                .tag("model", model)
+                .tag("outcome", permit != null ? "fired" : "no-capacity")
+                .description("Slow copilot calls hedged with a second identical call")
+                .register(meterRegistry)
+                .increment();
+        if (permit == null) {
+            log.debug("[{}] slow call not hedged: no free launch permit (model={})", agentRole, model);
+            return false;
+        }
+        log.info("[{}] copilot slower than p{} of recent calls, hedging (model={})",
+                agentRole, Math.round(hedgePercentile * 100), model);
+        calls.add(race.submit(() -> call(agentRole, model, prompt, listeners.get(), permit)));
+        return true;
+    }
 
+    /**
+     * Runs one backend call under {@code permit} and reports its outcome to the circuit breaker
+     * and the adaptive limit. A cancelled call (lost race, pipeline deadline) reports nothing.
+     */
+    private String call(String agentRole, String model, Prompt prompt, OutputListener listener,
+                        LaunchGate.Permit permit) {
+        try (permit) {
+            String output = backend.complete(agentRole, model, prompt, listener);
+            permit.succeeded();
+            breakers.onSuccess(model);
+            return output;
         } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                breakers.onIgnored(model);
+            } else {
+                permit.failed();
+                breakers.onFailure(model);
+            }
             throw e;
-        } catch (Exception e) {
-            throw new RuntimeException("[" + agentRole + "] copilot CLI failed", e);
         }
     }
 
-    // -------------------------------------------------------------------------
-    // Helpers
-    // -------------------------------------------------------------------------
+    /** Delay after which a call is hedged, or {@code null} when hedging is off or history is too short. */
+    private Duration hedgeDelay(String agentRole, String model) {
+        if (!hedgingEnabled) return null;
+        LatencyWindow window = latencies.get(key(agentRole, model));
+        if (window == null || window.size() < hedgeMinSamples) return null;
+        return window.percentile(hedgePercentile);
+    }
 
-    private String readStream(InputStream is) throws Exception {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining("\n"));
+    /**
+     * Records the latency seen by the caller. When the hedge wins, the sample is the time the
+     * original call had been running, a lower bound of its latency, so the window is not
+     * biased towards the faster of two calls.
+     */
+    private void recordCall(String agentRole, String model, long start, boolean hedged, boolean hedgeWon) {
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+        latencies.computeIfAbsent(key(agentRole, model), k -> new LatencyWindow(hedgeWindow)).record(latency);
+        Timer.builder("copilot.cli.call.duration")
+                .tag("model", model)
+                .tag("hedged", Boolean.toString(hedged))
+                .description("copilot call latency as seen by the agent, hedges included")
+                .register(meterRegistry)
+                .record(latency);
+        if (hedged) {
+            Counter.builder("copilot.cli.hedge.won")
+                    .tag("model", model)
+                    .tag("winner", hedgeWon ? "hedge" : "original")
+                    .description("Hedged copilot calls by which of the two calls answered first")
+                    .register(meterRegistry)
+                    .increment();
         }
     }
+
+    private void recordSize(String name, String description, String agentRole, String model, int chars) {
+        DistributionSummary.builder(name)
+                .baseUnit("chars")
+                .tag("agent", agentRole)
+                .tag("model", model)
+                .description(description)
+                .register(meterRegistry)
+                .record(chars);
+    }
+
+    private static String key(String agentRole, String model) {
+        return agentRole + '|' + model;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) return runtime;
+        if (cause instanceof Error error) throw error;
+        return new RuntimeException(cause);
+    }
 }
@@ -8,18 +8,43 @@ import com.hackathon.storywriter.model.ArtifactResponse.TechnicalAnalysis;
 import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.agent.*;
+import com.hackathon.storywriter.service.cache.ArtifactCache;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.service.graph.AgentGraph;
+import com.hackathon.storywriter.service.graph.AgentGraphSettings;
+import com.hackathon.storywriter.service.graph.NodeSettings;
+import com.hackathon.storywriter.service.rules.RuleEngine;
+import com.hackathon.storywriter.service.similar.SimilarFailureIndex;
+import com.hackathon.storywriter.service.store.ArtifactStore;
+import com.hackathon.storywriter.util.SingleFlight;
+import com.hackathon.storywriter.util.TokenOverlap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Deterministic, non-LLM orchestrator that drives the multi-agent pipeline.
  *
- * <p><b>Execution pipeline (optimal parallel DAG):</b>
+ * <p><b>Default execution pipeline (optimal parallel DAG):</b>
  * <pre>
  *  Phase 1:  TechnicalAnalyzer ──────────────────────────────────────┐
  *                                                                     │
@@ -33,17 +58,82 @@ import java.util.concurrent.atomic.AtomicLong;
  *
  * <p>BugWriter, StoryWriter, and Severity are all launched concurrently once
  * their upstream dependencies are available.
+ *
+ * <p>The DAG is an {@link AgentGraph} whose nodes are the five agents. Dependencies and
+ * conditions come from {@code copilot.cli.agents.<agent>.*} ({@code depends-on},
+ * {@code speculate-on}, {@code enabled}, {@code skip-sources}, {@code required}, {@code timeout}),
+ * so agents can be trimmed per failure source without a code change; unset keys keep the DAG above.
+ *
+ * <p>Every agent call runs under a deadline ({@code pipeline.agent-timeout}, or the agent's own
+ * {@code timeout}) and the whole event under {@code pipeline.budget}. An agent past its deadline is
+ * cancelled, which kills its CLI process and frees its launch slot; its dependents are skipped and
+ * the artifact is returned with the sections that did complete, each tagged in
+ * {@link ArtifactResponse#sectionStatus()}. The pipeline fails only when a {@code required} agent
+ * times out or fails, or when no section could be produced at all. Partial artifacts are not cached.
+ *
+ * <p>With {@code pipeline.mode=fast} the three writers start speculatively right after
+ * Phase 1, next to RootCause (their {@code speculate-on} dependency), using the technical analysis in place of the root cause.
+ * When RootCause finishes, a draft is kept unless the root cause introduces more than
+ * {@code pipeline.fast.rerun-novelty} new terms compared to the technical analysis, in which
+ * case that writer is re-run with the real root cause. Latency ({@code pipeline.duration})
+ * and agent confidence ({@code pipeline.confidence}) are recorded per mode.
+ *
+ * <p>Before anything else, the {@link RuleEngine} is asked for a deterministic answer: events
+ * matching a well-known failure signature get a templated artifact tagged
+ * {@code generatedBy = "rule:<id>"} without launching any agent.
+ *
+ * <p>The DAG is fronted by an {@link ArtifactCache} keyed on the event's
+ * {@link EventFingerprinter fingerprint}: repeated failures are answered from the
+ * cache without launching any agent. Concurrent identical events are coalesced
+ * onto a single running pipeline. Complete artifacts are also added to the
+ * {@link SimilarFailureIndex}, where near-duplicate failures can look them up. Every
+ * artifact produced by a rule or a pipeline run, partial ones included, is appended to the
+ * {@link ArtifactStore}; cache hits are not stored again.
  */
 @Service
 public class OrchestratorService {
 
     private static final Logger log = LoggerFactory.getLogger(OrchestratorService.class);
 
+    static final String TECHNICAL_ANALYZER = "technical-analyzer";
+    static final String ROOT_CAUSE = "root-cause";
+    static final String BUG_WRITER = "bug-writer";
+    static final String STORY_WRITER = "story-writer";
+    static final String SEVERITY = "severity";
+
+    /** Stand-in for the root cause in fast-mode drafts written before RootCause finishes. */
+    static final String PROVISIONAL_ROOT_CAUSE =
+            "Not yet available. Infer the most likely root cause from the technical analysis.";
+
+    /**
+     * {@code standard} runs the writers after RootCause (three serial agent calls);
+     * {@code fast} drafts them off the technical analysis next to RootCause (two serial calls)
+     * and re-runs a draft only when the root cause adds material information.
+     */
+    public enum PipelineMode { STANDARD, FAST }
+
     private final TechnicalAnalyzerAgent technicalAnalyzerAgent;
     private final RootCauseAgent rootCauseAgent;
     private final BugWriterAgent bugWriterAgent;
     private final StoryWriterAgent storyWriterAgent;
     private final SeverityAgent severityAgent;
+    private final EventFingerprinter fingerprinter;
+    private final ArtifactCache artifactCache;
+    private final RuleEngine ruleEngine;
+    private final SimilarFailureIndex similarIndex;
+    private final ArtifactStore artifactStore;
+    private final boolean coalescingEnabled;
+    private final MeterRegistry meterRegistry;
+    private final PipelineMode mode;
+    private final double rerunNovelty;
+    private final Duration budget;
+    private final AgentGraph graph;
+
+    /**
+     * Pipelines currently running, keyed by event fingerprint; each carries the section
+     * fan-out that lets coalesced callers see partial results.
+     */
+    private final SingleFlight<String, ArtifactResponse> inFlight = new SingleFlight<>();
 
     /**
      * Virtual-thread executor: each agent task runs on its own lightweight
@@ -61,132 +151,365 @@ public class OrchestratorService {
             RootCauseAgent rootCauseAgent,
             BugWriterAgent bugWriterAgent,
             StoryWriterAgent storyWriterAgent,
-            SeverityAgent severityAgent) {
+            SeverityAgent severityAgent,
+            EventFingerprinter fingerprinter,
+            ArtifactCache artifactCache,
+            RuleEngine ruleEngine,
+            SimilarFailureIndex similarIndex,
+            ArtifactStore artifactStore,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.coalescing.enabled:true}") boolean coalescingEnabled,
+            @Value("${pipeline.mode:standard}") PipelineMode mode,
+            @Value("${pipeline.fast.rerun-novelty:0.5}") double rerunNovelty,
+            @Value("${pipeline.budget:4m}") Duration budget,
+            @Value("${pipeline.agent-timeout:2m}") Duration agentTimeout,
+            AgentGraphSettings graphSettings) {
         this.technicalAnalyzerAgent = technicalAnalyzerAgent;
         this.rootCauseAgent = rootCauseAgent;
         this.bugWriterAgent = bugWriterAgent;
         this.storyWriterAgent = storyWriterAgent;
         this.severityAgent = severityAgent;
+        this.fingerprinter = fingerprinter;
+        this.artifactCache = artifactCache;
+        this.ruleEngine = ruleEngine;
+        this.similarIndex = similarIndex;
+        this.artifactStore = artifactStore;
+        this.coalescingEnabled = coalescingEnabled;
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        this.rerunNovelty = rerunNovelty;
+        this.budget = budget;
+        this.graph = buildGraph(graphSettings, agentTimeout);
+
+        Gauge.builder("pipeline.inflight", inFlight, SingleFlight::inFlight)
+                .description("Agent pipelines currently running")
+                .register(meterRegistry);
+        Gauge.builder("pipeline.coalesced.waiters", inFlight, SingleFlight::waiters)
+                .description("Callers currently attached to another caller's pipeline")
+                .register(meterRegistry);
+        FunctionCounter.builder("pipeline.coalesced", inFlight, SingleFlight::sharedTotal)
+                .description("Callers served by an already running pipeline")
+                .register(meterRegistry);
     }
 
     /**
      * Processes a test failure event through the full agent pipeline and
      * returns the aggregated {@link ArtifactResponse}.
      *
+     * <p>Events matching a triage rule are answered by the {@link RuleEngine}. A previously
+     * produced artifact for the same event fingerprint is returned straight from the
+     * {@link ArtifactCache}. If a pipeline for the same fingerprint
+     * is already running, the caller attaches to it instead of starting a new one.
+     *
      * @param event the incoming test failure event
      * @return the validated, merged artifact
      */
     public ArtifactResponse process(TestFailureEvent event) {
-        log.info("Orchestrator starting pipeline for event: source={}, test={}",
-                event.source(), event.testName());
-
-        long pipelineStart = System.currentTimeMillis();
-        AtomicLong techMs     = new AtomicLong();
-        AtomicLong rootMs     = new AtomicLong();
-        AtomicLong bugMs      = new AtomicLong();
-        AtomicLong storyMs    = new AtomicLong();
-        AtomicLong severityMs = new AtomicLong();
-
-        // ── Phase 1: Technical Analyzer (no dependencies) ─────────────────────
-        CompletableFuture<String> techFuture = CompletableFuture.supplyAsync(
-                () -> {
-                    long start = System.currentTimeMillis();
-                    log.debug("TechnicalAnalyzer starting");
-                    String result = technicalAnalyzerAgent.analyze(event);
-                    techMs.set(System.currentTimeMillis() - start);
-                    log.debug("TechnicalAnalyzer completed in {}ms", techMs.get());
-                    return result;
-                }, executor);
-
-        // ── Phase 2: Root Cause (depends on technical analysis) ───────────────
-        CompletableFuture<String> rootFuture = techFuture.thenApplyAsync(
-                tech -> {
-                    long start = System.currentTimeMillis();
-                    log.debug("RootCause starting");
-                    String result = rootCauseAgent.analyze(event, tech);
-                    rootMs.set(System.currentTimeMillis() - start);
-                    log.debug("RootCause completed in {}ms", rootMs.get());
-                    return result;
-                }, executor);
-
-        // ── Phase 3a: Bug Writer (depends on tech + root) ─────────────────────
-        CompletableFuture<BugReport> bugFuture = techFuture.thenCombineAsync(
-                rootFuture,
-                (tech, root) -> {
-                    long start = System.currentTimeMillis();
-                    log.debug("BugWriter starting");
-                    BugReport result = bugWriterAgent.write(event, tech, root);
-                    bugMs.set(System.currentTimeMillis() - start);
-                    log.debug("BugWriter completed in {}ms", bugMs.get());
-                    return result;
-                }, executor);
-
-        // ── Phase 3b: Story Writer (depends on root cause) ────────────────────
-        CompletableFuture<UserStory> storyFuture = rootFuture.thenApplyAsync(
-                root -> {
-                    long start = System.currentTimeMillis();
-                    log.debug("StoryWriter starting");
-                    UserStory result = storyWriterAgent.write(event, root);
-                    storyMs.set(System.currentTimeMillis() - start);
-                    log.debug("StoryWriter completed in {}ms", storyMs.get());
-                    return result;
-                }, executor);
-
-        // ── Phase 3c: Severity (depends on tech + root) ───────────────────────
-        CompletableFuture<SeverityAssessment> severityFuture = techFuture.thenCombineAsync(
-                rootFuture,
-                (tech, root) -> {
-                    long start = System.currentTimeMillis();
-                    log.debug("Severity starting");
-                    SeverityAssessment result = severityAgent.assess(event, tech, root);
-                    severityMs.set(System.currentTimeMillis() - start);
-                    log.debug("Severity completed in {}ms", severityMs.get());
-                    return result;
-                }, executor);
-
-        // ── Wait for all phase-3 agents to finish ─────────────────────────────
         try {
-            CompletableFuture.allOf(bugFuture, storyFuture, severityFuture).join();
+            return submit(event, PipelineListener.NONE).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Agent pipeline interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Agent pipeline failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
 
-            long totalMs = System.currentTimeMillis() - pipelineStart;
+    /**
+     * Asynchronous variant of {@link #process}: returns immediately with a future of the
+     * aggregated artifact and reports each section to {@code listener} as soon as its agent
+     * finishes.
+     *
+     * <p>Every section is delivered exactly once per listener, also when the artifact comes
+     * from the cache or from a coalesced pipeline that started before this call.
+     *
+     * @param event    the incoming test failure event
+     * @param listener receives sections as they complete
+     * @return future of the validated, merged artifact
+     */
+    public CompletableFuture<ArtifactResponse> submit(TestFailureEvent event, PipelineListener listener) {
+        DeliverOnce once = new DeliverOnce(listener);
+        String fingerprint = fingerprinter.fingerprint(event);
+        ArtifactResponse triaged = ruleEngine.triage(event);
+        if (triaged != null) {
+            log.info("Event answered by triage {}: source={}, test={}",
+                    triaged.generatedBy(), event.source(), event.testName());
+            artifactStore.append(fingerprint, event, triaged);
+            once.deliverRemaining(triaged);
+            return CompletableFuture.completedFuture(triaged);
+        }
 
-            // Wrap plain-text results in their record types with timing
-            TechnicalAnalysis technicalAnalysis = new TechnicalAnalysis(techFuture.get(), techMs.get());
-            RootCause rootCause = new RootCause(rootFuture.get(), rootMs.get());
+        ArtifactResponse cached = artifactCache.get(fingerprint);
+        if (cached != null) {
+            log.info("Artifact cache hit for event: source={}, test={}, fingerprint={}",
+                    event.source(), event.testName(), fingerprint);
+            once.deliverRemaining(cached);
+            return CompletableFuture.completedFuture(cached);
+        }
 
-            // Reconstruct JSON-parsed records with orchestrator-measured durationMs
-            BugReport rawBug = bugFuture.get();
-            BugReport bugReport = new BugReport(
-                    rawBug.title(), rawBug.description(), rawBug.stepsToReproduce(),
-                    rawBug.expectedBehavior(), rawBug.actualBehavior(), rawBug.confidence(),
-                    bugMs.get());
+        CompletableFuture<ArtifactResponse> future;
+        if (coalescingEnabled) {
+            future = inFlight.submit(fingerprint, new SectionFanOut(),
+                    fanOut -> fanOut.attach(once),
+                    fanOut -> startPipeline(event, fingerprint, fanOut));
+        } else {
+            future = startPipeline(event, fingerprint, once);
+        }
+        return future.thenApply(artifact -> {
+            once.deliverRemaining(artifact);
+            return artifact;
+        });
+    }
 
-            UserStory rawStory = storyFuture.get();
-            UserStory userStory = new UserStory(
-                    rawStory.description(), rawStory.whatToDo(),
-                    rawStory.acceptanceCriteria(), rawStory.additionalInformation(),
-                    rawStory.confidence(), storyMs.get());
+    /**
+     * Launches the agent graph for {@code event} and returns a future of the aggregated
+     * artifact; the artifact is stored in the cache under {@code fingerprint} when every
+     * agent that ran completed.
+     */
+    private CompletableFuture<ArtifactResponse> startPipeline(TestFailureEvent event, String fingerprint,
+                                                              PipelineListener listener) {
+        log.info("Orchestrator starting {} pipeline for event: source={}, test={}",
+                mode, event.source(), event.testName());
 
-            SeverityAssessment rawSeverity = severityFuture.get();
-            SeverityAssessment severity = new SeverityAssessment(
-                    rawSeverity.level(), rawSeverity.rationale(), rawSeverity.confidence(),
-                    severityMs.get());
+        long pipelineStart = System.nanoTime();
+        AgentGraph.RerunPolicy rerunPolicy = mode == PipelineMode.FAST ? this::materiallyChanges : null;
 
-            ArtifactResponse artifact = new ArtifactResponse(
-                    technicalAnalysis, rootCause, bugReport, userStory, severity, totalMs);
+        return graph.run(event, listener, executor, rerunPolicy, budget).thenApply(outcomes -> {
+            long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pipelineStart);
+
+            StringJoiner timings = new StringJoiner(" ");
+            Map<String, ArtifactResponse.SectionStatus> status = new LinkedHashMap<>();
+            boolean degraded = false;
+            Throwable firstError = null;
+            for (AgentGraph.Node node : graph.nodes()) {
+                AgentGraph.Outcome outcome = outcomes.get(node.name());
+                timings.add(node.name() + "=" + (outcome.ok() ? outcome.durationMs() + "ms" : outcome.status()));
+                recordNode(node.name(), outcome);
+                status.put(node.section(), ArtifactResponse.SectionStatus.valueOf(outcome.status().name()));
+                degraded |= outcome.error() != null;
+                if (firstError == null) firstError = outcome.error();
+            }
+            if (!status.containsValue(ArtifactResponse.SectionStatus.OK)) {
+                throw new CompletionException(firstError != null ? firstError
+                        : new IllegalStateException("No agent produced a section: " + status));
+            }
 
-            log.info("Orchestrator pipeline completed in {}ms "
-                             + "(tech={}ms root={}ms bug={}ms story={}ms severity={}ms). Severity={}",
-                    totalMs, techMs.get(), rootMs.get(), bugMs.get(), storyMs.get(), severityMs.get(),
+            ArtifactResponse artifact = new ArtifactResponse(
+                    section(outcomes, TECHNICAL_ANALYZER, TechnicalAnalysis.class),
+                    section(outcomes, ROOT_CAUSE, RootCause.class),
+                    section(outcomes, BUG_WRITER, BugReport.class),
+                    section(outcomes, STORY_WRITER, UserStory.class),
+                    section(outcomes, SEVERITY, SeverityAssessment.class),
+                    totalMs,
+                    status,
+                    ArtifactResponse.GENERATED_BY_AGENTS);
+            log.info("Orchestrator {} pipeline completed in {}ms ({}). Severity={}",
+                    mode, totalMs, timings,
                     artifact.severity() != null ? artifact.severity().level() : "N/A");
 
+            recordQuality(artifact, totalMs);
+            artifactStore.append(fingerprint, event, artifact);
+            if (degraded) {
+                log.warn("Returning partial artifact for test={}: {}", event.testName(), status);
+            } else {
+                artifactCache.put(fingerprint, artifact);
+                similarIndex.add(event, artifact);
+            }
             return artifact;
+        });
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Agent pipeline interrupted", e);
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Agent pipeline failed: " + e.getCause().getMessage(), e.getCause());
+    // -------------------------------------------------------------------------
+    // Agent graph
+    // -------------------------------------------------------------------------
+
+    /**
+     * Builds the agent graph from the built-in agents and their {@code copilot.cli.agents.*}
+     * settings. The built-in dependencies reproduce the classic DAG; each writer may run
+     * ahead of RootCause in fast mode. Agents without their own {@code timeout} get {@code agentTimeout}.
+     */
+    private AgentGraph buildGraph(AgentGraphSettings settings, Duration agentTimeout) {
+        return new AgentGraph(List.of(
+                node(settings, agentTimeout, TECHNICAL_ANALYZER, "technicalAnalysis", List.of(), List.of(),
+                        (event, in) -> technicalAnalyzerAgent.analyze(event),
+                        (out, ms) -> new TechnicalAnalysis((String) out, ms)),
+                node(settings, agentTimeout, ROOT_CAUSE, "rootCause", List.of(TECHNICAL_ANALYZER), List.of(),
+                        (event, in) -> rootCauseAgent.analyze(event, (String) in.get(TECHNICAL_ANALYZER)),
+                        (out, ms) -> new RootCause((String) out, ms)),
+                node(settings, agentTimeout, BUG_WRITER, "bugReport", List.of(TECHNICAL_ANALYZER, ROOT_CAUSE), List.of(ROOT_CAUSE),
+                        (event, in) -> bugWriterAgent.write(event, (String) in.get(TECHNICAL_ANALYZER),
+                                (String) in.getOrDefault(ROOT_CAUSE, PROVISIONAL_ROOT_CAUSE)),
+                        // Reconstruct JSON-parsed record with orchestrator-measured durationMs
+                        (out, ms) -> {
+                            BugReport raw = (BugReport) out;
+                            return new BugReport(
+                                    raw.title(), raw.description(), raw.stepsToReproduce(),
+                                    raw.expectedBehavior(), raw.actualBehavior(), raw.confidence(), ms);
+                        }),
+                // Drafts without the root cause use the technical analysis in its place.
+                node(settings, agentTimeout, STORY_WRITER, "userStory", List.of(TECHNICAL_ANALYZER, ROOT_CAUSE), List.of(ROOT_CAUSE),
+                        (event, in) -> storyWriterAgent.write(event,
+                                (String) (in.containsKey(ROOT_CAUSE) ? in.get(ROOT_CAUSE) : in.get(TECHNICAL_ANALYZER))),
+                        (out, ms) -> {
+                            UserStory raw = (UserStory) out;
+                            return new UserStory(
+                                    raw.description(), raw.whatToDo(),
+                                    raw.acceptanceCriteria(), raw.additionalInformation(),
+                                    raw.confidence(), ms);
+                        }),
+                node(settings, agentTimeout, SEVERITY, "severity", List.of(TECHNICAL_ANALYZER, ROOT_CAUSE), List.of(ROOT_CAUSE),
+                        (AgentGraph.StreamingStep) (event, in, early) -> severityAgent.assess(event,
+                                (String) in.get(TECHNICAL_ANALYZER),
+                                (String) in.getOrDefault(ROOT_CAUSE, PROVISIONAL_ROOT_CAUSE), early),
+                        (out, ms) -> {
+                            SeverityAssessment raw = (SeverityAssessment) out;
+                            return new SeverityAssessment(raw.level(), raw.rationale(), raw.confidence(), ms);
+                        })));
+    }
+
+    private static AgentGraph.Node node(AgentGraphSettings settings, Duration agentTimeout, String name, String section,
+                                        List<String> dependsOn, List<String> speculateOn,
+                                        AgentGraph.Step step, AgentGraph.SectionFactory sections) {
+        NodeSettings node = settings.node(name);
+        List<String> deps = node.getDependsOn() != null ? node.getDependsOn() : dependsOn;
+        List<String> speculative = node.getSpeculateOn() != null
+                ? node.getSpeculateOn()
+                : speculateOn.stream().filter(deps::contains).toList();
+        boolean enabled = node.isEnabled();
+        Set<TestFailureEvent.FailureSource> skipSources = node.getSkipSources();
+        return new AgentGraph.Node(name, section, deps, speculative,
+                event -> enabled && !skipSources.contains(event.source()),
+                node.isRequired(), node.getTimeout() != null ? node.getTimeout() : agentTimeout, step, sections);
+    }
+
+    private static <T> T section(Map<String, AgentGraph.Outcome> outcomes, String node, Class<T> type) {
+        AgentGraph.Outcome outcome = outcomes.get(node);
+        return outcome != null && outcome.ok() ? type.cast(outcome.section()) : null;
+    }
+
+    private void recordNode(String node, AgentGraph.Outcome outcome) {
+        Timer.builder("pipeline.agent.duration")
+                .tag("agent", node)
+                .tag("status", outcome.status().name().toLowerCase(Locale.ROOT))
+                .description("Time spent per agent node, drafts and re-runs included")
+                .register(meterRegistry)
+                .record(outcome.durationMs(), TimeUnit.MILLISECONDS);
+    }
+
+    // -------------------------------------------------------------------------
+    // Fast mode
+    // -------------------------------------------------------------------------
+
+    /**
+     * Whether the awaited outputs (the root cause) add enough information beyond the draft's
+     * inputs (the technical analysis) that the draft should be re-run; counts the outcome.
+     */
+    private boolean materiallyChanges(AgentGraph.Node node, Map<String, Object> draftInputs,
+                                      Map<String, Object> awaited) {
+        double novelty = TokenOverlap.novelty(joined(draftInputs), joined(awaited));
+        boolean rerun = novelty > rerunNovelty;
+        log.debug("{}: novelty of {} over draft inputs is {}", node.name(), awaited.keySet(), novelty);
+        Counter.builder("pipeline.speculation")
+                .tag("section", node.section())
+                .tag("outcome", rerun ? "rerun" : "accepted")
+                .description("Fast-mode drafts accepted as-is or re-run with the root cause")
+                .register(meterRegistry)
+                .increment();
+        return rerun;
+    }
+
+    private static String joined(Map<String, Object> outputs) {
+        StringJoiner text = new StringJoiner("\n");
+        outputs.values().forEach(value -> text.add(String.valueOf(value)));
+        return text.toString();
+    }
+
+    /** Records end-to-end latency and per-section confidence, tagged by pipeline mode. */
+    private void recordQuality(ArtifactResponse artifact, long totalMs) {
+        String modeTag = mode.name().toLowerCase(Locale.ROOT);
+        Timer.builder("pipeline.duration")
+                .tag("mode", modeTag)
+                .description("End-to-end agent pipeline latency")
+                .register(meterRegistry)
+                .record(totalMs, TimeUnit.MILLISECONDS);
+        recordConfidence(modeTag, "bugReport", artifact.bugReport() != null ? artifact.bugReport().confidence() : null);
+        recordConfidence(modeTag, "userStory", artifact.userStory() != null ? artifact.userStory().confidence() : null);
+        recordConfidence(modeTag, "severity", artifact.severity() != null ? artifact.severity().confidence() : null);
+    }
+
+    private void recordConfidence(String modeTag, String section, Double confidence) {
+        if (confidence == null) return;
+        DistributionSummary.builder("pipeline.confidence")
+                .tag("mode", modeTag)
+                .tag("section", section)
+                .description("Confidence reported by the agents, per pipeline mode")
+                .register(meterRegistry)
+                .record(confidence);
+    }
+
+    /**
+     * Fans the sections of one running pipeline out to every attached listener,
+     * replaying sections that completed before a listener attached. Field previews are
+     * only forwarded to the listeners attached at the time.
+     */
+    private static final class SectionFanOut implements PipelineListener {
+
+        private final Map<String, Object> delivered = new LinkedHashMap<>();
+        private final List<PipelineListener> listeners = new ArrayList<>();
+
+        synchronized void attach(PipelineListener listener) {
+            delivered.forEach(listener::onSection);
+            listeners.add(listener);
+        }
+
+        @Override
+        public synchronized void onSection(String section, Object value) {
+            delivered.put(section, value);
+            listeners.forEach(l -> l.onSection(section, value));
+        }
+
+        @Override
+        public synchronized void onField(String section, String field, Object value) {
+            listeners.forEach(l -> l.onField(section, field, value));
+        }
+    }
+
+    /**
+     * Guarantees each section reaches the wrapped listener exactly once, and fills in
+     * sections the listener missed from the finished artifact. A failing listener is
+     * logged and never breaks the pipeline it observes.
+     */
+    private static final class DeliverOnce implements PipelineListener {
+
+        private final PipelineListener delegate;
+        private final Set<String> delivered = new HashSet<>();
+
+        DeliverOnce(PipelineListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onSection(String section, Object value) {
+            if (!delivered.add(section)) return;
+            try {
+                delegate.onSection(section, value);
+            } catch (RuntimeException e) {
+                log.warn("Pipeline listener failed on section {}: {}", section, e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void onField(String section, String field, Object value) {
+            if (delivered.contains(section)) return;
+            try {
+                delegate.onField(section, field, value);
+            } catch (RuntimeException e) {
+                log.warn("Pipeline listener failed on field {}.{}: {}", section, field, e.getMessage());
+            }
+        }
+
+        void deliverRemaining(ArtifactResponse artifact) {
+            PipelineListener.sections(artifact).forEach(this::onSection);
         }
     }
 }
@@ -0,0 +1,62 @@
+package com.hackathon.storywriter.service;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Receives each {@link ArtifactResponse} section as soon as the agent producing it finishes.
+ *
+ * <p>Section names are the JSON property names of {@link ArtifactResponse}
+ * ({@code technicalAnalysis}, {@code rootCause}, {@code bugReport}, {@code userStory},
+ * {@code severity}); values are the corresponding records, including their {@code durationMs}.
+ * Callbacks run on pipeline threads and must not block.
+ */
+@FunctionalInterface
+public interface PipelineListener {
+
+    /** Listener that ignores all sections. */
+    PipelineListener NONE = (section, value) -> { };
+
+    /**
+     * Called once per completed section.
+     *
+     * @param section section name, e.g. {@code "severity"}
+     * @param value   section record
+     */
+    void onSection(String section, Object value);
+
+    /**
+     * Called when a field of a section is known before its agent finishes, e.g. the severity
+     * {@code level} while the model is still writing the rationale. A preview only: the value
+     * in the section delivered by {@link #onSection} wins, and previews of sections that time
+     * out or fail are not withdrawn.
+     *
+     * @param section section name, e.g. {@code "severity"}
+     * @param field   JSON property name within the section, e.g. {@code "level"}
+     * @param value   field value
+     */
+    default void onField(String section, String field, Object value) {
+    }
+
+    /**
+     * Returns the sections of a finished artifact keyed by section name, in pipeline order.
+     *
+     * @param artifact finished artifact
+     * @return non-null section map; {@code null} sections are omitted
+     */
+    static Map<String, Object> sections(ArtifactResponse artifact) {
+        Map<String, Object> sections = new LinkedHashMap<>();
+        putIfPresent(sections, "technicalAnalysis", artifact.technicalAnalysis());
+        putIfPresent(sections, "rootCause", artifact.rootCause());
+        putIfPresent(sections, "bugReport", artifact.bugReport());
+        putIfPresent(sections, "userStory", artifact.userStory());
+        putIfPresent(sections, "severity", artifact.severity());
+        return sections;
+    }
+
+    private static void putIfPresent(Map<String, Object> sections, String name, Object value) {
+        if (value != null) sections.put(name, value);
+    }
+}
@@ -0,0 +1,192 @@
+package com.hackathon.storywriter.service.agent;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.hackathon.storywriter.service.llm.OutputListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Incremental reader for the JSON object an agent answers with, fed while the model is
+ * still writing.
+ *
+ * <p>Output is pushed through Jackson's non-blocking parser as it arrives. Everything before
+ * the first {@code {} (a code fence, a sentence of preamble) is skipped, and everything after
+ * the object closes (the closing fence, trailing chatter) is ignored. When a {@code {} turns
+ * out not to start valid JSON, reading resumes at the next one. Raw line breaks inside strings
+ * and trailing commas are accepted, since models emit both.
+ *
+ * <p>Top-level scalar fields named in {@code earlyFields} are reported the moment their value
+ * is complete, so e.g. a severity {@code level} is known before the model has finished its
+ * rationale. The object's tokens are buffered while parsing and bound by {@link #value}
+ * without parsing the text again. Not thread-safe: one reader per call.
+ */
+public final class AgentJsonReader implements OutputListener {
+
+    private static final JsonFactory LENIENT = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> earlyFields;
+    private final BiConsumer<String, Object> onField;
+
+    /** Every byte received, so that a failed start can be retried from the next {@code {}. */
+    private byte[] data = new byte[1024];
+    private int size;
+    /** Where to look for the next {@code {} while no object is being parsed. */
+    private int scanFrom;
+
+    private JsonParser parser;
+    private TokenBuffer tokens;
+    private int objectStart;
+    private int fedTo;
+    private int depth;
+    private String field;
+    private boolean complete;
+
+    /**
+     * @param objectMapper binds the finished object
+     * @param earlyFields  top-level fields to report before the object is complete
+     * @param onField      receives each early field with its value ({@code String}, {@code Number},
+     *                     {@code Boolean} or {@code null}); called on the feeding thread
+     */
+    public AgentJsonReader(ObjectMapper objectMapper, Set<String> earlyFields, BiConsumer<String, Object> onField) {
+        this.objectMapper = objectMapper;
+        this.earlyFields = earlyFields;
+        this.onField = onField;
+    }
+
+    /**
+     * Reads a complete answer in one go.
+     *
+     * @throws IOException when the text holds no complete JSON object, or it does not bind to {@code type}
+     */
+    public static <T> T read(ObjectMapper objectMapper, String raw, Class<T> type) throws IOException {
+        AgentJsonReader reader = new AgentJsonReader(objectMapper, Set.of(), (name, value) -> { });
+        byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+        reader.onOutput(bytes, 0, bytes.length);
+        return reader.value(type);
+    }
+
+    @Override
+    public void onOutput(byte[] chunk, int offset, int length) {
+        if (complete) return;
+        if (size + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + length, data.length * 2));
+        }
+        System.arraycopy(chunk, offset, data, size, length);
+        size += length;
+        advance();
+    }
+
+    /** Whether a complete top-level object has been read. */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Binds the object read so far to {@code type}.
+     *
+     * @throws IOException when no complete object has been read, or it does not bind to {@code type}
+     */
+    public <T> T value(Class<T> type) throws IOException {
+        if (!complete) throw new JsonParseException(null, "No complete JSON object in the agent output");
+        try (JsonParser buffered = tokens.asParser(objectMapper)) {
+            return objectMapper.readValue(buffered, type);
+        }
+    }
+
+    private void advance() {
+        while (!complete) {
+            if (parser == null && !startObject()) return;
+            try {
+                ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+                if (fedTo < size && feeder.needMoreInput()) {
+                    feeder.feedInput(data, fedTo, size);
+                    fedTo = size;
+                }
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+                    if (token == null) return;
+                    accept(token);
+                    if (complete) return;
+                }
+                return;
+            } catch (IOException e) {
+                // Not JSON after all (e.g. a brace in the preamble): resume at the next one.
+                scanFrom = objectStart + 1;
+                closeParser();
+            }
+        }
+    }
+
+    /** Starts a parser at the next {@code {}; returns false when there is none yet. */
+    private boolean startObject() {
+        while (scanFrom < size && data[scanFrom] != '{') scanFrom++;
+        if (scanFrom == size) return false;
+        try {
+            parser = LENIENT.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create a non-blocking JSON parser", e);
+        }
+        tokens = new TokenBuffer(parser);
+        objectStart = scanFrom;
+        fedTo = scanFrom;
+        depth = 0;
+        field = null;
+        return true;
+    }
+
+    private void accept(JsonToken token) throws IOException {
+        tokens.copyCurrentEvent(parser);
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> depth++;
+            case END_OBJECT, END_ARRAY -> {
+                if (--depth == 0) {
+                    complete = true;
+                    parser.close();
+                }
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) field = parser.currentName();
+            }
+            default -> {
+                if (depth == 1 && field != null && earlyFields.contains(field)) {
+                    onField.accept(field, scalar(token));
+                }
+            }
+        }
+    }
+
+    private Object scalar(JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+
+    private void closeParser() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // nothing to release for an in-memory parser
+        }
+        parser = null;
+        tokens = null;
+    }
+}
@@ -3,13 +3,20 @@ package com.hackathon.storywriter.service.agent;
 import com.hackathon.storywriter.model.ArtifactResponse.BugReport;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.CopilotCliService;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
 import com.hackathon.storywriter.util.Strings;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Bug Writer Agent.
  *
@@ -20,33 +27,49 @@ import org.springframework.stereotype.Service;
 public class BugWriterAgent {
 
     private static final Logger log = LoggerFactory.getLogger(BugWriterAgent.class);
+
+    /** Placeholders of {@code copilot.cli.agents.bug-writer.user-template}, in the order they are rendered. */
+    public static final List<String> PARAMETERS = List.of("errorMessage", "source", "testName", "context", "technicalAnalysis", "rootCause");
+
     private final CopilotCliService copilot;
     private final ObjectMapper objectMapper;
+    private final ParseOutcomes parseOutcomes;
     private final String model;
     private final String systemPrompt;
-    private final String userTemplate;
+    private final PromptTemplate userTemplate;
+    private final ContextCompactor.PromptBudget budget;
 
     public BugWriterAgent(
             CopilotCliService copilot,
             ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            ContextCompactor compactor,
             @Value("${copilot.cli.agents.bug-writer.model:${copilot.cli.model:gpt-4.1}}") String model,
             @Value("${copilot.cli.agents.bug-writer.system}") String systemPrompt,
             @Value("${copilot.cli.agents.bug-writer.user-template}") String userTemplate) {
         this.copilot = copilot;
         this.objectMapper = objectMapper;
+        this.parseOutcomes = new ParseOutcomes(meterRegistry, "bug-writer");
         this.model = model;
-        this.systemPrompt = systemPrompt;
-        this.userTemplate = userTemplate;
+        this.systemPrompt = systemPrompt.strip();
+        this.userTemplate = new PromptTemplate("bug-writer", userTemplate, PARAMETERS, meterRegistry);
+        this.budget = compactor.budget("bug-writer", model, this.systemPrompt, this.userTemplate);
     }
 
     public BugReport write(TestFailureEvent event, String technicalAnalysis, String rootCause) {
-        String user = userTemplate.formatted(
-                event.errorMessage(),
+        String[] fitted = budget.fit(
+                Field.text(event.errorMessage()),
+                Field.text(event.testName()),
+                Field.text(event.context()),
+                Field.text(technicalAnalysis),
+                Field.text(rootCause));
+        Prompt user = userTemplate.render(
+                fitted[0],
                 event.source(),
-                Strings.nvl(event.testName()),
-                Strings.nvl(event.context()),
-                technicalAnalysis,
-                rootCause
+                Strings.nvl(fitted[1]),
+                Strings.nvl(fitted[2]),
+                fitted[3],
+                fitted[4]
         );
 
         String raw = copilot.ask("BugWriter", model, systemPrompt, user);
@@ -55,8 +78,11 @@ public class BugWriterAgent {
 
     private BugReport parseOrFallback(String raw, TestFailureEvent event) {
         try {
-            return objectMapper.readValue(Strings.stripCodeFence(raw), BugReport.class);
+            BugReport report = AgentJsonReader.read(objectMapper, raw, BugReport.class);
+            parseOutcomes.parsed();
+            return report;
         } catch (Exception e) {
+            parseOutcomes.fellBack();
             log.warn("BugWriter agent response is not valid JSON, using raw text as description: {}", e.getMessage());
             return new BugReport(
                     "Bug: " + event.errorMessage(),
@@ -0,0 +1,35 @@
+package com.hackathon.storywriter.service.agent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts whether an agent's responses parsed as JSON or fell back to the raw text
+ * ({@code pipeline.agent.parse}, tags {@code agent} and {@code outcome=json|fallback}).
+ */
+final class ParseOutcomes {
+
+    private final Counter parsed;
+    private final Counter fallbacks;
+
+    ParseOutcomes(MeterRegistry meterRegistry, String agent) {
+        this.parsed = counter(meterRegistry, agent, "json");
+        this.fallbacks = counter(meterRegistry, agent, "fallback");
+    }
+
+    void parsed() {
+        parsed.increment();
+    }
+
+    void fellBack() {
+        fallbacks.increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String agent, String outcome) {
+        return Counter.builder("pipeline.agent.parse")
+                .tag("agent", agent)
+                .tag("outcome", outcome)
+                .description("Agent responses parsed as JSON or replaced by the raw-text fallback")
+                .register(meterRegistry);
+    }
+}
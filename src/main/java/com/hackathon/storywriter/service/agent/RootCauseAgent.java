@@ -2,12 +2,19 @@ package com.hackathon.storywriter.service.agent;
 
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.CopilotCliService;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
 import com.hackathon.storywriter.util.Strings;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Root Cause Agent.
  *
@@ -20,30 +27,42 @@ public class RootCauseAgent {
 
     private static final Logger log = LoggerFactory.getLogger(RootCauseAgent.class);
 
+    /** Placeholders of {@code copilot.cli.agents.root-cause.user-template}, in the order they are rendered. */
+    public static final List<String> PARAMETERS = List.of("errorMessage", "source", "testName", "context", "technicalAnalysis");
+
     private final CopilotCliService copilot;
     private final String model;
     private final String systemPrompt;
-    private final String userTemplate;
+    private final PromptTemplate userTemplate;
+    private final ContextCompactor.PromptBudget budget;
 
     public RootCauseAgent(
             CopilotCliService copilot,
+            MeterRegistry meterRegistry,
+            ContextCompactor compactor,
             @Value("${copilot.cli.agents.root-cause.model:${copilot.cli.model:gpt-4.1}}") String model,
             @Value("${copilot.cli.agents.root-cause.system}") String systemPrompt,
             @Value("${copilot.cli.agents.root-cause.user-template}") String userTemplate) {
         this.copilot = copilot;
         this.model = model;
-        this.systemPrompt = systemPrompt;
-        this.userTemplate = userTemplate;
+        this.systemPrompt = systemPrompt.strip();
+        this.userTemplate = new PromptTemplate("root-cause", userTemplate, PARAMETERS, meterRegistry);
+        this.budget = compactor.budget("root-cause", model, this.systemPrompt, this.userTemplate);
     }
 
     public String analyze(TestFailureEvent event, String technicalAnalysis) {
         log.debug("Analyzing root cause for: {}", event.errorMessage());
-        String user = userTemplate.formatted(
-                event.errorMessage(),
+        String[] fitted = budget.fit(
+                Field.text(event.errorMessage()),
+                Field.text(event.testName()),
+                Field.text(event.context()),
+                Field.text(technicalAnalysis));
+        Prompt user = userTemplate.render(
+                fitted[0],
                 event.source(),
-                Strings.nvl(event.testName()),
-                Strings.nvl(event.context()),
-                technicalAnalysis
+                Strings.nvl(fitted[1]),
+                Strings.nvl(fitted[2]),
+                fitted[3]
         );
 
         return copilot.ask("RootCause", model, systemPrompt, user);
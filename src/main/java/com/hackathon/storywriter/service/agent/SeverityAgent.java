@@ -3,60 +3,112 @@ package com.hackathon.storywriter.service.agent;
 import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.CopilotCliService;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
 import com.hackathon.storywriter.util.Strings;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
 /**
  * Severity Agent.
  *
  * <p>Responsibility: assess the priority / severity of the failure
  * (Blocker, Critical, Major, Minor) based on the error, its root cause, and the affected component.
+ *
+ * <p>The answer is read while the model writes it: {@code level} and {@code confidence} are
+ * reported as soon as they appear, usually well before the rationale is complete.
  */
 @Service
 public class SeverityAgent {
 
     private static final Logger log = LoggerFactory.getLogger(SeverityAgent.class);
+
+    /** Placeholders of {@code copilot.cli.agents.severity.user-template}, in the order they are rendered. */
+    public static final List<String> PARAMETERS = List.of("errorMessage", "source", "testName", "context", "technicalAnalysis", "rootCause");
+
+    /** Fields reported before the answer is complete. */
+    public static final Set<String> EARLY_FIELDS = Set.of("level", "confidence");
+
     private final CopilotCliService copilot;
     private final ObjectMapper objectMapper;
+    private final ParseOutcomes parseOutcomes;
     private final String model;
     private final String systemPrompt;
-    private final String userTemplate;
+    private final PromptTemplate userTemplate;
+    private final ContextCompactor.PromptBudget budget;
 
     public SeverityAgent(
             CopilotCliService copilot,
             ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            ContextCompactor compactor,
             @Value("${copilot.cli.agents.severity.model:${copilot.cli.model:gpt-4.1}}") String model,
             @Value("${copilot.cli.agents.severity.system}") String systemPrompt,
             @Value("${copilot.cli.agents.severity.user-template}") String userTemplate) {
         this.copilot = copilot;
         this.objectMapper = objectMapper;
+        this.parseOutcomes = new ParseOutcomes(meterRegistry, "severity");
         this.model = model;
-        this.systemPrompt = systemPrompt;
-        this.userTemplate = userTemplate;
+        this.systemPrompt = systemPrompt.strip();
+        this.userTemplate = new PromptTemplate("severity", userTemplate, PARAMETERS, meterRegistry);
+        this.budget = compactor.budget("severity", model, this.systemPrompt, this.userTemplate);
     }
 
     public SeverityAssessment assess(TestFailureEvent event, String technicalAnalysis, String rootCause) {
-        String user = userTemplate.formatted(
-                event.errorMessage(),
+        return assess(event, technicalAnalysis, rootCause, (field, value) -> { });
+    }
+
+    /**
+     * Assesses the failure, reporting {@link #EARLY_FIELDS} to {@code earlyFields} as soon as the
+     * model has written them. Each field is reported at most once; the returned assessment is
+     * authoritative when a hedged or retried call answers differently.
+     *
+     * @param earlyFields receives field name and value ({@code String} level, {@code Number} confidence)
+     */
+    public SeverityAssessment assess(TestFailureEvent event, String technicalAnalysis, String rootCause,
+                                     BiConsumer<String, Object> earlyFields) {
+        String[] fitted = budget.fit(
+                Field.text(event.errorMessage()),
+                Field.text(event.testName()),
+                Field.text(event.context()),
+                Field.text(technicalAnalysis),
+                Field.text(rootCause));
+        Prompt user = userTemplate.render(
+                fitted[0],
                 event.source(),
-                Strings.nvl(event.testName()),
-                Strings.nvl(event.context()),
-                technicalAnalysis,
-                rootCause
+                Strings.nvl(fitted[1]),
+                Strings.nvl(fitted[2]),
+                fitted[3],
+                fitted[4]
         );
 
-        String raw = copilot.ask("Severity", model, systemPrompt, user);
+        Set<String> reported = ConcurrentHashMap.newKeySet();
+        BiConsumer<String, Object> once = (field, value) -> {
+            if (reported.add(field)) earlyFields.accept(field, value);
+        };
+        String raw = copilot.ask("Severity", model, systemPrompt, user,
+                () -> new AgentJsonReader(objectMapper, EARLY_FIELDS, once));
         return parseOrFallback(raw);
     }
 
     private SeverityAssessment parseOrFallback(String raw) {
         try {
-            return objectMapper.readValue(Strings.stripCodeFence(raw), SeverityAssessment.class);
+            SeverityAssessment assessment = AgentJsonReader.read(objectMapper, raw, SeverityAssessment.class);
+            parseOutcomes.parsed();
+            return assessment;
         } catch (Exception e) {
+            parseOutcomes.fellBack();
             log.warn("Severity agent response is not valid JSON: {}", e.getMessage());
             return new SeverityAssessment("Major", raw, null, 0L);
         }
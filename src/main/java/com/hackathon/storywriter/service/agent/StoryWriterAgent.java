@@ -3,13 +3,20 @@ package com.hackathon.storywriter.service.agent;
 import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.CopilotCliService;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
 import com.hackathon.storywriter.util.Strings;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Story Writer Agent.
  *
@@ -20,32 +27,47 @@ import org.springframework.stereotype.Service;
 public class StoryWriterAgent {
 
     private static final Logger log = LoggerFactory.getLogger(StoryWriterAgent.class);
+
+    /** Placeholders of {@code copilot.cli.agents.story-writer.user-template}, in the order they are rendered. */
+    public static final List<String> PARAMETERS = List.of("errorMessage", "source", "testName", "context", "rootCause");
+
     private final CopilotCliService copilot;
     private final ObjectMapper objectMapper;
+    private final ParseOutcomes parseOutcomes;
     private final String model;
     private final String systemPrompt;
-    private final String userTemplate;
+    private final PromptTemplate userTemplate;
+    private final ContextCompactor.PromptBudget budget;
 
     public StoryWriterAgent(
             CopilotCliService copilot,
             ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            ContextCompactor compactor,
             @Value("${copilot.cli.agents.story-writer.model:${copilot.cli.model:gpt-4.1}}") String model,
             @Value("${copilot.cli.agents.story-writer.system}") String systemPrompt,
             @Value("${copilot.cli.agents.story-writer.user-template}") String userTemplate) {
         this.copilot = copilot;
         this.objectMapper = objectMapper;
+        this.parseOutcomes = new ParseOutcomes(meterRegistry, "story-writer");
         this.model = model;
-        this.systemPrompt = systemPrompt;
-        this.userTemplate = userTemplate;
+        this.systemPrompt = systemPrompt.strip();
+        this.userTemplate = new PromptTemplate("story-writer", userTemplate, PARAMETERS, meterRegistry);
+        this.budget = compactor.budget("story-writer", model, this.systemPrompt, this.userTemplate);
     }
 
     public UserStory write(TestFailureEvent event, String rootCause) {
-        String user = userTemplate.formatted(
-                event.errorMessage(),
+        String[] fitted = budget.fit(
+                Field.text(event.errorMessage()),
+                Field.text(event.testName()),
+                Field.text(event.context()),
+                Field.text(rootCause));
+        Prompt user = userTemplate.render(
+                fitted[0],
                 event.source(),
-                Strings.nvl(event.testName()),
-                Strings.nvl(event.context()),
-                rootCause
+                Strings.nvl(fitted[1]),
+                Strings.nvl(fitted[2]),
+                fitted[3]
         );
 
         String raw = copilot.ask("StoryWriter", model, systemPrompt, user);
@@ -54,8 +76,11 @@ public class StoryWriterAgent {
 
     private UserStory parseOrFallback(String raw, TestFailureEvent event) {
         try {
-            return objectMapper.readValue(Strings.stripCodeFence(raw), UserStory.class);
+            UserStory story = AgentJsonReader.read(objectMapper, raw, UserStory.class);
+            parseOutcomes.parsed();
+            return story;
         } catch (Exception e) {
+            parseOutcomes.fellBack();
             log.warn("StoryWriter agent response is not valid JSON, using raw text: {}", e.getMessage());
             return new UserStory(
                     "fix: " + event.errorMessage(),
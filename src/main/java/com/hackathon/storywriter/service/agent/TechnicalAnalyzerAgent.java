@@ -2,12 +2,19 @@ package com.hackathon.storywriter.service.agent;
 
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.CopilotCliService;
+import com.hackathon.storywriter.service.context.ContextCompactor;
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.service.llm.PromptTemplate;
 import com.hackathon.storywriter.util.Strings;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Technical Analyzer Agent.
  *
@@ -20,14 +27,20 @@ public class TechnicalAnalyzerAgent {
 
     private static final Logger log = LoggerFactory.getLogger(TechnicalAnalyzerAgent.class);
 
+    /** Placeholders of {@code copilot.cli.agents.technical-analyzer.user-template}, in the order they are rendered. */
+    public static final List<String> PARAMETERS = List.of("source", "testName", "errorMessage", "stackTrace", "context");
+
     private final CopilotCliService copilot;
     private final int maxStacktraceChars;
     private final String model;
     private final String systemPrompt;
-    private final String userTemplate;
+    private final PromptTemplate userTemplate;
+    private final ContextCompactor.PromptBudget budget;
 
     public TechnicalAnalyzerAgent(
             CopilotCliService copilot,
+            MeterRegistry meterRegistry,
+            ContextCompactor compactor,
             @Value("${copilot.cli.agents.technical-analyzer.model:${copilot.cli.model:gpt-4.1}}") String model,
             @Value("${copilot.cli.max-stacktrace-chars:3000}") int maxStacktraceChars,
             @Value("${copilot.cli.agents.technical-analyzer.system}") String systemPrompt,
@@ -35,20 +48,25 @@ public class TechnicalAnalyzerAgent {
         this.copilot = copilot;
         this.model = model;
         this.maxStacktraceChars = maxStacktraceChars;
-        this.systemPrompt = systemPrompt;
-        this.userTemplate = userTemplate;
+        this.systemPrompt = systemPrompt.strip();
+        this.userTemplate = new PromptTemplate("technical-analyzer", userTemplate, PARAMETERS, meterRegistry);
+        this.budget = compactor.budget("technical-analyzer", model, this.systemPrompt, this.userTemplate);
     }
 
     public String analyze(TestFailureEvent event) {
         log.debug("Analyzing failure: source={}, test={}", event.source(), event.testName());
-        String stackTrace = Strings.truncate(event.stackTrace(), maxStacktraceChars);
+        String[] fitted = budget.fit(
+                Field.text(event.testName()),
+                Field.text(event.errorMessage()),
+                Field.stackTrace(event.stackTrace(), maxStacktraceChars),
+                Field.text(event.context()));
 
-        String user = userTemplate.formatted(
+        Prompt user = userTemplate.render(
                 event.source(),
-                Strings.nvl(event.testName()),
-                event.errorMessage(),
-                Strings.nvl(stackTrace),
-                Strings.nvl(event.context())
+                Strings.nvl(fitted[0]),
+                fitted[1],
+                Strings.nvl(fitted[2]),
+                Strings.nvl(fitted[3])
         );
 
         return copilot.ask("TechnicalAnalyzer", model, systemPrompt, user);
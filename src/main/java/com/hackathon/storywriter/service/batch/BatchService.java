@@ -0,0 +1,102 @@
+package com.hackathon.storywriter.service.batch;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.BatchResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Processes a batch of failure events with cross-event de-duplication.
+ *
+ * <p>Events are clustered by {@link EventFingerprinter#signature stack-trace signature}; the
+ * pipeline runs once per cluster on its first event, and every event points to its cluster's
+ * artifact. At most {@code pipeline.batch.parallelism} clusters run at the same time, so a
+ * nightly regression run does not flood the copilot launch queue.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchService.class);
+
+    private final OrchestratorService orchestratorService;
+    private final EventFingerprinter fingerprinter;
+    private final int parallelism;
+
+    public BatchService(
+            OrchestratorService orchestratorService,
+            EventFingerprinter fingerprinter,
+            @Value("${pipeline.batch.parallelism:4}") int parallelism) {
+        this.orchestratorService = orchestratorService;
+        this.fingerprinter = fingerprinter;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Clusters {@code events} and runs the pipeline once per cluster.
+     *
+     * @param events validated events in submission order
+     * @return per-cluster artifacts and per-event cluster pointers
+     */
+    public BatchResponse process(List<TestFailureEvent> events) {
+        long start = System.currentTimeMillis();
+
+        // signature -> indexes of the events in that cluster, in first-seen order
+        Map<String, List<Integer>> clusters = new LinkedHashMap<>();
+        List<BatchResponse.EventResult> eventResults = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            TestFailureEvent event = events.get(i);
+            String clusterId = fingerprinter.signature(event).substring(0, 16);
+            clusters.computeIfAbsent(clusterId, k -> new ArrayList<>()).add(i);
+            eventResults.add(new BatchResponse.EventResult(i, event.testName(), clusterId));
+        }
+        log.info("Batch of {} events grouped into {} clusters", events.size(), clusters.size());
+
+        Semaphore slots = new Semaphore(parallelism);
+        Map<String, Future<ArtifactResponse>> artifacts = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            clusters.forEach((clusterId, indexes) -> {
+                TestFailureEvent representative = events.get(indexes.getFirst());
+                artifacts.put(clusterId, executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return orchestratorService.process(representative);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            });
+        }
+
+        List<BatchResponse.Cluster> clusterResults = new ArrayList<>(clusters.size());
+        clusters.forEach((clusterId, indexes) -> {
+            Future<ArtifactResponse> future = artifacts.get(clusterId);
+            if (future.state() == Future.State.SUCCESS) {
+                clusterResults.add(new BatchResponse.Cluster(
+                        clusterId, indexes.size(), indexes.getFirst(), future.resultNow(), null));
+            } else {
+                Throwable error = future.exceptionNow();
+                log.warn("Batch cluster {} failed: {}", clusterId, error.getMessage());
+                clusterResults.add(new BatchResponse.Cluster(
+                        clusterId, indexes.size(), indexes.getFirst(), null, error.getMessage()));
+            }
+        });
+
+        long totalMs = System.currentTimeMillis() - start;
+        log.info("Batch of {} events completed in {}ms ({} pipeline runs)", events.size(), totalMs, clusters.size());
+        return new BatchResponse(clusterResults, eventResults, totalMs);
+    }
+}
@@ -0,0 +1,231 @@
+package com.hackathon.storywriter.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier artifact cache keyed on an {@link EventFingerprinter} fingerprint.
+ *
+ * <p>The memory tier is an access-ordered LRU bounded by {@code pipeline.cache.max-entries}.
+ * Entries older than {@code pipeline.cache.ttl} are treated as misses. When
+ * {@code pipeline.cache.disk-dir} is set, every stored artifact is also written as
+ * {@code <fingerprint>.json} into that directory so warm entries survive a restart;
+ * a memory miss falls back to the disk tier and promotes the entry on hit.
+ */
+@Component
+public class ArtifactCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Path diskDir;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final Map<String, Entry> entries;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public ArtifactCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.cache.enabled:true}") boolean enabled,
+            @Value("${pipeline.cache.max-entries:1000}") int maxEntries,
+            @Value("${pipeline.cache.ttl:6h}") Duration ttl,
+            @Value("${pipeline.cache.disk-dir:}") String diskDir) {
+        this(objectMapper, meterRegistry, enabled, maxEntries, ttl, diskDir, Clock.systemUTC());
+    }
+
+    ArtifactCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, boolean enabled,
+                  int maxEntries, Duration ttl, String diskDir, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.diskDir = diskDir == null || diskDir.isBlank() ? null : Path.of(diskDir);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ArtifactCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.memoryHits = Counter.builder("pipeline.cache.requests")
+                .tag("result", "hit").tag("tier", "memory").register(meterRegistry);
+        this.diskHits = Counter.builder("pipeline.cache.requests")
+                .tag("result", "hit").tag("tier", "disk").register(meterRegistry);
+        this.misses = Counter.builder("pipeline.cache.requests")
+                .tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        this.evictions = Counter.builder("pipeline.cache.evictions").register(meterRegistry);
+        Gauge.builder("pipeline.cache.size", this, ArtifactCache::size).register(meterRegistry);
+
+        if (this.enabled && this.diskDir != null) {
+            initDiskTier();
+        }
+    }
+
+    /**
+     * Returns the cached artifact for {@code fingerprint}, or {@code null} on a miss.
+     *
+     * @param fingerprint event fingerprint
+     * @return cached artifact or {@code null}
+     */
+    public ArtifactResponse get(String fingerprint) {
+        if (!enabled) return null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(fingerprint);
+            if (entry != null) {
+                if (!isExpired(entry.storedAtMillis())) {
+                    memoryHits.increment();
+                    return entry.artifact();
+                }
+                entries.remove(fingerprint);
+            }
+        }
+
+        Entry fromDisk = readFromDisk(fingerprint);
+        if (fromDisk != null) {
+            synchronized (entries) {
+                entries.put(fingerprint, fromDisk);
+            }
+            diskHits.increment();
+            return fromDisk.artifact();
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores {@code artifact} under {@code fingerprint} in the memory tier and, if configured, on disk.
+     *
+     * @param fingerprint event fingerprint
+     * @param artifact    artifact produced by the pipeline
+     */
+    public void put(String fingerprint, ArtifactResponse artifact) {
+        if (!enabled) return;
+
+        Entry entry = new Entry(artifact, clock.millis());
+        synchronized (entries) {
+            entries.put(fingerprint, entry);
+        }
+        writeToDisk(fingerprint, entry);
+    }
+
+    /**
+     * @return number of entries currently held in the memory tier
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Disk tier
+    // -------------------------------------------------------------------------
+
+    private void initDiskTier() {
+        try {
+            Files.createDirectories(diskDir);
+            try (Stream<Path> files = Files.list(diskDir)) {
+                files.filter(p -> p.getFileName().toString().endsWith(".json"))
+                        .filter(p -> isExpired(lastModifiedMillis(p)))
+                        .forEach(this::deleteQuietly);
+            }
+            log.info("Artifact cache disk tier enabled at {}", diskDir.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Artifact cache disk tier unavailable at {}: {}", diskDir, e.getMessage());
+        }
+    }
+
+    private Entry readFromDisk(String fingerprint) {
+        if (diskDir == null) return null;
+        Path file = diskDir.resolve(fingerprint + ".json");
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            Entry entry = objectMapper.readValue(file.toFile(), Entry.class);
+            if (isExpired(entry.storedAtMillis())) {
+                deleteQuietly(file);
+                return null;
+            }
+            return entry;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable cache file {}: {}", file, e.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String fingerprint, Entry entry) {
+        if (diskDir == null) return;
+        Path file = diskDir.resolve(fingerprint + ".json");
+        Path tmp = diskDir.resolve(fingerprint + ".json.tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), entry);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist cache entry {}: {}", fingerprint, e.getMessage());
+            deleteQuietly(tmp);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private boolean isExpired(long storedAtMillis) {
+        return clock.millis() - storedAtMillis > ttl.toMillis();
+    }
+
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Cached artifact together with its insertion time; also the on-disk JSON shape.
+     */
+    record Entry(ArtifactResponse artifact, long storedAtMillis) {}
+}
@@ -0,0 +1,140 @@
+package com.hackathon.storywriter.service.cache;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import com.hackathon.storywriter.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Computes a stable, content-addressed fingerprint of a {@link TestFailureEvent}.
+ *
+ * <p>The fingerprint covers {@code source}, {@code testName}, the error message with
+ * volatile tokens (UUIDs, timestamps, hex ids, numbers) masked, and the top N
+ * stack frames with line numbers removed. Two events that only differ in
+ * run-specific noise therefore map to the same key.
+ */
+@Component
+public class EventFingerprinter {
+
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}(?:[T ]\\d{2}:\\d{2}(?::\\d{2}(?:[.,]\\d+)?)?(?:Z|[+-]\\d{2}:?\\d{2})?)?");
+    private static final Pattern HEX_ID = Pattern.compile("\\b0x[0-9a-fA-F]+\\b|@[0-9a-fA-F]{4,}\\b|\\b[0-9a-fA-F]{12,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern LINE_NUMBER = Pattern.compile(":\\d+\\)");
+
+    private final int maxFrames;
+    private final StackTraceSignature stackTraceSignature;
+
+    public EventFingerprinter(@Value("${pipeline.cache.fingerprint-frames:5}") int maxFrames,
+                              StackTraceSignature stackTraceSignature) {
+        this.maxFrames = maxFrames;
+        this.stackTraceSignature = stackTraceSignature;
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 fingerprint of {@code event}.
+     *
+     * @param event the incoming test failure event
+     * @return 64-character lowercase hex string
+     */
+    public String fingerprint(TestFailureEvent event) {
+        StringBuilder key = new StringBuilder(256)
+                .append(event.source()).append('\n')
+                .append(Strings.nvl(event.testName())).append('\n')
+                .append(maskVolatile(event.errorMessage())).append('\n');
+        for (String frame : topFrames(event.stackTrace(), maxFrames)) {
+            key.append(frame).append('\n');
+        }
+        return sha256(key);
+    }
+
+    /**
+     * Returns the stack-trace signature of {@code event}: the exception type plus the top N
+     * application frames, independent of source, test name and context. Framework, assertion
+     * and proxy frames are dropped first (see {@link StackTraceSignature#applicationFrames}),
+     * so failures raised through the same assertion library are still told apart by the test
+     * code that called it. Without application frames, the masked error message is used instead.
+     *
+     * @param event the incoming test failure event
+     * @return 64-character lowercase hex string
+     */
+    public String signature(TestFailureEvent event) {
+        List<String> frames = stackTraceSignature.applicationFrames(event.stackTrace(), maxFrames);
+        StringBuilder key = new StringBuilder(256).append(exceptionType(event)).append('\n');
+        if (frames.isEmpty()) {
+            key.append(maskVolatile(event.errorMessage())).append('\n');
+        }
+        for (String frame : frames) {
+            key.append(frame).append('\n');
+        }
+        return sha256(key);
+    }
+
+    /**
+     * Replaces run-specific tokens in {@code text} with stable placeholders.
+     *
+     * @param text nullable text
+     * @return masked text, or an empty string for {@code null}
+     */
+    public static String maskVolatile(String text) {
+        if (text == null) return "";
+        String masked = UUID.matcher(text).replaceAll("<uuid>");
+        masked = TIMESTAMP.matcher(masked).replaceAll("<ts>");
+        masked = HEX_ID.matcher(masked).replaceAll("<hex>");
+        return NUMBER.matcher(masked).replaceAll("<n>");
+    }
+
+    /**
+     * Extracts up to {@code limit} {@code at ...} frames from a stack trace, without line numbers.
+     *
+     * @param stackTrace nullable stack trace text
+     * @param limit      maximum number of frames to return
+     * @return normalized frames, outermost first
+     */
+    public static List<String> topFrames(String stackTrace, int limit) {
+        List<String> frames = new ArrayList<>(limit);
+        if (stackTrace == null) return frames;
+        for (String line : stackTrace.split("\\R")) {
+            if (frames.size() >= limit) break;
+            String trimmed = line.strip();
+            if (trimmed.startsWith("at ")) {
+                frames.add(LINE_NUMBER.matcher(trimmed.substring(3)).replaceAll(")"));
+            }
+        }
+        return frames;
+    }
+
+    private static String exceptionType(TestFailureEvent event) {
+        String source = event.stackTrace() != null && !event.stackTrace().isBlank()
+                ? event.stackTrace() : Strings.nvl(event.errorMessage());
+        String firstLine = source.strip().lines().findFirst().orElse("");
+        int colon = firstLine.indexOf(':');
+        return (colon >= 0 ? firstLine.substring(0, colon) : firstLine).strip();
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 hash of the UTF-8 bytes of {@code text}.
+     *
+     * @param text text to hash
+     * @return 64-character lowercase hex string
+     */
+    public static String sha256(CharSequence text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
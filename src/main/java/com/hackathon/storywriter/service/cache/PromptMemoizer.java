@@ -0,0 +1,171 @@
+package com.hackathon.storywriter.service.cache;
+
+import com.hackathon.storywriter.service.llm.Prompt;
+import com.hackathon.storywriter.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes copilot responses per (model, hash of system + user prompt).
+ *
+ * <p>Identical prompts — common when events differ only in fields an agent does not
+ * use — are answered from a bounded LRU store. Concurrent identical prompts are
+ * de-duplicated through {@link SingleFlight} so they share a single CLI call.
+ *
+ * <p>Memoization can be switched off globally ({@code copilot.cli.memo.enabled}) or per
+ * agent ({@code copilot.cli.agents.<agent>.memoize}, e.g. {@code severity.memoize: false}).
+ */
+@Component
+public class PromptMemoizer {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptMemoizer.class);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<String, Entry> entries;
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final Map<String, Boolean> agentEnabled = new ConcurrentHashMap<>();
+
+    public PromptMemoizer(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.memo.enabled:true}") boolean enabled,
+            @Value("${copilot.cli.memo.max-entries:500}") int maxEntries,
+            @Value("${copilot.cli.memo.ttl:1h}") Duration ttl) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PromptMemoizer.this.maxEntries;
+            }
+        };
+        Gauge.builder("copilot.cli.memo.size", this, PromptMemoizer::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the memoized response for this prompt, or runs {@code call} to produce it.
+     *
+     * @param agentRole  agent label (e.g. "TechnicalAnalyzer"); selects the per-agent flag
+     * @param model      model identifier
+     * @param systemMsg  system message
+     * @param userPrompt user prompt
+     * @param call       the actual CLI invocation
+     * @return the (possibly memoized) response
+     */
+    public String memoize(String agentRole, String model, String systemMsg, String userPrompt,
+                          Supplier<String> call) {
+        return memoize(agentRole, model, systemMsg, Prompt.of(userPrompt), call);
+    }
+
+    /**
+     * Same as {@link #memoize(String, String, String, String, Supplier)} for a rendered prompt,
+     * which is hashed segment by segment instead of being joined into one string first.
+     */
+    public String memoize(String agentRole, String model, String systemMsg, Prompt userPrompt,
+                          Supplier<String> call) {
+        if (!enabled || !isEnabledFor(agentRole)) {
+            return call.get();
+        }
+
+        String key = model + ':' + hash(systemMsg, userPrompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            log.debug("[{}] Prompt memo hit (model={})", agentRole, model);
+            counter(agentRole, "hit").increment();
+            return cached;
+        }
+
+        SingleFlight.Result<String> result = singleFlight.execute(key, () -> {
+            String response = call.get();
+            synchronized (entries) {
+                entries.put(key, new Entry(response, System.currentTimeMillis()));
+            }
+            return response;
+        });
+        counter(agentRole, result.shared() ? "shared" : "miss").increment();
+        return result.value();
+    }
+
+    /**
+     * @return number of memoized responses currently held
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (System.currentTimeMillis() - entry.storedAtMillis() > ttlMillis) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response();
+        }
+    }
+
+    /** SHA-256 of {@code system + '\0' + user} in UTF-8, as lowercase hex. */
+    private static String hash(String systemMsg, Prompt userPrompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(systemMsg.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            userPrompt.digest(digest);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private boolean isEnabledFor(String agentRole) {
+        return agentEnabled.computeIfAbsent(agentRole, role -> environment.getProperty(
+                "copilot.cli.agents." + toConfigKey(role) + ".memoize", Boolean.class, true));
+    }
+
+    private Counter counter(String agentRole, String result) {
+        return Counter.builder("copilot.cli.memo.requests")
+                .tag("agent", agentRole)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Converts an agent label such as {@code "TechnicalAnalyzer"} to its configuration key
+     * ({@code "technical-analyzer"}).
+     *
+     * @param agentRole agent label in PascalCase
+     * @return kebab-case configuration key
+     */
+    public static String toConfigKey(String agentRole) {
+        return agentRole.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase();
+    }
+
+    private record Entry(String response, long storedAtMillis) {}
+}
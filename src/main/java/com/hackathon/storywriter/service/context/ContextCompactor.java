@@ -0,0 +1,463 @@
+package com.hackathon.storywriter.service.context;
+
+import com.hackathon.storywriter.service.llm.PromptTemplate;
+import com.hackathon.storywriter.util.Strings;
+import com.hackathon.storywriter.util.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Shrinks the variable parts of agent prompts: stack traces, event fields and the output of
+ * upstream agents.
+ *
+ * <p><b>Stack traces</b> are compacted structurally: frames from
+ * {@code copilot.cli.context.framework-packages} (reflection, proxies, Spring, servlet and test
+ * plumbing) are replaced by one {@code ... N frames omitted} line per gap, a cycle of up to
+ * {@value #MAX_CYCLE} frames repeated three or more times (deep recursion) is kept once with
+ * a repeat count, {@code ... N more} lines are dropped, and long exception messages are cut.
+ *
+ * <p><b>Budgets:</b> each prompt must fit {@code copilot.cli.context.max-prompt-tokens},
+ * overridable per model under {@code copilot.cli.context.models.<model>}, as estimated by
+ * {@link TokenEstimator}. What the system prompt and template leave is shared between the
+ * fields max-min fairly: fields smaller than an equal share keep all they need and the rest
+ * is split between the larger ones. A text that does not fit is cut at a line break. A stack
+ * trace that does not fit keeps, in this order: the outermost exception and the root cause,
+ * the other {@code Caused by} lines and the frame each exception was thrown from, the root
+ * cause's frames from {@code copilot.cli.context.app-packages}, then the other application
+ * frames, top first. A "stack trace" without {@code at} frames is treated as plain text.
+ *
+ * <p>With {@code copilot.cli.context.enabled=false} texts are passed unchanged and stack
+ * traces are only cut at {@code copilot.cli.max-stacktrace-chars}.
+ */
+@Component
+public class ContextCompactor {
+
+    /** Longest repeated frame sequence recognised as a cycle. */
+    static final int MAX_CYCLE = 8;
+
+    private static final int MAX_HEADER_CHARS = 500;
+    private static final int MAX_MESSAGE_LINES = 5;
+    /** No field is cut below this, however small the budget. */
+    private static final int MIN_FIELD_TOKENS = 32;
+    /** Room left for the omission markers added while rendering. */
+    private static final int MARKER_TOKENS = 8;
+
+    private static final int HEADER = 0;
+    private static final int FRAME = 1;
+    private static final int CYCLE = 2;
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxPromptTokens;
+    private final List<String> appPackages;
+    private final List<String> frameworkPackages;
+    private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+
+    public ContextCompactor(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.context.enabled:true}") boolean enabled,
+            @Value("${copilot.cli.context.max-prompt-tokens:6000}") int maxPromptTokens,
+            @Value("${copilot.cli.context.app-packages:}") String appPackages,
+            @Value("${copilot.cli.context.framework-packages:java.lang.reflect.,jdk.internal.,sun.reflect.,"
+                    + "org.springframework.,org.junit.,org.mockito.,org.apache.catalina.,org.apache.coyote.,"
+                    + "org.apache.tomcat.,jakarta.servlet.,org.apache.maven.surefire.,org.gradle.,com.intellij.}")
+            String frameworkPackages) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxPromptTokens = maxPromptTokens;
+        this.appPackages = prefixes(appPackages);
+        this.frameworkPackages = prefixes(frameworkPackages);
+    }
+
+    /**
+     * One variable part of a prompt.
+     *
+     * @param text       field value; {@code null} is passed through (or becomes {@code ""} for a stack trace)
+     * @param stackTrace whether the value is a Java stack trace
+     * @param maxChars   upper bound in chars, whatever the token budget
+     */
+    public record Field(String text, boolean stackTrace, int maxChars) {
+
+        public static Field text(String text) {
+            return new Field(text, false, Integer.MAX_VALUE);
+        }
+
+        public static Field stackTrace(String text, int maxChars) {
+            return new Field(text, true, maxChars);
+        }
+    }
+
+    /**
+     * Binds {@link #fit} to one agent's prompt.
+     *
+     * @param agent        agent name, used as the {@code agent} tag of the size metrics
+     * @param model        model the agent's prompts are sent to
+     * @param systemPrompt the agent's system prompt
+     * @param userTemplate the agent's compiled {@code user-template}
+     */
+    public PromptBudget budget(String agent, String model, String systemPrompt, PromptTemplate userTemplate) {
+        return new PromptBudget(agent, model,
+                TokenEstimator.estimate(systemPrompt) + TokenEstimator.estimate(userTemplate.skeleton()));
+    }
+
+    /**
+     * The token budget of one agent's prompts. The system prompt and the template text cannot be
+     * compacted, so their estimate is taken once and only the fields are fitted per call.
+     */
+    public final class PromptBudget {
+
+        private final String agent;
+        private final String model;
+        private final int fixedTokens;
+
+        private PromptBudget(String agent, String model, int fixedTokens) {
+            this.agent = agent;
+            this.model = model;
+            this.fixedTokens = fixedTokens;
+        }
+
+        /** Fits {@code fields} into what the system prompt and template text leave; see {@link ContextCompactor#fit}. */
+        public String[] fit(Field... fields) {
+            return ContextCompactor.this.fit(agent, model, fixedTokens, fields);
+        }
+    }
+
+    /**
+     * Compacts {@code fields} and fits them into the token budget of {@code model}.
+     *
+     * @param agent       agent name, used as the {@code agent} tag of the size metrics
+     * @param model       model the prompt is sent to; selects the budget
+     * @param fixedTokens estimated tokens of the system prompt and the template text
+     * @param fields      variable parts of the prompt
+     * @return the fitted texts, in the order of {@code fields}
+     */
+    public String[] fit(String agent, String model, int fixedTokens, Field... fields) {
+        String[] texts = new String[fields.length];
+        if (!enabled) {
+            for (int i = 0; i < fields.length; i++) {
+                texts[i] = fields[i].stackTrace() ? Strings.truncate(fields[i].text(), fields[i].maxChars()) : fields[i].text();
+            }
+            return texts;
+        }
+
+        int original = 0;
+        int[] need = new int[fields.length];
+        Trace[] traces = new Trace[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            int tokens = TokenEstimator.estimate(field.text());
+            original += tokens;
+            if (field.stackTrace()) {
+                traces[i] = parse(field.text() != null ? field.text() : "");
+                texts[i] = traces[i] != null
+                        ? traces[i].fit(Integer.MAX_VALUE, field.maxChars())
+                        : Strings.truncate(field.text(), field.maxChars());
+                need[i] = TokenEstimator.estimate(texts[i]);
+            } else {
+                texts[i] = field.text();
+                need[i] = tokens;
+            }
+        }
+
+        int fitted = IntStream.of(need).sum();
+        int available = budget(model) - fixedTokens;
+        if (fitted > available) {
+            int[] allowed = share(need, available);
+            for (int i = 0; i < fields.length; i++) {
+                if (need[i] <= allowed[i]) continue;
+                texts[i] = traces[i] != null
+                        ? traces[i].fit(allowed[i], fields[i].maxChars())
+                        : cut(texts[i], allowed[i]);
+                fitted += TokenEstimator.estimate(texts[i]) - need[i];
+            }
+        }
+
+        summary("copilot.cli.prompt.tokens", "Estimated prompt tokens per agent call, after compaction", agent)
+                .record(fixedTokens + fitted);
+        summary("copilot.cli.context.removed", "Estimated tokens removed from a prompt by compaction", agent)
+                .record(Math.max(0, original - fitted));
+        return texts;
+    }
+
+    /**
+     * Compacts a stack trace structurally, without a token budget.
+     *
+     * @param stackTrace nullable stack trace
+     * @return compacted trace; {@code ""} for {@code null}
+     */
+    public String compactStackTrace(String stackTrace) {
+        if (stackTrace == null) return "";
+        Trace trace = parse(stackTrace);
+        return trace != null ? trace.fit(Integer.MAX_VALUE, Integer.MAX_VALUE) : stackTrace;
+    }
+
+    /** Token budget of a whole prompt sent to {@code model}. */
+    int budget(String model) {
+        return budgets.computeIfAbsent(model, m -> environment.getProperty(
+                "copilot.cli.context.models." + m, Integer.class, maxPromptTokens));
+    }
+
+    /** Max-min fair shares of {@code available} tokens, never below {@link #MIN_FIELD_TOKENS}. */
+    private static int[] share(int[] need, int available) {
+        int[] allowed = new int[need.length];
+        Integer[] bySize = IntStream.range(0, need.length).boxed()
+                .sorted(Comparator.comparingInt(i -> need[i])).toArray(Integer[]::new);
+        int remaining = Math.max(0, available);
+        for (int k = 0; k < bySize.length; k++) {
+            int i = bySize[k];
+            int fairShare = remaining / (bySize.length - k);
+            allowed[i] = Math.min(need[i], Math.max(MIN_FIELD_TOKENS, fairShare));
+            remaining = Math.max(0, remaining - allowed[i]);
+        }
+        return allowed;
+    }
+
+    /** Longest prefix of {@code text} within {@code maxTokens}, preferably ending at a line break. */
+    private static String cut(String text, int maxTokens) {
+        int target = Math.max(1, maxTokens - MARKER_TOKENS);
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (TokenEstimator.estimate(text.subSequence(0, mid)) <= target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int lineBreak = text.lastIndexOf('\n', low);
+        int end = lineBreak > low * 3 / 4 ? lineBreak : low;
+        return text.substring(0, end) + "\n... [truncated]";
+    }
+
+    /** Parses a Java stack trace; {@code null} when the text has no {@code at} frames. */
+    private Trace parse(String stackTrace) {
+        List<Line> lines = new ArrayList<>();
+        List<Integer> blockStarts = new ArrayList<>();
+        List<String> frames = new ArrayList<>();
+        int messageLines = 0;
+        boolean inFrames = true;
+        boolean sawFrames = false;
+        for (String raw : stackTrace.split("\\R")) {
+            String trimmed = raw.strip();
+            if (trimmed.isEmpty()) continue;
+            if (trimmed.startsWith("at ")) {
+                frames.add(raw.stripTrailing());
+                inFrames = true;
+                sawFrames = true;
+            } else if (trimmed.startsWith("... ") && trimmed.endsWith(" more")) {
+                // frames shared with the enclosing exception; nothing the model can use
+                inFrames = true;
+            } else {
+                addFrames(lines, frames);
+                boolean newBlock = inFrames || trimmed.startsWith("Caused by:") || trimmed.startsWith("Suppressed:");
+                if (newBlock) {
+                    blockStarts.add(lines.size());
+                    messageLines = 0;
+                }
+                if (messageLines++ < MAX_MESSAGE_LINES) {
+                    String header = raw.stripTrailing();
+                    if (header.length() > MAX_HEADER_CHARS) header = header.substring(0, MAX_HEADER_CHARS) + "...";
+                    lines.add(new Line(header, HEADER, newBlock));
+                }
+                inFrames = false;
+            }
+        }
+        if (!sawFrames) return null;
+        addFrames(lines, frames);
+        return new Trace(lines, blockStarts);
+    }
+
+    /** Adds a run of frames, collapsing framework frames and repeated cycles. */
+    private void addFrames(List<Line> lines, List<String> frames) {
+        int i = 0;
+        while (i < frames.size()) {
+            int cycle = 0;
+            int repeats = 0;
+            for (int k = 1; k <= MAX_CYCLE && cycle == 0; k++) {
+                int r = 1;
+                while (i + (r + 1) * k <= frames.size() && frames.subList(i + r * k, i + (r + 1) * k).equals(frames.subList(i, i + k))) {
+                    r++;
+                }
+                if (r >= 3) {
+                    cycle = k;
+                    repeats = r;
+                }
+            }
+            int length = cycle > 0 ? cycle : 1;
+            for (int j = i; j < i + length; j++) {
+                String frame = frames.get(j);
+                String method = method(frame);
+                lines.add(isFramework(method) ? Line.omitted() : new Line(frame, FRAME, isApp(method)));
+            }
+            if (cycle > 0) {
+                lines.add(new Line("\t... above " + (cycle == 1 ? "frame" : cycle + " frames") + " repeated "
+                        + (repeats - 1) + " more times", CYCLE, false));
+            }
+            i += length * Math.max(1, repeats);
+        }
+        frames.clear();
+    }
+
+    /** {@code class.method} of an {@code at ...} line, without a module prefix. */
+    private static String method(String frame) {
+        String text = frame.strip().substring(3);
+        int paren = text.indexOf('(');
+        if (paren >= 0) text = text.substring(0, paren);
+        int slash = text.lastIndexOf('/');
+        return slash >= 0 ? text.substring(slash + 1) : text;
+    }
+
+    private boolean isFramework(String method) {
+        if (method.contains("$$") || method.startsWith("jdk.proxy")) return true;
+        for (String prefix : frameworkPackages) {
+            if (method.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private boolean isApp(String method) {
+        if (appPackages.isEmpty()) return true;
+        for (String prefix : appPackages) {
+            if (method.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private DistributionSummary summary(String name, String description, String agent) {
+        return DistributionSummary.builder(name)
+                .baseUnit("tokens")
+                .tag("agent", agent)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private static List<String> prefixes(String list) {
+        return Arrays.stream(list.split(",")).map(String::strip).filter(prefix -> !prefix.isEmpty()).toList();
+    }
+
+    /**
+     * One line of a parsed trace.
+     *
+     * @param text  line text; {@code null} for a dropped framework frame
+     * @param kind  {@link #HEADER}, {@link #FRAME} or {@link #CYCLE}
+     * @param flag  for a header, whether it starts an exception; for a frame, whether it is an application frame
+     */
+    private record Line(String text, int kind, boolean flag) {
+        static Line omitted() {
+            return new Line(null, FRAME, false);
+        }
+    }
+
+    /** A parsed, structurally compacted stack trace that can be rendered within a budget. */
+    private static final class Trace {
+
+        private final List<Line> lines;
+        private final int[] rank;
+
+        Trace(List<Line> lines, List<Integer> blockStarts) {
+            this.lines = lines;
+            this.rank = new int[lines.size()];
+            int blocks = blockStarts.size();
+            for (int b = 0; b < Math.max(1, blocks); b++) {
+                int from = blocks == 0 ? 0 : blockStarts.get(b);
+                int to = b + 1 < blocks ? blockStarts.get(b + 1) : lines.size();
+                boolean outer = b == 0;
+                boolean root = b == blocks - 1;
+                boolean firstFrame = true;
+                for (int i = from; i < to; i++) {
+                    Line line = lines.get(i);
+                    if (line.text() == null) {
+                        rank[i] = Integer.MAX_VALUE;
+                        firstFrame = false;
+                    } else if (line.kind() == HEADER) {
+                        rank[i] = line.flag() && (outer || root) ? 0 : 1;
+                    } else if (line.kind() == CYCLE) {
+                        rank[i] = i > 0 ? rank[i - 1] : 4;
+                    } else if (firstFrame) {
+                        rank[i] = root ? 1 : 2;
+                        firstFrame = false;
+                    } else if (line.flag()) {
+                        rank[i] = root ? 2 : 3;
+                    } else {
+                        rank[i] = 4;
+                    }
+                }
+            }
+        }
+
+        /** Renders the highest-ranked lines that fit both limits, in their original order. */
+        String fit(int maxTokens, int maxChars) {
+            int tokenLimit = maxTokens;
+            int charLimit = maxChars;
+            String text = "";
+            for (int attempt = 0; attempt < 4; attempt++) {
+                text = render(select(tokenLimit, charLimit));
+                int tokens = TokenEstimator.estimate(text);
+                if (tokens <= maxTokens && text.length() <= maxChars) return text;
+                // markers for the gaps took the room; retry with their cost reserved
+                if (tokens > maxTokens) tokenLimit -= tokens - maxTokens + MARKER_TOKENS;
+                if (text.length() > maxChars) charLimit -= text.length() - maxChars + 32;
+            }
+            return Strings.truncate(text, Math.max(0, maxChars));
+        }
+
+        private boolean[] select(int maxTokens, int maxChars) {
+            boolean[] selected = new boolean[lines.size()];
+            long tokens = 0;
+            long chars = 0;
+            for (int level = 0; level <= 4; level++) {
+                for (int i = 0; i < lines.size(); i++) {
+                    if (rank[i] != level) continue;
+                    String text = lines.get(i).text();
+                    int lineTokens = TokenEstimator.estimate(text) + 1;
+                    if (tokens + lineTokens > maxTokens || chars + text.length() + 1 > maxChars) {
+                        return selected;
+                    }
+                    selected[i] = true;
+                    tokens += lineTokens;
+                    chars += text.length() + 1;
+                }
+            }
+            return selected;
+        }
+
+        private String render(boolean[] selected) {
+            StringBuilder out = new StringBuilder();
+            int omitted = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                if (!selected[i]) {
+                    if (line.kind() == FRAME) omitted++;
+                    continue;
+                }
+                omitted = flushOmitted(out, omitted);
+                out.append(line.text()).append('\n');
+            }
+            flushOmitted(out, omitted);
+            if (!out.isEmpty()) out.setLength(out.length() - 1);
+            return out.toString();
+        }
+
+        private static int flushOmitted(StringBuilder out, int omitted) {
+            if (omitted > 0) {
+                out.append("\t... ").append(omitted).append(omitted == 1 ? " frame" : " frames").append(" omitted\n");
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.hackathon.storywriter.service.graph;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.PipelineListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Small dependency-graph scheduler for agent pipelines.
+ *
+ * <p>Each {@link Node} starts on the executor as soon as all of its dependencies have
+ * finished, so independent nodes run in parallel without hand-written
+ * {@code thenCombine} chains. Every node is timed the same way, and its section is
+ * reported to the {@link PipelineListener} before any dependent starts.
+ *
+ * <p>A node is {@linkplain Status#SKIPPED skipped} when its condition rejects the event or
+ * when one of its dependencies did not produce an output. Each step runs under a deadline:
+ * the earlier of its own {@linkplain Node#timeout() timeout} and the budget of the whole run.
+ * A step past its deadline is cancelled (its thread is interrupted, which kills any CLI
+ * process it is waiting for) and recorded as {@linkplain Status#TIMEOUT timed out}; a step
+ * that throws is recorded as {@linkplain Status#FAILED failed}. Dependents of such a node
+ * are skipped instead of started, so the run finishes with partial results. Only a
+ * {@linkplain Node#required() required} node that times out or fails fails the run, at once:
+ * steps still in flight are cancelled and nodes not yet started are skipped, so a failed run
+ * does not keep executor threads or launch permits busy.
+ *
+ * <p>With speculation enabled, a node does not wait for the dependencies listed in
+ * {@link Node#speculateOn()}: it runs a draft without them, and once they finish the
+ * {@link RerunPolicy} decides whether to keep the draft or run the node again with the
+ * complete inputs.
+ */
+public final class AgentGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentGraph.class);
+
+    /** Runs one node; {@code upstream} holds the outputs of its finished dependencies by node name. */
+    @FunctionalInterface
+    public interface Step {
+        Object run(TestFailureEvent event, Map<String, Object> upstream);
+    }
+
+    /**
+     * A step that can report fields of its section before it finishes, e.g. a severity level
+     * read from a model answer that is still being written. They reach
+     * {@link PipelineListener#onField}; the section itself is still reported when the step ends.
+     */
+    @FunctionalInterface
+    public interface StreamingStep extends Step {
+        Object run(TestFailureEvent event, Map<String, Object> upstream, BiConsumer<String, Object> earlyFields);
+
+        @Override
+        default Object run(TestFailureEvent event, Map<String, Object> upstream) {
+            return run(event, upstream, (field, value) -> { });
+        }
+    }
+
+    /** Wraps a node output into its section record, stamped with the measured duration. */
+    @FunctionalInterface
+    public interface SectionFactory {
+        Object create(Object output, long durationMs);
+    }
+
+    /** Decides whether a speculative draft must be re-run once the awaited outputs are known. */
+    @FunctionalInterface
+    public interface RerunPolicy {
+        /**
+         * @param node        node whose draft is settled
+         * @param draftInputs outputs the draft was computed from
+         * @param awaited     outputs of the {@link Node#speculateOn()} dependencies
+         * @return {@code true} to run the node again with all inputs
+         */
+        boolean shouldRerun(Node node, Map<String, Object> draftInputs, Map<String, Object> awaited);
+    }
+
+    /**
+     * One agent in the graph.
+     *
+     * @param name        unique node name, e.g. {@code "root-cause"}
+     * @param section     section name reported to listeners, e.g. {@code "rootCause"}
+     * @param dependsOn   names of the nodes whose outputs this node needs
+     * @param speculateOn subset of {@code dependsOn} the node may run ahead of when speculating
+     * @param condition   the node runs only for events accepted by this predicate
+     * @param required    whether a timeout or failure of this node fails the whole run
+     * @param timeout     deadline of one step execution; {@code null} for none
+     * @param step        the work itself
+     * @param sections    builds the section record from the output
+     */
+    public record Node(String name, String section, List<String> dependsOn, List<String> speculateOn,
+                       Predicate<TestFailureEvent> condition, boolean required, Duration timeout,
+                       Step step, SectionFactory sections) {
+        public Node {
+            dependsOn = List.copyOf(dependsOn);
+            speculateOn = List.copyOf(speculateOn);
+        }
+    }
+
+    /** How a node ended. */
+    public enum Status { OK, SKIPPED, TIMEOUT, FAILED }
+
+    /**
+     * Result of one node.
+     *
+     * @param output     raw step output; {@code null} unless {@link Status#OK}
+     * @param section    section record; {@code null} unless {@link Status#OK}
+     * @param durationMs time spent in the step, drafts and re-runs included
+     * @param status     how the node ended
+     * @param error      cause of a {@link Status#TIMEOUT} or {@link Status#FAILED} outcome, else {@code null}
+     */
+    public record Outcome(Object output, Object section, long durationMs, Status status, Throwable error) {
+        static final Outcome SKIPPED = new Outcome(null, null, 0L, Status.SKIPPED, null);
+
+        public boolean ok() {
+            return status == Status.OK;
+        }
+    }
+
+    private final List<Node> order;
+
+    /**
+     * @param nodes graph nodes, in any order
+     * @throws IllegalStateException on duplicate names, unknown dependencies, or cycles
+     */
+    public AgentGraph(List<Node> nodes) {
+        this.order = topologicalOrder(nodes);
+    }
+
+    /** Nodes in a valid execution order. */
+    public List<Node> nodes() {
+        return order;
+    }
+
+    /**
+     * Schedules every node of the graph for {@code event}.
+     *
+     * @param event       event being processed
+     * @param listener    receives each section when its node finishes
+     * @param executor    runs the steps; must allow a step and its caller to block at the same time
+     * @param rerunPolicy enables speculation when non-null
+     * @param budget      latency budget of the whole run; {@code null} for none
+     * @return future of all outcomes by node name, in execution order; fails as soon as a required
+     *         node times out or fails
+     */
+    public CompletableFuture<Map<String, Outcome>> run(TestFailureEvent event, PipelineListener listener,
+                                                        ExecutorService executor, RerunPolicy rerunPolicy,
+                                                        Duration budget) {
+        long deadline = budget != null ? System.nanoTime() + budget.toNanos() : Long.MAX_VALUE;
+        Map<String, CompletableFuture<Outcome>> futures = new ConcurrentHashMap<>();
+        InFlight inFlight = new InFlight();
+        CompletableFuture<Map<String, Outcome>> run = new CompletableFuture<>();
+        for (Node node : order) {
+            List<String> awaited = rerunPolicy != null ? node.speculateOn() : List.of();
+            List<String> first = node.dependsOn().stream().filter(d -> !awaited.contains(d)).toList();
+
+            CompletableFuture<Outcome> result = allOf(first, futures).thenApplyAsync(
+                    ignored -> execute(node, event, listener, first, futures, inFlight, executor, deadline, 0L), executor);
+            if (!awaited.isEmpty()) {
+                result = result.thenCombineAsync(allOf(awaited, futures),
+                        (draft, ignored) -> settle(node, event, listener, draft, first, futures, inFlight, executor,
+                                deadline, rerunPolicy),
+                        executor);
+            }
+            result = result.thenApply(outcome -> {
+                if (outcome.ok()) listener.onSection(node.section(), outcome.section());
+                return outcome;
+            });
+            result.whenComplete((outcome, error) -> {
+                if (error != null && run.completeExceptionally(
+                        error instanceof CompletionException ? error : new CompletionException(error))) {
+                    inFlight.cancelAll();
+                }
+            });
+            futures.put(node.name(), result);
+        }
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).thenRun(() -> {
+            Map<String, Outcome> outcomes = new LinkedHashMap<>();
+            order.forEach(node -> outcomes.put(node.name(), futures.get(node.name()).join()));
+            run.complete(outcomes);
+        });
+        return run;
+    }
+
+    private Outcome execute(Node node, TestFailureEvent event, PipelineListener listener, List<String> inputs,
+                            Map<String, CompletableFuture<Outcome>> futures, InFlight inFlight,
+                            ExecutorService executor, long runDeadline, long priorMs) {
+        if (inFlight.cancelled()) {
+            log.debug("{} skipped: the run already failed", node.name());
+            return Outcome.SKIPPED;
+        }
+        if (!node.condition().test(event)) {
+            log.debug("{} skipped for source {}", node.name(), event.source());
+            return Outcome.SKIPPED;
+        }
+        Map<String, Object> upstream = outputs(inputs, futures);
+        if (upstream == null) {
+            log.debug("{} skipped: a dependency produced no output", node.name());
+            return Outcome.SKIPPED;
+        }
+        long start = System.nanoTime();
+        long deadline = node.timeout() != null ? Math.min(runDeadline, start + node.timeout().toNanos()) : runDeadline;
+        if (deadline - start <= 0) {
+            return ended(node, priorMs, Status.TIMEOUT, new TimeoutException("Pipeline budget exhausted before "
+                    + node.name() + " could start"));
+        }
+        log.debug("{} starting", node.name());
+        Future<Object> running = executor.submit(() -> node.step() instanceof StreamingStep streaming
+                ? streaming.run(event, upstream, (field, value) -> listener.onField(node.section(), field, value))
+                : node.step().run(event, upstream));
+        inFlight.add(running);
+        try {
+            Object output = deadline == Long.MAX_VALUE
+                    ? running.get()
+                    : running.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            long durationMs = priorMs + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.debug("{} completed in {}ms", node.name(), durationMs);
+            return new Outcome(output, node.sections().create(output, durationMs), durationMs, Status.OK, null);
+        } catch (TimeoutException e) {
+            running.cancel(true);
+            long durationMs = priorMs + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return ended(node, durationMs, Status.TIMEOUT,
+                    new TimeoutException(node.name() + " timed out after " + durationMs + "ms"));
+        } catch (ExecutionException e) {
+            long durationMs = priorMs + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return ended(node, durationMs, Status.FAILED, e.getCause());
+        } catch (InterruptedException e) {
+            running.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            inFlight.remove(running);
+        }
+    }
+
+    /** Outcome of a node that timed out or failed; rethrows for a required node. */
+    private static Outcome ended(Node node, long durationMs, Status status, Throwable error) {
+        if (node.required()) throw new CompletionException(error);
+        log.warn("Agent {} {} after {}ms: {}", node.name(), status == Status.TIMEOUT ? "timed out" : "failed",
+                durationMs, error.getMessage());
+        return new Outcome(null, null, durationMs, status, error);
+    }
+
+    private Outcome settle(Node node, TestFailureEvent event, PipelineListener listener, Outcome draft, List<String> draftInputs,
+                           Map<String, CompletableFuture<Outcome>> futures, InFlight inFlight,
+                           ExecutorService executor, long runDeadline, RerunPolicy rerunPolicy) {
+        if (!draft.ok()) return draft;
+        Map<String, Object> awaited = outputs(node.speculateOn(), futures);
+        if (awaited == null) return draft;
+        if (!rerunPolicy.shouldRerun(node, outputs(draftInputs, futures), awaited)) return draft;
+        log.debug("{} re-running with {}", node.name(), node.speculateOn());
+        Outcome rerun = execute(node, event, listener, node.dependsOn(), futures, inFlight, executor, runDeadline,
+                draft.durationMs());
+        if (rerun.ok()) return rerun;
+        log.debug("{} re-run ended {}, keeping the draft", node.name(), rerun.status());
+        return new Outcome(draft.output(), draft.section(), rerun.durationMs(), Status.OK, null);
+    }
+
+    /** Outputs of the given finished nodes, or {@code null} if any of them has none. */
+    private static Map<String, Object> outputs(List<String> names, Map<String, CompletableFuture<Outcome>> futures) {
+        Map<String, Object> outputs = new HashMap<>();
+        for (String name : names) {
+            Outcome outcome = futures.get(name).join();
+            if (!outcome.ok()) return null;
+            outputs.put(name, outcome.output());
+        }
+        return outputs;
+    }
+
+    private static CompletableFuture<Void> allOf(List<String> names, Map<String, CompletableFuture<Outcome>> futures) {
+        return CompletableFuture.allOf(names.stream().map(futures::get).toArray(CompletableFuture[]::new));
+    }
+
+    /** Steps running in one run, cancelled together once a required node fails. */
+    private static final class InFlight {
+        private final Set<Future<?>> steps = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+
+        void add(Future<?> step) {
+            steps.add(step);
+            if (cancelled) step.cancel(true);
+        }
+
+        void remove(Future<?> step) {
+            steps.remove(step);
+        }
+
+        void cancelAll() {
+            cancelled = true;
+            steps.forEach(step -> step.cancel(true));
+        }
+
+        boolean cancelled() {
+            return cancelled;
+        }
+    }
+
+    /** Kahn's algorithm, keeping declaration order among nodes that are ready together. */
+    private static List<Node> topologicalOrder(List<Node> nodes) {
+        Map<String, Node> byName = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            if (byName.put(node.name(), node) != null) {
+                throw new IllegalStateException("Duplicate agent node: " + node.name());
+            }
+        }
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Node node : nodes) {
+            for (String dependency : node.dependsOn()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalStateException("Agent " + node.name() + " depends on unknown agent " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(node.name());
+            }
+            if (!node.dependsOn().containsAll(node.speculateOn())) {
+                throw new IllegalStateException("Agent " + node.name() + " speculates on agents it does not depend on");
+            }
+            pending.put(node.name(), node.dependsOn().size());
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        byName.keySet().stream().filter(name -> pending.get(name) == 0).forEach(ready::add);
+        List<Node> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            order.add(byName.get(name));
+            for (String dependent : dependents.getOrDefault(name, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+            }
+        }
+        if (order.size() != nodes.size()) {
+            List<String> cyclic = new ArrayList<>(byName.keySet());
+            order.forEach(node -> cyclic.remove(node.name()));
+            throw new IllegalStateException("Agent dependency cycle among " + cyclic);
+        }
+        return Collections.unmodifiableList(order);
+    }
+}
@@ -0,0 +1,55 @@
+package com.hackathon.storywriter.service.graph;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Per-agent graph settings bound from {@code copilot.cli.agents.*}.
+ *
+ * <p>The same keys also hold each agent's {@code model}, {@code system} and
+ * {@code user-template}, which the agents read themselves; only the graph keys
+ * ({@code depends-on}, {@code speculate-on}, {@code enabled}, {@code skip-sources},
+ * {@code required}, {@code timeout}) are bound here.
+ */
+@Component
+public class AgentGraphSettings {
+
+    private final Map<String, NodeSettings> nodes;
+
+    @Autowired
+    public AgentGraphSettings(Environment environment) {
+        this(Binder.get(environment)
+                .bind("copilot.cli.agents", Bindable.mapOf(String.class, NodeSettings.class))
+                .orElse(Map.of()));
+    }
+
+    private AgentGraphSettings(Map<String, NodeSettings> nodes) {
+        this.nodes = Map.copyOf(nodes);
+    }
+
+    /**
+     * Creates settings from an explicit map, e.g. in tests.
+     *
+     * @param nodes settings keyed by kebab-case agent name
+     * @return settings; agents missing from {@code nodes} use their defaults
+     */
+    public static AgentGraphSettings of(Map<String, NodeSettings> nodes) {
+        return new AgentGraphSettings(nodes);
+    }
+
+    /**
+     * Returns the settings of {@code agent}, or defaults when it is not configured.
+     *
+     * @param agent kebab-case agent name, e.g. {@code "story-writer"}
+     * @return non-null settings
+     */
+    public NodeSettings node(String agent) {
+        NodeSettings settings = nodes.get(agent);
+        return settings != null ? settings : new NodeSettings();
+    }
+}
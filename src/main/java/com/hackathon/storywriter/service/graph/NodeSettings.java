@@ -0,0 +1,81 @@
+package com.hackathon.storywriter.service.graph;
+
+import com.hackathon.storywriter.model.TestFailureEvent.FailureSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Graph settings of one agent, bound from {@code copilot.cli.agents.<agent>.*}.
+ *
+ * <p>{@code null} lists mean "not configured": the agent keeps its built-in dependencies.
+ */
+public class NodeSettings {
+
+    /** Agents whose output this agent needs. */
+    private List<String> dependsOn;
+
+    /** Dependencies this agent may run ahead of in {@code pipeline.mode=fast}. */
+    private List<String> speculateOn;
+
+    /** Disabled agents are skipped, and so are agents depending on them. */
+    private boolean enabled = true;
+
+    /** Failure sources for which the agent is skipped, e.g. {@code [LOG]}. */
+    private Set<FailureSource> skipSources = Set.of();
+
+    /** When true, a timeout or failure of this agent fails the pipeline instead of leaving its section empty. */
+    private boolean required;
+
+    /** Deadline of one call of this agent; {@code null} uses {@code pipeline.agent-timeout}. */
+    private Duration timeout;
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
+    public List<String> getSpeculateOn() {
+        return speculateOn;
+    }
+
+    public void setSpeculateOn(List<String> speculateOn) {
+        this.speculateOn = speculateOn;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<FailureSource> getSkipSources() {
+        return skipSources;
+    }
+
+    public void setSkipSources(Set<FailureSource> skipSources) {
+        this.skipSources = skipSources;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public void setRequired(boolean required) {
+        this.required = required;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,241 @@
+package com.hackathon.storywriter.service.ingest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches {@code pipeline.ingest.watch-dir} and feeds its logs through {@link LogIngestService}.
+ *
+ * <ul>
+ *   <li>Plain files are tailed: what is appended is read through memory-mapped windows from the
+ *       last offset; an entry still being written is emitted once that file has not changed for
+ *       one {@code poll-interval} of wall-clock time, however busy the other files are. Files
+ *       present at startup are tailed from their current end.</li>
+ *   <li>Gzip files (rolled logs) are read once, after their size has not changed for one
+ *       {@code poll-interval} of wall-clock time. Files present at startup are not read.</li>
+ * </ul>
+ *
+ * <p>All files share one de-duplication session, so entries that were tailed from
+ * {@code app.log} are not processed again when it is rolled into {@code app-1.log.gz}. Disabled
+ * while {@code watch-dir} is empty.
+ */
+@Component
+public class LogDirectoryWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LogDirectoryWatcher.class);
+
+    private final LogIngestService ingestService;
+    private final String watchDir;
+    private final PathMatcher matcher;
+    private final Duration pollInterval;
+
+    private Thread thread;
+
+    public LogDirectoryWatcher(
+            LogIngestService ingestService,
+            @Value("${pipeline.ingest.watch-dir:}") String watchDir,
+            @Value("${pipeline.ingest.watch-glob:*.{log,gz}}") String watchGlob,
+            @Value("${pipeline.ingest.poll-interval:2s}") Duration pollInterval) {
+        this.ingestService = ingestService;
+        this.watchDir = watchDir;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + watchGlob);
+        this.pollInterval = pollInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        if (watchDir.isBlank()) return;
+        Path dir = Path.of(watchDir).toAbsolutePath();
+        thread = Thread.ofVirtual().name("log-watcher").start(() -> watch(dir));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (thread != null) thread.interrupt();
+    }
+
+    private void watch(Path dir) {
+        LogIngestService.Session session = ingestService.open("watch:" + dir, true);
+        Map<Path, Tail> tails = new HashMap<>();
+        Map<Path, PendingArchive> pendingArchives = new HashMap<>();
+        Set<Path> known = new HashSet<>();
+        try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            try (DirectoryStream<Path> existing = Files.newDirectoryStream(dir)) {
+                for (Path file : existing) {
+                    if (!matches(file)) continue;
+                    known.add(file);
+                    if (!isArchive(file)) {
+                        tails.put(file, new Tail(session.source(name(file)), Files.size(file), System.nanoTime()));
+                    }
+                }
+            }
+            log.info("Watching {} for logs ({} tailed)", dir, tails.size());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                Set<Path> changed = new HashSet<>();
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changed.addAll(tails.keySet());
+                            continue;
+                        }
+                        Path file = dir.resolve((Path) event.context());
+                        if (!matches(file)) continue;
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            Tail tail = tails.remove(file);
+                            if (tail != null) tail.source.close();
+                            pendingArchives.remove(file);
+                            known.remove(file);
+                        } else {
+                            changed.add(file);
+                        }
+                    }
+                    key.reset();
+                }
+
+                long now = System.nanoTime();
+                for (Path file : changed) {
+                    if (isArchive(file)) {
+                        if (known.add(file)) {
+                            pendingArchives.put(file, new PendingArchive(now));
+                        } else {
+                            PendingArchive pending = pendingArchives.get(file);
+                            if (pending != null) pending.lastChange = now;
+                        }
+                    } else {
+                        known.add(file);
+                        readTail(session, tails, file, now);
+                    }
+                }
+                for (Tail tail : tails.values()) {
+                    if (!tail.flushed && quiet(tail.lastChange, now)) {
+                        tail.source.flush();
+                        tail.flushed = true;
+                    }
+                }
+                readSettledArchives(session, pendingArchives, now);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Log watcher on {} stopped: {}", dir, e.getMessage(), e);
+        }
+    }
+
+    private void readTail(LogIngestService.Session session, Map<Path, Tail> tails, Path file, long now) {
+        Tail tail = tails.computeIfAbsent(file, f -> new Tail(session.source(name(f)), 0, now));
+        try {
+            if (Files.size(file) < tail.offset) {
+                log.info("{} was truncated, reading it from the start", file);
+                tail.source.close();
+                tail = new Tail(session.source(name(file)), 0, now);
+                tails.put(file, tail);
+            }
+            long offset = tail.source.tail(file, tail.offset);
+            if (offset != tail.offset) {
+                tail.offset = offset;
+                tail.lastChange = now;
+                tail.flushed = false;
+            }
+        } catch (NoSuchFileException e) {
+            tails.remove(file);
+        } catch (IOException e) {
+            log.warn("Could not tail {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void readSettledArchives(LogIngestService.Session session, Map<Path, PendingArchive> pendingArchives,
+                                     long now) {
+        for (Iterator<Map.Entry<Path, PendingArchive>> it = pendingArchives.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, PendingArchive> entry = it.next();
+            Path file = entry.getKey();
+            PendingArchive pending = entry.getValue();
+            try {
+                long size = Files.size(file);
+                if (size != pending.size) {
+                    pending.size = size;
+                    pending.lastChange = now;
+                    continue;
+                }
+                if (!quiet(pending.lastChange, now)) continue;
+                it.remove();
+                LogIngestService.Source source = session.source(name(file));
+                source.readFile(file);
+                source.close();
+                log.info("Read rolled log {}", file);
+            } catch (NoSuchFileException e) {
+                it.remove();
+            } catch (IOException e) {
+                it.remove();
+                log.warn("Could not read {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private boolean quiet(long lastChange, long now) {
+        return now - lastChange >= pollInterval.toNanos();
+    }
+
+    private boolean matches(Path file) {
+        return matcher.matches(file.getFileName());
+    }
+
+    private static boolean isArchive(Path file) {
+        return name(file).endsWith(".gz");
+    }
+
+    private static String name(Path file) {
+        return file.getFileName().toString();
+    }
+
+    private static final class Tail {
+        private final LogIngestService.Source source;
+        private long offset;
+        /** {@link System#nanoTime()} of the last read that found new data. */
+        private long lastChange;
+        private boolean flushed = true;
+
+        private Tail(LogIngestService.Source source, long offset, long lastChange) {
+            this.source = source;
+            this.offset = offset;
+            this.lastChange = lastChange;
+        }
+    }
+
+    private static final class PendingArchive {
+        private long size = -1;
+        /** {@link System#nanoTime()} of the last observed size change or modify event. */
+        private long lastChange;
+
+        private PendingArchive(long lastChange) {
+            this.lastChange = lastChange;
+        }
+    }
+}
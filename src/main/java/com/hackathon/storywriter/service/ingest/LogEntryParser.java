@@ -0,0 +1,137 @@
+package com.hackathon.storywriter.service.ingest;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns log lines into {@link TestFailureEvent}s with {@code source=LOG}, one per entry whose
+ * level is in the configured set.
+ *
+ * <p>A line matching the header pattern starts an entry; every following line that does not
+ * (stack frames, {@code Caused by:}, wrapped messages) is stitched onto it as its stack trace.
+ * The entry is emitted when the next header arrives or on {@link #flush()}. Only the entry being
+ * assembled is held, and its trace is capped at {@code maxTraceLines}, so memory stays constant
+ * however large the log is.
+ *
+ * <p>The header pattern must define the named groups {@code level}, {@code logger} and
+ * {@code message}; {@code timestamp} and {@code thread} are used when present.
+ */
+public final class LogEntryParser implements Consumer<String> {
+
+    /** Matches the log4j2 pattern {@code %d{yyyy-MM-dd HH:mm:ss.SSS} [%t] %-5level %logger{36} - %msg%n}. */
+    public static final String DEFAULT_HEADER_PATTERN =
+            "^(?<timestamp>\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2}[.,]\\d{3})\\s+\\[(?<thread>[^\\]]*)]\\s+"
+                    + "(?<level>[A-Z]+)\\s+(?<logger>\\S+)\\s+-\\s?(?<message>.*)$";
+
+    private final Pattern header;
+    private final boolean hasTimestamp;
+    private final boolean hasThread;
+    private final Set<String> levels;
+    private final int maxTraceLines;
+    private final String origin;
+    private final ObjLongConsumer<TestFailureEvent> sink;
+
+    private long lineNumber;
+    private long entries;
+
+    // entry being assembled; capturing is false while skipping entries of other levels
+    private boolean capturing;
+    private long entryLine;
+    private String timestamp;
+    private String thread;
+    private String logger;
+    private String message;
+    private final StringBuilder trace = new StringBuilder();
+    private int traceLines;
+    private int omittedLines;
+
+    /**
+     * @param header        compiled header pattern, see the class comment for its groups
+     * @param levels        levels that produce an event, e.g. {@code ERROR} and {@code FATAL}
+     * @param maxTraceLines continuation lines kept per entry; further lines are counted only
+     * @param origin        name of the log, recorded in each event's context
+     * @param sink          receives each event with the line number its entry starts at
+     */
+    public LogEntryParser(Pattern header, Set<String> levels, int maxTraceLines, String origin,
+                          ObjLongConsumer<TestFailureEvent> sink) {
+        Set<String> groups = header.namedGroups().keySet();
+        for (String required : new String[] {"level", "logger", "message"}) {
+            if (!groups.contains(required)) {
+                throw new IllegalArgumentException("header pattern lacks the named group " + required);
+            }
+        }
+        this.header = header;
+        this.hasTimestamp = groups.contains("timestamp");
+        this.hasThread = groups.contains("thread");
+        this.levels = Set.copyOf(levels);
+        this.maxTraceLines = maxTraceLines;
+        this.origin = origin;
+        this.sink = sink;
+    }
+
+    @Override
+    public void accept(String line) {
+        lineNumber++;
+        Matcher m = header.matcher(line);
+        if (m.matches()) {
+            flush();
+            if (levels.contains(m.group("level"))) {
+                capturing = true;
+                entryLine = lineNumber;
+                timestamp = hasTimestamp ? m.group("timestamp") : null;
+                thread = hasThread ? m.group("thread") : null;
+                logger = m.group("logger");
+                message = m.group("message").strip();
+            }
+        } else if (capturing && !line.isBlank()) {
+            if (traceLines < maxTraceLines) {
+                if (traceLines > 0) trace.append('\n');
+                trace.append(line);
+                traceLines++;
+            } else {
+                omittedLines++;
+            }
+        }
+    }
+
+    /**
+     * Emits the entry being assembled, if it is one of the configured levels. Call at the end of
+     * the input, or when a tailed file has gone quiet.
+     */
+    public void flush() {
+        if (!capturing) return;
+        if (omittedLines > 0) {
+            trace.append("\n\t... ").append(omittedLines).append(" more lines");
+        }
+        String stackTrace = trace.isEmpty() ? null : trace.toString();
+        String errorMessage = !message.isEmpty() ? message
+                : stackTrace != null ? stackTrace.lines().findFirst().orElse("").strip() : logger;
+        StringBuilder context = new StringBuilder("Logged by ").append(logger);
+        if (thread != null) context.append(" on thread ").append(thread);
+        if (timestamp != null) context.append(" at ").append(timestamp);
+        context.append(" (").append(origin).append(':').append(entryLine).append(')');
+
+        entries++;
+        capturing = false;
+        trace.setLength(0);
+        traceLines = 0;
+        omittedLines = 0;
+        sink.accept(new TestFailureEvent(TestFailureEvent.FailureSource.LOG, logger, errorMessage, stackTrace,
+                context.toString()), entryLine);
+    }
+
+    /** Number of lines seen so far. */
+    public long lines() {
+        return lineNumber;
+    }
+
+    /** Number of events emitted so far. */
+    public long entries() {
+        return entries;
+    }
+}
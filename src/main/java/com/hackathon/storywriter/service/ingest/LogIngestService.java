@@ -0,0 +1,299 @@
+package com.hackathon.storywriter.service.ingest;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.IngestResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.PipelineListener;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds raw application logs through the agent pipeline.
+ *
+ * <p>Logs are read line by line ({@link LogLineReader}), error entries are turned into
+ * {@code LOG} events ({@link LogEntryParser}) and de-duplicated by
+ * {@link EventFingerprinter#signature stack-trace signature}: the pipeline runs once per
+ * signature, on its first entry, and later entries only count towards that cluster. At most
+ * {@code pipeline.ingest.parallelism} pipelines run at a time; reading blocks while all slots are
+ * taken, so a multi-GB log is consumed at the pace the pipeline can absorb without buffering
+ * events.
+ */
+@Service
+public class LogIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogIngestService.class);
+
+    private final OrchestratorService orchestratorService;
+    private final EventFingerprinter fingerprinter;
+    private final Pattern header;
+    private final Set<String> levels;
+    private final int maxTraceLines;
+    private final int maxLineBytes;
+    private final int maxClusters;
+    private final int parallelism;
+    private final Counter newEntries;
+    private final Counter duplicateEntries;
+    private final Counter droppedEntries;
+
+    public LogIngestService(
+            OrchestratorService orchestratorService,
+            EventFingerprinter fingerprinter,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.ingest.header-pattern:}") String headerPattern,
+            @Value("${pipeline.ingest.levels:ERROR,FATAL}") String levels,
+            @Value("${pipeline.ingest.max-trace-lines:200}") int maxTraceLines,
+            @Value("${pipeline.ingest.max-line-bytes:16384}") int maxLineBytes,
+            @Value("${pipeline.ingest.max-clusters:1000}") int maxClusters,
+            @Value("${pipeline.ingest.parallelism:4}") int parallelism) {
+        this.orchestratorService = orchestratorService;
+        this.fingerprinter = fingerprinter;
+        this.header = Pattern.compile(headerPattern.isBlank() ? LogEntryParser.DEFAULT_HEADER_PATTERN : headerPattern);
+        this.levels = Arrays.stream(levels.split(","))
+                .map(String::strip).filter(level -> !level.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.maxTraceLines = maxTraceLines;
+        this.maxLineBytes = maxLineBytes;
+        this.maxClusters = maxClusters;
+        this.parallelism = parallelism;
+        this.newEntries = entryCounter(meterRegistry, "new");
+        this.duplicateEntries = entryCounter(meterRegistry, "duplicate");
+        this.droppedEntries = entryCounter(meterRegistry, "dropped");
+    }
+
+    private static Counter entryCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("pipeline.ingest.entries")
+                .description("Log error entries ingested, by de-duplication outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ingests a plain or gzip log stream to its end and waits for every cluster's artifact.
+     *
+     * @param in     log stream; gzip is detected from its magic bytes. Not closed.
+     * @param origin name of the log, used in event context and the response
+     * @return clusters with their artifacts
+     * @throws IOException if the stream cannot be read
+     */
+    public IngestResponse ingest(InputStream in, String origin) throws IOException {
+        Session session = open(origin, false);
+        Source source = session.source(origin);
+        source.read(in);
+        source.close();
+        return session.finish();
+    }
+
+    /**
+     * Ingests a plain (memory-mapped) or gzip log file and waits for every cluster's artifact.
+     *
+     * @param file log file
+     * @return clusters with their artifacts
+     * @throws IOException if the file cannot be read
+     */
+    public IngestResponse ingest(Path file) throws IOException {
+        String origin = file.getFileName().toString();
+        Session session = open(origin, false);
+        Source source = session.source(origin);
+        source.readFile(file);
+        source.close();
+        return session.finish();
+    }
+
+    /**
+     * Opens a de-duplication scope that any number of logs can be read into.
+     *
+     * @param origin         name of the scope, for logging and the response
+     * @param evictOldest    when the cluster limit is reached, forget the oldest cluster (for
+     *                       long-lived scopes such as a directory watcher) instead of dropping
+     *                       entries with new signatures
+     * @return new session; not thread-safe
+     */
+    public Session open(String origin, boolean evictOldest) {
+        return new Session(origin, evictOldest);
+    }
+
+    /**
+     * De-duplication scope: entries from all of its {@link Source sources} share one set of
+     * clusters.
+     */
+    public final class Session {
+
+        private final String origin;
+        private final boolean evictOldest;
+        private final long start = System.currentTimeMillis();
+        private final Semaphore slots = new Semaphore(parallelism);
+        private final Map<String, Cluster> clusters;
+        private long lines;
+        private long entries;
+        private long dropped;
+
+        private Session(String origin, boolean evictOldest) {
+            this.origin = origin;
+            this.evictOldest = evictOldest;
+            this.clusters = new LinkedHashMap<>(16, 0.75f, evictOldest) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cluster> eldest) {
+                    return evictOldest && size() > maxClusters;
+                }
+            };
+        }
+
+        /**
+         * Creates a reader for one log whose error entries go into this session.
+         *
+         * @param name name of the log, recorded in each event's context
+         * @return new source; not thread-safe
+         */
+        public Source source(String name) {
+            return new Source(this, name);
+        }
+
+        private void offer(TestFailureEvent event, String name, long line) {
+            String clusterId = fingerprinter.signature(event).substring(0, 16);
+            Cluster cluster = clusters.get(clusterId);
+            if (cluster != null) {
+                cluster.size++;
+                duplicateEntries.increment();
+                return;
+            }
+            if (!evictOldest && clusters.size() >= maxClusters) {
+                dropped++;
+                droppedEntries.increment();
+                return;
+            }
+            newEntries.increment();
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Log ingestion interrupted", e);
+            }
+            CompletableFuture<ArtifactResponse> artifact;
+            try {
+                artifact = orchestratorService.submit(event, PipelineListener.NONE);
+            } catch (RuntimeException e) {
+                artifact = CompletableFuture.failedFuture(e);
+            }
+            String firstSeen = name + ":" + line;
+            artifact.whenComplete((result, error) -> {
+                slots.release();
+                if (error != null) {
+                    log.warn("Log cluster {} ({}) failed: {}", clusterId, firstSeen, unwrap(error).getMessage());
+                } else {
+                    log.info("Log cluster {} ({}) processed: generatedBy={}", clusterId, firstSeen, result.generatedBy());
+                }
+            });
+            clusters.put(clusterId, new Cluster(firstSeen, artifact));
+        }
+
+        /**
+         * Waits for the artifact of every cluster.
+         *
+         * @return clusters in first-seen order with their artifacts
+         */
+        public IngestResponse finish() {
+            List<IngestResponse.Cluster> results = new ArrayList<>(clusters.size());
+            clusters.forEach((clusterId, cluster) -> {
+                try {
+                    results.add(new IngestResponse.Cluster(
+                            clusterId, cluster.size, cluster.firstSeen, cluster.artifact.get(), null));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Log ingestion interrupted", e);
+                } catch (ExecutionException e) {
+                    results.add(new IngestResponse.Cluster(
+                            clusterId, cluster.size, cluster.firstSeen, null, unwrap(e.getCause()).getMessage()));
+                }
+            });
+            long totalMs = System.currentTimeMillis() - start;
+            log.info("Ingested {}: {} lines, {} error entries, {} clusters, {} dropped in {}ms",
+                    origin, lines, entries, clusters.size(), dropped, totalMs);
+            return new IngestResponse(origin, lines, entries, results, dropped, totalMs);
+        }
+    }
+
+    /**
+     * One log read into a {@link Session}: a line reader feeding an entry parser.
+     */
+    public final class Source {
+
+        private final Session session;
+        private final LogEntryParser parser;
+        private final LogLineReader reader;
+
+        private Source(Session session, String name) {
+            this.session = session;
+            this.parser = new LogEntryParser(header, levels, maxTraceLines, name,
+                    (event, line) -> session.offer(event, name, line));
+            this.reader = new LogLineReader(maxLineBytes, parser);
+        }
+
+        /** Reads a plain or gzip stream to its end; see {@link LogLineReader#read}. */
+        public void read(InputStream in) throws IOException {
+            reader.read(in);
+        }
+
+        /** Reads a whole plain or gzip file; see {@link LogLineReader#readFile}. */
+        public void readFile(Path file) throws IOException {
+            reader.readFile(file);
+        }
+
+        /**
+         * Reads what was appended to a plain file since {@code offset}.
+         *
+         * @return offset to pass next time
+         */
+        public long tail(Path file, long offset) throws IOException {
+            return reader.readMapped(file, offset);
+        }
+
+        /** Emits the entry being assembled, e.g. once a tailed file has gone quiet. */
+        public void flush() {
+            parser.flush();
+        }
+
+        /** Ends the input: emits the pending line and entry and adds the counts to the session. */
+        public void close() {
+            reader.end();
+            parser.flush();
+            session.lines += parser.lines();
+            session.entries += parser.entries();
+        }
+    }
+
+    private static final class Cluster {
+        private final String firstSeen;
+        private final CompletableFuture<ArtifactResponse> artifact;
+        private long size = 1;
+
+        private Cluster(String firstSeen, CompletableFuture<ArtifactResponse> artifact) {
+            this.firstSeen = firstSeen;
+            this.artifact = artifact;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
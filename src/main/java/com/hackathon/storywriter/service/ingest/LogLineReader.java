@@ -0,0 +1,148 @@
+package com.hackathon.storywriter.service.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Splits a byte stream into UTF-8 lines with a fixed memory footprint.
+ *
+ * <p>Plain files are read through memory-mapped windows of at most {@value #WINDOW} bytes, so a
+ * multi-GB file never occupies more than one window of address space; streams (uploads, gzip
+ * files) are read through a {@value #CHUNK}-byte buffer. Lines longer than the configured
+ * maximum are truncated. A trailing line without a newline is kept until more bytes arrive or
+ * {@link #end()} is called, which lets a reader {@link #readMapped tail} a file that is still
+ * being written.
+ *
+ * <p>Not thread-safe; use one reader per file.
+ */
+public final class LogLineReader {
+
+    static final int WINDOW = 64 * 1024 * 1024;
+    static final int CHUNK = 64 * 1024;
+
+    private final Consumer<String> sink;
+    private final byte[] line;
+    private int length;
+    private long lines;
+
+    /**
+     * @param maxLineBytes bytes kept per line; the rest of a longer line is dropped
+     * @param sink         receives each line without its line terminator
+     */
+    public LogLineReader(int maxLineBytes, Consumer<String> sink) {
+        this.line = new byte[maxLineBytes];
+        this.sink = sink;
+    }
+
+    /**
+     * Reads {@code in} to its end, decompressing it first when it starts with the gzip magic
+     * bytes. Does not call {@link #end()}.
+     *
+     * @param in plain or gzip stream; not closed
+     * @throws IOException if the stream cannot be read
+     */
+    public void read(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, CHUNK);
+        InputStream source = isGzip(buffered) ? new GZIPInputStream(buffered, CHUNK) : buffered;
+        byte[] chunk = new byte[CHUNK];
+        int n;
+        while ((n = source.read(chunk)) > 0) {
+            scan(ByteBuffer.wrap(chunk, 0, n));
+        }
+    }
+
+    /**
+     * Reads {@code file} from {@code offset} to its current end through memory-mapped windows.
+     *
+     * @param file   plain (uncompressed) file
+     * @param offset byte position to start at, e.g. the value returned by the previous call
+     * @return the file size read up to, to pass as {@code offset} next time
+     * @throws IOException if the file cannot be read
+     */
+    public long readMapped(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = offset;
+            while (position < size) {
+                long length = Math.min(WINDOW, size - position);
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            }
+            return Math.max(size, offset);
+        }
+    }
+
+    /**
+     * Reads the whole of {@code file}: gzip files (by name or magic bytes) are streamed through
+     * a decompressor, everything else is memory-mapped. Calls {@link #end()}.
+     *
+     * @param file plain or gzip log file
+     * @throws IOException if the file cannot be read
+     */
+    public void readFile(Path file) throws IOException {
+        boolean gzip = file.getFileName().toString().endsWith(".gz");
+        if (!gzip) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 2)) {
+                gzip = isGzip(in);
+            }
+        }
+        if (gzip) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file), CHUNK)) {
+                read(in);
+            }
+        } else {
+            readMapped(file, 0);
+        }
+        end();
+    }
+
+    /**
+     * Emits the pending line, if any: call once the input is known to be complete.
+     */
+    public void end() {
+        if (length > 0) {
+            emit();
+        }
+    }
+
+    /** Number of lines emitted so far. */
+    public long lines() {
+        return lines;
+    }
+
+    private void scan(ByteBuffer buffer) {
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                emit();
+            } else if (length < line.length) {
+                line[length++] = b;
+            }
+        }
+    }
+
+    private void emit() {
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        String text = new String(line, 0, end, StandardCharsets.UTF_8);
+        length = 0;
+        lines++;
+        sink.accept(text);
+    }
+
+    private static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+}
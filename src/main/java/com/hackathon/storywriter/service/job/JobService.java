@@ -0,0 +1,163 @@
+package com.hackathon.storywriter.service.job;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.JobStatus;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs pipeline events as asynchronous jobs and keeps their status in a bounded in-memory store.
+ *
+ * <p>Each job is driven by {@link OrchestratorService#submit}; sections are recorded as soon
+ * as their agent finishes so that polling clients see partial results. Finished jobs expire
+ * {@code pipeline.jobs.ttl} after completion. When the store holds {@code pipeline.jobs.max-jobs}
+ * jobs the oldest finished job is evicted; if every stored job is still running, new jobs are
+ * rejected with {@link CapacityExceededException}.
+ */
+@Service
+public class JobService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private final OrchestratorService orchestratorService;
+    private final int maxJobs;
+    private final Duration ttl;
+    private final long retryAfterSeconds;
+
+    /** Insertion-ordered, so iteration visits the oldest jobs first. */
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public JobService(
+            OrchestratorService orchestratorService,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.jobs.max-jobs:1000}") int maxJobs,
+            @Value("${pipeline.jobs.ttl:1h}") Duration ttl,
+            @Value("${pipeline.jobs.retry-after-seconds:10}") long retryAfterSeconds) {
+        this.orchestratorService = orchestratorService;
+        this.maxJobs = maxJobs;
+        this.ttl = ttl;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("pipeline.jobs.running", this, JobService::runningJobs)
+                .description("Asynchronous jobs whose pipeline is still running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the pipeline for {@code event} in the background.
+     *
+     * @param event validated test failure event
+     * @return initial status of the new job
+     * @throws CapacityExceededException when the job store is full of running jobs
+     */
+    public JobStatus submit(TestFailureEvent event) {
+        Job job = new Job(UUID.randomUUID().toString(), Instant.now());
+        synchronized (jobs) {
+            makeRoom();
+            jobs.put(job.id, job);
+        }
+
+        log.info("Job {} accepted: source={}, test={}", job.id, event.source(), event.testName());
+        try {
+            orchestratorService.submit(event, job::onSection)
+                    .whenComplete(job::onComplete);
+        } catch (RuntimeException e) {
+            job.onComplete(null, e);
+        }
+        return job.snapshot();
+    }
+
+    /**
+     * @param jobId job identifier
+     * @return current status, or empty when the job is unknown or has expired
+     */
+    public Optional<JobStatus> get(String jobId) {
+        synchronized (jobs) {
+            purgeExpired();
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+        }
+    }
+
+    private int runningJobs() {
+        synchronized (jobs) {
+            return (int) jobs.values().stream().filter(j -> j.completedAt == null).count();
+        }
+    }
+
+    private void makeRoom() {
+        purgeExpired();
+        if (jobs.size() < maxJobs) return;
+
+        Iterator<Job> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().completedAt != null) {
+                it.remove();
+                return;
+            }
+        }
+        throw new CapacityExceededException(CapacityExceededException.Reason.QUEUE_FULL,
+                "jobs=" + maxJobs, retryAfterSeconds);
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(j -> j.completedAt != null && j.completedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Mutable job record; all state is guarded by the instance monitor.
+     */
+    private static final class Job {
+
+        private final String id;
+        private final Instant submittedAt;
+        private final Map<String, Object> sections = new LinkedHashMap<>();
+        private volatile Instant completedAt;
+        private ArtifactResponse artifact;
+        private String error;
+
+        Job(String id, Instant submittedAt) {
+            this.id = id;
+            this.submittedAt = submittedAt;
+        }
+
+        synchronized void onSection(String section, Object value) {
+            sections.put(section, value);
+        }
+
+        synchronized void onComplete(ArtifactResponse result, Throwable failure) {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+                log.warn("Job {} failed: {}", id, error);
+            } else {
+                artifact = result;
+                log.info("Job {} succeeded", id);
+            }
+            completedAt = Instant.now();
+        }
+
+        synchronized JobStatus snapshot() {
+            JobStatus.State state = completedAt == null ? JobStatus.State.RUNNING
+                    : error != null ? JobStatus.State.FAILED : JobStatus.State.SUCCEEDED;
+            return new JobStatus(id, state, submittedAt, completedAt, new LinkedHashMap<>(sections), artifact, error);
+        }
+    }
+}
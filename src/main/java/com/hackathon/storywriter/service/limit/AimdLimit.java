@@ -0,0 +1,60 @@
+package com.hackathon.storywriter.service.limit;
+
+/**
+ * Additive-increase / multiplicative-decrease controller for the limit of a
+ * {@link ConcurrencyLimiter}, driven by the latency and outcome of completed calls.
+ *
+ * <p>A call that failed, or took longer than {@code latencyTolerance} times the smoothed
+ * latency of recent calls, is treated as a sign of upstream congestion and shrinks the limit
+ * to {@code backoffRatio} of its value. Any other call grows the limit by one, but only while
+ * at least half of the current limit is in use, so an idle model does not inflate its limit.
+ * The limit stays within {@code [minLimit, maxLimit]}.
+ */
+public final class AimdLimit {
+
+    /** Weight of the newest sample in the smoothed latency. */
+    private static final double SMOOTHING = 0.05;
+
+    private final ConcurrencyLimiter limiter;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private double smoothedNanos;
+
+    /**
+     * @param limiter          limiter whose limit is adjusted; its initial limit is the starting point
+     * @param minLimit         lower bound of the limit
+     * @param maxLimit         upper bound of the limit
+     * @param backoffRatio     factor in (0, 1) applied to the limit on congestion
+     * @param latencyTolerance latency, as a multiple of the smoothed latency, above which a call signals congestion
+     */
+    public AimdLimit(ConcurrencyLimiter limiter, int minLimit, int maxLimit, double backoffRatio,
+                     double latencyTolerance) {
+        this.limiter = limiter;
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * Feeds one completed call; must be called while the call still holds its permit.
+     *
+     * @param latencyNanos time the call took
+     * @param failed       whether the call failed or timed out
+     */
+    public synchronized void onSample(long latencyNanos, boolean failed) {
+        boolean congested = failed || (smoothedNanos > 0 && latencyNanos > latencyTolerance * smoothedNanos);
+        if (!failed) {
+            smoothedNanos = smoothedNanos == 0 ? latencyNanos : smoothedNanos + SMOOTHING * (latencyNanos - smoothedNanos);
+        }
+        int limit = limiter.limit();
+        if (congested) {
+            limiter.setLimit(Math.max(minLimit, (int) (limit * backoffRatio)));
+        } else if (limiter.active() * 2 >= limit && limit < maxLimit) {
+            limiter.setLimit(limit + 1);
+        }
+    }
+}
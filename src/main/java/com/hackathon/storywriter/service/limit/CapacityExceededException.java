@@ -0,0 +1,46 @@
+package com.hackathon.storywriter.service.limit;
+
+/**
+ * Thrown when work cannot be admitted: the copilot launch queue is full, the caller
+ * waited longer than the configured maximum queue wait, the model's circuit breaker is
+ * open, or a bounded store is full.
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    /**
+     * Why the call was rejected.
+     */
+    public enum Reason {
+        /** The wait queue already holds {@code max-queue-depth} callers. */
+        QUEUE_FULL,
+        /** The caller was queued but no permit became free within {@code max-queue-wait}. */
+        QUEUE_TIMEOUT,
+        /** The model's circuit breaker is open after repeated failures. */
+        CIRCUIT_OPEN
+    }
+
+    private final Reason reason;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param reason            why the call was rejected
+     * @param resource          the saturated resource, e.g. {@code "model=gpt-4.1"}
+     * @param retryAfterSeconds suggested client back-off
+     */
+    public CapacityExceededException(Reason reason, String resource, long retryAfterSeconds) {
+        super("capacity exceeded (" + reason + ", " + resource + ")");
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+
+    /**
+     * @return suggested client back-off, used for the HTTP {@code Retry-After} header
+     */
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
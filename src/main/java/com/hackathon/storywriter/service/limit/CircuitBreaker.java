@@ -0,0 +1,132 @@
+package com.hackathon.storywriter.service.limit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker guarding one upstream model.
+ *
+ * <p>While {@linkplain State#CLOSED closed}, the outcomes of the last {@code window} calls are
+ * kept; once at least {@code minCalls} are known and the share of failures reaches
+ * {@code failureRate}, the breaker {@linkplain State#OPEN opens} and rejects every call for
+ * {@code openFor}. It then turns {@linkplain State#HALF_OPEN half-open} and lets a single
+ * probe call through: a success closes it again, a failure re-opens it.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /** Breaker state; the ordinal is exported as a gauge (0 closed, 1 half-open, 2 open). */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final boolean[] failed;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openForNanos;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int size;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param name        guarded resource, used in logs
+     * @param window      number of most recent calls considered
+     * @param minCalls    calls needed before the failure rate is evaluated
+     * @param failureRate share of failed calls in (0, 1] that opens the breaker
+     * @param openFor     time the breaker stays open before a probe is allowed
+     */
+    public CircuitBreaker(String name, int window, int minCalls, double failureRate, Duration openFor) {
+        this.name = name;
+        this.failed = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, failed.length));
+        this.failureRate = failureRate;
+        this.openForNanos = openFor.toNanos();
+    }
+
+    /**
+     * Asks permission for one call.
+     *
+     * @return {@code true} if the call may proceed; it must then report exactly one of
+     *         {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openForNanos) return false;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) return false;
+            probing = true;
+        }
+        return true;
+    }
+
+    /** The permitted call succeeded. */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /** The permitted call failed or timed out. */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (size >= minCalls && failures >= failureRate * size) open();
+        }
+    }
+
+    /** The permitted call ended without telling anything about the upstream, e.g. it was cancelled. */
+    public synchronized void onIgnored() {
+        probing = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (size == failed.length) {
+            if (failed[next]) failures--;
+        } else {
+            size++;
+        }
+        failed[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % failed.length;
+    }
+
+    private void open() {
+        reset();
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        next = 0;
+        size = 0;
+        failures = 0;
+        probing = false;
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        if (to == State.CLOSED) {
+            log.info("Circuit for {} closed", name);
+        } else {
+            log.warn("Circuit for {} {}", name, to == State.OPEN ? "opened" : "half-open, probing");
+        }
+        state = to;
+    }
+}
@@ -0,0 +1,126 @@
+package com.hackathon.storywriter.service.limit;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair (FIFO) concurrency limiter with a bounded wait queue.
+ *
+ * <p>Backed by a fair {@link Semaphore}. Callers beyond {@code maxQueueDepth} waiters are
+ * rejected immediately instead of joining the queue. The limit can be changed at runtime
+ * (see {@link AimdLimit}); lowering it below the permits in use takes effect as they are released.
+ */
+public final class ConcurrencyLimiter {
+
+    /**
+     * Outcome of {@link #acquire(Duration)}.
+     */
+    public enum Outcome { ACQUIRED, QUEUE_FULL, TIMED_OUT }
+
+    private final ResizableSemaphore permits;
+    private final AtomicInteger limit;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxQueueDepth;
+
+    public ConcurrencyLimiter(int limit, int maxQueueDepth) {
+        this.permits = new ResizableSemaphore(limit);
+        this.limit = new AtomicInteger(limit);
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Takes a permit, waiting at most {@code maxWait} in FIFO order.
+     *
+     * @param maxWait maximum time to wait in the queue
+     * @return {@link Outcome#ACQUIRED} when the caller now holds a permit
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public Outcome acquire(Duration maxWait) throws InterruptedException {
+        // timed tryAcquire honours the fair ordering, unlike the untimed variant
+        if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            return Outcome.ACQUIRED;
+        }
+        if (queued.incrementAndGet() > maxQueueDepth) {
+            queued.decrementAndGet();
+            return Outcome.QUEUE_FULL;
+        }
+        try {
+            return permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS) ? Outcome.ACQUIRED : Outcome.TIMED_OUT;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a permit only if one is free right now and nobody is waiting for it; never queues.
+     *
+     * @return {@code true} when the caller now holds a permit
+     */
+    public boolean tryAcquire() {
+        try {
+            // zero-timeout tryAcquire respects fairness: it fails while others are queued
+            return permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns a permit previously obtained through {@link #acquire(Duration)}.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return permits currently held
+     */
+    public int active() {
+        return limit.get() - permits.availablePermits();
+    }
+
+    /**
+     * @return callers currently waiting for a permit
+     */
+    public int queued() {
+        return queued.get();
+    }
+
+    /**
+     * @return current concurrency limit
+     */
+    public int limit() {
+        return limit.get();
+    }
+
+    /**
+     * Changes the concurrency limit. Raising it admits waiters right away; lowering it
+     * withholds released permits until the number in use is below the new limit.
+     *
+     * @param newLimit new limit, at least 1
+     */
+    public synchronized void setLimit(int newLimit) {
+        int delta = Math.max(1, newLimit) - limit.get();
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.shrink(-delta);
+        }
+        limit.addAndGet(delta);
+    }
+
+    /** Fair semaphore whose permit count can also be reduced. */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        void shrink(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.hackathon.storywriter.service.limit;
+
+import com.hackathon.storywriter.service.limit.CapacityExceededException.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control for copilot process launches.
+ *
+ * <p>Every CLI call must hold two permits: one from the per-model limiter
+ * ({@code copilot.cli.concurrency.max-per-model}, overridable per model under
+ * {@code copilot.cli.concurrency.models.<model>}) and one from the global limiter
+ * ({@code copilot.cli.concurrency.max-processes}). Waiters are served FIFO; once
+ * {@code max-queue-depth} callers are waiting, or a caller has waited
+ * {@code max-queue-wait}, the call is rejected with a {@link CapacityExceededException}.
+ *
+ * <p>The model permit is taken first so that callers blocked on a saturated model do not
+ * hold global slots that other models could use.
+ *
+ * <p>With {@code copilot.cli.concurrency.adaptive.enabled}, each per-model limit is an
+ * {@link AimdLimit} between {@code adaptive.min-limit} and the configured limit: calls
+ * reported through {@link Permit#failed()}, or much slower than usual, shrink it, and
+ * healthy calls grow it back. A degraded model thus gets fewer concurrent processes.
+ */
+@Component
+public class LaunchGate {
+
+    private static final Logger log = LoggerFactory.getLogger(LaunchGate.class);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final int maxPerModel;
+    private final int maxQueueDepth;
+    private final Duration maxQueueWait;
+    private final long retryAfterSeconds;
+    private final boolean adaptive;
+    private final int adaptiveMinLimit;
+    private final double adaptiveBackoffRatio;
+    private final double adaptiveLatencyTolerance;
+
+    private final ConcurrencyLimiter global;
+    private final Map<String, ConcurrencyLimiter> perModel = new ConcurrentHashMap<>();
+    private final Map<String, AimdLimit> adaptiveLimits = new ConcurrentHashMap<>();
+
+    public LaunchGate(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.concurrency.max-processes:16}") int maxProcesses,
+            @Value("${copilot.cli.concurrency.max-per-model:8}") int maxPerModel,
+            @Value("${copilot.cli.concurrency.max-queue-depth:100}") int maxQueueDepth,
+            @Value("${copilot.cli.concurrency.max-queue-wait:30s}") Duration maxQueueWait,
+            @Value("${copilot.cli.concurrency.retry-after-seconds:10}") long retryAfterSeconds,
+            @Value("${copilot.cli.concurrency.adaptive.enabled:true}") boolean adaptive,
+            @Value("${copilot.cli.concurrency.adaptive.min-limit:1}") int adaptiveMinLimit,
+            @Value("${copilot.cli.concurrency.adaptive.backoff-ratio:0.9}") double adaptiveBackoffRatio,
+            @Value("${copilot.cli.concurrency.adaptive.latency-tolerance:2.0}") double adaptiveLatencyTolerance) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.maxPerModel = maxPerModel;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxQueueWait = maxQueueWait;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.adaptive = adaptive;
+        this.adaptiveMinLimit = adaptiveMinLimit;
+        this.adaptiveBackoffRatio = adaptiveBackoffRatio;
+        this.adaptiveLatencyTolerance = adaptiveLatencyTolerance;
+        this.global = new ConcurrencyLimiter(maxProcesses, maxQueueDepth);
+
+        Gauge.builder("copilot.cli.processes.active", global, ConcurrencyLimiter::active)
+                .description("copilot calls currently holding a launch permit")
+                .register(meterRegistry);
+        Gauge.builder("copilot.cli.queue.depth", global, ConcurrencyLimiter::queued)
+                .tag("model", "all")
+                .description("Callers waiting for a global launch permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until a launch permit for {@code model} is available.
+     *
+     * @param model model identifier of the call about to be launched
+     * @return permit that must be closed once the process has finished
+     * @throws CapacityExceededException when the queue is full or the wait exceeds {@code max-queue-wait}
+     * @throws InterruptedException      if the waiting thread is interrupted
+     */
+    public Permit acquire(String model) throws InterruptedException {
+        ConcurrencyLimiter modelLimiter = limiterFor(model);
+        long waitStart = System.nanoTime();
+
+        admit(modelLimiter, model);
+        try {
+            admit(global, model);
+        } catch (RuntimeException | InterruptedException e) {
+            modelLimiter.release();
+            throw e;
+        }
+
+        Timer.builder("copilot.cli.queue.wait")
+                .tag("model", model)
+                .description("Time spent waiting for a launch permit")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - waitStart));
+        return new Permit(modelLimiter, adaptiveLimits.get(model));
+    }
+
+    /**
+     * Takes a launch permit for {@code model} only if one is free right now; never queues
+     * and never counts as a rejection. Used for optional extra calls such as hedges.
+     *
+     * @param model model identifier of the call about to be launched
+     * @return permit that must be closed once the process has finished, or {@code null}
+     */
+    public Permit tryAcquire(String model) {
+        ConcurrencyLimiter modelLimiter = limiterFor(model);
+        if (!modelLimiter.tryAcquire()) return null;
+        if (!global.tryAcquire()) {
+            modelLimiter.release();
+            return null;
+        }
+        return new Permit(modelLimiter, adaptiveLimits.get(model));
+    }
+
+    private void admit(ConcurrencyLimiter limiter, String model) throws InterruptedException {
+        ConcurrencyLimiter.Outcome outcome = limiter.acquire(maxQueueWait);
+        if (outcome == ConcurrencyLimiter.Outcome.ACQUIRED) return;
+
+        Reason reason = outcome == ConcurrencyLimiter.Outcome.QUEUE_FULL ? Reason.QUEUE_FULL : Reason.QUEUE_TIMEOUT;
+        Counter.builder("copilot.cli.rejections")
+                .tag("model", model)
+                .tag("reason", reason.name())
+                .description("copilot calls rejected by admission control")
+                .register(meterRegistry)
+                .increment();
+        log.warn("Rejecting copilot call for model={}: {} (active={}, queued={})",
+                model, reason, global.active(), global.queued());
+        throw new CapacityExceededException(reason, "model=" + model, retryAfterSeconds);
+    }
+
+    private ConcurrencyLimiter limiterFor(String model) {
+        return perModel.computeIfAbsent(model, m -> {
+            int limit = environment.getProperty(
+                    "copilot.cli.concurrency.models." + m, Integer.class, maxPerModel);
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(limit, maxQueueDepth);
+            Gauge.builder("copilot.cli.queue.depth", limiter, ConcurrencyLimiter::queued)
+                    .tag("model", m)
+                    .description("Callers waiting for a per-model launch permit")
+                    .register(meterRegistry);
+            Gauge.builder("copilot.cli.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                    .tag("model", m)
+                    .description("Current per-model concurrency limit")
+                    .register(meterRegistry);
+            if (adaptive) {
+                adaptiveLimits.put(m, new AimdLimit(limiter, adaptiveMinLimit, limit,
+                        adaptiveBackoffRatio, adaptiveLatencyTolerance));
+            }
+            return limiter;
+        });
+    }
+
+    /**
+     * Held for the lifetime of one copilot process; closing it returns both permits.
+     * Report the outcome through {@link #succeeded()} or {@link #failed()} before closing
+     * to feed the adaptive limit; calls closed without an outcome (e.g. cancelled) are ignored.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final ConcurrencyLimiter modelLimiter;
+        private final AimdLimit adaptiveLimit;
+        private final long start = System.nanoTime();
+        private boolean released;
+
+        private Permit(ConcurrencyLimiter modelLimiter, AimdLimit adaptiveLimit) {
+            this.modelLimiter = modelLimiter;
+            this.adaptiveLimit = adaptiveLimit;
+        }
+
+        /** The call completed normally. */
+        public void succeeded() {
+            sample(false);
+        }
+
+        /** The call failed or timed out. */
+        public void failed() {
+            sample(true);
+        }
+
+        private void sample(boolean failed) {
+            if (adaptiveLimit != null && !released) adaptiveLimit.onSample(System.nanoTime() - start, failed);
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            global.release();
+            modelLimiter.release();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hackathon.storywriter.service.limit;
+
+import com.hackathon.storywriter.service.limit.CapacityExceededException.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link CircuitBreaker} per model, so a degraded model fails fast instead of piling up
+ * {@code copilot} processes that each run into {@code copilot.cli.timeout-seconds}.
+ *
+ * <p>Breakers open when {@code copilot.cli.breaker.failure-rate} of the last
+ * {@code copilot.cli.breaker.window} calls to a model failed, and probe the model again after
+ * {@code copilot.cli.breaker.open-for}. While a model's breaker is open, calls are routed to
+ * {@code copilot.cli.breaker.fallback-models.<model>} when one is configured.
+ */
+@Component
+public class ModelCircuitBreakers {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int window;
+    private final int minCalls;
+    private final double failureRate;
+    private final Duration openFor;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ModelCircuitBreakers(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.breaker.enabled:true}") boolean enabled,
+            @Value("${copilot.cli.breaker.window:20}") int window,
+            @Value("${copilot.cli.breaker.min-calls:10}") int minCalls,
+            @Value("${copilot.cli.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${copilot.cli.breaker.open-for:30s}") Duration openFor) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.openFor = openFor;
+    }
+
+    /**
+     * Admits one call to {@code model}; the caller must report its outcome through
+     * {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}.
+     *
+     * @throws CapacityExceededException with {@link Reason#CIRCUIT_OPEN} while the breaker is open
+     */
+    public void admit(String model) {
+        if (!enabled || breaker(model).tryAcquire()) return;
+        Counter.builder("copilot.cli.rejections")
+                .tag("model", model)
+                .tag("reason", Reason.CIRCUIT_OPEN.name())
+                .description("copilot calls rejected by admission control")
+                .register(meterRegistry)
+                .increment();
+        throw new CapacityExceededException(Reason.CIRCUIT_OPEN, "model=" + model,
+                Math.max(1, openFor.toSeconds()));
+    }
+
+    /**
+     * @return whether calls to {@code model} currently flow normally (no failure episode in progress)
+     */
+    public boolean isClosed(String model) {
+        return !enabled || breaker(model).state() == CircuitBreaker.State.CLOSED;
+    }
+
+    public void onSuccess(String model) {
+        if (enabled) breaker(model).onSuccess();
+    }
+
+    public void onFailure(String model) {
+        if (enabled) breaker(model).onFailure();
+    }
+
+    public void onIgnored(String model) {
+        if (enabled) breaker(model).onIgnored();
+    }
+
+    /**
+     * @return model to use while the breaker of {@code model} is open, or {@code null} if none is configured
+     */
+    public String fallbackModel(String model) {
+        String fallback = environment.getProperty("copilot.cli.breaker.fallback-models." + model);
+        return fallback == null || fallback.isBlank() || fallback.equals(model) ? null : fallback;
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, m -> {
+            CircuitBreaker breaker = new CircuitBreaker("model " + m, window, minCalls, failureRate, openFor);
+            Gauge.builder("copilot.cli.breaker.state", breaker, b -> b.state().ordinal())
+                    .tag("model", m)
+                    .description("Circuit breaker state per model: 0 closed, 1 half-open, 2 open")
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.hackathon.storywriter.service.llm;
+
+/**
+ * Thrown when a {@code copilot} call ran to completion but exited with a non-zero code.
+ *
+ * <p>Such failures are usually transient (rate limiting, a dropped connection to the model
+ * service), so callers may retry them; timeouts and launch failures are reported as plain
+ * {@link RuntimeException}s instead.
+ */
+public class CopilotCliException extends RuntimeException {
+
+    private final int exitCode;
+
+    /**
+     * @param message  description including the agent role and the CLI's stderr
+     * @param exitCode non-zero exit code of the {@code copilot} process
+     */
+    public CopilotCliException(String message, int exitCode) {
+        super(message);
+        this.exitCode = exitCode;
+    }
+
+    public int exitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hackathon.storywriter.service.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for the model, for load tests that must not spend model quota.
+ *
+ * <p>Each call sleeps for a latency drawn from a log-normal distribution with median
+ * {@code copilot.cli.fake.latency-median} and shape {@code copilot.cli.fake.latency-sigma}
+ * ({@code 0} = always the median), fails with {@link CopilotCliException} at
+ * {@code copilot.cli.fake.failure-rate}, and otherwise returns the canned response of the
+ * agent role: {@code <role>.txt} from {@code copilot.cli.fake.responses-dir}, or the built-in
+ * one from {@code fake-copilot/} on the classpath. Latencies beyond
+ * {@code copilot.cli.timeout-seconds} time out like a real call.
+ *
+ * <p>Admission control, hedging, retries and memoization stay in {@link
+ * com.hackathon.storywriter.service.CopilotCliService}, so everything but the model itself is
+ * exercised. Enabled with {@code copilot.cli.backend=fake}.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "copilot.cli.backend", havingValue = "fake")
+public class FakeCopilotBackend implements LlmBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeCopilotBackend.class);
+
+    /** Agent roles with a built-in canned response. */
+    static final List<String> ROLES = List.of("TechnicalAnalyzer", "RootCause", "BugWriter", "StoryWriter", "Severity");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration latencyMedian;
+    private final double latencySigma;
+    private final double failureRate;
+    private final Path responsesDir;
+    private final Duration timeout;
+    private final Random random;
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FakeCopilotBackend(
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.fake.latency-median:2s}") Duration latencyMedian,
+            @Value("${copilot.cli.fake.latency-sigma:0.5}") double latencySigma,
+            @Value("${copilot.cli.fake.failure-rate:0.0}") double failureRate,
+            @Value("${copilot.cli.fake.responses-dir:}") String responsesDir,
+            @Value("${copilot.cli.timeout-seconds:60}") int timeoutSeconds) {
+        this(meterRegistry, latencyMedian, latencySigma, failureRate,
+                responsesDir.isBlank() ? null : Path.of(responsesDir), Duration.ofSeconds(timeoutSeconds), null);
+    }
+
+    /**
+     * @param random source of latencies and failures, or {@code null} for {@link ThreadLocalRandom}
+     */
+    FakeCopilotBackend(MeterRegistry meterRegistry, Duration latencyMedian, double latencySigma, double failureRate,
+                       Path responsesDir, Duration timeout, Random random) {
+        this.meterRegistry = meterRegistry;
+        this.latencyMedian = latencyMedian;
+        this.latencySigma = latencySigma;
+        this.failureRate = failureRate;
+        this.responsesDir = responsesDir;
+        this.timeout = timeout;
+        this.random = random;
+        log.warn("copilot.cli.backend=fake: answers are canned, median latency {}, failure rate {}",
+                latencyMedian, failureRate);
+    }
+
+    @Override
+    public String complete(String agentRole, String model, Prompt prompt) {
+        Random rnd = random != null ? random : ThreadLocalRandom.current();
+        long latencyNanos = (long) (latencyMedian.toNanos() * Math.exp(latencySigma * rnd.nextGaussian()));
+        boolean fails = rnd.nextDouble() < failureRate;
+        try {
+            TimeUnit.NANOSECONDS.sleep(Math.min(latencyNanos, timeout.toNanos()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("[" + agentRole + "] interrupted while running copilot", e);
+        }
+        if (latencyNanos > timeout.toNanos()) {
+            throw new RuntimeException("[" + agentRole + "] copilot timed out after " + timeout.toSeconds() + "s");
+        }
+        Timer.builder("copilot.cli.model.duration")
+                .tag("model", model)
+                .tag("backend", "fake")
+                .description("Time from process start (or request write) to the answer, excluding spawn and queueing")
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        if (fails) {
+            throw new CopilotCliException("[" + agentRole + "] copilot failed: injected failure", 1);
+        }
+        return responses.computeIfAbsent(agentRole, this::load);
+    }
+
+    private String load(String agentRole) {
+        try {
+            if (responsesDir != null) {
+                Path file = responsesDir.resolve(agentRole + ".txt");
+                if (Files.isRegularFile(file)) return Files.readString(file).strip();
+            }
+            String role = ROLES.contains(agentRole) ? agentRole : "TechnicalAnalyzer";
+            try (InputStream in = FakeCopilotBackend.class.getResourceAsStream("/fake-copilot/" + role + ".txt")) {
+                if (in == null) throw new IllegalStateException("missing canned response fake-copilot/" + role + ".txt");
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8).strip();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hackathon.storywriter.service.llm;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Executes one prompt against a model and returns the raw text response.
+ *
+ * <p>Implementations decide how the model is reached: {@link SpawnCopilotBackend} starts a
+ * fresh {@code copilot} process per call, {@link PooledCopilotBackend} reuses long-lived
+ * worker processes. Admission control and memoization happen in the caller, so a backend
+ * only has to run the call.
+ *
+ * <p>Backends that read the model's output incrementally also pass it to an
+ * {@link OutputListener} as it arrives; the others hand over the whole answer at the end.
+ */
+public interface LlmBackend {
+
+    /**
+     * Runs {@code prompt} on {@code model}.
+     *
+     * @param agentRole short label used in logs and error messages (e.g. "TechnicalAnalyzer")
+     * @param model     model identifier (e.g. "gpt-4.1")
+     * @param prompt    complete prompt (system persona followed by the user request)
+     * @return model output
+     * @throws RuntimeException when the call fails or times out
+     */
+    String complete(String agentRole, String model, Prompt prompt);
+
+    /**
+     * Runs {@code prompt} on {@code model}, passing its output to {@code output} as it is read.
+     * The default implementation passes the complete answer once the call has returned.
+     *
+     * @param agentRole short label used in logs and error messages
+     * @param model     model identifier
+     * @param prompt    complete prompt
+     * @param output    receives the output while the call runs
+     * @return model output
+     * @throws RuntimeException when the call fails or times out
+     */
+    default String complete(String agentRole, String model, Prompt prompt, OutputListener output) {
+        String text = complete(agentRole, model, prompt);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.onOutput(bytes, 0, bytes.length);
+        return text;
+    }
+}
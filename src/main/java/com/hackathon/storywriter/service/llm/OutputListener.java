@@ -0,0 +1,25 @@
+package com.hackathon.storywriter.service.llm;
+
+/**
+ * Receives a model's output as it is produced, before the call returns.
+ *
+ * <p>Chunks are raw UTF-8 bytes in arrival order and may split a character or a line; the
+ * array is reused after the callback returns. Callbacks run on the thread draining the
+ * process and must not block. The complete output is still returned by
+ * {@link LlmBackend#complete}.
+ */
+@FunctionalInterface
+public interface OutputListener {
+
+    /** Listener that ignores all output. */
+    OutputListener NONE = (chunk, offset, length) -> { };
+
+    /**
+     * Called for every chunk of output read.
+     *
+     * @param chunk  buffer holding the bytes
+     * @param offset start of the bytes in {@code chunk}
+     * @param length number of bytes
+     */
+    void onOutput(byte[] chunk, int offset, int length);
+}
@@ -0,0 +1,435 @@
+package com.hackathon.storywriter.service.llm;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pooled backend: keeps up to {@code copilot.cli.pool.size} long-lived worker processes
+ * and sends prompts to them over stdin/stdout, so a call costs model latency only instead
+ * of Node startup, auth loading and TLS handshakes.
+ *
+ * <p>Workers are started from {@code copilot.cli.pool.command} and speak a line-delimited
+ * JSON protocol, one request and one response per line:
+ * <pre>
+ * → {"id":"7","type":"prompt","model":"gpt-4.1","prompt":"..."}
+ * → {"id":"7","type":"prompt","model":"gpt-4.1","promptFile":"/tmp/.../prompt-123.md"}
+ * ← {"id":"7","output":"..."}            or {"id":"7","error":"..."}
+ * → {"id":"8","type":"ping"}
+ * ← {"id":"8","output":"pong"}
+ * </pre>
+ * A worker idle for longer than {@code health-check-after} is pinged before reuse, and is
+ * recycled after {@code max-requests-per-worker} prompts. When no worker can be started,
+ * none frees up within {@code acquire-timeout}, or a worker dies mid-request, the call
+ * falls back to {@link SpawnCopilotBackend}.
+ *
+ * <p>{@code copilot.cli.pool.prompt-transport} selects between sending the prompt inline
+ * ({@code stdin}, streamed into the JSON line segment by segment) and sending the path of a
+ * private temp file under {@code copilot.cli.prompt-dir} ({@code file}).
+ *
+ * <p>Enabled with {@code copilot.cli.backend=pooled}.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "copilot.cli.backend", havingValue = "pooled")
+public class PooledCopilotBackend implements LlmBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledCopilotBackend.class);
+
+    private static final Duration PING_TIMEOUT = Duration.ofSeconds(5);
+
+    private final SpawnCopilotBackend fallback;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<String> command;
+    private final int size;
+    private final int maxRequestsPerWorker;
+    private final Duration healthCheckAfter;
+    private final Duration acquireTimeout;
+    private final Duration requestTimeout;
+    private final PromptTransport transport;
+    private final Path promptDir;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter pooledCalls;
+    private final Counter fallbackCalls;
+    private final Timer spawnTime;
+    private volatile boolean closed;
+
+    public PooledCopilotBackend(
+            SpawnCopilotBackend fallback,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.pool.command:}") String command,
+            @Value("${copilot.cli.pool.size:4}") int size,
+            @Value("${copilot.cli.pool.max-requests-per-worker:100}") int maxRequestsPerWorker,
+            @Value("${copilot.cli.pool.health-check-after:60s}") Duration healthCheckAfter,
+            @Value("${copilot.cli.pool.acquire-timeout:5s}") Duration acquireTimeout,
+            @Value("${copilot.cli.timeout-seconds:60}") int timeoutSeconds,
+            @Value("${copilot.cli.pool.prompt-transport:stdin}") PromptTransport transport,
+            @Value("${copilot.cli.prompt-dir:${java.io.tmpdir}/storywriter-prompts}") Path promptDir) {
+        this(fallback, objectMapper, meterRegistry,
+                command.isBlank() ? List.of() : Arrays.asList(command.strip().split("\\s+")),
+                size, maxRequestsPerWorker, healthCheckAfter, acquireTimeout, Duration.ofSeconds(timeoutSeconds),
+                transport, promptDir);
+    }
+
+    PooledCopilotBackend(SpawnCopilotBackend fallback, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         List<String> command, int size, int maxRequestsPerWorker,
+                         Duration healthCheckAfter, Duration acquireTimeout, Duration requestTimeout,
+                         PromptTransport transport, Path promptDir) {
+        this.fallback = fallback;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.command = List.copyOf(command);
+        this.size = size;
+        this.maxRequestsPerWorker = maxRequestsPerWorker;
+        this.healthCheckAfter = healthCheckAfter;
+        this.acquireTimeout = acquireTimeout;
+        this.requestTimeout = requestTimeout;
+        this.transport = transport;
+        this.promptDir = promptDir;
+
+        Gauge.builder("copilot.cli.pool.workers", live, AtomicInteger::get)
+                .description("Live copilot worker processes")
+                .register(meterRegistry);
+        Gauge.builder("copilot.cli.pool.idle", idle, BlockingQueue::size)
+                .description("Copilot worker processes waiting for a request")
+                .register(meterRegistry);
+        this.pooledCalls = Counter.builder("copilot.cli.pool.requests")
+                .tag("backend", "pooled")
+                .description("Prompts served by the worker pool or by the spawn fallback")
+                .register(meterRegistry);
+        this.spawnTime = Timer.builder("copilot.cli.spawn.duration")
+                .tag("backend", "pooled")
+                .description("Time to start a copilot process")
+                .register(meterRegistry);
+        this.fallbackCalls = Counter.builder("copilot.cli.pool.requests")
+                .tag("backend", "spawn")
+                .description("Prompts served by the worker pool or by the spawn fallback")
+                .register(meterRegistry);
+    }
+
+    /** Starts the pool eagerly so the first requests do not pay worker startup. */
+    @PostConstruct
+    void warmUp() {
+        if (command.isEmpty()) {
+            log.warn("copilot.cli.backend=pooled but copilot.cli.pool.command is empty; every call spawns a process");
+            return;
+        }
+        while (reserveSlot()) {
+            Worker worker = startWorker();
+            if (worker == null) break;
+            idle.offer(worker);
+        }
+        log.info("Copilot worker pool started with {} of {} workers", live.get(), size);
+    }
+
+    @Override
+    public String complete(String agentRole, String model, Prompt prompt) {
+        Worker worker = checkout();
+        if (worker == null) {
+            fallbackCalls.increment();
+            return fallback.complete(agentRole, model, prompt);
+        }
+        Path promptFile = null;
+        try {
+            if (transport == PromptTransport.FILE) {
+                Files.createDirectories(promptDir);
+                promptFile = PromptTransport.writeTempFile(prompt, promptDir);
+            }
+            long start = System.nanoTime();
+            String output = worker.ask(model, prompt, promptFile);
+            Timer.builder("copilot.cli.model.duration")
+                    .tag("model", model)
+                    .tag("backend", "pooled")
+                    .description("Time from process start (or request write) to the answer, excluding spawn and queueing")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            pooledCalls.increment();
+            checkin(worker);
+            return output;
+        } catch (WorkerError e) {
+            checkin(worker);
+            throw new RuntimeException("[" + agentRole + "] copilot failed: " + e.getMessage());
+        } catch (TimeoutException e) {
+            retire(worker, "timeout");
+            throw new RuntimeException("[" + agentRole + "] copilot timed out after " + requestTimeout.toSeconds() + "s");
+        } catch (IOException e) {
+            retire(worker, "failed");
+            log.warn("[{}] copilot worker {} failed ({}); falling back to spawn", agentRole, worker.pid(), e.getMessage());
+            fallbackCalls.increment();
+            return fallback.complete(agentRole, model, prompt);
+        } catch (InterruptedException e) {
+            retire(worker, "interrupted");
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("[" + agentRole + "] interrupted while waiting for copilot worker", e);
+        } finally {
+            if (promptFile != null) {
+                try {
+                    Files.deleteIfExists(promptFile);
+                } catch (IOException e) {
+                    log.warn("Could not delete prompt file {}: {}", promptFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Number of live worker processes. */
+    int liveWorkers() {
+        return live.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            retire(worker, "shutdown");
+        }
+        readers.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Pool management
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a healthy idle worker, starts a new one while below {@code size}, or waits up
+     * to {@code acquire-timeout} for one to be checked in.
+     *
+     * @return a worker, or {@code null} when the call should fall back to spawn
+     */
+    private Worker checkout() {
+        if (command.isEmpty() || closed) return null;
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+        try {
+            while (true) {
+                Worker worker = idle.poll();
+                if (worker == null) {
+                    if (reserveSlot()) return startWorker();
+                    worker = idle.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (worker == null) {
+                        log.debug("No copilot worker free within {}; falling back to spawn", acquireTimeout);
+                        return null;
+                    }
+                }
+                if (worker.isHealthy()) return worker;
+                retire(worker, "unhealthy");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a copilot worker", e);
+        }
+    }
+
+    private void checkin(Worker worker) {
+        if (worker.served >= maxRequestsPerWorker) {
+            retire(worker, "max-requests");
+        } else if (closed) {
+            retire(worker, "shutdown");
+        } else {
+            idle.offer(worker);
+        }
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = live.get();
+            if (current >= size) return false;
+        } while (!live.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /** Starts a worker in an already reserved slot; releases the slot on failure. */
+    private Worker startWorker() {
+        try {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            spawnTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Started copilot worker pid={}", process.pid());
+            return new Worker(process);
+        } catch (IOException e) {
+            live.decrementAndGet();
+            log.warn("Could not start copilot worker {}: {}", command, e.getMessage());
+            return null;
+        }
+    }
+
+    private void retire(Worker worker, String reason) {
+        live.decrementAndGet();
+        worker.close(reason.equals("max-requests") || reason.equals("shutdown"));
+        Counter.builder("copilot.cli.pool.recycled")
+                .tag("reason", reason)
+                .description("Copilot worker processes stopped, by reason")
+                .register(meterRegistry)
+                .increment();
+        log.debug("Retired copilot worker pid={} ({}, {} requests served)", worker.pid(), reason, worker.served);
+    }
+
+    // -------------------------------------------------------------------------
+    // Worker
+    // -------------------------------------------------------------------------
+
+    /** Error reported by the worker for one request; the worker itself stays usable. */
+    private static final class WorkerError extends Exception {
+        WorkerError(String message) {
+            super(message);
+        }
+    }
+
+    /** Writes the fields of one request after its {@code id}. */
+    @FunctionalInterface
+    private interface RequestBody {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    /** One long-lived worker process; used by a single caller at a time. */
+    private final class Worker {
+
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BufferedReader stdout;
+        private int served;
+        private long lastUsedNanos = System.nanoTime();
+
+        Worker(Process process) {
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        long pid() {
+            return process.pid();
+        }
+
+        String ask(String model, Prompt prompt, Path promptFile)
+                throws IOException, TimeoutException, InterruptedException, WorkerError {
+            JsonNode response = exchange(json -> {
+                json.writeStringField("type", "prompt");
+                json.writeStringField("model", model);
+                if (promptFile != null) {
+                    json.writeStringField("promptFile", promptFile.toString());
+                } else {
+                    json.writeFieldName("prompt");
+                    json.writeString(prompt.reader(), prompt.length());
+                }
+            }, requestTimeout);
+            served++;
+            JsonNode error = response.get("error");
+            if (error != null && !error.isNull()) {
+                throw new WorkerError(error.asText());
+            }
+            return response.path("output").asText();
+        }
+
+        /** Alive, and either used recently or answering a ping. */
+        boolean isHealthy() {
+            if (!process.isAlive()) return false;
+            if (System.nanoTime() - lastUsedNanos < healthCheckAfter.toNanos()) return true;
+            try {
+                return "pong".equals(exchange(json -> json.writeStringField("type", "ping"), PING_TIMEOUT)
+                        .path("output").asText());
+            } catch (IOException | TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private JsonNode exchange(RequestBody body, Duration timeout)
+                throws IOException, TimeoutException, InterruptedException {
+            String id = Long.toString(requestIds.incrementAndGet());
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(stdin)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                json.writeStartObject();
+                json.writeStringField("id", id);
+                body.write(json);
+                json.writeEndObject();
+            }
+            stdin.newLine();
+            stdin.flush();
+
+            Future<String> pending = readers.submit(stdout::readLine);
+            String line;
+            try {
+                line = pending.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                pending.cancel(true);
+                throw e;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+            if (line == null) {
+                throw new EOFException("worker exited");
+            }
+            JsonNode response = objectMapper.readTree(line);
+            if (!id.equals(response.path("id").asText())) {
+                throw new IOException("unexpected response id " + response.path("id").asText() + ", expected " + id);
+            }
+            lastUsedNanos = System.nanoTime();
+            return response;
+        }
+
+        /**
+         * Stops the worker. A clean stop closes stdin and terminates it; otherwise (timed out,
+         * failed or unhealthy, possibly hung) its whole process tree is killed, descendants first
+         * so none is re-parented and left running.
+         */
+        void close(boolean clean) {
+            try {
+                stdin.close();
+            } catch (IOException ignored) {
+                // worker already gone
+            }
+            if (clean) {
+                process.destroy();
+            } else {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.hackathon.storywriter.service.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a child process with bounded resources.
+ *
+ * <ul>
+ *   <li>standard input, if any, is fed from a {@link Prompt} on its own thread</li>
+ *   <li>stdout and stderr are drained concurrently on virtual threads, so a chatty stream
+ *       can never fill its pipe and stall the child</li>
+ *   <li>each stream keeps at most {@code maxOutputBytes}; the rest is read and discarded</li>
+ *   <li>stdout can also be passed to an {@link OutputListener} as it is read</li>
+ *   <li>one wall-clock deadline covers start, execution and draining; on expiry the whole
+ *       process tree is killed</li>
+ * </ul>
+ */
+public class ProcessRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessRunner.class);
+
+    private static final long KILL_GRACE_MILLIS = 2_000;
+
+    private final int maxOutputBytes;
+
+    public ProcessRunner(int maxOutputBytes) {
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /**
+     * Outcome of a finished process.
+     *
+     * @param exitCode  process exit code
+     * @param stdout    captured standard output, line terminators normalized to {@code \n}
+     * @param stderr    captured standard error, line terminators normalized to {@code \n}
+     * @param truncated whether either stream exceeded {@code maxOutputBytes}
+     * @param spawnTime time taken to start the process
+     * @param runTime   time from start until the process exited and both streams closed
+     */
+    public record Result(int exitCode, String stdout, String stderr, boolean truncated,
+                         Duration spawnTime, Duration runTime) {}
+
+    /**
+     * Starts {@code command} with an empty standard input and waits for it to exit and for
+     * both streams to close.
+     *
+     * @see #run(List, Prompt, Duration)
+     */
+    public Result run(List<String> command, Duration timeout)
+            throws IOException, InterruptedException, TimeoutException {
+        return run(command, null, timeout);
+    }
+
+    /**
+     * Starts {@code command}, streams {@code input} to its standard input, and waits for it to
+     * exit and for both streams to close.
+     *
+     * @param command program and arguments
+     * @param input   text written to standard input, or {@code null} for none
+     * @param timeout wall-clock limit for the whole call
+     * @return exit code and captured output
+     * @throws TimeoutException     if the deadline passes; the process tree has been killed
+     * @throws IOException          if the process cannot be started
+     * @throws InterruptedException if the calling thread is interrupted; the process tree has been killed
+     */
+    public Result run(List<String> command, Prompt input, Duration timeout)
+            throws IOException, InterruptedException, TimeoutException {
+        return run(command, input, timeout, OutputListener.NONE);
+    }
+
+    /**
+     * Same as {@link #run(List, Prompt, Duration)}, passing every chunk of standard output to
+     * {@code output} as soon as it is read. A listener that throws is not called again; the
+     * output is still captured.
+     *
+     * @param output receives standard output as it arrives, including bytes beyond {@code maxOutputBytes}
+     */
+    public Result run(List<String> command, Prompt input, Duration timeout, OutputListener output)
+            throws IOException, InterruptedException, TimeoutException {
+        long spawnStart = System.nanoTime();
+        long deadline = spawnStart + timeout.toNanos();
+        Process process = new ProcessBuilder(command).start();
+        long runStart = System.nanoTime();
+        if (input == null) {
+            process.getOutputStream().close();
+        } else {
+            // Written on its own thread: a child that answers while still reading its input
+            // must not block on full output pipes while we block on a full input pipe.
+            Thread.ofVirtual().name("proc-stdin-" + process.pid()).start(() -> feed(process, input));
+        }
+
+        Drain stdout = new Drain(process.getInputStream(), maxOutputBytes, output);
+        Drain stderr = new Drain(process.getErrorStream(), maxOutputBytes, OutputListener.NONE);
+        Thread stdoutThread = Thread.ofVirtual().name("proc-stdout-" + process.pid()).start(stdout);
+        Thread stderrThread = Thread.ofVirtual().name("proc-stderr-" + process.pid()).start(stderr);
+
+        try {
+            // A grandchild that inherited the pipes can keep them open after the child exits,
+            // so the deadline also covers draining.
+            boolean finished = process.waitFor(remaining(deadline), TimeUnit.NANOSECONDS)
+                    && stdoutThread.join(Duration.ofNanos(Math.max(1, remaining(deadline))))
+                    && stderrThread.join(Duration.ofNanos(Math.max(1, remaining(deadline))));
+            if (!finished) {
+                killTree(process);
+                throw new TimeoutException("process " + process.pid() + " exceeded " + timeout.toSeconds() + "s");
+            }
+        } catch (InterruptedException e) {
+            killTree(process);
+            throw e;
+        }
+
+        boolean truncated = stdout.truncated || stderr.truncated;
+        if (truncated) {
+            log.warn("Process {} output exceeded {} bytes and was truncated", process.pid(), maxOutputBytes);
+        }
+        return new Result(process.exitValue(), stdout.text(), stderr.text(), truncated,
+                Duration.ofNanos(runStart - spawnStart), Duration.ofNanos(System.nanoTime() - runStart));
+    }
+
+    private static void feed(Process process, Prompt input) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
+            input.writeTo(writer);
+        } catch (IOException e) {
+            log.debug("Process {} closed its input early: {}", process.pid(), e.getMessage());
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return deadline - System.nanoTime();
+    }
+
+    /** Kills descendants first so none is re-parented and left running. */
+    private static void killTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        try {
+            process.waitFor(KILL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly(process.getInputStream());
+        closeQuietly(process.getErrorStream());
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+
+    /** Reads a stream to EOF, keeping at most {@code limit} bytes. */
+    private static final class Drain implements Runnable {
+
+        private final InputStream in;
+        private final int limit;
+        private OutputListener listener;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private volatile boolean truncated;
+
+        Drain(InputStream in, int limit, OutputListener listener) {
+            this.in = in;
+            this.limit = limit;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            byte[] chunk = new byte[8192];
+            try (in) {
+                int n;
+                while ((n = in.read(chunk)) != -1) {
+                    int keep = Math.min(n, limit - buffer.size());
+                    if (keep > 0) buffer.write(chunk, 0, keep);
+                    if (keep < n) truncated = true;
+                    forward(chunk, n);
+                }
+            } catch (IOException e) {
+                // stream closed after a kill; keep what was read
+            }
+        }
+
+        private void forward(byte[] chunk, int n) {
+            if (listener == OutputListener.NONE) return;
+            try {
+                listener.onOutput(chunk, 0, n);
+            } catch (RuntimeException e) {
+                log.debug("Output listener failed, no longer notified: {}", e.getMessage());
+                listener = OutputListener.NONE;
+            }
+        }
+
+        String text() {
+            return buffer.toString(StandardCharsets.UTF_8).lines().collect(Collectors.joining("\n"));
+        }
+    }
+}
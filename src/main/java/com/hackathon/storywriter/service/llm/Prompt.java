@@ -0,0 +1,182 @@
+package com.hackathon.storywriter.service.llm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prompt held as an ordered list of text segments.
+ *
+ * <p>Segments are written straight to their destination (a process pipe or a mapped file)
+ * instead of being concatenated first, so a long stack trace is never copied into an
+ * intermediate full-prompt string. {@link #toString()} materializes the prompt for
+ * transports that need a single string (argv) and for debug logging.
+ */
+public final class Prompt {
+
+    private static final int DIGEST_BUFFER_BYTES = 4096;
+
+    private final List<CharSequence> segments;
+
+    private Prompt(List<CharSequence> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a prompt from {@code segments}, in order.
+     *
+     * @param segments non-null text segments
+     * @return prompt over the given segments (not copied)
+     */
+    public static Prompt of(CharSequence... segments) {
+        return new Prompt(List.of(segments));
+    }
+
+    /**
+     * Returns a prompt of {@code prefix} followed by the segments of this prompt; neither is copied.
+     *
+     * @param prefix non-null text segments
+     * @return new prompt
+     */
+    public Prompt prepend(CharSequence... prefix) {
+        List<CharSequence> joined = new ArrayList<>(prefix.length + segments.size());
+        joined.addAll(List.of(prefix));
+        joined.addAll(segments);
+        return new Prompt(joined);
+    }
+
+    /** Total length in chars. */
+    public int length() {
+        int length = 0;
+        for (CharSequence segment : segments) length += segment.length();
+        return length;
+    }
+
+    /**
+     * Number of bytes of the UTF-8 encoding, computed without encoding.
+     * Unpaired surrogates count as the single replacement byte {@code ?}.
+     */
+    public long utf8Length() {
+        long bytes = 0;
+        for (CharSequence segment : segments) {
+            for (int i = 0, n = segment.length(); i < n; i++) {
+                char c = segment.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(segment.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    bytes += 1;
+                } else {
+                    bytes += 3;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /** Writes every segment to {@code writer}; the writer is not flushed or closed. */
+    public void writeTo(Writer writer) throws IOException {
+        for (CharSequence segment : segments) {
+            writer.append(segment);
+        }
+    }
+
+    /** Returns a reader over the segments, in order, without concatenating them. */
+    public Reader reader() {
+        return new Reader() {
+            private int segment;
+            private int offset;
+
+            @Override
+            public int read(char[] buffer, int off, int len) {
+                while (segment < segments.size() && offset == segments.get(segment).length()) {
+                    segment++;
+                    offset = 0;
+                }
+                if (segment == segments.size()) return -1;
+                CharSequence current = segments.get(segment);
+                int n = Math.min(len, current.length() - offset);
+                for (int i = 0; i < n; i++) {
+                    buffer[off + i] = current.charAt(offset + i);
+                }
+                offset += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+    }
+
+    /**
+     * Encodes the prompt as UTF-8 into {@code target}, which must have at least
+     * {@link #utf8Length()} bytes remaining.
+     */
+    public void writeTo(ByteBuffer target) throws CharacterCodingException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (CharSequence segment : segments) {
+            CoderResult result = encoder.encode(CharBuffer.wrap(segment), target, false);
+            if (result.isError() || result.isOverflow()) result.throwException();
+        }
+        CoderResult result = encoder.encode(CharBuffer.allocate(0), target, true);
+        if (!result.isUnderflow()) result.throwException();
+        result = encoder.flush(target);
+        if (!result.isUnderflow()) result.throwException();
+    }
+
+    /**
+     * Feeds the UTF-8 encoding of the prompt to {@code digest} through a small buffer, so the
+     * prompt is hashed without being materialized. Malformed input is replaced as in
+     * {@link String#getBytes}.
+     */
+    public void digest(MessageDigest digest) {
+        if (segments.isEmpty()) return;
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_BYTES);
+        for (int i = 0; i < segments.size(); i++) {
+            CharBuffer input = CharBuffer.wrap(segments.get(i));
+            boolean last = i == segments.size() - 1;
+            CoderResult result;
+            do {
+                result = encoder.encode(input, buffer, last);
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            } while (result.isOverflow());
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(length());
+        for (CharSequence segment : segments) text.append(segment);
+        return text.toString();
+    }
+}
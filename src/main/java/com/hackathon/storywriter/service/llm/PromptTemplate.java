@@ -0,0 +1,129 @@
+package com.hackathon.storywriter.service.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code user-template} compiled once into literal text and placeholder slots.
+ *
+ * <p>Placeholders are named, {@code {{errorMessage}}}, and must be one of the parameters the
+ * agent declares. For templates written for {@link String#formatted}, {@code %s} is still
+ * accepted and fills the parameters in declaration order; {@code %n} is a line break and
+ * {@code %%} a percent sign. The template is stripped of leading and trailing whitespace.
+ *
+ * <p>{@link #render} does not copy the template or the values: it returns a {@link Prompt}
+ * whose segments are the literal parts and the values themselves, which is then written
+ * straight to the process input, or once into a string of the exact final size for argv.
+ * Rendering time is recorded as {@code copilot.cli.prompt.render}, tagged by agent.
+ */
+public final class PromptTemplate {
+
+    private final List<String> parameters;
+    /** {@code literals[i]} precedes slot {@code i}; the last literal follows the last slot. */
+    private final String[] literals;
+    /** Index into {@link #parameters} of each placeholder, in template order. */
+    private final int[] slots;
+    private final Timer renderTime;
+
+    /**
+     * Compiles {@code template}.
+     *
+     * @param agent         agent name, used in error messages and as the {@code agent} tag
+     * @param template      template text
+     * @param parameters    parameter names, in the order values are passed to {@link #render}
+     * @param meterRegistry registry for the render timer
+     * @throws IllegalArgumentException on an unknown placeholder, an unterminated {@code {{},
+     *                                  or more {@code %s} than parameters
+     */
+    public PromptTemplate(String agent, String template, List<String> parameters, MeterRegistry meterRegistry) {
+        this.parameters = List.copyOf(parameters);
+        List<String> literalParts = new ArrayList<>();
+        List<Integer> slotIndexes = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        String text = template.strip();
+        int positional = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' && text.startsWith("{{", i)) {
+                int end = text.indexOf("}}", i + 2);
+                if (end < 0) throw new IllegalArgumentException("Unterminated {{ in the template of " + agent);
+                String name = text.substring(i + 2, end).strip();
+                int index = this.parameters.indexOf(name);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown placeholder {{" + name + "}} in the template of "
+                            + agent + "; expected one of " + this.parameters);
+                }
+                literalParts.add(literal.toString());
+                literal.setLength(0);
+                slotIndexes.add(index);
+                i = end + 1;
+            } else if (c == '%' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                switch (next) {
+                    case 's' -> {
+                        if (positional == this.parameters.size()) {
+                            throw new IllegalArgumentException("The template of " + agent + " has more %s than its "
+                                    + this.parameters.size() + " parameters " + this.parameters);
+                        }
+                        literalParts.add(literal.toString());
+                        literal.setLength(0);
+                        slotIndexes.add(positional++);
+                    }
+                    case 'n' -> literal.append('\n');
+                    case '%' -> literal.append('%');
+                    default -> literal.append(c).append(next);
+                }
+            } else {
+                literal.append(c);
+            }
+        }
+        literalParts.add(literal.toString());
+        this.literals = literalParts.toArray(String[]::new);
+        this.slots = slotIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.renderTime = Timer.builder("copilot.cli.prompt.render")
+                .tag("agent", agent)
+                .description("Time to render an agent's user-template")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fills the placeholders with {@code values}.
+     *
+     * @param values one value per parameter, in declaration order; {@code null} renders as {@code "null"}
+     * @return prompt over the literal parts and the values, none of them copied
+     * @throws IllegalArgumentException if the number of values does not match the parameters
+     */
+    public Prompt render(Object... values) {
+        long start = System.nanoTime();
+        if (values.length != parameters.size()) {
+            throw new IllegalArgumentException("Expected " + parameters.size() + " values " + parameters
+                    + ", got " + values.length);
+        }
+        CharSequence[] segments = new CharSequence[literals.length + slots.length];
+        int n = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (!literals[i].isEmpty()) segments[n++] = literals[i];
+            Object value = values[slots[i]];
+            segments[n++] = value instanceof CharSequence text ? text : String.valueOf(value);
+        }
+        if (!literals[slots.length].isEmpty()) segments[n++] = literals[slots.length];
+        Prompt prompt = Prompt.of(n == segments.length ? segments : Arrays.copyOf(segments, n));
+        renderTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return prompt;
+    }
+
+    /** Template text without its placeholders, for estimating the fixed part of a prompt. */
+    public String skeleton() {
+        return String.join("", literals);
+    }
+
+    /** Parameter names, in the order {@link #render} expects the values. */
+    public List<String> parameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hackathon.storywriter.service.llm;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * How a {@link Prompt} reaches the model process.
+ *
+ * <ul>
+ *   <li>{@link #ARGV} — as a single command-line argument ({@code -p "<prompt>"}); limited by
+ *       ARG_MAX and visible in {@code ps}</li>
+ *   <li>{@link #STDIN} — streamed to the process's standard input</li>
+ *   <li>{@link #FILE} — written to a private temp file that the model is pointed at</li>
+ * </ul>
+ */
+public enum PromptTransport {
+    ARGV,
+    STDIN,
+    FILE;
+
+    /**
+     * Writes {@code prompt} to a new owner-only file in {@code dir} through a memory-mapped
+     * buffer, encoding segment by segment without building the full prompt string.
+     *
+     * @param prompt prompt to write
+     * @param dir    existing directory
+     * @return path of the new file; the caller deletes it
+     * @throws IOException if the file cannot be created or written
+     */
+    static Path writeTempFile(Prompt prompt, Path dir) throws IOException {
+        Path file = Files.createTempFile(dir, "prompt-", ".md");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, prompt.utf8Length());
+            prompt.writeTo(buffer);
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+}
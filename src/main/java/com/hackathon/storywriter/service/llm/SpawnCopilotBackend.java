@@ -0,0 +1,138 @@
+package com.hackathon.storywriter.service.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Spawn-per-call backend: starts one {@code copilot} process for every prompt.
+ *
+ * <pre>copilot --model &lt;model&gt; -s -p "&lt;prompt&gt;" --yolo</pre>
+ * Flags used:
+ * <ul>
+ *   <li>{@code --model} — LLM model passed by each individual agent</li>
+ *   <li>{@code -s} — silent / suppress interactive UI</li>
+ *   <li>{@code -p} — non-interactive prompt</li>
+ *   <li>{@code --yolo} — skip confirmation prompts, run non-interactively</li>
+ * </ul>
+ *
+ * <p>{@code copilot.cli.prompt-transport} selects how the prompt is delivered:
+ * {@code argv} passes it as the {@code -p} argument; {@code stdin} streams it to standard
+ * input and omits {@code -p}; {@code file} writes it to a private temp file under
+ * {@code copilot.cli.prompt-dir} and passes {@code -p "Follow the instructions in @<file>"}
+ * with {@code --add-dir}, so neither argv size nor {@code ps} output grows with the prompt.
+ *
+ * <p>The process runs under {@link ProcessRunner}: both streams are drained concurrently,
+ * each is capped at {@code copilot.cli.max-output}, and {@code copilot.cli.timeout-seconds}
+ * bounds the whole call, after which the process tree is killed. Process start and the rest
+ * of the call are timed separately ({@code copilot.cli.spawn.duration} and
+ * {@code copilot.cli.model.duration}), so spawn overhead can be told apart from model time.
+ * Standard output is passed to the caller's {@link OutputListener} as it is read.
+ *
+ * <p>This is the default backend and the fallback of {@link PooledCopilotBackend}.
+ */
+@Component
+public class SpawnCopilotBackend implements LlmBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(SpawnCopilotBackend.class);
+
+    private final String command;
+    private final Duration timeout;
+    private final ProcessRunner processRunner;
+    private final PromptTransport transport;
+    private final Path promptDir;
+    private final MeterRegistry meterRegistry;
+    private final Timer spawnTime;
+
+    public SpawnCopilotBackend(
+            MeterRegistry meterRegistry,
+            @Value("${copilot.cli.command:copilot}") String command,
+            @Value("${copilot.cli.timeout-seconds:60}") int timeoutSeconds,
+            @Value("${copilot.cli.max-output:1MB}") DataSize maxOutput,
+            @Value("${copilot.cli.prompt-transport:argv}") PromptTransport transport,
+            @Value("${copilot.cli.prompt-dir:${java.io.tmpdir}/storywriter-prompts}") Path promptDir) {
+        this.command = command;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.processRunner = new ProcessRunner((int) Math.min(Integer.MAX_VALUE, maxOutput.toBytes()));
+        this.transport = transport;
+        this.promptDir = promptDir;
+        this.meterRegistry = meterRegistry;
+        this.spawnTime = Timer.builder("copilot.cli.spawn.duration")
+                .tag("backend", "spawn")
+                .description("Time to start a copilot process")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String complete(String agentRole, String model, Prompt prompt) {
+        return complete(agentRole, model, prompt, OutputListener.NONE);
+    }
+
+    /** Passes standard output to {@code output} chunk by chunk while the process runs. */
+    @Override
+    public String complete(String agentRole, String model, Prompt prompt, OutputListener output) {
+        Path promptFile = null;
+        try {
+            List<String> args = new ArrayList<>(List.of(command, "--model", model, "-s"));
+            Prompt input = null;
+            switch (transport) {
+                case ARGV -> args.addAll(List.of("-p", prompt.toString()));
+                case STDIN -> input = prompt;
+                case FILE -> {
+                    Files.createDirectories(promptDir);
+                    promptFile = PromptTransport.writeTempFile(prompt, promptDir);
+                    args.addAll(List.of("--add-dir", promptDir.toString(),
+                            "-p", "Follow the instructions in @" + promptFile));
+                }
+            }
+            args.add("--yolo");
+
+            ProcessRunner.Result result = processRunner.run(args, input, timeout, output);
+            spawnTime.record(result.spawnTime());
+            Timer.builder("copilot.cli.model.duration")
+                    .tag("model", model)
+                    .tag("backend", "spawn")
+                    .description("Time from process start (or request write) to the answer, excluding spawn and queueing")
+                    .register(meterRegistry)
+                    .record(result.runTime());
+
+            if (result.exitCode() != 0) {
+                log.error("[{}] copilot exited {}: {}", agentRole, result.exitCode(), result.stderr());
+                throw new CopilotCliException("[" + agentRole + "] copilot failed: " + result.stderr(),
+                        result.exitCode());
+            }
+            return result.stdout();
+
+        } catch (TimeoutException e) {
+            throw new RuntimeException("[" + agentRole + "] copilot timed out after " + timeout.toSeconds() + "s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("[" + agentRole + "] interrupted while running copilot", e);
+        } catch (IOException e) {
+            throw new RuntimeException("[" + agentRole + "] copilot CLI failed", e);
+        } finally {
+            deleteQuietly(promptFile);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete prompt file {}: {}", file, e.getMessage());
+        }
+    }
+}
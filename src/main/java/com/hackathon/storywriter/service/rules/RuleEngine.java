@@ -0,0 +1,240 @@
+package com.hackathon.storywriter.service.rules;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.ArtifactResponse.BugReport;
+import com.hackathon.storywriter.model.ArtifactResponse.RootCause;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import com.hackathon.storywriter.model.ArtifactResponse.TechnicalAnalysis;
+import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.util.Strings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic fast path in front of the agent pipeline: well-known failure signatures are
+ * answered from a templated rule instead of five LLM calls.
+ *
+ * <p>Rules are read from {@code pipeline.rules.file} (YAML, a top-level {@code rules} list of
+ * {@link TriageRule}s), compiled once, and tried in file order; the first rule that matches with
+ * at least {@code pipeline.rules.min-confidence} produces the artifact. No match, the default,
+ * means the event goes to the agents.
+ *
+ * <p>When the file lives on the file system it is hot-reloaded: its modification time is
+ * checked at most every {@code pipeline.rules.reload-interval}, on the request path. A file
+ * that fails to load leaves the previous rule set in place.
+ */
+@Component
+public class RuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleEngine.class);
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([A-Za-z][A-Za-z0-9]*)}");
+    private static final Pattern GROUP_NAME = Pattern.compile("\\(\\?<([a-zA-Z][a-zA-Z0-9]*)>");
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Resource resource;
+    private final double minConfidence;
+    private final long reloadIntervalNanos;
+
+    private volatile List<CompiledRule> rules = List.of();
+    private volatile long loadedModified = Long.MIN_VALUE;
+    private volatile long nextCheck;
+
+    public RuleEngine(
+            ResourceLoader resourceLoader,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.rules.enabled:true}") boolean enabled,
+            @Value("${pipeline.rules.file:classpath:triage-rules.yml}") String location,
+            @Value("${pipeline.rules.min-confidence:0.8}") double minConfidence,
+            @Value("${pipeline.rules.reload-interval:5s}") Duration reloadInterval) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.resource = resourceLoader.getResource(location);
+        this.minConfidence = minConfidence;
+        this.reloadIntervalNanos = reloadInterval.toNanos();
+        this.nextCheck = System.nanoTime() + reloadIntervalNanos;
+
+        if (enabled) load(lastModified());
+        Gauge.builder("pipeline.rules.loaded", this, engine -> engine.rules.size())
+                .description("Triage rules currently loaded")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the templated artifact of the first confidently matching rule.
+     *
+     * @param event incoming event
+     * @return artifact tagged {@code generatedBy = "rule:<id>"}, or {@code null} to fall through to the agents
+     */
+    public ArtifactResponse triage(TestFailureEvent event) {
+        if (!enabled) return null;
+        reloadIfChanged();
+        long start = System.nanoTime();
+        for (CompiledRule rule : rules) {
+            Map<String, String> values = rule.match(event);
+            if (values == null) continue;
+            Counter.builder("pipeline.rules.matched")
+                    .tag("rule", rule.id())
+                    .description("Events answered by a triage rule instead of the agents")
+                    .register(meterRegistry)
+                    .increment();
+            return rule.render(values, (System.nanoTime() - start) / 1_000_000);
+        }
+        return null;
+    }
+
+    /**
+     * @return number of rules currently loaded
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    private void reloadIfChanged() {
+        long now = System.nanoTime();
+        if (now - nextCheck < 0) return;
+        synchronized (this) {
+            if (now - nextCheck < 0) return;
+            nextCheck = now + reloadIntervalNanos;
+            long modified = lastModified();
+            if (modified != loadedModified) load(modified);
+        }
+    }
+
+    private synchronized void load(long modified) {
+        loadedModified = modified;
+        if (!resource.exists()) {
+            log.info("No triage rule file at {}; all events go to the agents", resource.getDescription());
+            rules = List.of();
+            return;
+        }
+        try {
+            Binder binder = new Binder(ConfigurationPropertySources.from(
+                    new YamlPropertySourceLoader().load("triage-rules", resource)));
+            List<TriageRule> parsed = binder.bind("rules", Bindable.listOf(TriageRule.class)).orElse(List.of());
+            List<CompiledRule> compiled = new ArrayList<>(parsed.size());
+            Set<String> ids = new HashSet<>();
+            for (TriageRule rule : parsed) {
+                if (rule.id() == null || !ids.add(rule.id())) {
+                    throw new IllegalStateException("Triage rule without a unique id: " + rule.id());
+                }
+                if (rule.confidence() < minConfidence) {
+                    log.info("Triage rule {} ignored: confidence {} is below {}", rule.id(), rule.confidence(), minConfidence);
+                    continue;
+                }
+                compiled.add(new CompiledRule(rule));
+            }
+            rules = List.copyOf(compiled);
+            log.info("Loaded {} triage rules from {}", rules.size(), resource.getDescription());
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not load triage rules from {}, keeping {} previous rules: {}",
+                    resource.getDescription(), rules.size(), e.getMessage());
+        }
+    }
+
+    /** Modification time of the rule file, or 0 when it cannot be determined (e.g. inside a jar). */
+    private long lastModified() {
+        try {
+            return resource.exists() && resource.isFile() ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /** A rule with its patterns compiled. */
+    private static final class CompiledRule {
+
+        private final TriageRule rule;
+        private final Pattern message;
+        private final Pattern frame;
+        private final List<String> groups = new ArrayList<>();
+
+        CompiledRule(TriageRule rule) {
+            if (rule.message() == null || rule.message().isBlank()) {
+                throw new IllegalStateException("Triage rule " + rule.id() + " has no message pattern");
+            }
+            this.rule = rule;
+            this.message = Pattern.compile(rule.message());
+            this.frame = rule.frame() != null && !rule.frame().isBlank() ? Pattern.compile(rule.frame()) : null;
+            Matcher names = GROUP_NAME.matcher(rule.message());
+            while (names.find()) groups.add(names.group(1));
+        }
+
+        String id() {
+            return rule.id();
+        }
+
+        /** Placeholder values when the event matches, otherwise {@code null}. */
+        Map<String, String> match(TestFailureEvent event) {
+            if (rule.sources() != null && !rule.sources().isEmpty() && !rule.sources().contains(event.source())) {
+                return null;
+            }
+            Matcher m = message.matcher(event.errorMessage());
+            if (!m.find()) return null;
+            if (frame != null && (event.stackTrace() == null || !frame.matcher(event.stackTrace()).find())) {
+                return null;
+            }
+            Map<String, String> values = new HashMap<>();
+            values.put("source", event.source().name());
+            values.put("testName", Strings.nvl(event.testName()));
+            values.put("errorMessage", event.errorMessage());
+            values.put("context", Strings.nvl(event.context()));
+            for (String group : groups) {
+                String value = m.group(group);
+                if (value != null) values.put(group, value);
+            }
+            return values;
+        }
+
+        ArtifactResponse render(Map<String, String> values, long totalMs) {
+            double confidence = rule.confidence();
+            TriageRule.Bug bug = rule.bug();
+            TriageRule.Story story = rule.story();
+            TriageRule.Severity severity = rule.severity();
+            return new ArtifactResponse(
+                    rule.technicalAnalysis() != null
+                            ? new TechnicalAnalysis(fill(rule.technicalAnalysis(), values), 0L) : null,
+                    rule.rootCause() != null ? new RootCause(fill(rule.rootCause(), values), 0L) : null,
+                    bug != null ? new BugReport(fill(bug.title(), values), fill(bug.description(), values),
+                            fill(bug.stepsToReproduce(), values), fill(bug.expectedBehavior(), values),
+                            fill(bug.actualBehavior(), values), confidence, 0L) : null,
+                    story != null ? new UserStory(fill(story.description(), values), fill(story.whatToDo(), values),
+                            fill(story.acceptanceCriteria(), values), fill(story.additionalInformation(), values),
+                            confidence, 0L) : null,
+                    severity != null ? new SeverityAssessment(severity.level(), fill(severity.rationale(), values),
+                            confidence, 0L) : null,
+                    totalMs,
+                    ArtifactResponse.GENERATED_BY_RULE_PREFIX + rule.id());
+        }
+
+        private static String fill(String template, Map<String, String> values) {
+            if (template == null) return null;
+            return PLACEHOLDER.matcher(template).replaceAll(m -> Matcher.quoteReplacement(
+                    values.getOrDefault(m.group(1), m.group())));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hackathon.storywriter.service.rules;
+
+import com.hackathon.storywriter.model.TestFailureEvent.FailureSource;
+
+import java.util.Set;
+
+/**
+ * One deterministic triage rule, bound from an entry of the {@code rules} list of the rule file.
+ *
+ * <p>A rule matches an event when its {@code message} pattern is found in the error message
+ * and, if set, its {@code frame} pattern is found in the stack trace. Text templates may use
+ * {@code {source}}, {@code {testName}}, {@code {errorMessage}}, {@code {context}} and the named
+ * groups of the {@code message} pattern, e.g. {@code {actual}} for {@code (?<actual>\d+)}.
+ *
+ * @param id                unique rule id, reported as {@code generatedBy = "rule:<id>"}
+ * @param sources           failure sources the rule applies to; empty for all
+ * @param message           regular expression searched in the error message
+ * @param frame             optional regular expression searched in the stack trace
+ * @param confidence        confidence of a match in [0, 1]; matches below {@code pipeline.rules.min-confidence} are ignored
+ * @param technicalAnalysis technical analysis template
+ * @param rootCause         root cause template
+ * @param bug               bug report templates
+ * @param story             user story templates
+ * @param severity          severity level and rationale
+ */
+public record TriageRule(String id, Set<FailureSource> sources, String message, String frame, double confidence,
+                         String technicalAnalysis, String rootCause, Bug bug, Story story, Severity severity) {
+
+    /** Bug report templates. */
+    public record Bug(String title, String description, String stepsToReproduce,
+                      String expectedBehavior, String actualBehavior) {
+    }
+
+    /** User story templates. */
+    public record Story(String description, String whatToDo, String acceptanceCriteria,
+                        String additionalInformation) {
+    }
+
+    /** Severity level ({@code Blocker}, {@code Critical}, {@code Major}, {@code Minor}) and rationale template. */
+    public record Severity(String level, String rationale) {
+    }
+}
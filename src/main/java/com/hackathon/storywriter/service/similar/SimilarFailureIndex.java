@@ -0,0 +1,319 @@
+package com.hackathon.storywriter.service.similar;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.SimilarResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of past artifacts by {@link StackTraceSignature}, for near-duplicate lookup.
+ *
+ * <p>Entries are keyed on the exact signature hash, so re-triaging a failure replaces its
+ * entry. Fuzzy lookup uses locality-sensitive hashing on the SimHash: the 64 bits are split
+ * into {@code d + 2} blocks, where {@code d} is {@code pipeline.similar.max-distance}, and every
+ * entry is bucketed in one table per pair of blocks under the bits of that pair. {@code d}
+ * differing bits touch at most {@code d} blocks, so two SimHashes within {@code d} bits agree
+ * on at least one whole pair: probing the query's bucket in each table finds every match,
+ * while the two-block keys keep buckets small enough to compare only a tiny fraction of the
+ * index. Up to {@code pipeline.similar.max-entries} entries are kept; the oldest is replaced
+ * when the index is full.
+ *
+ * <p>With {@code (d + 2)(d + 1) / 2} tables (28 at the default distance of 6), per-table cost
+ * dominates the index's own footprint, so the tables hold primitives only: an entry costs one
+ * {@code int} of bucket chain and a share of a {@code long} key cell per table. At the default
+ * distance an entry takes about 0.7 KB with its signature hash, plus its artifact.
+ */
+@Component
+public class SimilarFailureIndex {
+
+    private record Entry(String exactHash, long simHash, String testName, ArtifactResponse artifact, Instant storedAt) {}
+
+    /** Largest supported {@code max-distance}; beyond it the number of tables grows quadratically for little gain. */
+    static final int MAX_DISTANCE = 10;
+
+    private final StackTraceSignature signatures;
+    private final boolean enabled;
+    private final int maxDistance;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Entry[] slots;
+    /** SimHash of each slot, so a probe scans longs instead of dereferencing entries. */
+    private final long[] simHashes;
+    private final Map<String, Integer> slotByHash = new HashMap<>();
+    private final Table[] tables;
+    private int next;
+    private int size;
+
+    private final Timer lookups;
+
+    public SimilarFailureIndex(
+            StackTraceSignature signatures,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.similar.enabled:true}") boolean enabled,
+            @Value("${pipeline.similar.max-entries:100000}") int maxEntries,
+            @Value("${pipeline.similar.max-distance:6}") int maxDistance) {
+        this.signatures = signatures;
+        this.enabled = enabled;
+        this.maxDistance = maxDistance;
+        this.slots = new Entry[enabled ? maxEntries : 0];
+        this.simHashes = new long[slots.length];
+
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("pipeline.similar.max-distance must be within 0.." + MAX_DISTANCE);
+        }
+        int blocks = maxDistance + 2;
+        long[] blockMasks = new long[blocks];
+        for (int block = 0, shift = 0; block < blocks; block++) {
+            int bits = 64 / blocks + (block < 64 % blocks ? 1 : 0);
+            blockMasks[block] = (bits == 64 ? -1L : (1L << bits) - 1) << shift;
+            shift += bits;
+        }
+        this.tables = new Table[blocks * (blocks - 1) / 2];
+        for (int i = 0, table = 0; i < blocks; i++) {
+            for (int j = i + 1; j < blocks; j++, table++) {
+                tables[table] = new Table(blockMasks[i] | blockMasks[j]);
+            }
+        }
+
+        this.lookups = Timer.builder("pipeline.similar.lookup")
+                .description("Nearest-neighbour lookups in the similar-failure index")
+                .register(meterRegistry);
+        Gauge.builder("pipeline.similar.size", this, SimilarFailureIndex::size)
+                .description("Artifacts in the similar-failure index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indexes {@code artifact} under the signature of {@code event}, replacing an entry with the
+     * same exact signature.
+     *
+     * @param event    failure the artifact was produced for
+     * @param artifact complete artifact
+     */
+    public void add(TestFailureEvent event, ArtifactResponse artifact) {
+        if (!enabled || slots.length == 0) return;
+        StackTraceSignature.Signature signature = signatures.of(event);
+        Entry entry = new Entry(signature.exactHash(), signature.simHash(), event.testName(), artifact, Instant.now());
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByHash.get(entry.exactHash());
+            if (existing != null) {
+                slots[existing] = entry;
+                return;
+            }
+            int slot = next;
+            next = (next + 1) % slots.length;
+            Entry evicted = slots[slot];
+            if (evicted != null) {
+                slotByHash.remove(evicted.exactHash());
+                for (Table table : tables) {
+                    table.remove(slot, evicted.simHash());
+                }
+            } else {
+                size++;
+            }
+            slots[slot] = entry;
+            simHashes[slot] = entry.simHash();
+            slotByHash.put(entry.exactHash(), slot);
+            for (Table table : tables) {
+                table.add(slot, entry.simHash());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed failures closest to {@code event}, nearest first.
+     *
+     * @param event       failure to look up; only {@code stackTrace} and {@code errorMessage} are used
+     * @param limit       maximum number of matches
+     * @param maxDistance maximum SimHash distance; capped at {@code pipeline.similar.max-distance}
+     * @return the query's signature and up to {@code limit} matches
+     */
+    public SimilarResponse nearest(TestFailureEvent event, int limit, int maxDistance) {
+        long start = System.nanoTime();
+        StackTraceSignature.Signature signature = signatures.of(event);
+        if (!enabled || limit <= 0) return new SimilarResponse(signature.exactHash().substring(0, 16), List.of(), 0);
+        int threshold = Math.min(maxDistance, this.maxDistance);
+        long query = signature.simHash();
+
+        // top-k by distance, kept sorted by insertion
+        int[] bestSlot = new int[limit];
+        int[] bestDistance = new int[limit];
+        int found = 0;
+        List<SimilarResponse.Match> matches = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            for (Table table : tables) {
+                for (int slot = table.head(query); slot != Table.NONE; slot = table.next(slot)) {
+                    int distance = StackTraceSignature.distance(query, simHashes[slot]);
+                    if (distance > threshold || (found == limit && distance >= bestDistance[found - 1])) continue;
+                    if (contains(bestSlot, found, slot)) continue;
+                    int at = found < limit ? found++ : found - 1;
+                    while (at > 0 && bestDistance[at - 1] > distance) {
+                        bestSlot[at] = bestSlot[at - 1];
+                        bestDistance[at] = bestDistance[at - 1];
+                        at--;
+                    }
+                    bestSlot[at] = slot;
+                    bestDistance[at] = distance;
+                }
+            }
+            for (int i = 0; i < found; i++) {
+                Entry entry = slots[bestSlot[i]];
+                matches.add(new SimilarResponse.Match(entry.exactHash().substring(0, 16), bestDistance[i],
+                        entry.testName(), entry.artifact(), entry.storedAt()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long elapsed = System.nanoTime() - start;
+        lookups.record(elapsed, TimeUnit.NANOSECONDS);
+        return new SimilarResponse(signature.exactHash().substring(0, 16), matches, elapsed / 1_000);
+    }
+
+    /** Number of indexed artifacts. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * One LSH table: an open-addressing map (linear probing) from bucket key to the bucket's
+     * newest slot, with the rest of each bucket chained through {@code next}, which is indexed
+     * by slot. Every slot is in exactly one bucket per table, so one chain link per slot suffices.
+     */
+    private static final class Table {
+
+        static final int NONE = -1;
+
+        private final long mask;
+        private long[] keys = new long[16];
+        /** First slot of the bucket in each cell; {@link #NONE} marks a free cell. */
+        private int[] heads = free(16);
+        private int[] next = new int[16];
+        private int used;
+
+        Table(long mask) {
+            this.mask = mask;
+        }
+
+        /** Newest slot in the bucket of {@code simHash}, or {@link #NONE}. */
+        int head(long simHash) {
+            int cell = find(simHash & mask);
+            return cell >= 0 ? heads[cell] : NONE;
+        }
+
+        /** Next older slot in the same bucket, or {@link #NONE}. */
+        int next(int slot) {
+            return next[slot];
+        }
+
+        void add(int slot, long simHash) {
+            if (slot >= next.length) next = Arrays.copyOf(next, Math.max(slot + 1, next.length * 2));
+            long key = simHash & mask;
+            int cell = find(key);
+            if (cell >= 0) {
+                next[slot] = heads[cell];
+                heads[cell] = slot;
+                return;
+            }
+            if ((used + 1) * 4L > keys.length * 3L) {
+                grow();
+                cell = find(key);
+            }
+            cell = ~cell;
+            keys[cell] = key;
+            heads[cell] = slot;
+            next[slot] = NONE;
+            used++;
+        }
+
+        void remove(int slot, long simHash) {
+            int cell = find(simHash & mask);
+            if (heads[cell] == slot) {
+                heads[cell] = next[slot];
+                if (heads[cell] == NONE) delete(cell);
+                return;
+            }
+            int previous = heads[cell];
+            while (next[previous] != slot) previous = next[previous];
+            next[previous] = next[slot];
+        }
+
+        /** Cell holding {@code key}, or the bitwise complement of the free cell where it belongs. */
+        private int find(long key) {
+            int last = keys.length - 1;
+            for (int cell = home(key, last); ; cell = (cell + 1) & last) {
+                if (heads[cell] == NONE) return ~cell;
+                if (keys[cell] == key) return cell;
+            }
+        }
+
+        /** Frees {@code cell}, shifting later cells of the same probe run back into the gap. */
+        private void delete(int cell) {
+            int last = keys.length - 1;
+            int gap = cell;
+            for (int i = (gap + 1) & last; heads[i] != NONE; i = (i + 1) & last) {
+                int home = home(keys[i], last);
+                if (((i - home) & last) >= ((i - gap) & last)) {
+                    keys[gap] = keys[i];
+                    heads[gap] = heads[i];
+                    gap = i;
+                }
+            }
+            heads[gap] = NONE;
+            used--;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldHeads = heads;
+            keys = new long[oldKeys.length * 2];
+            heads = free(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldHeads[i] == NONE) continue;
+                int cell = ~find(oldKeys[i]);
+                keys[cell] = oldKeys[i];
+                heads[cell] = oldHeads[i];
+            }
+        }
+
+        private static int home(long key, int last) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & last;
+        }
+
+        private static int[] free(int length) {
+            int[] cells = new int[length];
+            Arrays.fill(cells, NONE);
+            return cells;
+        }
+    }
+}
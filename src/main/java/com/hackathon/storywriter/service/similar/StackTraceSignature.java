@@ -0,0 +1,169 @@
+package com.hackathon.storywriter.service.similar;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.util.Hashing;
+import com.hackathon.storywriter.util.TokenOverlap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes a stack trace into the frames that identify a failure and fingerprints them.
+ *
+ * <p>Frames are reduced to {@code class.method}: module prefixes, file names and line numbers
+ * are removed, CGLIB class suffixes and lambda counters are stripped, and frames from
+ * {@code pipeline.similar.noise-packages} (reflection, proxies, servlet and test plumbing) as
+ * well as JDK lambda and proxy classes are dropped. Of what remains, the top
+ * {@code pipeline.similar.max-frames} frames form the signature.
+ *
+ * <p>Each signature carries two fingerprints:
+ * <ul>
+ *   <li>an exact SHA-256 hash of the exception types and frames, equal for failures that only
+ *       differ in noise;</li>
+ *   <li>a 64-bit SimHash over the same features plus adjacent-frame pairs, whose Hamming
+ *       distance to another SimHash grows with the number of differing frames.</li>
+ * </ul>
+ * Traces without frames are fingerprinted on the masked error message instead.
+ */
+@Component
+public class StackTraceSignature {
+
+    private static final Pattern MODULE_PREFIX = Pattern.compile("^[\\w.$-]*(@[^/]*)?/+");
+    private static final Pattern CGLIB_SUFFIX = Pattern.compile("\\$\\$(?:EnhancerBySpringCGLIB|SpringCGLIB|FastClassBySpringCGLIB)\\$\\$\\w*");
+    private static final Pattern LAMBDA_COUNTER = Pattern.compile("(lambda\\$[\\w$]*?)\\$\\d+");
+    /** Default {@code pipeline.similar.noise-packages}: reflection, proxy, servlet and test plumbing. */
+    public static final String DEFAULT_NOISE_PACKAGES = "java.lang.reflect.,jdk.internal.,sun.reflect.,jdk.proxy,"
+            + "org.springframework.aop.,org.springframework.cglib.,org.springframework.test.,"
+            + "org.springframework.web.servlet.,org.springframework.web.filter.,org.apache.catalina.,"
+            + "org.apache.tomcat.,org.junit.,org.opentest4j.,org.assertj.,org.hamcrest.,org.mockito.";
+
+    private static final Pattern EXCEPTION_LINE = Pattern.compile("^(?:Caused by: )?([\\w$]+(?:\\.[\\w$]+)+)(?::.*)?$");
+
+    private final List<String> noisePackages;
+    private final int maxFrames;
+
+    public StackTraceSignature(
+            @Value("${pipeline.similar.noise-packages:" + DEFAULT_NOISE_PACKAGES + "}") String noisePackages,
+            @Value("${pipeline.similar.max-frames:12}") int maxFrames) {
+        this.noisePackages = Arrays.stream(noisePackages.split(","))
+                .map(String::strip).filter(prefix -> !prefix.isEmpty()).toList();
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Fingerprints of one failure.
+     *
+     * @param exceptionTypes exception types, outermost first (including {@code Caused by})
+     * @param frames         normalized frames, outermost first, noise removed
+     * @param exactHash      64-character hex hash of the types and frames
+     * @param simHash        64-bit SimHash for fuzzy matching
+     */
+    public record Signature(List<String> exceptionTypes, List<String> frames, String exactHash, long simHash) {}
+
+    /**
+     * Parses and fingerprints the stack trace of {@code event}.
+     *
+     * @param event failure event; only {@code stackTrace} and {@code errorMessage} are used
+     * @return signature, never {@code null}
+     */
+    public Signature of(TestFailureEvent event) {
+        List<String> types = new ArrayList<>(2);
+        List<String> frames = new ArrayList<>(maxFrames);
+        String stackTrace = event.stackTrace();
+        if (stackTrace != null) {
+            for (String line : stackTrace.split("\\R")) {
+                String trimmed = line.strip();
+                if (trimmed.startsWith("at ")) {
+                    if (frames.size() < maxFrames) {
+                        String frame = normalizeFrame(trimmed.substring(3));
+                        if (frame != null) frames.add(frame);
+                    }
+                } else {
+                    Matcher m = EXCEPTION_LINE.matcher(trimmed);
+                    if (m.matches() && types.size() < 4) types.add(m.group(1));
+                }
+            }
+        }
+
+        List<String> features = new ArrayList<>(types.size() + frames.size() * 2);
+        StringBuilder exact = new StringBuilder(256);
+        types.forEach(type -> exact.append(type).append('\n'));
+        if (frames.isEmpty()) {
+            String message = EventFingerprinter.maskVolatile(event.errorMessage());
+            exact.append(message);
+            features.addAll(TokenOverlap.terms(message));
+        }
+        for (String frame : frames) {
+            exact.append(frame).append('\n');
+        }
+
+        long[] weights = new long[64];
+        for (String type : types) add(weights, "type:" + type, 3);
+        for (String term : features) add(weights, "term:" + term, 1);
+        for (int i = 0; i < frames.size(); i++) {
+            add(weights, "frame:" + frames.get(i), i == 0 ? 3 : 2);
+            if (i > 0) add(weights, "pair:" + frames.get(i - 1) + '>' + frames.get(i), 1);
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) simHash |= 1L << bit;
+        }
+        return new Signature(List.copyOf(types), List.copyOf(frames), EventFingerprinter.sha256(exact), simHash);
+    }
+
+    /**
+     * Returns up to {@code limit} normalized frames of {@code stackTrace} with noise frames
+     * dropped, so that assertion and framework plumbing does not fill the top frames.
+     *
+     * @param stackTrace nullable stack trace text
+     * @param limit      maximum number of frames to return
+     * @return {@code class.method} frames, outermost first
+     */
+    public List<String> applicationFrames(String stackTrace, int limit) {
+        List<String> frames = new ArrayList<>(limit);
+        if (stackTrace == null) return frames;
+        for (String line : stackTrace.split("\\R")) {
+            if (frames.size() >= limit) break;
+            String trimmed = line.strip();
+            if (trimmed.startsWith("at ")) {
+                String frame = normalizeFrame(trimmed.substring(3));
+                if (frame != null) frames.add(frame);
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Number of differing bits between two SimHashes.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Reduces {@code at ...} text to {@code class.method}, or {@code null} for a noise frame.
+     */
+    String normalizeFrame(String frame) {
+        int paren = frame.indexOf('(');
+        String method = MODULE_PREFIX.matcher(paren >= 0 ? frame.substring(0, paren) : frame).replaceFirst("");
+        if (method.contains("$$Lambda") || method.contains("$Proxy")) return null;
+        for (String prefix : noisePackages) {
+            if (method.startsWith(prefix)) return null;
+        }
+        method = CGLIB_SUFFIX.matcher(method).replaceAll("");
+        return LAMBDA_COUNTER.matcher(method).replaceAll("$1");
+    }
+
+    private static void add(long[] weights, String feature, int weight) {
+        long hash = Hashing.hash64(feature);
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += (hash >>> bit & 1) != 0 ? weight : -weight;
+        }
+    }
+}
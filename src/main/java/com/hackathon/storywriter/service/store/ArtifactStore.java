@@ -0,0 +1,609 @@
+package com.hackathon.storywriter.service.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactPage;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.StoredArtifact;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.util.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded, append-only store of every artifact returned by the pipeline, queryable by event
+ * fingerprint, test name and severity level.
+ *
+ * <p>Layout of {@code pipeline.store.dir}:
+ * <ul>
+ *   <li>{@code segment-NNNNNN.log} — records appended as {@code [int length][int crc32c][JSON]};
+ *       a new segment is started once the active one reaches {@code segment-size}</li>
+ *   <li>{@code index.dat} — memory-mapped {@link IndexFile} with one fixed-width entry per
+ *       artifact id: record location, timestamp and the hashes of the three query keys</li>
+ *   <li>{@code active-segment} — number of the segment appends go to; compaction writes
+ *       segments numbered above it, so the highest number is not necessarily the active one</li>
+ * </ul>
+ * On startup the per-key id postings are rebuilt from the index without reading any segment,
+ * and the active segment is cut back to its last indexed record, discarding a record whose
+ * index entry was lost in a crash. A lock file keeps a second process from opening the store.
+ * The store is off unless {@code pipeline.store.dir} is set.
+ *
+ * <p>Compaction runs every {@code compaction-interval} over sealed segments: records older
+ * than {@code retention}, or beyond the newest {@code keep-per-fingerprint} of their
+ * fingerprint, are dropped, and each segment holding such records is rewritten. Ids never
+ * change. When the store cannot be opened it logs a warning and stays disabled; failures to
+ * append are logged and never fail the request.
+ */
+@Component
+public class ArtifactStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACTIVE_SEGMENT_FILE = "active-segment";
+    private static final int HEADER_BYTES = 8;
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final long segmentSize;
+    private final Duration retention;
+    private final int keepPerFingerprint;
+    private final boolean fsync;
+    private final Clock clock;
+    private final Counter appends;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<Long, LongList> byFingerprint = new HashMap<>();
+    private final Map<Long, LongList> byTestName = new HashMap<>();
+    private final Map<Long, LongList> bySeverity = new HashMap<>();
+    private volatile boolean available;
+    private IndexFile index;
+    private int activeSegment;
+    private long activeSize;
+    /** {@code storedAt} of the newest record, so that timestamps never decrease with the id. */
+    private long lastStoredAt = Long.MIN_VALUE;
+    private long liveCount;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private ScheduledExecutorService compactor;
+
+    @Autowired
+    public ArtifactStore(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${pipeline.store.enabled:true}") boolean enabled,
+            @Value("${pipeline.store.dir:}") String dir,
+            @Value("${pipeline.store.segment-size:64MB}") DataSize segmentSize,
+            @Value("${pipeline.store.retention:90d}") Duration retention,
+            @Value("${pipeline.store.keep-per-fingerprint:20}") int keepPerFingerprint,
+            @Value("${pipeline.store.fsync:false}") boolean fsync,
+            @Value("${pipeline.store.compaction-interval:1h}") Duration compactionInterval) {
+        this(objectMapper, meterRegistry, enabled, dir, segmentSize.toBytes(), retention, keepPerFingerprint, fsync,
+                Clock.systemUTC());
+        if (available && !compactionInterval.isZero()) {
+            compactor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("artifact-compactor").factory());
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    ArtifactStore(ObjectMapper objectMapper, MeterRegistry meterRegistry, boolean enabled, String dir,
+                  long segmentSize, Duration retention, int keepPerFingerprint, boolean fsync, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.segmentSize = segmentSize;
+        this.retention = retention;
+        this.keepPerFingerprint = keepPerFingerprint;
+        this.fsync = fsync;
+        this.clock = clock;
+        this.appends = Counter.builder("pipeline.store.appends")
+                .description("Artifacts appended to the artifact store")
+                .register(meterRegistry);
+        Gauge.builder("pipeline.store.artifacts", this, ArtifactStore::size)
+                .description("Live artifacts in the artifact store")
+                .register(meterRegistry);
+
+        if (enabled && this.dir != null) {
+            open();
+        }
+    }
+
+    /**
+     * Record as serialized in a segment; the id is implied by the index entry.
+     */
+    record Payload(Instant storedAt, String fingerprint, String testName,
+                   TestFailureEvent.FailureSource source, ArtifactResponse artifact) {}
+
+    /**
+     * Query filters; {@code null} fields do not filter.
+     *
+     * @param fingerprint exact event fingerprint
+     * @param testName    exact test name
+     * @param severity    severity level, case-insensitive
+     * @param from        earliest {@code storedAt}, inclusive
+     * @param to          latest {@code storedAt}, exclusive
+     * @param cursor      only ids below this one, i.e. the previous page's {@code nextCursor}
+     * @param limit       page size
+     */
+    public record Query(String fingerprint, String testName, String severity,
+                        Instant from, Instant to, Long cursor, int limit) {}
+
+    // -------------------------------------------------------------------------
+    // Write path
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends {@code artifact} to the store.
+     *
+     * @param fingerprint fingerprint of {@code event}
+     * @param event       event the artifact was produced for
+     * @param artifact    artifact returned to the caller
+     * @return id of the stored artifact, or -1 when the store is disabled or the write failed
+     */
+    public long append(String fingerprint, TestFailureEvent event, ArtifactResponse artifact) {
+        if (!available) return -1;
+        lock.writeLock().lock();
+        try {
+            if (!available) return -1;
+            // stamped under the lock, so storedAt grows with the id (query() relies on it)
+            long storedAtMillis = Math.max(clock.millis(), lastStoredAt);
+            byte[] payload;
+            try {
+                payload = objectMapper.writeValueAsBytes(new Payload(Instant.ofEpochMilli(storedAtMillis),
+                        fingerprint, event.testName(), event.source(), artifact));
+            } catch (IOException e) {
+                log.warn("Could not serialize artifact for store: {}", e.getMessage());
+                return -1;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                    .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+            if (activeSize >= segmentSize) {
+                rollSegment();
+            }
+            FileChannel channel = segments.get(activeSegment);
+            long offset = activeSize;
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            if (fsync) channel.force(false);
+            activeSize += record.limit();
+
+            long id = index.append(activeSegment, offset, payload.length, storedAtMillis,
+                    Hashing.hash64(fingerprint), Hashing.hash64(event.testName()), severityHash(artifact));
+            if (fsync) index.force();
+            lastStoredAt = storedAtMillis;
+            addPostings(id);
+            liveCount++;
+            appends.increment();
+            return id;
+        } catch (IOException e) {
+            log.warn("Failed to append artifact to store: {}", e.getMessage());
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Read path
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the artifact with {@code id}, unless it was compacted away.
+     *
+     * @param id store id
+     * @return stored artifact, or empty
+     */
+    public Optional<StoredArtifact> get(long id) {
+        if (!available || id < 0) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            if (id >= index.count() || !index.isLive(id)) return Optional.empty();
+            return Optional.of(read(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns matching artifacts, newest first. Candidates come from the smallest postings list
+     * among the given keys (or from all ids when no key is given) and are checked against the
+     * other filters on the index entry before their record is read.
+     *
+     * @param query filters and page position
+     * @return one page; {@code nextCursor} is set when the page is full
+     */
+    public ArtifactPage query(Query query) {
+        if (!available || query.limit() <= 0) return new ArtifactPage(List.of(), null);
+        Long fingerprint = query.fingerprint() != null ? Hashing.hash64(query.fingerprint()) : null;
+        Long testName = query.testName() != null ? Hashing.hash64(query.testName()) : null;
+        Long severity = query.severity() != null ? Hashing.hash64(query.severity().toLowerCase(Locale.ROOT)) : null;
+        long from = query.from() != null ? query.from().toEpochMilli() : Long.MIN_VALUE;
+        long to = query.to() != null ? query.to().toEpochMilli() : Long.MAX_VALUE;
+
+        List<StoredArtifact> items = new ArrayList<>(query.limit());
+        lock.readLock().lock();
+        try {
+            long bound = query.cursor() != null ? Math.min(query.cursor(), index.count()) : index.count();
+            LongList postings = smallest(
+                    fingerprint != null ? byFingerprint.getOrDefault(fingerprint, new LongList()) : null,
+                    testName != null ? byTestName.getOrDefault(testName, new LongList()) : null,
+                    severity != null ? bySeverity.getOrDefault(severity, new LongList()) : null);
+            int i = postings != null ? postings.lastIndexBelow(bound) : -1;
+            long id = postings != null ? (i >= 0 ? postings.get(i) : -1) : bound - 1;
+            while (id >= 0 && items.size() < query.limit()) {
+                // ids are assigned in time order, so nothing older can match
+                if (index.storedAt(id) < from) break;
+                if (index.isLive(id)
+                        && (fingerprint == null || index.fingerprint(id) == fingerprint)
+                        && (testName == null || index.testName(id) == testName)
+                        && (severity == null || index.severity(id) == severity)
+                        && index.storedAt(id) < to) {
+                    StoredArtifact stored = read(id);
+                    if (matches(stored, query)) items.add(stored);
+                }
+                id = postings != null ? (--i >= 0 ? postings.get(i) : -1) : id - 1;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Long nextCursor = items.size() == query.limit() ? items.getLast().id() : null;
+        return new ArtifactPage(items, nextCursor);
+    }
+
+    /** Number of live artifacts. */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private StoredArtifact read(long id) {
+        int length = index.length(id);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        try {
+            FileChannel channel = segments.get(index.segment(id));
+            long offset = index.offset(id);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("segment ends before record " + id);
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != length) {
+                throw new IOException("length mismatch in record " + id);
+            }
+            int expected = buffer.getInt();
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.array(), HEADER_BYTES, length);
+            if ((int) crc.getValue() != expected) {
+                throw new IOException("checksum mismatch in record " + id);
+            }
+            Payload payload = objectMapper.readValue(buffer.array(), HEADER_BYTES, length, Payload.class);
+            return new StoredArtifact(id, payload.storedAt(), payload.fingerprint(), payload.testName(),
+                    payload.source(), payload.artifact());
+        } catch (IOException e) {
+            throw new IllegalStateException("Artifact store record " + id + " is unreadable: " + e.getMessage(), e);
+        }
+    }
+
+    /** Guards against 64-bit hash collisions of the query keys. */
+    private static boolean matches(StoredArtifact stored, Query query) {
+        return (query.fingerprint() == null || query.fingerprint().equals(stored.fingerprint()))
+                && (query.testName() == null || query.testName().equals(stored.testName()))
+                && (query.severity() == null || (stored.artifact().severity() != null
+                        && query.severity().equalsIgnoreCase(stored.artifact().severity().level())));
+    }
+
+    private static LongList smallest(LongList... lists) {
+        LongList smallest = null;
+        for (LongList list : lists) {
+            if (list != null && (smallest == null || list.size() < smallest.size())) smallest = list;
+        }
+        return smallest;
+    }
+
+    // -------------------------------------------------------------------------
+    // Compaction
+    // -------------------------------------------------------------------------
+
+    /**
+     * Drops expired and superseded records from sealed segments, rewriting each affected segment.
+     *
+     * @return number of artifacts removed
+     */
+    public synchronized long compact() throws IOException {
+        if (!available) return 0;
+        Map<Integer, List<Long>> idsBySegment = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (long id = 0; id < index.count(); id++) {
+                int segment = index.segment(id);
+                if (segment > 0 && segment != activeSegment) {
+                    idsBySegment.computeIfAbsent(segment, s -> new ArrayList<>()).add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long removed = 0;
+        for (Map.Entry<Integer, List<Long>> sealed : idsBySegment.entrySet()) {
+            lock.writeLock().lock();
+            try {
+                removed += rewrite(sealed.getKey(), sealed.getValue());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (removed > 0) {
+            lock.writeLock().lock();
+            try {
+                rebuildPostings();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Artifact store compaction removed {} artifacts, {} remain", removed, liveCount);
+        }
+        return removed;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Artifact store compaction failed: {}", e.getMessage());
+        }
+    }
+
+    /** Rewrites one sealed segment without its dropped records; returns how many were dropped. */
+    private long rewrite(int segment, List<Long> ids) throws IOException {
+        long now = clock.millis();
+        List<Long> keep = new ArrayList<>(ids.size());
+        List<Long> drop = new ArrayList<>();
+        for (long id : ids) {
+            boolean expired = !retention.isZero() && now - index.storedAt(id) > retention.toMillis();
+            (expired || superseded(id) ? drop : keep).add(id);
+        }
+        if (drop.isEmpty()) return 0;
+
+        int target = 0;
+        FileChannel out = null;
+        long position = 0;
+        if (!keep.isEmpty()) {
+            target = nextSegmentNumber();
+            out = openSegment(target);
+            segments.put(target, out);
+        }
+        FileChannel in = segments.get(segment);
+        for (long id : keep) {
+            long length = HEADER_BYTES + index.length(id);
+            long copied = 0;
+            while (copied < length) {
+                copied += in.transferTo(index.offset(id) + copied, length - copied, out);
+            }
+            index.relocate(id, target, position);
+            position += length;
+        }
+        if (out != null) out.force(false);
+        for (long id : drop) {
+            index.remove(id);
+        }
+        index.force();
+        segments.remove(segment).close();
+        Files.deleteIfExists(segmentPath(segment));
+        liveCount -= drop.size();
+        return drop.size();
+    }
+
+    /** True when {@code id} is not among the newest {@code keep-per-fingerprint} ids of its fingerprint. */
+    private boolean superseded(long id) {
+        if (keepPerFingerprint <= 0) return false;
+        LongList postings = byFingerprint.get(index.fingerprint(id));
+        if (postings == null) return false;
+        int position = postings.lastIndexBelow(id + 1);
+        return postings.size() - position > keepPerFingerprint;
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle and helpers
+    // -------------------------------------------------------------------------
+
+    private void open() {
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("store.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                fileLock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                log.warn("Artifact store at {} is in use by another process; store disabled", dir.toAbsolutePath());
+                lockChannel.close();
+                return;
+            }
+
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                        segments.put(number, openSegment(number));
+                    }
+                }
+            }
+            index = new IndexFile(dir.resolve("index.dat"));
+
+            Map<Integer, Long> ends = new HashMap<>();
+            for (long id = 0; id < index.count(); id++) {
+                int segment = index.segment(id);
+                if (segment <= 0) continue;
+                if (!segments.containsKey(segment)) {
+                    throw new IOException("index points to missing segment " + segment);
+                }
+                ends.merge(segment, index.offset(id) + HEADER_BYTES + index.length(id), Math::max);
+                liveCount++;
+            }
+            if (index.count() > 0) lastStoredAt = index.storedAt(index.count() - 1);
+            rebuildPostings();
+
+            activeSegment = readActiveSegment();
+            // segments without live records are left-overs of an interrupted compaction or roll
+            for (Integer segment : new ArrayList<>(segments.keySet())) {
+                if (!ends.containsKey(segment) && segment != activeSegment) {
+                    segments.remove(segment).close();
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+            if (!segments.containsKey(activeSegment)) {
+                segments.put(activeSegment, openSegment(activeSegment));
+            }
+            writeActiveSegment(activeSegment);
+            activeSize = ends.getOrDefault(activeSegment, 0L);
+            segments.get(activeSegment).truncate(activeSize);
+
+            available = true;
+            log.info("Artifact store opened at {}: {} artifacts in {} segments",
+                    dir.toAbsolutePath(), liveCount, segments.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Artifact store unavailable at {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /** Flushes and closes all files. */
+    @PreDestroy
+    public void close() {
+        if (compactor != null) compactor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            if (!available) return;
+            available = false;
+            index.close();
+            for (FileChannel channel : segments.values()) {
+                channel.force(false);
+                channel.close();
+            }
+            fileLock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Error closing artifact store: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        segments.get(activeSegment).force(false);
+        int next = nextSegmentNumber();
+        segments.put(next, openSegment(next));
+        writeActiveSegment(next);
+        activeSegment = next;
+        activeSize = 0;
+    }
+
+    /**
+     * Active segment recorded by the last run; for a store without the record, the highest
+     * segment number (or 1 for a new store).
+     */
+    private int readActiveSegment() throws IOException {
+        Path file = dir.resolve(ACTIVE_SEGMENT_FILE);
+        if (Files.exists(file)) {
+            return Integer.parseInt(Files.readString(file).strip());
+        }
+        return segments.isEmpty() ? 1 : lastSegmentNumber();
+    }
+
+    /** Records the active segment atomically, so a crash leaves either the old or the new number. */
+    private void writeActiveSegment(int segment) throws IOException {
+        Path tmp = dir.resolve(ACTIVE_SEGMENT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Integer.toString(segment).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(ACTIVE_SEGMENT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void rebuildPostings() {
+        byFingerprint.clear();
+        byTestName.clear();
+        bySeverity.clear();
+        for (long id = 0; id < index.count(); id++) {
+            if (index.isLive(id)) addPostings(id);
+        }
+    }
+
+    private void addPostings(long id) {
+        byFingerprint.computeIfAbsent(index.fingerprint(id), k -> new LongList()).add(id);
+        byTestName.computeIfAbsent(index.testName(id), k -> new LongList()).add(id);
+        bySeverity.computeIfAbsent(index.severity(id), k -> new LongList()).add(id);
+    }
+
+    private int lastSegmentNumber() {
+        return segments.lastKey();
+    }
+
+    private int nextSegmentNumber() {
+        return segments.isEmpty() ? 1 : lastSegmentNumber() + 1;
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(int number) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long severityHash(ArtifactResponse artifact) {
+        String level = artifact.severity() != null ? artifact.severity().level() : null;
+        return Hashing.hash64(level != null ? level.toLowerCase(Locale.ROOT) : null);
+    }
+}
@@ -0,0 +1,150 @@
+package com.hackathon.storywriter.service.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped table of fixed-width entries, one per stored artifact, addressed by artifact id.
+ *
+ * <p>Entry layout ({@value #ENTRY_BYTES} bytes):
+ * <pre>
+ *   int  segment        segment file number; 0 = unused slot, -1 = removed by compaction
+ *   int  length         payload length in bytes
+ *   long offset         position of the record header in the segment
+ *   long storedAt       epoch millis
+ *   long fingerprint    hash of the event fingerprint
+ *   long testName       hash of the test name
+ *   long severity       hash of the lower-cased severity level
+ * </pre>
+ * The file is mapped in chunks of {@value #CHUNK_ENTRIES} entries and grows one chunk at a time.
+ * Ids are dense and assigned in append order, so the number of entries is the index of the first
+ * unused slot. Not thread-safe; {@link ArtifactStore} guards it with its lock.
+ */
+final class IndexFile implements Closeable {
+
+    static final int ENTRY_BYTES = 48;
+    static final int CHUNK_ENTRIES = 1 << 16;
+    static final int REMOVED = -1;
+
+    private static final long CHUNK_BYTES = (long) ENTRY_BYTES * CHUNK_ENTRIES;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long count;
+
+    IndexFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long chunkCount = (channel.size() + CHUNK_BYTES - 1) / CHUNK_BYTES;
+        for (int i = 0; i < chunkCount; i++) {
+            mapChunk();
+        }
+        long capacity = chunkCount * CHUNK_ENTRIES;
+        while (count < capacity && segment(count) != 0) {
+            count++;
+        }
+    }
+
+    /** Number of entries, including removed ones. */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Appends an entry and returns its id.
+     */
+    long append(int segment, long offset, int length, long storedAt,
+                long fingerprint, long testName, long severity) throws IOException {
+        long id = count;
+        if (id / CHUNK_ENTRIES >= chunks.size()) {
+            mapChunk();
+        }
+        MappedByteBuffer chunk = chunk(id);
+        int at = position(id);
+        chunk.putInt(at + 4, length);
+        chunk.putLong(at + 8, offset);
+        chunk.putLong(at + 16, storedAt);
+        chunk.putLong(at + 24, fingerprint);
+        chunk.putLong(at + 32, testName);
+        chunk.putLong(at + 40, severity);
+        // written last: a non-zero segment marks the entry as complete
+        chunk.putInt(at, segment);
+        count++;
+        return id;
+    }
+
+    int segment(long id) {
+        return chunk(id).getInt(position(id));
+    }
+
+    int length(long id) {
+        return chunk(id).getInt(position(id) + 4);
+    }
+
+    long offset(long id) {
+        return chunk(id).getLong(position(id) + 8);
+    }
+
+    long storedAt(long id) {
+        return chunk(id).getLong(position(id) + 16);
+    }
+
+    long fingerprint(long id) {
+        return chunk(id).getLong(position(id) + 24);
+    }
+
+    long testName(long id) {
+        return chunk(id).getLong(position(id) + 32);
+    }
+
+    long severity(long id) {
+        return chunk(id).getLong(position(id) + 40);
+    }
+
+    boolean isLive(long id) {
+        return segment(id) > 0;
+    }
+
+    /** Points entry {@code id} to its record's new place after compaction. */
+    void relocate(long id, int segment, long offset) {
+        MappedByteBuffer chunk = chunk(id);
+        int at = position(id);
+        chunk.putLong(at + 8, offset);
+        chunk.putInt(at, segment);
+    }
+
+    /** Marks entry {@code id} as removed; its id is never reused. */
+    void remove(long id) {
+        chunk(id).putInt(position(id), REMOVED);
+    }
+
+    /** Flushes modified entries to the file. */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void mapChunk() throws IOException {
+        chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * CHUNK_BYTES, CHUNK_BYTES));
+    }
+
+    private MappedByteBuffer chunk(long id) {
+        return chunks.get((int) (id / CHUNK_ENTRIES));
+    }
+
+    private static int position(long id) {
+        return (int) (id % CHUNK_ENTRIES) * ENTRY_BYTES;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hackathon.storywriter.service.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs; used for the id postings of one index key, which are
+ * appended in increasing order.
+ */
+final class LongList {
+
+    private long[] values = new long[2];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Index of the last value smaller than {@code bound}, or -1; values must be ascending.
+     */
+    int lastIndexBelow(long bound) {
+        int i = Arrays.binarySearch(values, 0, size, bound);
+        return (i >= 0 ? i : -i - 1) - 1;
+    }
+}
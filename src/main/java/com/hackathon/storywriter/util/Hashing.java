@@ -0,0 +1,32 @@
+package com.hackathon.storywriter.util;
+
+/**
+ * Fast non-cryptographic hashing for in-memory indexes.
+ */
+public final class Hashing {
+
+    private Hashing() {}
+
+    /**
+     * 64-bit hash of {@code text}: FNV-1a over the UTF-16 code units, finished with the
+     * MurmurHash3 64-bit mixer so that every input bit affects every output bit.
+     *
+     * @param text nullable text; {@code null} hashes like the empty string
+     * @return 64-bit hash
+     */
+    public static long hash64(CharSequence text) {
+        long h = 0xcbf29ce484222325L;
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                h ^= text.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
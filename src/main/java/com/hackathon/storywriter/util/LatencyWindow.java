@@ -0,0 +1,59 @@
+package com.hackathon.storywriter.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Sliding window over the most recent latency samples, answering percentile queries.
+ *
+ * <p>Samples go into a fixed-size ring buffer, so old samples age out as new ones arrive and
+ * memory stays constant. A percentile is computed by sorting a copy of the window, which is
+ * cheap for the few hundred samples it is meant to hold.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    /**
+     * @param capacity number of most recent samples kept
+     */
+    public LatencyWindow(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Adds one sample, evicting the oldest when the window is full.
+     */
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        if (size < samples.length) size++;
+    }
+
+    /**
+     * @return number of samples currently in the window
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the given percentile of the samples in the window (nearest-rank method).
+     *
+     * @param percentile value in (0, 1], e.g. {@code 0.95}
+     * @return the percentile, or {@code null} when the window is empty
+     */
+    public Duration percentile(double percentile) {
+        long[] copy;
+        synchronized (this) {
+            if (size == 0) return null;
+            copy = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(copy);
+        int rank = (int) Math.ceil(percentile * copy.length);
+        return Duration.ofNanos(copy[Math.max(0, Math.min(copy.length, rank) - 1)]);
+    }
+}
@@ -0,0 +1,208 @@
+package com.hackathon.storywriter.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Duplicate-call suppression: concurrent callers asking for the same key share one execution.
+ *
+ * <p>The first caller for a key (the <i>leader</i>) runs the task; callers arriving while it
+ * is still running wait for and receive the leader's result or exception (except an
+ * interruption of the leader, see {@link #execute}). The key is released as soon as the leader
+ * finishes, so later callers trigger a fresh execution.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final AtomicLong sharedTotal = new AtomicLong();
+
+    /**
+     * Runs {@code task} for {@code key} unless an identical call is already in flight,
+     * in which case the caller blocks until that call completes.
+     *
+     * <p>A leader that is interrupted or cancelled (e.g. by its own caller's deadline) does not
+     * hand that failure to its followers: they are released and one of them retries as the new
+     * leader. A follower that is itself interrupted while waiting stops waiting at once.
+     *
+     * @param key  de-duplication key
+     * @param task work to run when this caller becomes the leader
+     * @return the task's result (possibly produced by another caller)
+     * @throws RuntimeException if the task failed, or if this caller was interrupted while waiting
+     */
+    public Result<V> execute(K key, Supplier<V> task) {
+        while (true) {
+            Call<V> mine = new Call<>(new CompletableFuture<>(), null);
+            Call<V> existing = calls.putIfAbsent(key, mine);
+            if (existing != null) {
+                existing.waiters.incrementAndGet();
+                try {
+                    V value = await(existing.future);
+                    sharedTotal.incrementAndGet();
+                    return new Result<>(value, true);
+                } catch (Abandoned e) {
+                    continue;
+                }
+            }
+
+            V value = null;
+            Throwable failure = null;
+            try {
+                value = task.get();
+                return new Result<>(value, false);
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                calls.remove(key, mine);
+                if (failure == null) {
+                    mine.future.complete(value);
+                } else if (interrupted(failure)) {
+                    mine.future.completeExceptionally(new Abandoned());
+                } else {
+                    mine.future.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute}: starts {@code starter} for {@code key} unless an
+     * identical call is already in flight, in which case the caller attaches to that call's future.
+     *
+     * <p>Each caller receives its own dependent copy of the shared future, so cancelling one
+     * caller's future does not affect the others.
+     *
+     * @param key     de-duplication key
+     * @param starter starts the work when this caller becomes the leader
+     * @return future completing with the (possibly shared) result
+     */
+    public CompletableFuture<V> submit(K key, Supplier<CompletableFuture<V>> starter) {
+        return submit(key, null, attachment -> {}, attachment -> starter.get());
+    }
+
+    /**
+     * Variant of {@link #submit(Object, Supplier)} that registers {@code attachment} together
+     * with the call. Every caller, leader or follower, is handed the attachment of the call it
+     * joined, so per-call state (e.g. a listener fan-out) can never be observed missing while
+     * the call is in flight.
+     *
+     * @param key        de-duplication key
+     * @param attachment state registered with the call when this caller becomes the leader
+     * @param joiner     invoked with the joined call's attachment before this caller's future
+     *                   is returned; for the leader, before {@code starter} runs
+     * @param starter    starts the work with this caller's attachment when it becomes the leader
+     * @return future completing with the (possibly shared) result
+     */
+    @SuppressWarnings("unchecked")
+    public <A> CompletableFuture<V> submit(K key, A attachment, Consumer<? super A> joiner,
+                                           Function<? super A, CompletableFuture<V>> starter) {
+        Call<V> mine = new Call<>(new CompletableFuture<>(), attachment);
+        Call<V> existing = calls.putIfAbsent(key, mine);
+        if (existing != null) {
+            attach(existing);
+            joiner.accept((A) existing.attachment);
+            return existing.future.copy();
+        }
+
+        try {
+            joiner.accept(attachment);
+            starter.apply(attachment).whenComplete((value, error) -> {
+                calls.remove(key, mine);
+                if (error != null) {
+                    mine.future.completeExceptionally(error);
+                } else {
+                    mine.future.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            calls.remove(key, mine);
+            mine.future.completeExceptionally(e);
+        }
+        return mine.future.copy();
+    }
+
+    /**
+     * @return number of keys currently being executed
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * @return total number of callers currently waiting on another caller's execution
+     */
+    public int waiters() {
+        return calls.values().stream().mapToInt(c -> c.waiters.get()).sum();
+    }
+
+    /**
+     * @return total number of callers that have been served by another caller's execution
+     */
+    public long sharedTotal() {
+        return sharedTotal.get();
+    }
+
+    private void attach(Call<V> call) {
+        call.waiters.incrementAndGet();
+        sharedTotal.incrementAndGet();
+    }
+
+    /**
+     * Waits for the leader's outcome; throws {@link Abandoned} when the leader gave up.
+     */
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a shared call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error error) throw error;
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Whether the leader's failure stems from its own interruption or cancellation rather
+     * than from the task, and must therefore not be shared.
+     */
+    private static boolean interrupted(Throwable failure) {
+        if (Thread.currentThread().isInterrupted()) return true;
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof CancellationException) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Outcome of {@link #execute}: the value and whether it was shared from another caller.
+     */
+    public record Result<V>(V value, boolean shared) {}
+
+    /** Signals followers that the leader was interrupted and they should retry. */
+    private static final class Abandoned extends RuntimeException {
+        Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+
+    private record Call<V>(CompletableFuture<V> future, Object attachment, AtomicInteger waiters) {
+        Call(CompletableFuture<V> future, Object attachment) {
+            this(future, attachment, new AtomicInteger());
+        }
+    }
+}
@@ -31,19 +31,4 @@ public final class Strings {
         if (s == null) return "";
         return s.length() > maxChars ? s.substring(0, maxChars) + "\n... [truncated]" : s;
     }
-
-    /**
-     * Strips Markdown code fences (e.g. {@code ```json ... ```}) from a string.
-     * If no fences are present the original string is returned unchanged.
-     *
-     * @param raw raw string that may contain code fences
-     * @return clean string without leading/trailing code fences
-     */
-    public static String stripCodeFence(String raw) {
-        String trimmed = raw.trim();
-        if (trimmed.startsWith("```")) {
-            return trimmed.replaceAll("^```[a-z]*\\n?", "").replaceAll("```$", "").trim();
-        }
-        return trimmed;
-    }
 }
@@ -0,0 +1,66 @@
+package com.hackathon.storywriter.util;
+
+/**
+ * Local estimate of the number of model tokens in a text, without a tokenizer vocabulary.
+ *
+ * <p>Approximates byte-pair encodings such as {@code cl100k}: a run of ASCII letters or digits
+ * costs one token per six characters (rounded up), so common words cost one token and long
+ * identifiers a few; every punctuation character costs one; a space before a word is free and
+ * any other run of whitespace costs one; every non-ASCII character costs one. Stack traces and
+ * code, which are dense in dots and parentheses, therefore count far more tokens per character
+ * than prose, as they do for the model. Meant for budgeting prompts, not for billing.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_WORD_TOKEN = 6;
+
+    private TokenEstimator() {}
+
+    /**
+     * Estimated number of tokens of {@code text}.
+     *
+     * @param text nullable text
+     * @return estimated token count; 0 for {@code null} or empty text
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null) return 0;
+        int tokens = 0;
+        int word = 0;
+        int whitespace = 0;
+        boolean lineBreak = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            boolean wordChar = c < 0x80 && Character.isLetterOrDigit(c);
+            if (!wordChar) {
+                tokens += wordTokens(word);
+                word = 0;
+                if (Character.isWhitespace(c)) {
+                    whitespace++;
+                    lineBreak |= c != ' ';
+                    continue;
+                }
+            }
+            if (whitespace > 0) {
+                tokens += whitespaceTokens(whitespace, lineBreak);
+                whitespace = 0;
+                lineBreak = false;
+            }
+            if (wordChar) {
+                word++;
+            } else {
+                tokens++;
+            }
+        }
+        return tokens + wordTokens(word) + whitespaceTokens(whitespace, lineBreak);
+    }
+
+    private static int wordTokens(int chars) {
+        return (chars + CHARS_PER_WORD_TOKEN - 1) / CHARS_PER_WORD_TOKEN;
+    }
+
+    /** A single space merges into the following token; any other whitespace run is one token. */
+    private static int whitespaceTokens(int chars, boolean lineBreak) {
+        if (chars == 0) return 0;
+        return chars == 1 && !lineBreak ? 0 : 1;
+    }
+}
@@ -0,0 +1,50 @@
+package com.hackathon.storywriter.util;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap lexical comparison of two texts based on their sets of significant terms.
+ *
+ * <p>A term is a run of letters, digits or underscores of at least four characters,
+ * lower-cased, so short function words ("the", "was", "of") do not count.
+ */
+public final class TokenOverlap {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}_]{4,}");
+
+    private TokenOverlap() {}
+
+    /**
+     * Returns the distinct significant terms of {@code text}.
+     *
+     * @param text nullable text
+     * @return lower-cased terms; empty for {@code null}
+     */
+    public static Set<String> terms(String text) {
+        Set<String> terms = new HashSet<>();
+        if (text == null) return terms;
+        Matcher m = WORD.matcher(text);
+        while (m.find()) {
+            terms.add(m.group().toLowerCase(Locale.ROOT));
+        }
+        return terms;
+    }
+
+    /**
+     * Fraction of the terms of {@code candidate} that do not occur in {@code base}: how much
+     * new information {@code candidate} adds on top of {@code base}.
+     *
+     * @return value in [0, 1]; 0 when {@code candidate} has no terms
+     */
+    public static double novelty(String base, String candidate) {
+        Set<String> added = terms(candidate);
+        if (added.isEmpty()) return 0.0;
+        int total = added.size();
+        added.removeAll(terms(base));
+        return (double) added.size() / total;
+    }
+}
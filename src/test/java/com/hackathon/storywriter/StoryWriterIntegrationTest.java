@@ -7,6 +7,7 @@ import com.hackathon.storywriter.service.OrchestratorService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -15,6 +16,8 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -24,6 +27,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 class StoryWriterIntegrationTest {
 
     @Autowired
@@ -82,4 +86,14 @@ class StoryWriterIntegrationTest {
                 .andExpect(jsonPath("$.bugReport.title").value("DB timeout on order lookup"))
                 .andExpect(jsonPath("$.userStory.description").value("Customers experience slow or failing order retrieval due to a DB connection timeout."));
     }
+
+    @Test
+    @DisplayName("GET /actuator/prometheus exposes the pipeline and copilot meters")
+    void prometheusEndpointExposesPipelineMeters() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("pipeline_agent_parse_total{agent=\"severity\"")))
+                .andExpect(content().string(containsString("copilot_cli_queue_depth")))
+                .andExpect(content().string(containsString("application=\"story-writer\"")));
+    }
 }
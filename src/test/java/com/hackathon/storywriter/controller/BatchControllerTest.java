@@ -0,0 +1,102 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.BatchResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.batch.BatchService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = BatchController.class, properties = "pipeline.batch.max-events=2")
+class BatchControllerTest {
+
+    private static final String FIRST = """
+            {"source":"JUNIT","testName":"com.example.OrderTest#a","errorMessage":"expected 200 but was 500"}""";
+    private static final String SECOND = """
+            {"source":"MOCK_MVC","testName":"com.example.CheckoutIT#pay","errorMessage":"Status expected:<200> but was:<404>"}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BatchService batchService;
+
+    @Test
+    @DisplayName("POST /api/events/batch with a JSON array passes every event to the batch service")
+    void processesJsonArray() throws Exception {
+        when(batchService.process(any())).thenReturn(response());
+
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + FIRST + "," + SECOND + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clusters[0].clusterId").value("c1"))
+                .andExpect(jsonPath("$.events[1].clusterId").value("c1"));
+
+        assertThat(submittedEvents()).extracting(TestFailureEvent::testName)
+                .containsExactly("com.example.OrderTest#a", "com.example.CheckoutIT#pay");
+    }
+
+    @Test
+    @DisplayName("POST /api/events/batch with an NDJSON stream reads one event per line")
+    void processesNdjson() throws Exception {
+        when(batchService.process(any())).thenReturn(response());
+
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType("application/x-ndjson")
+                        .content(FIRST + "\n" + SECOND + "\n"))
+                .andExpect(status().isOk());
+
+        assertThat(submittedEvents()).extracting(TestFailureEvent::source)
+                .containsExactly(TestFailureEvent.FailureSource.JUNIT, TestFailureEvent.FailureSource.MOCK_MVC);
+    }
+
+    @Test
+    @DisplayName("POST /api/events/batch returns 400 for an invalid event, malformed JSON or too many events")
+    void rejectsBadBatches() throws Exception {
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + FIRST + ",{\"source\":\"JUNIT\",\"errorMessage\":\"\"}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + FIRST + ",{\"source\":"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/events/batch")
+                        .contentType("application/x-ndjson")
+                        .content(FIRST + "\n" + SECOND + "\n" + FIRST + "\n"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(batchService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TestFailureEvent> submittedEvents() {
+        ArgumentCaptor<List<TestFailureEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(batchService).process(events.capture());
+        return events.getValue();
+    }
+
+    private static BatchResponse response() {
+        return new BatchResponse(
+                List.of(new BatchResponse.Cluster("c1", 2, 0, null, null)),
+                List.of(new BatchResponse.EventResult(0, "com.example.OrderTest#a", "c1"),
+                        new BatchResponse.EventResult(1, "com.example.CheckoutIT#pay", "c1")),
+                12L);
+    }
+}
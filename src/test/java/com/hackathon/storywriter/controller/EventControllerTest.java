@@ -3,8 +3,12 @@ package com.hackathon.storywriter.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hackathon.storywriter.model.ArtifactResponse;
 import com.hackathon.storywriter.model.ArtifactResponse.*;
+import com.hackathon.storywriter.model.JobStatus;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.PipelineListener;
+import com.hackathon.storywriter.service.job.JobService;
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +17,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -30,6 +39,9 @@ class EventControllerTest {
     @MockBean
     private OrchestratorService orchestratorService;
 
+    @MockBean
+    private JobService jobService;
+
     @Test
     @DisplayName("GET /_system/ping returns 200 and liveness message")
     void healthEndpointReturns200() throws Exception {
@@ -114,4 +126,70 @@ class EventControllerTest {
                         .content(invalidBody))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @DisplayName("POST /api/events returns 429 with Retry-After when the launch queue is full")
+    void processEventReturns429WhenQueueFull() throws Exception {
+        when(orchestratorService.process(any(TestFailureEvent.class))).thenThrow(new RuntimeException(
+                "Agent pipeline failed",
+                new CapacityExceededException(CapacityExceededException.Reason.QUEUE_FULL, "model=gpt-4.1", 7)));
+
+        mockMvc.perform(post("/api/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"source": "JUNIT", "errorMessage": "boom"}
+                                """))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "7"))
+                .andExpect(jsonPath("$.detail").value(containsString("QUEUE_FULL")));
+    }
+
+    @Test
+    @DisplayName("POST /api/events?async=true returns 202 with job id and Location header")
+    void submitEventAsyncReturns202() throws Exception {
+        when(jobService.submit(any(TestFailureEvent.class))).thenReturn(new JobStatus(
+                "job-1", JobStatus.State.RUNNING, Instant.parse("2026-02-26T10:00:00Z"), null, Map.of(), null, null));
+
+        mockMvc.perform(post("/api/events").param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"source": "JUNIT", "errorMessage": "boom"}
+                                """))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    @DisplayName("POST /api/events/stream pushes each section as a Server-Sent Event")
+    void streamEventPushesSections() throws Exception {
+        ArtifactResponse artifact = new ArtifactResponse(
+                new ArtifactResponse.TechnicalAnalysis("NPE in PaymentService", 11L),
+                new ArtifactResponse.RootCause("Missing null-check", 22L),
+                null, null,
+                new SeverityAssessment("Blocker", "Payments down", 0.9, 33L),
+                66L);
+        when(orchestratorService.submit(any(TestFailureEvent.class), any(PipelineListener.class))).thenAnswer(invocation -> {
+            PipelineListener listener = invocation.getArgument(1);
+            PipelineListener.sections(artifact).forEach(listener::onSection);
+            return CompletableFuture.completedFuture(artifact);
+        });
+
+        var result = mockMvc.perform(post("/api/events/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"source": "JUNIT", "errorMessage": "boom"}
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:technicalAnalysis")))
+                .andExpect(content().string(containsString("event:severity")))
+                .andExpect(content().string(containsString("\"durationMs\":33")))
+                .andExpect(content().string(containsString("event:complete")));
+    }
 }
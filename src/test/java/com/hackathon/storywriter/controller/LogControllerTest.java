@@ -0,0 +1,95 @@
+package com.hackathon.storywriter.controller;
+
+import com.hackathon.storywriter.model.IngestResponse;
+import com.hackathon.storywriter.service.ingest.LogIngestService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LogController.class)
+class LogControllerTest {
+
+    private static final String LOG = """
+            2026-02-01 10:00:00.123 ERROR [main] c.e.OrderService - Order failed
+            java.lang.IllegalStateException: boom
+            \tat com.example.OrderService.place(OrderService.java:42)
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LogIngestService logIngestService;
+
+    @Test
+    @DisplayName("POST /api/logs with a plain text body streams it to the ingest service and returns 200")
+    void ingestsPlainLog() throws Exception {
+        AtomicReference<byte[]> received = captureBody("app.log");
+
+        mockMvc.perform(post("/api/logs").param("name", "app.log")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(LOG))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.origin").value("app.log"))
+                .andExpect(jsonPath("$.entries").value(1));
+
+        assertThat(new String(received.get(), StandardCharsets.UTF_8)).isEqualTo(LOG);
+    }
+
+    @Test
+    @DisplayName("POST /api/logs with a gzip body passes the compressed bytes through untouched")
+    void ingestsGzipLog() throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(LOG.getBytes(StandardCharsets.UTF_8));
+        }
+        AtomicReference<byte[]> received = captureBody("upload");
+
+        mockMvc.perform(post("/api/logs")
+                        .contentType("application/gzip")
+                        .content(gzipped.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.origin").value("upload"));
+
+        assertThat(received.get()).isEqualTo(gzipped.toByteArray());
+    }
+
+    @Test
+    @DisplayName("POST /api/logs with an unsupported content type returns 415")
+    void rejectsUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/logs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"log\":\"x\"}"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(logIngestService);
+    }
+
+    private AtomicReference<byte[]> captureBody(String name) throws Exception {
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        when(logIngestService.ingest(any(InputStream.class), eq(name))).thenAnswer(invocation -> {
+            received.set(invocation.<InputStream>getArgument(0).readAllBytes());
+            return new IngestResponse(name, 3, 1, List.of(), 0, 5);
+        });
+        return received;
+    }
+}
@@ -0,0 +1,120 @@
+package com.hackathon.storywriter.service;
+
+import com.hackathon.storywriter.service.cache.PromptMemoizer;
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
+import com.hackathon.storywriter.service.limit.LaunchGate;
+import com.hackathon.storywriter.service.limit.ModelCircuitBreakers;
+import com.hackathon.storywriter.service.llm.CopilotCliException;
+import com.hackathon.storywriter.service.llm.LlmBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CopilotCliServiceTest {
+
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CopilotCliService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.shutdownExecutor();
+    }
+
+    private CopilotCliService service(LlmBackend backend, int maxAttempts) {
+        service = new CopilotCliService(
+                new PromptMemoizer(environment, meterRegistry, false, 10, Duration.ofHours(1)),
+                new LaunchGate(environment, meterRegistry, 4, 4, 10, Duration.ofSeconds(5), 1,
+                        false, 1, 0.9, 2.0),
+                backend,
+                new ModelCircuitBreakers(environment, meterRegistry, true, 4, 3, 0.5, Duration.ofMinutes(1)),
+                meterRegistry,
+                true, 0.95, 1, 10,
+                maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5));
+        return service;
+    }
+
+    @Test
+    @DisplayName("a non-zero exit is retried until the call succeeds")
+    void retriesNonZeroExit() {
+        AtomicInteger calls = new AtomicInteger();
+        CopilotCliService cli = service((role, model, prompt) -> {
+            if (calls.incrementAndGet() < 3) throw new CopilotCliException("rate limited", 2);
+            return "answer";
+        }, 3);
+
+        assertThat(cli.ask("RootCause", "gpt-4.1", "sys", "user")).isEqualTo("answer");
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("copilot.cli.retries").tag("exit", "2").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("retries stop after max-attempts and surface the exit code")
+    void givesUpAfterMaxAttempts() {
+        CopilotCliService cli = service((role, model, prompt) -> { throw new CopilotCliException("boom", 7); }, 2);
+
+        assertThatThrownBy(() -> cli.ask("RootCause", "gpt-4.1", "sys", "user"))
+                .isInstanceOfSatisfying(CopilotCliException.class, e -> assertThat(e.exitCode()).isEqualTo(7));
+    }
+
+    @Test
+    @DisplayName("a call slower than the recent percentile is hedged; the hedge wins and the original is cancelled")
+    void hedgesSlowCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch originalCancelled = new CountDownLatch(1);
+        CopilotCliService cli = service((role, model, prompt) -> {
+            int n = calls.incrementAndGet();
+            if (n != 2) return "answer-" + n;
+            try {
+                Thread.sleep(10_000);
+                return "too late";
+            } catch (InterruptedException e) {
+                originalCancelled.countDown();
+                throw new IllegalStateException(e);
+            }
+        }, 1);
+
+        assertThat(cli.ask("RootCause", "gpt-4.1", "sys", "warm-up")).isEqualTo("answer-1");
+        assertThat(cli.ask("RootCause", "gpt-4.1", "sys", "slow")).isEqualTo("answer-3");
+
+        assertThat(originalCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("copilot.cli.hedge").tag("outcome", "fired").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("copilot.cli.hedge.won").tag("winner", "hedge").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("once a model keeps failing its circuit opens; calls fail fast or go to the fallback model")
+    void openCircuitFailsFastOrFallsBack() {
+        List<String> models = new CopyOnWriteArrayList<>();
+        CopilotCliService cli = service((role, model, prompt) -> {
+            models.add(model);
+            if (model.equals("gpt-4.1")) throw new CopilotCliException("upstream down", 1);
+            return "cheap answer";
+        }, 1);
+
+        for (String prompt : List.of("a", "b", "c")) {
+            assertThatThrownBy(() -> cli.ask("RootCause", "gpt-4.1", "sys", prompt))
+                    .isInstanceOf(CopilotCliException.class);
+        }
+        assertThatThrownBy(() -> cli.ask("RootCause", "gpt-4.1", "sys", "d"))
+                .isInstanceOfSatisfying(CapacityExceededException.class,
+                        e -> assertThat(e.reason()).isEqualTo(CapacityExceededException.Reason.CIRCUIT_OPEN));
+        assertThat(models).hasSize(3);
+
+        environment.setProperty("copilot.cli.breaker.fallback-models.gpt-4.1", "gpt-4.1-mini");
+        assertThat(cli.ask("RootCause", "gpt-4.1", "sys", "e")).isEqualTo("cheap answer");
+        assertThat(models).containsExactly("gpt-4.1", "gpt-4.1", "gpt-4.1", "gpt-4.1-mini");
+    }
+}
@@ -4,12 +4,32 @@ import com.hackathon.storywriter.model.ArtifactResponse;
 import com.hackathon.storywriter.model.ArtifactResponse.*;
 import com.hackathon.storywriter.model.TestFailureEvent;
 import com.hackathon.storywriter.service.agent.*;
+import com.hackathon.storywriter.service.cache.ArtifactCache;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.service.graph.AgentGraphSettings;
+import com.hackathon.storywriter.service.graph.NodeSettings;
+import com.hackathon.storywriter.service.rules.RuleEngine;
+import com.hackathon.storywriter.service.similar.SimilarFailureIndex;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import com.hackathon.storywriter.service.store.ArtifactStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -23,8 +43,10 @@ class OrchestratorServiceTest {
     @Mock private BugWriterAgent bugWriterAgent;
     @Mock private StoryWriterAgent storyWriterAgent;
     @Mock private SeverityAgent severityAgent;
+    @Mock private ArtifactStore artifactStore;
 
     private OrchestratorService orchestratorService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private static final TestFailureEvent SAMPLE_EVENT = new TestFailureEvent(
             TestFailureEvent.FailureSource.JUNIT,
@@ -36,12 +58,38 @@ class OrchestratorServiceTest {
 
     @BeforeEach
     void setUp() {
-        orchestratorService = new OrchestratorService(
+        orchestratorService = newService(OrchestratorService.PipelineMode.STANDARD);
+    }
+
+    private OrchestratorService newService(OrchestratorService.PipelineMode mode) {
+        return newService(mode, AgentGraphSettings.of(Map.of()));
+    }
+
+    private OrchestratorService newService(OrchestratorService.PipelineMode mode, AgentGraphSettings graphSettings) {
+        return newService(mode, graphSettings, Duration.ofMinutes(2));
+    }
+
+    private OrchestratorService newService(OrchestratorService.PipelineMode mode, AgentGraphSettings graphSettings,
+                                           Duration agentTimeout) {
+        return new OrchestratorService(
                 technicalAnalyzerAgent,
                 rootCauseAgent,
                 bugWriterAgent,
                 storyWriterAgent,
-                severityAgent
+                severityAgent,
+                new EventFingerprinter(5, new StackTraceSignature(StackTraceSignature.DEFAULT_NOISE_PACKAGES, 12)),
+                new ArtifactCache(new ObjectMapper(), new SimpleMeterRegistry(), true, 100, Duration.ofHours(1), ""),
+                new RuleEngine(new DefaultResourceLoader(), meterRegistry, true, "classpath:triage-rules.yml", 0.8,
+                        Duration.ofSeconds(5)),
+                new SimilarFailureIndex(new StackTraceSignature("", 12), meterRegistry, true, 100, 6),
+                artifactStore,
+                meterRegistry,
+                true,
+                mode,
+                0.5,
+                Duration.ofMinutes(5),
+                agentTimeout,
+                graphSettings
         );
     }
 
@@ -65,7 +113,7 @@ class OrchestratorServiceTest {
         when(rootCauseAgent.analyze(eq(SAMPLE_EVENT), eq(techAnalysis))).thenReturn(rootCause);
         when(bugWriterAgent.write(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause))).thenReturn(bugReport);
         when(storyWriterAgent.write(eq(SAMPLE_EVENT), eq(rootCause))).thenReturn(userStory);
-        when(severityAgent.assess(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause))).thenReturn(severity);
+        when(severityAgent.assess(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause), any())).thenReturn(severity);
 
         // when
         ArtifactResponse result = orchestratorService.process(SAMPLE_EVENT);
@@ -87,7 +135,113 @@ class OrchestratorServiceTest {
         verify(rootCauseAgent).analyze(eq(SAMPLE_EVENT), eq(techAnalysis));
         verify(bugWriterAgent).write(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause));
         verify(storyWriterAgent).write(eq(SAMPLE_EVENT), eq(rootCause));
-        verify(severityAgent).assess(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause));
+        verify(severityAgent).assess(eq(SAMPLE_EVENT), eq(techAnalysis), eq(rootCause), any());
+    }
+
+    @Test
+    @DisplayName("process() answers a repeated event from the artifact cache without re-running agents")
+    void processServesRepeatedEventFromCache() {
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn("tech");
+        when(rootCauseAgent.analyze(any(), any())).thenReturn("root");
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        ArtifactResponse first = orchestratorService.process(SAMPLE_EVENT);
+        ArtifactResponse second = orchestratorService.process(SAMPLE_EVENT);
+
+        assertThat(second).isSameAs(first);
+        verify(technicalAnalyzerAgent, times(1)).analyze(any());
+        verify(severityAgent, times(1)).assess(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("process() attaches concurrent identical events to the running pipeline")
+    void processCoalescesConcurrentIdenticalEvents() throws Exception {
+        CountDownLatch techStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(technicalAnalyzerAgent.analyze(any())).thenAnswer(invocation -> {
+            techStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "tech";
+        });
+        when(rootCauseAgent.analyze(any(), any())).thenReturn("root");
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        CompletableFuture<ArtifactResponse> first = CompletableFuture.supplyAsync(() -> orchestratorService.process(SAMPLE_EVENT));
+        assertThat(techStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<ArtifactResponse> second = CompletableFuture.supplyAsync(() -> orchestratorService.process(SAMPLE_EVENT));
+        while (meterRegistry.get("pipeline.coalesced.waiters").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        verify(technicalAnalyzerAgent, times(1)).analyze(any());
+        assertThat(meterRegistry.get("pipeline.coalesced").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("submit() replays sections already finished by the running pipeline to a coalesced caller")
+    void coalescedSubmitSeesFinishedSections() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn("tech");
+        when(rootCauseAgent.analyze(any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "root";
+        });
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        CountDownLatch techDone = new CountDownLatch(1);
+        CompletableFuture<ArtifactResponse> first = orchestratorService.submit(SAMPLE_EVENT, (section, value) -> {
+            if (section.equals("technicalAnalysis")) techDone.countDown();
+        });
+        assertThat(techDone.await(5, TimeUnit.SECONDS)).isTrue();
+        List<String> follower = new CopyOnWriteArrayList<>();
+        CompletableFuture<ArtifactResponse> second = orchestratorService.submit(SAMPLE_EVENT,
+                (section, value) -> follower.add(section));
+
+        assertThat(follower).containsExactly("technicalAnalysis");
+        release.countDown();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(follower).containsExactlyInAnyOrder(
+                "technicalAnalysis", "rootCause", "bugReport", "userStory", "severity");
+        verify(technicalAnalyzerAgent, times(1)).analyze(any());
+    }
+
+    @Test
+    @DisplayName("submit() reports every section to the listener exactly once, also on a cache hit")
+    void submitReportsSectionsToListener() throws Exception {
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn("tech");
+        when(rootCauseAgent.analyze(any(), any())).thenReturn("root");
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        List<String> live = new CopyOnWriteArrayList<>();
+        orchestratorService.submit(SAMPLE_EVENT, (section, value) -> live.add(section)).get(5, TimeUnit.SECONDS);
+        List<String> cached = new CopyOnWriteArrayList<>();
+        orchestratorService.submit(SAMPLE_EVENT, (section, value) -> cached.add(section)).get(5, TimeUnit.SECONDS);
+
+        assertThat(live).hasSize(5).startsWith("technicalAnalysis", "rootCause")
+                .containsExactlyInAnyOrder("technicalAnalysis", "rootCause", "bugReport", "userStory", "severity");
+        assertThat(cached).containsExactly("technicalAnalysis", "rootCause", "bugReport", "userStory", "severity");
     }
 
     @Test
@@ -98,4 +252,145 @@ class OrchestratorServiceTest {
         org.junit.jupiter.api.Assertions.assertThrows(RuntimeException.class,
                 () -> orchestratorService.process(SAMPLE_EVENT));
     }
+
+    @Test
+    @DisplayName("fast mode drafts the writers off the technical analysis and keeps drafts the root cause does not change")
+    void fastModeKeepsDraftsWhenRootCauseAddsLittle() {
+        OrchestratorService fast = newService(OrchestratorService.PipelineMode.FAST);
+        String tech = "NullPointerException in OrderService.createOrder because payload customer is null";
+        String root = "OrderService.createOrder dereferences a null customer payload";
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn(tech);
+        when(rootCauseAgent.analyze(any(), any())).thenReturn(root);
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", 0.8, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", 0.7, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", 0.9, 0L));
+
+        ArtifactResponse result = fast.process(SAMPLE_EVENT);
+
+        assertThat(result.rootCause().content()).isEqualTo(root);
+        verify(bugWriterAgent).write(SAMPLE_EVENT, tech, OrchestratorService.PROVISIONAL_ROOT_CAUSE);
+        verify(storyWriterAgent).write(SAMPLE_EVENT, tech);
+        verify(severityAgent).assess(eq(SAMPLE_EVENT), eq(tech), eq(OrchestratorService.PROVISIONAL_ROOT_CAUSE), any());
+        assertThat(meterRegistry.get("pipeline.speculation").tag("outcome", "accepted").counters()).hasSize(3);
+        assertThat(meterRegistry.get("pipeline.duration").tag("mode", "fast").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("pipeline.confidence").tag("mode", "fast").tag("section", "severity")
+                .summary().mean()).isEqualTo(0.9);
+    }
+
+    @Test
+    @DisplayName("fast mode re-runs the drafts when the root cause adds material information")
+    void fastModeRerunsDraftsWhenRootCauseChangesInputs() {
+        OrchestratorService fast = newService(OrchestratorService.PipelineMode.FAST);
+        String tech = "AssertionError expected 200 but was 500";
+        String root = "Flyway migration V42 dropped the orders_archive table referenced by ArchiveRepository";
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn(tech);
+        when(rootCauseAgent.analyze(any(), any())).thenReturn(root);
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("draft", "w", "ac", "ai", null, 0L))
+                .thenReturn(new UserStory("final", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        ArtifactResponse result = fast.process(SAMPLE_EVENT);
+
+        assertThat(result.userStory().description()).isEqualTo("final");
+        verify(bugWriterAgent).write(SAMPLE_EVENT, tech, root);
+        verify(storyWriterAgent).write(SAMPLE_EVENT, root);
+        verify(severityAgent).assess(eq(SAMPLE_EVENT), eq(tech), eq(root), any());
+        assertThat(meterRegistry.get("pipeline.speculation").tag("outcome", "rerun").counters()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("an agent configured with skip-sources is skipped for that source, and its section stays empty")
+    void skipSourcesSkipsAgentForSource() {
+        NodeSettings storyWriter = new NodeSettings();
+        storyWriter.setSkipSources(Set.of(TestFailureEvent.FailureSource.LOG));
+        OrchestratorService trimmed = newService(OrchestratorService.PipelineMode.STANDARD,
+                AgentGraphSettings.of(Map.of("story-writer", storyWriter)));
+        TestFailureEvent logEvent = new TestFailureEvent(
+                TestFailureEvent.FailureSource.LOG, null, "ERROR Connection refused", null, null);
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn("tech");
+        when(rootCauseAgent.analyze(any(), any())).thenReturn("root");
+        when(bugWriterAgent.write(any(), any(), any()))
+                .thenReturn(new BugReport("t", "d", "s", "e", "a", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Minor", "r", null, 0L));
+
+        ArtifactResponse result = trimmed.process(logEvent);
+
+        assertThat(result.userStory()).isNull();
+        assertThat(result.bugReport()).isNotNull();
+        verifyNoInteractions(storyWriterAgent);
+    }
+
+    @Test
+    @DisplayName("a run in which every agent is skipped fails instead of returning an empty artifact")
+    void allSkippedRunFails() {
+        NodeSettings skipLogs = new NodeSettings();
+        skipLogs.setSkipSources(Set.of(TestFailureEvent.FailureSource.LOG));
+        OrchestratorService idle = newService(OrchestratorService.PipelineMode.STANDARD, AgentGraphSettings.of(Map.of(
+                OrchestratorService.TECHNICAL_ANALYZER, skipLogs, OrchestratorService.ROOT_CAUSE, skipLogs,
+                OrchestratorService.BUG_WRITER, skipLogs, OrchestratorService.STORY_WRITER, skipLogs,
+                OrchestratorService.SEVERITY, skipLogs)));
+        TestFailureEvent logEvent = new TestFailureEvent(
+                TestFailureEvent.FailureSource.LOG, null, "ERROR Connection refused", null, null);
+
+        org.junit.jupiter.api.Assertions.assertThrows(RuntimeException.class, () -> idle.process(logEvent));
+        verifyNoInteractions(technicalAnalyzerAgent, rootCauseAgent, bugWriterAgent, storyWriterAgent, severityAgent,
+                artifactStore);
+    }
+
+    @Test
+    @DisplayName("a slow agent times out; the artifact keeps the other sections and is not cached")
+    void slowAgentYieldsPartialArtifact() {
+        OrchestratorService bounded = newService(OrchestratorService.PipelineMode.STANDARD,
+                AgentGraphSettings.of(Map.of()), Duration.ofMillis(200));
+        when(technicalAnalyzerAgent.analyze(any())).thenReturn("tech");
+        when(rootCauseAgent.analyze(any(), any())).thenReturn("root");
+        when(bugWriterAgent.write(any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return new BugReport("t", "d", "s", "e", "a", null, 0L);
+        });
+        when(storyWriterAgent.write(any(), any()))
+                .thenReturn(new UserStory("d", "w", "ac", "ai", null, 0L));
+        when(severityAgent.assess(any(), any(), any(), any()))
+                .thenReturn(new SeverityAssessment("Major", "r", null, 0L));
+
+        long start = System.currentTimeMillis();
+        ArtifactResponse result = bounded.process(SAMPLE_EVENT);
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5_000);
+        assertThat(result.bugReport()).isNull();
+        assertThat(result.userStory()).isNotNull();
+        assertThat(result.severity()).isNotNull();
+        assertThat(result.sectionStatus())
+                .containsEntry("bugReport", ArtifactResponse.SectionStatus.TIMEOUT)
+                .containsEntry("userStory", ArtifactResponse.SectionStatus.OK);
+        assertThat(meterRegistry.get("pipeline.agent.duration").tag("status", "timeout").timer().count()).isEqualTo(1);
+
+        bounded.process(SAMPLE_EVENT);
+        verify(technicalAnalyzerAgent, times(2)).analyze(any());
+    }
+
+    @Test
+    @DisplayName("an event matching a triage rule is answered from the rule without launching any agent")
+    void triageRuleBypassesAgents() {
+        TestFailureEvent deadlock = new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT,
+                "com.example.PaymentTest#settles",
+                "com.mysql.jdbc.jdbc2.optional.MysqlXAException: XA_RBDEADLOCK: Transaction branch was rolled back",
+                null, null);
+
+        ArtifactResponse result = orchestratorService.process(deadlock);
+
+        assertThat(result.generatedBy()).isEqualTo("rule:mysql-xa-deadlock");
+        assertThat(result.bugReport().title()).contains("com.example.PaymentTest#settles");
+        assertThat(result.sectionStatus()).hasSize(5).containsValue(ArtifactResponse.SectionStatus.OK);
+        verifyNoInteractions(technicalAnalyzerAgent, rootCauseAgent, bugWriterAgent, storyWriterAgent, severityAgent);
+        verify(artifactStore).append(anyString(), eq(deadlock), same(result));
+    }
 }
@@ -0,0 +1,66 @@
+package com.hackathon.storywriter.service.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentJsonReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("fenced output fed byte by byte reports level and confidence before the rationale is complete")
+    void reportsEarlyFieldsWhileStreaming() throws Exception {
+        String output = """
+                ```json
+                {"level": "Critical", "confidence": 0.8, "rationale": "Checkout is down for every user."}
+                ```
+                Let me know if you need anything else.
+                """;
+        Map<String, Object> early = new LinkedHashMap<>();
+        AgentJsonReader reader = new AgentJsonReader(objectMapper, Set.of("level", "confidence"), early::put);
+
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        int rationaleEnd = output.indexOf("user.\"}");
+        for (int i = 0; i < bytes.length; i++) {
+            reader.onOutput(bytes, i, 1);
+            if (i == rationaleEnd) {
+                assertThat(early).containsExactly(Map.entry("level", "Critical"), Map.entry("confidence", 0.8));
+                assertThat(reader.isComplete()).isFalse();
+            }
+        }
+
+        assertThat(reader.value(SeverityAssessment.class))
+                .isEqualTo(new SeverityAssessment("Critical", "Checkout is down for every user.", 0.8, 0L));
+    }
+
+    @Test
+    @DisplayName("braces in the preamble, raw line breaks in strings and trailing commas are tolerated")
+    void toleratesModelQuirks() throws Exception {
+        String output = "Sure {as requested}, here it is:\n"
+                + "{\"level\": \"Minor\", \"rationale\": \"Only the\nadmin page\", \"confidence\": 0.4,}\n"
+                + "{\"level\": \"ignored\"}";
+
+        assertThat(AgentJsonReader.read(objectMapper, output, SeverityAssessment.class))
+                .isEqualTo(new SeverityAssessment("Minor", "Only the\nadmin page", 0.4, 0L));
+    }
+
+    @Test
+    @DisplayName("output without a complete JSON object is rejected")
+    void rejectsOutputWithoutObject() {
+        assertThatThrownBy(() -> AgentJsonReader.read(objectMapper, "Severity: Major, because {reasons", SeverityAssessment.class))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> AgentJsonReader.read(objectMapper, "I could not assess this failure.", SeverityAssessment.class))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.hackathon.storywriter.service.batch;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.BatchResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchServiceTest {
+
+    private static final String NPE_TRACE = """
+            java.lang.NullPointerException: Cannot invoke "Order.total()" because "order" is null
+                at com.example.OrderService.checkout(OrderService.java:%d)
+                at com.example.OrderController.post(OrderController.java:21)
+            """;
+
+    private static final String ASSERT_EQUALS_TRACE = """
+            org.opentest4j.AssertionFailedError: expected: <3> but was: <2>
+                at org.junit.jupiter.api.AssertionFailureBuilder.build(AssertionFailureBuilder.java:151)
+                at org.junit.jupiter.api.AssertionFailureBuilder.buildAndThrow(AssertionFailureBuilder.java:132)
+                at org.junit.jupiter.api.AssertEquals.failNotEqual(AssertEquals.java:197)
+                at org.junit.jupiter.api.AssertEquals.assertEquals(AssertEquals.java:150)
+                at org.junit.jupiter.api.AssertEquals.assertEquals(AssertEquals.java:145)
+                at org.junit.jupiter.api.Assertions.assertEquals(Assertions.java:531)
+                at com.example.%s.%s(%1$s.java:27)
+                at java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(DirectMethodHandleAccessor.java:103)
+            """;
+
+    @Mock private OrchestratorService orchestratorService;
+
+    private final EventFingerprinter fingerprinter =
+            new EventFingerprinter(5, new StackTraceSignature(StackTraceSignature.DEFAULT_NOISE_PACKAGES, 12));
+
+    @Test
+    @DisplayName("events with the same stack-trace signature share one pipeline run")
+    void clustersEventsBySignature() {
+        when(orchestratorService.process(any())).thenReturn(new ArtifactResponse(null, null, null, null, null, 5L));
+        BatchService batchService = new BatchService(orchestratorService, fingerprinter, 2);
+
+        List<TestFailureEvent> events = List.of(
+                new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, "OrderTest#a", "NPE", NPE_TRACE.formatted(42), null),
+                new TestFailureEvent(TestFailureEvent.FailureSource.MOCK_MVC, "OrderApiTest#b", "NPE", NPE_TRACE.formatted(57), null),
+                new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, "PaymentTest#c", "timeout after 30s", null, null));
+
+        BatchResponse response = batchService.process(events);
+
+        verify(orchestratorService, times(2)).process(any());
+        assertThat(response.clusters()).hasSize(2);
+        assertThat(response.clusters().getFirst().size()).isEqualTo(2);
+        assertThat(response.clusters().getFirst().representativeIndex()).isZero();
+        assertThat(response.events()).extracting(BatchResponse.EventResult::clusterId)
+                .containsExactly(
+                        response.clusters().get(0).clusterId(),
+                        response.clusters().get(0).clusterId(),
+                        response.clusters().get(1).clusterId());
+    }
+
+    @Test
+    @DisplayName("assertEquals failures from different tests land in separate clusters despite the shared JUnit frames")
+    void assertionFramesDoNotMergeClusters() {
+        when(orchestratorService.process(any())).thenReturn(new ArtifactResponse(null, null, null, null, null, 5L));
+        BatchService batchService = new BatchService(orchestratorService, fingerprinter, 2);
+
+        List<TestFailureEvent> events = List.of(
+                new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, "OrderTest#total",
+                        "expected: <3> but was: <2>", ASSERT_EQUALS_TRACE.formatted("OrderTest", "total"), null),
+                new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, "PaymentTest#refund",
+                        "expected: <3> but was: <2>", ASSERT_EQUALS_TRACE.formatted("PaymentTest", "refund"), null));
+
+        BatchResponse response = batchService.process(events);
+
+        verify(orchestratorService, times(2)).process(any());
+        assertThat(response.clusters()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("a failing cluster reports its error without failing the batch")
+    void failingClusterIsReported() {
+        when(orchestratorService.process(any())).thenThrow(new RuntimeException("Agent pipeline failed: CLI"));
+        BatchService batchService = new BatchService(orchestratorService, fingerprinter, 2);
+
+        BatchResponse response = batchService.process(List.of(
+                new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, "OrderTest#a", "NPE", NPE_TRACE.formatted(1), null)));
+
+        assertThat(response.clusters()).singleElement()
+                .satisfies(c -> {
+                    assertThat(c.artifact()).isNull();
+                    assertThat(c.error()).contains("Agent pipeline failed");
+                });
+    }
+}
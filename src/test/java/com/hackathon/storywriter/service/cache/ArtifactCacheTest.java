@@ -0,0 +1,119 @@
+package com.hackathon.storywriter.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactCacheTest {
+
+    private static final ArtifactResponse ARTIFACT = new ArtifactResponse(
+            new ArtifactResponse.TechnicalAnalysis("tech", 10L),
+            new ArtifactResponse.RootCause("root", 20L),
+            new ArtifactResponse.BugReport("title", "desc", "steps", "exp", "act", 0.9, 30L),
+            new ArtifactResponse.UserStory("desc", "todo", "Given/When/Then", "info", 0.8, 40L),
+            new ArtifactResponse.SeverityAssessment("Critical", "rationale", 0.7, 50L),
+            150L
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("entries older than the TTL are reported as misses")
+    void expiredEntriesAreMisses() {
+        MutableClock clock = new MutableClock();
+        ArtifactCache cache = new ArtifactCache(objectMapper, new SimpleMeterRegistry(),
+                true, 10, Duration.ofMinutes(5), "", clock);
+
+        cache.put("fp", ARTIFACT);
+        assertThat(cache.get("fp")).isEqualTo(ARTIFACT);
+
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(cache.get("fp")).isNull();
+    }
+
+    @Test
+    @DisplayName("the least recently used entry is evicted once max-entries is exceeded")
+    void evictsLeastRecentlyUsed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ArtifactCache cache = new ArtifactCache(objectMapper, registry,
+                true, 2, Duration.ofHours(1), "", new MutableClock());
+
+        cache.put("a", ARTIFACT);
+        cache.put("b", ARTIFACT);
+        cache.get("a");
+        cache.put("c", ARTIFACT);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(registry.get("pipeline.cache.evictions").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("the disk tier survives a restart")
+    void diskTierSurvivesRestart(@TempDir Path dir) {
+        new ArtifactCache(objectMapper, new SimpleMeterRegistry(),
+                true, 10, Duration.ofHours(1), dir.toString(), new MutableClock()).put("fp", ARTIFACT);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ArtifactCache restarted = new ArtifactCache(objectMapper, registry,
+                true, 10, Duration.ofHours(1), dir.toString(), new MutableClock());
+
+        assertThat(restarted.get("fp")).isEqualTo(ARTIFACT);
+        assertThat(registry.get("pipeline.cache.requests").tag("tier", "disk").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("fingerprints ignore volatile numbers, ids and line numbers")
+    void fingerprintMasksVolatileTokens() {
+        EventFingerprinter fingerprinter = new EventFingerprinter(5, new StackTraceSignature(StackTraceSignature.DEFAULT_NOISE_PACKAGES, 12));
+        TestFailureEvent first = new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT,
+                "com.example.OrderServiceTest#shouldCreateOrder",
+                "Order 4711 not found at 2026-02-26T10:15:30Z (trace 3f2b9c1e-0d5a-4c1e-9f0a-1b2c3d4e5f60)",
+                "java.lang.IllegalStateException\n\tat com.example.OrderService.find(OrderService.java:42)",
+                "first branch");
+        TestFailureEvent second = new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT,
+                "com.example.OrderServiceTest#shouldCreateOrder",
+                "Order 815 not found at 2026-02-27T08:00:01Z (trace 9a8b7c6d-0d5a-4c1e-9f0a-aaaaaaaaaaaa)",
+                "java.lang.IllegalStateException\n\tat com.example.OrderService.find(OrderService.java:57)",
+                "second branch");
+
+        assertThat(fingerprinter.fingerprint(first)).isEqualTo(fingerprinter.fingerprint(second));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-02-26T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
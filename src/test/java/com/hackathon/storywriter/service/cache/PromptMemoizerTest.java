@@ -0,0 +1,147 @@
+package com.hackathon.storywriter.service.cache;
+
+import com.hackathon.storywriter.service.llm.Prompt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptMemoizerTest {
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private PromptMemoizer memoizer() {
+        return new PromptMemoizer(environment, new SimpleMeterRegistry(), true, 10, Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("identical prompts for the same model are answered from the memo")
+    void identicalPromptsAreMemoized() {
+        PromptMemoizer memoizer = memoizer();
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = memoizer.memoize("RootCause", "gpt-4.1", "sys", "user", () -> "answer-" + calls.incrementAndGet());
+        String second = memoizer.memoize("RootCause", "gpt-4.1", "sys", "user", () -> "answer-" + calls.incrementAndGet());
+        String otherModel = memoizer.memoize("RootCause", "gpt-4.1-mini", "sys", "user", () -> "answer-" + calls.incrementAndGet());
+
+        assertThat(first).isEqualTo("answer-1");
+        assertThat(second).isEqualTo("answer-1");
+        assertThat(otherModel).isEqualTo("answer-2");
+    }
+
+    @Test
+    @DisplayName("memoization can be disabled per agent")
+    void perAgentFlagDisablesMemo() {
+        environment.setProperty("copilot.cli.agents.bug-writer.memoize", "false");
+        PromptMemoizer memoizer = memoizer();
+        AtomicInteger calls = new AtomicInteger();
+
+        memoizer.memoize("BugWriter", "gpt-4.1", "sys", "user", () -> "r" + calls.incrementAndGet());
+        memoizer.memoize("BugWriter", "gpt-4.1", "sys", "user", () -> "r" + calls.incrementAndGet());
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("concurrent identical prompts share one call")
+    void concurrentIdenticalPromptsShareOneCall() throws Exception {
+        PromptMemoizer memoizer = memoizer();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                memoizer.memoize("Severity", "gpt-4.1", "sys", "user", () -> {
+                    calls.incrementAndGet();
+                    leaderStarted.countDown();
+                    await(release);
+                    return "shared";
+                }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+                memoizer.memoize("Severity", "gpt-4.1", "sys", "user", () -> "own-" + calls.incrementAndGet()));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("shared");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("shared");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a follower retries as the new leader when the leader is interrupted, instead of sharing the interrupt")
+    void interruptedLeaderIsNotShared() throws Exception {
+        PromptMemoizer memoizer = memoizer();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CompletableFuture<String> leader = new CompletableFuture<>();
+
+        Thread leaderThread = new Thread(() -> {
+            try {
+                leader.complete(memoizer.memoize("Severity", "gpt-4.1", "sys", "user", () -> {
+                    calls.incrementAndGet();
+                    leaderStarted.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                        return "never";
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("interrupted while waiting for copilot", e);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                leader.completeExceptionally(e);
+            }
+        });
+        leaderThread.start();
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+                memoizer.memoize("Severity", "gpt-4.1", "sys", "user", () -> "own-" + calls.incrementAndGet()));
+        Thread.sleep(100);
+        leaderThread.interrupt();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own-2");
+        assertThat(leader).failsWithin(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("a segmented prompt is memoized under the same key as its joined text")
+    void segmentedPromptSharesKeyWithJoinedText() {
+        PromptMemoizer memoizer = memoizer();
+        AtomicInteger calls = new AtomicInteger();
+        String stackTrace = "at com.example.Foo.bar(Foo.java:1)\n".repeat(500) + "caf\u00e9 \ud83d\ude00";
+
+        String joined = memoizer.memoize("RootCause", "gpt-4.1", "sys", "trace:\n" + stackTrace,
+                () -> "answer-" + calls.incrementAndGet());
+        String segmented = memoizer.memoize("RootCause", "gpt-4.1", "sys", Prompt.of("trace:\n", stackTrace),
+                () -> "answer-" + calls.incrementAndGet());
+
+        assertThat(segmented).isEqualTo(joined);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("agent labels map to kebab-case configuration keys")
+    void agentLabelsMapToConfigKeys() {
+        assertThat(PromptMemoizer.toConfigKey("TechnicalAnalyzer")).isEqualTo("technical-analyzer");
+        assertThat(PromptMemoizer.toConfigKey("Severity")).isEqualTo("severity");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
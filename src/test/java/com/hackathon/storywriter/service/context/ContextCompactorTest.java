@@ -0,0 +1,97 @@
+package com.hackathon.storywriter.service.context;
+
+import com.hackathon.storywriter.service.context.ContextCompactor.Field;
+import com.hackathon.storywriter.util.Strings;
+import com.hackathon.storywriter.util.TokenEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextCompactorTest {
+
+    private static final String FRAMEWORK = "org.springframework.,org.junit.,jdk.internal.,java.lang.reflect.";
+
+    private static final String TRACE = """
+            java.lang.IllegalStateException: Checkout failed for order 42
+            \tat com.shop.checkout.CheckoutService.place(CheckoutService.java:88)
+            \tat com.shop.checkout.CheckoutService$$SpringCGLIB$$0.place(<generated>)
+            \tat org.springframework.aop.framework.CglibAopProxy.intercept(CglibAopProxy.java:720)
+            \tat com.shop.web.CheckoutController.submit(CheckoutController.java:31)
+            \tat java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(DirectMethodHandleAccessor.java:103)
+            \tat java.base/java.lang.reflect.Method.invoke(Method.java:580)
+            \tat org.junit.platform.commons.util.ReflectionUtils.invokeMethod(ReflectionUtils.java:728)
+            Caused by: java.lang.StackOverflowError: null
+            \tat com.shop.pricing.Rule.apply(Rule.java:12)
+            \tat com.shop.pricing.Rule.apply(Rule.java:12)
+            \tat com.shop.pricing.Rule.apply(Rule.java:12)
+            \tat com.shop.pricing.Rule.apply(Rule.java:12)
+            \tat com.shop.pricing.Pricer.price(Pricer.java:40)
+            \tat com.shop.checkout.CheckoutService.place(CheckoutService.java:80)
+            \t... 6 more
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("framework frames collapse into one marker per gap, recursion is kept once and '... N more' lines are dropped")
+    void compactsStackTraceStructurally() {
+        ContextCompactor compactor = compactor(true, 6000, "com.shop.");
+
+        String compacted = compactor.compactStackTrace(TRACE);
+
+        assertThat(compacted).isEqualTo("""
+                java.lang.IllegalStateException: Checkout failed for order 42
+                \tat com.shop.checkout.CheckoutService.place(CheckoutService.java:88)
+                \t... 2 frames omitted
+                \tat com.shop.web.CheckoutController.submit(CheckoutController.java:31)
+                \t... 3 frames omitted
+                Caused by: java.lang.StackOverflowError: null
+                \tat com.shop.pricing.Rule.apply(Rule.java:12)
+                \t... above frame repeated 3 more times
+                \tat com.shop.pricing.Pricer.price(Pricer.java:40)
+                \tat com.shop.checkout.CheckoutService.place(CheckoutService.java:80)""");
+        assertThat(compactor.compactStackTrace("no frames here")).isEqualTo("no frames here");
+    }
+
+    @Test
+    @DisplayName("under a tight budget the exception lines and throw sites survive and small fields are left whole")
+    void fitsBudgetKeepingTheMostUsefulLines() {
+        ContextCompactor compactor = compactor(true, 200, "com.shop.");
+        String trace = TRACE + "\tat com.shop.Filler.a(Filler.java:1)\n".repeat(40);
+        String largeText = "Analysis line that keeps going on and on.\n".repeat(40);
+
+        String[] fitted = compactor.fit("test", "gpt-4.1", 10,
+                Field.text("Checkout test"), Field.stackTrace(trace, 3000), Field.text(largeText));
+
+        assertThat(fitted[0]).isEqualTo("Checkout test");
+        assertThat(fitted[1])
+                .contains("IllegalStateException: Checkout failed for order 42")
+                .contains("Caused by: java.lang.StackOverflowError")
+                .contains("com.shop.pricing.Rule.apply(Rule.java:12)")
+                .contains("frames omitted");
+        assertThat(fitted[2]).endsWith("\n... [truncated]");
+        int total = 10;
+        for (String text : fitted) total += TokenEstimator.estimate(text);
+        assertThat(total).isLessThanOrEqualTo(200);
+        assertThat(meterRegistry.get("copilot.cli.context.removed").tag("agent", "test").summary().totalAmount())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("when disabled, only the stack trace is cut at its char limit")
+    void disabledKeepsOldTruncation() {
+        ContextCompactor compactor = compactor(false, 10, "");
+        String largeText = "word ".repeat(500);
+
+        String[] fitted = compactor.fit("test", "gpt-4.1", 0, Field.stackTrace(TRACE, 100), Field.text(largeText));
+
+        assertThat(fitted).containsExactly(Strings.truncate(TRACE, 100), largeText);
+    }
+
+    private ContextCompactor compactor(boolean enabled, int maxPromptTokens, String appPackages) {
+        return new ContextCompactor(new MockEnvironment(), meterRegistry, enabled, maxPromptTokens, appPackages, FRAMEWORK);
+    }
+}
@@ -0,0 +1,183 @@
+package com.hackathon.storywriter.service.graph;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.PipelineListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentGraphTest {
+
+    private static final TestFailureEvent EVENT = new TestFailureEvent(
+            TestFailureEvent.FailureSource.JUNIT, "FooTest#bar", "boom", null, null);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static AgentGraph.Node node(String name, List<String> dependsOn, AgentGraph.Step step) {
+        return node(name, dependsOn, e -> true, null, step);
+    }
+
+    private static AgentGraph.Node node(String name, List<String> dependsOn, Predicate<TestFailureEvent> condition,
+                                        Duration timeout, AgentGraph.Step step) {
+        return new AgentGraph.Node(name, name, dependsOn, List.of(), condition, false, timeout, step, (out, ms) -> out);
+    }
+
+    @Test
+    @DisplayName("independent nodes run in parallel once their shared dependency finishes")
+    void runsIndependentNodesInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AgentGraph.Step waitForSibling = (event, in) -> {
+            bothStarted.countDown();
+            try {
+                return bothStarted.await(5, TimeUnit.SECONDS) ? in.get("a") + "+" : "serial";
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        AgentGraph graph = new AgentGraph(List.of(
+                node("c", List.of("a"), waitForSibling),
+                node("b", List.of("a"), waitForSibling),
+                node("a", List.of(), (event, in) -> "A")));
+
+        Map<String, AgentGraph.Outcome> outcomes =
+                graph.run(EVENT, PipelineListener.NONE, executor, null, null).get(10, TimeUnit.SECONDS);
+
+        assertThat(graph.nodes()).extracting(AgentGraph.Node::name).startsWith("a");
+        assertThat(outcomes.get("b").output()).isEqualTo("A+");
+        assertThat(outcomes.get("c").output()).isEqualTo("A+");
+    }
+
+    @Test
+    @DisplayName("a skipped or failed node skips its dependents without failing the run")
+    void skipsDependentsOfSkippedAndFailedNodes() throws Exception {
+        AgentGraph graph = new AgentGraph(List.of(
+                node("a", List.of(), e -> false, null, (event, in) -> "A"),
+                node("b", List.of("a"), (event, in) -> "B"),
+                node("c", List.of(), (event, in) -> { throw new IllegalStateException("down"); }),
+                node("d", List.of("c"), (event, in) -> "D"),
+                node("e", List.of(), (event, in) -> "E")));
+
+        Map<String, AgentGraph.Outcome> outcomes =
+                graph.run(EVENT, PipelineListener.NONE, executor, null, null).get(10, TimeUnit.SECONDS);
+
+        assertThat(outcomes.get("a").status()).isEqualTo(AgentGraph.Status.SKIPPED);
+        assertThat(outcomes.get("b").status()).isEqualTo(AgentGraph.Status.SKIPPED);
+        assertThat(outcomes.get("c").status()).isEqualTo(AgentGraph.Status.FAILED);
+        assertThat(outcomes.get("c").error()).hasMessage("down");
+        assertThat(outcomes.get("d").status()).isEqualTo(AgentGraph.Status.SKIPPED);
+        assertThat(outcomes.get("e").output()).isEqualTo("E");
+    }
+
+    @Test
+    @DisplayName("a node past its timeout is interrupted and its dependents are skipped")
+    void cancelsNodesPastTheirTimeout() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AgentGraph graph = new AgentGraph(List.of(
+                node("slow", List.of(), e -> true, Duration.ofMillis(100), (event, in) -> {
+                    try {
+                        Thread.sleep(10_000);
+                        return "late";
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw new IllegalStateException(e);
+                    }
+                }),
+                node("after", List.of("slow"), (event, in) -> "never"),
+                node("fast", List.of(), (event, in) -> "F")));
+
+        Map<String, AgentGraph.Outcome> outcomes =
+                graph.run(EVENT, PipelineListener.NONE, executor, null, null).get(5, TimeUnit.SECONDS);
+
+        assertThat(outcomes.get("slow").status()).isEqualTo(AgentGraph.Status.TIMEOUT);
+        assertThat(outcomes.get("after").status()).isEqualTo(AgentGraph.Status.SKIPPED);
+        assertThat(outcomes.get("fast").output()).isEqualTo("F");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("a failing required node fails the run at once and cancels the steps still running")
+    void requiredFailureCancelsSiblings() throws Exception {
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AgentGraph graph = new AgentGraph(List.of(
+                node("slow", List.of(), (event, in) -> {
+                    siblingStarted.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                        return "late";
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw new IllegalStateException(e);
+                    }
+                }),
+                new AgentGraph.Node("required", "required", List.of(), List.of(), e -> true, true, null,
+                        (event, in) -> {
+                            try {
+                                siblingStarted.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                            throw new IllegalStateException("down");
+                        }, (out, ms) -> out),
+                node("after", List.of("slow"), (event, in) -> "never")));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> graph.run(EVENT, PipelineListener.NONE, executor, null, null).get(5, TimeUnit.SECONDS))
+                .hasRootCauseMessage("down");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("nodes not yet started when the run budget is spent time out without running")
+    void timesOutNodesOnceTheBudgetIsSpent() throws Exception {
+        AgentGraph graph = new AgentGraph(List.of(
+                node("a", List.of(), (event, in) -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return "A";
+                }),
+                node("b", List.of("a"), (event, in) -> "B")));
+
+        Map<String, AgentGraph.Outcome> outcomes =
+                graph.run(EVENT, PipelineListener.NONE, executor, null, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+
+        assertThat(outcomes.get("a").status()).isEqualTo(AgentGraph.Status.TIMEOUT);
+        assertThat(outcomes.get("b").status()).isEqualTo(AgentGraph.Status.SKIPPED);
+    }
+
+    @Test
+    @DisplayName("cycles and unknown dependencies are rejected when the graph is built")
+    void rejectsInvalidGraphs() {
+        AgentGraph.Step step = (event, in) -> "x";
+
+        assertThatThrownBy(() -> new AgentGraph(List.of(
+                node("a", List.of("b"), step), node("b", List.of("a"), step))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cycle");
+        assertThatThrownBy(() -> new AgentGraph(List.of(node("a", List.of("missing"), step))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("unknown agent missing");
+    }
+}
@@ -0,0 +1,87 @@
+package com.hackathon.storywriter.service.ingest;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LogDirectoryWatcherTest {
+
+    private static final int FRAMES = 5;
+
+    @Mock private OrchestratorService orchestratorService;
+
+    @TempDir Path dir;
+
+    @Test
+    @DisplayName("an entry in one file is not cut short while another file keeps the watcher busy")
+    void alternatingAppendsKeepEntriesWhole() throws Exception {
+        List<TestFailureEvent> submitted = new CopyOnWriteArrayList<>();
+        when(orchestratorService.submit(any(), any())).thenAnswer(invocation -> {
+            submitted.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(new ArtifactResponse(null, null, null, null, null, 1L));
+        });
+        Path orders = Files.createFile(dir.resolve("orders.log"));
+        Path payments = Files.createFile(dir.resolve("payments.log"));
+        LogIngestService ingestService = new LogIngestService(orchestratorService,
+                new EventFingerprinter(5, new StackTraceSignature(StackTraceSignature.DEFAULT_NOISE_PACKAGES, 12)),
+                new SimpleMeterRegistry(), "", "ERROR,FATAL", 200, 16384, 100, 2);
+        LogDirectoryWatcher watcher = new LogDirectoryWatcher(ingestService, dir.toString(), "*.log",
+                Duration.ofMillis(500));
+        watcher.start();
+        try {
+            Thread.sleep(300);
+            for (int line = 0; line <= FRAMES + 1; line++) {
+                append(orders, line, "Order");
+                Thread.sleep(100);
+                append(payments, line, "Payment");
+                Thread.sleep(100);
+            }
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (submitted.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            watcher.stop();
+        }
+
+        assertThat(submitted).hasSize(2).allSatisfy(event -> {
+            assertThat(event.stackTrace()).isNotNull();
+            assertThat(event.stackTrace().lines().filter(l -> l.strip().startsWith("at "))).hasSize(FRAMES);
+        });
+    }
+
+    /** Appends line {@code line} of one ERROR entry: the header, the exception, then one frame per line. */
+    private static void append(Path file, int line, String service) throws Exception {
+        String text = switch (line) {
+            case 0 -> "2026-02-01 10:15:00.407 [main] ERROR c.h.s.service." + service + "Service - " + service + " failed\n";
+            case 1 -> "java.lang.IllegalStateException: " + service + " has no lines\n";
+            default -> "\tat com.example." + service + "Service.step" + (line - 1) + "(" + service + "Service.java:"
+                    + line + ")\n";
+        };
+        Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,119 @@
+package com.hackathon.storywriter.service.ingest;
+
+import com.hackathon.storywriter.model.TestFailureEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogEntryParserTest {
+
+    static final String LOG = """
+            2026-02-01 10:15:02.113 [http-nio-8080-exec-1] INFO  c.h.s.controller.EventController - POST /api/events received
+            2026-02-01 10:15:03.407 [pipeline-3] ERROR c.h.s.service.OrderService - Checkout failed
+            java.lang.IllegalStateException: order 42 has no lines
+            \tat com.example.OrderService.checkout(OrderService.java:88)
+            \tat com.example.OrderController.post(OrderController.java:21)
+            Caused by: java.lang.NullPointerException: lines
+            \t... 12 more
+            2026-02-01 10:15:04.000 [pipeline-3] WARN  c.h.s.service.OrderService - Retrying
+            2026-02-01 10:15:05.250 [main] ERROR c.h.s.StoryWriterApplication -\040
+            java.net.ConnectException: Connection refused
+            \tat java.base/sun.nio.ch.Net.connect0(Native Method)
+            """;
+
+    private final List<TestFailureEvent> events = new ArrayList<>();
+    private final List<Long> startLines = new ArrayList<>();
+
+    private LogEntryParser parser(int maxTraceLines) {
+        return new LogEntryParser(Pattern.compile(LogEntryParser.DEFAULT_HEADER_PATTERN), Set.of("ERROR"),
+                maxTraceLines, "app.log", (event, line) -> {
+                    events.add(event);
+                    startLines.add(line);
+                });
+    }
+
+    @Test
+    @DisplayName("ERROR entries become LOG events with their multi-line stack traces stitched")
+    void stitchesErrorEntriesWithTheirStackTraces() {
+        LogEntryParser parser = parser(200);
+        LOG.lines().forEach(parser);
+        parser.flush();
+
+        assertThat(events).hasSize(2);
+        TestFailureEvent first = events.get(0);
+        assertThat(first.source()).isEqualTo(TestFailureEvent.FailureSource.LOG);
+        assertThat(first.testName()).isEqualTo("c.h.s.service.OrderService");
+        assertThat(first.errorMessage()).isEqualTo("Checkout failed");
+        assertThat(first.stackTrace()).startsWith("java.lang.IllegalStateException: order 42 has no lines")
+                .contains("Caused by: java.lang.NullPointerException").endsWith("\t... 12 more");
+        assertThat(first.context()).contains("pipeline-3", "2026-02-01 10:15:03.407", "app.log:2");
+        // a blank message falls back to the exception line
+        assertThat(events.get(1).errorMessage()).isEqualTo("java.net.ConnectException: Connection refused");
+        assertThat(startLines).containsExactly(2L, 9L);
+        assertThat(parser.lines()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("stack traces are capped at max-trace-lines")
+    void capsLongStackTraces() {
+        LogEntryParser parser = parser(2);
+        LOG.lines().forEach(parser);
+        parser.flush();
+
+        assertThat(events.getFirst().stackTrace().lines()).hasSize(3);
+        assertThat(events.getFirst().stackTrace()).endsWith("... 3 more lines");
+    }
+
+    @Test
+    @DisplayName("gzip streams and memory-mapped plain files yield the same lines, including a last line without newline")
+    void readsGzipAndMappedFiles(@TempDir Path dir) throws IOException {
+        Path plain = Files.writeString(dir.resolve("app.log"), LOG.replace("\n", "\r\n").strip());
+        Path gzip = dir.resolve("app-1.log.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(LOG.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> fromPlain = new ArrayList<>();
+        new LogLineReader(1024, fromPlain::add).readFile(plain);
+        List<String> fromGzip = new ArrayList<>();
+        new LogLineReader(1024, fromGzip::add).readFile(gzip);
+        List<String> fromStream = new ArrayList<>();
+        LogLineReader streamReader = new LogLineReader(1024, fromStream::add);
+        streamReader.read(new ByteArrayInputStream(Files.readAllBytes(gzip)));
+        streamReader.end();
+
+        assertThat(fromPlain).containsExactlyElementsOf(LOG.lines().toList());
+        assertThat(fromGzip).containsExactlyElementsOf(LOG.lines().toList());
+        assertThat(fromStream).containsExactlyElementsOf(LOG.lines().toList());
+    }
+
+    @Test
+    @DisplayName("tailing keeps a partial last line until the rest of it is appended")
+    void tailsAppendedBytes(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("app.log"), "first\nsec");
+        List<String> lines = new ArrayList<>();
+        LogLineReader reader = new LogLineReader(1024, lines::add);
+
+        long offset = reader.readMapped(file, 0);
+        assertThat(lines).containsExactly("first");
+
+        Files.writeString(file, "ond\nthi", java.nio.file.StandardOpenOption.APPEND);
+        offset = reader.readMapped(file, offset);
+        assertThat(lines).containsExactly("first", "second");
+        assertThat(offset).isEqualTo(Files.size(file));
+    }
+}
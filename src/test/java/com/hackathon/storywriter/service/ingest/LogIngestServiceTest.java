@@ -0,0 +1,96 @@
+package com.hackathon.storywriter.service.ingest;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.IngestResponse;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.cache.EventFingerprinter;
+import com.hackathon.storywriter.service.similar.StackTraceSignature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LogIngestServiceTest {
+
+    private static final String ENTRY = """
+            2026-02-01 10:15:%02d.407 [pipeline-%d] ERROR c.h.s.service.OrderService - Checkout of order %d failed
+            java.lang.IllegalStateException: order %d has no lines
+            \tat com.example.OrderService.checkout(OrderService.java:%d)
+            \tat com.example.OrderController.post(OrderController.java:21)
+            """;
+
+    @Mock private OrchestratorService orchestratorService;
+
+    private final EventFingerprinter fingerprinter =
+            new EventFingerprinter(5, new StackTraceSignature(StackTraceSignature.DEFAULT_NOISE_PACKAGES, 12));
+
+    private LogIngestService service(int maxClusters) {
+        return new LogIngestService(orchestratorService, fingerprinter, new SimpleMeterRegistry(),
+                "", "ERROR,FATAL", 200, 16384, maxClusters, 2);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    @DisplayName("entries with the same stack-trace signature run the pipeline once")
+    void deduplicatesEntriesBySignature() throws IOException {
+        when(orchestratorService.submit(any(), any())).thenReturn(
+                CompletableFuture.completedFuture(new ArtifactResponse(null, null, null, null, null, 5L)));
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            log.append(ENTRY.formatted(i, i % 4, i, i, 80 + i));
+        }
+        log.append("2026-02-01 10:16:00.000 [main] ERROR c.h.s.Other - Connection refused\n");
+
+        IngestResponse response = service(10).ingest(new ByteArrayInputStream(gzip(log.toString())), "app.log.gz");
+
+        verify(orchestratorService, times(2)).submit(any(), any());
+        assertThat(response.lines()).isEqualTo(201);
+        assertThat(response.entries()).isEqualTo(51);
+        assertThat(response.clusters()).extracting(IngestResponse.Cluster::size).containsExactly(50L, 1L);
+        assertThat(response.clusters().getFirst().firstSeen()).isEqualTo("app.log.gz:1");
+        assertThat(response.clusters()).allSatisfy(c -> assertThat(c.artifact()).isNotNull());
+    }
+
+    @Test
+    @DisplayName("entries with new signatures beyond max-clusters are dropped and counted")
+    void dropsEntriesBeyondTheClusterLimit() throws IOException {
+        when(orchestratorService.submit(any(), any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("agents down")));
+        String log = """
+                2026-02-01 10:15:01.000 [a] ERROR c.h.s.A - first
+                java.lang.IllegalStateException: a
+                2026-02-01 10:15:02.000 [b] ERROR c.h.s.B - second
+                java.lang.IllegalArgumentException: b
+                """;
+
+        IngestResponse response = service(1).ingest(new ByteArrayInputStream(log.getBytes(StandardCharsets.UTF_8)), "app.log");
+
+        assertThat(response.clusters()).singleElement().satisfies(cluster -> {
+            assertThat(cluster.artifact()).isNull();
+            assertThat(cluster.error()).isEqualTo("agents down");
+        });
+        assertThat(response.droppedEntries()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hackathon.storywriter.service.job;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.JobStatus;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import com.hackathon.storywriter.service.OrchestratorService;
+import com.hackathon.storywriter.service.PipelineListener;
+import com.hackathon.storywriter.service.limit.CapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceTest {
+
+    private static final TestFailureEvent EVENT = new TestFailureEvent(
+            TestFailureEvent.FailureSource.JUNIT, "com.example.FooTest#bar", "boom", null, null);
+
+    @Mock private OrchestratorService orchestratorService;
+
+    @Test
+    @DisplayName("a running job exposes partial sections and then the full artifact")
+    void jobReportsPartialThenFinalResults() {
+        CompletableFuture<ArtifactResponse> pipeline = new CompletableFuture<>();
+        AtomicReference<PipelineListener> listener = new AtomicReference<>();
+        when(orchestratorService.submit(any(), any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            return pipeline;
+        });
+        JobService jobService = new JobService(orchestratorService, new SimpleMeterRegistry(), 10, Duration.ofHours(1), 5);
+
+        JobStatus accepted = jobService.submit(EVENT);
+        ArtifactResponse.TechnicalAnalysis tech = new ArtifactResponse.TechnicalAnalysis("tech", 12L);
+        listener.get().onSection("technicalAnalysis", tech);
+
+        JobStatus running = jobService.get(accepted.jobId()).orElseThrow();
+        assertThat(running.state()).isEqualTo(JobStatus.State.RUNNING);
+        assertThat(running.sections()).containsEntry("technicalAnalysis", tech);
+
+        ArtifactResponse artifact = new ArtifactResponse(tech, null, null, null, null, 40L);
+        pipeline.complete(artifact);
+
+        JobStatus done = jobService.get(accepted.jobId()).orElseThrow();
+        assertThat(done.state()).isEqualTo(JobStatus.State.SUCCEEDED);
+        assertThat(done.artifact()).isEqualTo(artifact);
+        assertThat(done.completedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("a full store evicts the oldest finished job and rejects when all jobs are running")
+    void boundedStoreEvictsFinishedAndRejectsWhenFull() {
+        CompletableFuture<ArtifactResponse> running = new CompletableFuture<>();
+        when(orchestratorService.submit(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("CLI failed")))
+                .thenReturn(running);
+        JobService jobService = new JobService(orchestratorService, new SimpleMeterRegistry(), 1, Duration.ofHours(1), 5);
+
+        JobStatus failed = jobService.submit(EVENT);
+        assertThat(jobService.get(failed.jobId()).orElseThrow().state()).isEqualTo(JobStatus.State.FAILED);
+
+        JobStatus second = jobService.submit(EVENT);
+        assertThat(jobService.get(failed.jobId())).isEmpty();
+        assertThat(jobService.get(second.jobId())).isPresent();
+
+        assertThatThrownBy(() -> jobService.submit(EVENT)).isInstanceOf(CapacityExceededException.class);
+    }
+}
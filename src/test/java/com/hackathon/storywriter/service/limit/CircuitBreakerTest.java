@@ -0,0 +1,49 @@
+package com.hackathon.storywriter.service.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    @DisplayName("opens at the failure rate, then lets a single probe through and closes on its success")
+    void opensAndRecoversThroughHalfOpenProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 0.5, Duration.ofMillis(50));
+
+        for (boolean fail : new boolean[] {false, true, false}) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            if (fail) breaker.onFailure(); else breaker.onSuccess();
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        Thread.sleep(80);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).as("only one probe at a time").isFalse();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("a failed probe re-opens the breaker, a cancelled one frees the probe slot")
+    void failedProbeReopens() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 1, 1.0, Duration.ofMillis(20));
+        breaker.tryAcquire();
+        breaker.onFailure();
+        Thread.sleep(40);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onIgnored();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
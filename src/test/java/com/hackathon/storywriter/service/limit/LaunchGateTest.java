@@ -0,0 +1,95 @@
+package com.hackathon.storywriter.service.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LaunchGateTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("a caller beyond max-queue-depth is rejected immediately with QUEUE_FULL")
+    void rejectsWhenQueueIsFull() throws Exception {
+        LaunchGate gate = new LaunchGate(new MockEnvironment(), meterRegistry, 1, 1, 0, Duration.ofSeconds(5), 3,
+                false, 1, 0.9, 2.0);
+
+        try (LaunchGate.Permit ignored = gate.acquire("gpt-4.1")) {
+            assertThatThrownBy(() -> gate.acquire("gpt-4.1"))
+                    .isInstanceOfSatisfying(CapacityExceededException.class, e -> {
+                        assertThat(e.reason()).isEqualTo(CapacityExceededException.Reason.QUEUE_FULL);
+                        assertThat(e.retryAfterSeconds()).isEqualTo(3);
+                    });
+        }
+        assertThat(meterRegistry.get("copilot.cli.rejections").tag("reason", "QUEUE_FULL").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("a queued caller that waits longer than max-queue-wait is rejected with QUEUE_TIMEOUT")
+    void rejectsAfterQueueWait() throws Exception {
+        LaunchGate gate = new LaunchGate(new MockEnvironment(), meterRegistry, 1, 1, 10, Duration.ofMillis(50), 3,
+                false, 1, 0.9, 2.0);
+
+        try (LaunchGate.Permit ignored = gate.acquire("gpt-4.1")) {
+            assertThatThrownBy(() -> gate.acquire("gpt-4.1"))
+                    .isInstanceOfSatisfying(CapacityExceededException.class,
+                            e -> assertThat(e.reason()).isEqualTo(CapacityExceededException.Reason.QUEUE_TIMEOUT));
+        }
+    }
+
+    @Test
+    @DisplayName("per-model limits are independent and released permits admit the next waiter")
+    void perModelLimitsAndRelease() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("copilot.cli.concurrency.models.gpt-4.1-mini", "1");
+        LaunchGate gate = new LaunchGate(environment, meterRegistry, 4, 2, 10, Duration.ofSeconds(5), 3,
+                false, 1, 0.9, 2.0);
+
+        LaunchGate.Permit mini = gate.acquire("gpt-4.1-mini");
+        gate.acquire("gpt-4.1").close();
+
+        CompletableFuture<LaunchGate.Permit> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return gate.acquire("gpt-4.1-mini");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+
+        mini.close();
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertThat(meterRegistry.get("copilot.cli.processes.active").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("with adaptive limits, failed calls shrink the per-model limit and healthy calls under load grow it back")
+    void adaptiveLimitFollowsOutcomes() throws Exception {
+        LaunchGate gate = new LaunchGate(new MockEnvironment(), meterRegistry, 16, 4, 10, Duration.ofSeconds(5), 3,
+                true, 1, 0.5, 2.0);
+
+        for (int i = 0; i < 2; i++) {
+            try (LaunchGate.Permit permit = gate.acquire("gpt-4.1")) {
+                permit.failed();
+            }
+        }
+        assertThat(meterRegistry.get("copilot.cli.concurrency.limit").tag("model", "gpt-4.1").gauge().value())
+                .isEqualTo(1.0);
+
+        try (LaunchGate.Permit permit = gate.acquire("gpt-4.1")) {
+            permit.succeeded();
+        }
+        assertThat(meterRegistry.get("copilot.cli.concurrency.limit").tag("model", "gpt-4.1").gauge().value())
+                .isEqualTo(2.0);
+    }
+}
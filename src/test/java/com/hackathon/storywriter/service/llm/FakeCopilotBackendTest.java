@@ -0,0 +1,67 @@
+package com.hackathon.storywriter.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactResponse.BugReport;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import com.hackathon.storywriter.model.ArtifactResponse.UserStory;
+import com.hackathon.storywriter.service.agent.AgentJsonReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FakeCopilotBackendTest {
+
+    private static final Prompt PROMPT = Prompt.of("system", "\n\n", "user");
+
+    private static FakeCopilotBackend backend(double failureRate, Duration median, Path responsesDir) {
+        return new FakeCopilotBackend(new SimpleMeterRegistry(), median, 0, failureRate, responsesDir,
+                Duration.ofSeconds(5), new Random(42));
+    }
+
+    @Test
+    @DisplayName("built-in canned responses parse into the sections of their agents")
+    void cannedResponsesParse() throws Exception {
+        FakeCopilotBackend backend = backend(0, Duration.ZERO, null);
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThat(AgentJsonReader.read(mapper, backend.complete("BugWriter", "gpt-4.1", PROMPT),
+                BugReport.class).title()).isNotBlank();
+        assertThat(AgentJsonReader.read(mapper, backend.complete("StoryWriter", "gpt-4.1", PROMPT),
+                UserStory.class).acceptanceCriteria()).contains("Given");
+        assertThat(AgentJsonReader.read(mapper, backend.complete("Severity", "gpt-4.1", PROMPT),
+                SeverityAssessment.class).level()).isEqualTo("Major");
+        assertThat(backend.complete("RootCause", "gpt-4.1", PROMPT)).startsWith("Most probable root cause");
+    }
+
+    @Test
+    @DisplayName("a response file for the role overrides the built-in response")
+    void responsesDirOverrides(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("Severity.txt"), "{\"level\": \"Blocker\"}\n");
+
+        FakeCopilotBackend backend = backend(0, Duration.ZERO, dir);
+
+        assertThat(backend.complete("Severity", "gpt-4.1", PROMPT)).isEqualTo("{\"level\": \"Blocker\"}");
+        assertThat(backend.complete("RootCause", "gpt-4.1", PROMPT)).startsWith("Most probable root cause");
+    }
+
+    @Test
+    @DisplayName("injected failures exit non-zero and latencies beyond the timeout time out")
+    void failuresAndTimeouts() {
+        assertThatThrownBy(() -> backend(1.0, Duration.ZERO, null).complete("Severity", "gpt-4.1", PROMPT))
+                .isInstanceOf(CopilotCliException.class);
+
+        FakeCopilotBackend slow = new FakeCopilotBackend(new SimpleMeterRegistry(), Duration.ofMinutes(1), 0, 0,
+                null, Duration.ofMillis(20), new Random(42));
+        assertThatThrownBy(() -> slow.complete("Severity", "gpt-4.1", PROMPT))
+                .hasMessageContaining("timed out");
+    }
+}
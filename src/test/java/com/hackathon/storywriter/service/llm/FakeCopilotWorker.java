@@ -0,0 +1,44 @@
+package com.hackathon.storywriter.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Worker process for {@link PooledCopilotBackendTest}: answers each prompt with
+ * {@code <pid>:<model>:<prompt>} (reading {@code promptFile} when given), reports an error
+ * for the prompt {@code fail} and exits on the prompt {@code crash}.
+ */
+public final class FakeCopilotWorker {
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        String line;
+        while ((line = in.readLine()) != null) {
+            JsonNode request = mapper.readTree(line);
+            ObjectNode response = mapper.createObjectNode().put("id", request.path("id").asText());
+            String prompt = request.hasNonNull("promptFile")
+                    ? Files.readString(Path.of(request.get("promptFile").asText()))
+                    : request.path("prompt").asText();
+            if ("ping".equals(request.path("type").asText())) {
+                response.put("output", "pong");
+            } else if ("crash".equals(prompt)) {
+                System.exit(1);
+            } else if ("fail".equals(prompt)) {
+                response.put("error", "model unavailable");
+            } else {
+                response.put("output", ProcessHandle.current().pid() + ":" + request.path("model").asText() + ":" + prompt);
+            }
+            out.println(mapper.writeValueAsString(response));
+        }
+    }
+}
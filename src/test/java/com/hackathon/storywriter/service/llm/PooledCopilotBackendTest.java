@@ -0,0 +1,141 @@
+package com.hackathon.storywriter.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PooledCopilotBackendTest {
+
+    private static final List<String> WORKER_COMMAND = List.of(
+            ProcessHandle.current().info().command().orElse("java"),
+            "-cp", System.getProperty("java.class.path"),
+            FakeCopilotWorker.class.getName());
+
+    @Mock private SpawnCopilotBackend spawn;
+
+    @TempDir private Path promptDir;
+
+    private PooledCopilotBackend backend;
+
+    @AfterEach
+    void tearDown() {
+        if (backend != null) backend.shutdown();
+    }
+
+    private PooledCopilotBackend pool(List<String> command, int size, int maxRequestsPerWorker) {
+        return pool(command, size, maxRequestsPerWorker, PromptTransport.STDIN);
+    }
+
+    private PooledCopilotBackend pool(List<String> command, int size, int maxRequestsPerWorker, PromptTransport transport) {
+        backend = new PooledCopilotBackend(spawn, new ObjectMapper(), new SimpleMeterRegistry(), command,
+                size, maxRequestsPerWorker, Duration.ofMinutes(1), Duration.ofSeconds(1), Duration.ofSeconds(30),
+                transport, promptDir);
+        backend.warmUp();
+        return backend;
+    }
+
+    private static String pid(String output) {
+        return output.substring(0, output.indexOf(':'));
+    }
+
+    @Test
+    @DisplayName("prompts reuse one warm worker until it is recycled after K requests")
+    void reusesWorkerAndRecyclesAfterMaxRequests() {
+        pool(WORKER_COMMAND, 1, 2);
+
+        String first = backend.complete("Test", "gpt-4.1", Prompt.of("one"));
+        String second = backend.complete("Test", "gpt-4.1", Prompt.of("two"));
+        String third = backend.complete("Test", "gpt-4.1", Prompt.of("three"));
+
+        assertThat(first).endsWith(":gpt-4.1:one");
+        assertThat(pid(second)).isEqualTo(pid(first));
+        assertThat(pid(third)).isNotEqualTo(pid(first));
+        verifyNoInteractions(spawn);
+    }
+
+    @Test
+    @DisplayName("a worker error fails the call but keeps the worker")
+    void workerErrorKeepsWorker() {
+        pool(WORKER_COMMAND, 1, 100);
+        String before = backend.complete("Test", "gpt-4.1", Prompt.of("one"));
+
+        assertThatThrownBy(() -> backend.complete("Test", "gpt-4.1", Prompt.of("fail")))
+                .hasMessageContaining("model unavailable");
+
+        assertThat(pid(backend.complete("Test", "gpt-4.1", Prompt.of("two")))).isEqualTo(pid(before));
+    }
+
+    @Test
+    @DisplayName("a crashed worker is replaced and the call falls back to spawn")
+    void crashedWorkerFallsBackToSpawn() {
+        when(spawn.complete(any(), any(), any())).thenReturn("spawned");
+        pool(WORKER_COMMAND, 1, 100);
+
+        assertThat(backend.complete("Test", "gpt-4.1", Prompt.of("crash"))).isEqualTo("spawned");
+        assertThat(backend.complete("Test", "gpt-4.1", Prompt.of("again"))).endsWith(":gpt-4.1:again");
+    }
+
+    @Test
+    @DisplayName("a worker that times out is killed together with its child processes")
+    void timedOutWorkerIsKilledWithItsChildren() throws Exception {
+        Path childPid = promptDir.resolve("child.pid");
+        backend = new PooledCopilotBackend(spawn, new ObjectMapper(), new SimpleMeterRegistry(),
+                List.of("sh", "-c", "sleep 60 & echo $! > " + childPid + "; wait"),
+                1, 100, Duration.ofMinutes(1), Duration.ofSeconds(1), Duration.ofMillis(500),
+                PromptTransport.STDIN, promptDir);
+        backend.warmUp();
+
+        assertThatThrownBy(() -> backend.complete("Test", "gpt-4.1", Prompt.of("hang")))
+                .hasMessageContaining("timed out");
+
+        ProcessHandle child = ProcessHandle.of(Long.parseLong(Files.readString(childPid).strip())).orElse(null);
+        if (child != null) {
+            assertThat(child.onExit()).succeedsWithin(Duration.ofSeconds(5));
+        }
+        assertThat(backend.liveWorkers()).isZero();
+    }
+
+    @Test
+    @DisplayName("an unstartable worker command falls back to spawn-per-call")
+    void unstartableWorkerFallsBackToSpawn() {
+        when(spawn.complete(any(), any(), any())).thenReturn("spawned");
+        pool(List.of("/nonexistent/copilot-worker"), 2, 100);
+
+        assertThat(backend.complete("Test", "gpt-4.1", Prompt.of("hello"))).isEqualTo("spawned");
+        assertThat(backend.liveWorkers()).isZero();
+        verify(spawn).complete(eq("Test"), eq("gpt-4.1"), any());
+    }
+
+    @Test
+    @DisplayName("file transport sends the worker a temp-file path and deletes the file afterwards")
+    void fileTransportSendsPromptFile() throws Exception {
+        pool(WORKER_COMMAND, 1, 100, PromptTransport.FILE);
+
+        String output = backend.complete("Test", "gpt-4.1", Prompt.of("system", "\n\n", "user ü"));
+
+        assertThat(output).endsWith(":gpt-4.1:system\n\nuser ü");
+        try (var files = Files.list(promptDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hackathon.storywriter.service.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@EnabledOnOs({OS.LINUX, OS.MAC})
+class ProcessRunnerTest {
+
+    @Test
+    @DisplayName("a chatty stderr is drained concurrently and does not stall the child")
+    void drainsStderrConcurrently() throws Exception {
+        ProcessRunner runner = new ProcessRunner(1024 * 1024);
+
+        ProcessRunner.Result result = runner.run(
+                List.of("sh", "-c", "head -c 500000 /dev/zero | tr '\\0' x >&2; echo done"), Duration.ofSeconds(10));
+
+        assertThat(result.exitCode()).isZero();
+        assertThat(result.stdout()).isEqualTo("done");
+        assertThat(result.stderr()).hasSize(500_000);
+        assertThat(result.truncated()).isFalse();
+    }
+
+    @Test
+    @DisplayName("a prompt is streamed to standard input segment by segment")
+    void streamsPromptToStdin() throws Exception {
+        ProcessRunner runner = new ProcessRunner(1024 * 1024);
+        String stackTrace = "at com.example.Foo.bar(Foo.java:1)\n".repeat(20_000);
+
+        ProcessRunner.Result result = runner.run(
+                List.of("sh", "-c", "wc -c"), Prompt.of("system", "\n\n", stackTrace), Duration.ofSeconds(10));
+
+        assertThat(result.stdout().strip()).isEqualTo(Integer.toString(8 + stackTrace.length()));
+    }
+
+    @Test
+    @DisplayName("standard output reaches the listener while the process is still running")
+    void streamsStdoutToListener() throws Exception {
+        ProcessRunner runner = new ProcessRunner(1024 * 1024);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        AtomicLong firstChunkAt = new AtomicLong();
+
+        ProcessRunner.Result result = runner.run(List.of("sh", "-c", "echo '{\"level\": \"Major\",'; sleep 1; echo '}'"),
+                null, Duration.ofSeconds(10), (chunk, offset, length) -> {
+                    firstChunkAt.compareAndSet(0, System.nanoTime());
+                    streamed.write(chunk, offset, length);
+                });
+
+        assertThat(System.nanoTime() - firstChunkAt.get()).isGreaterThan(Duration.ofMillis(500).toNanos());
+        assertThat(result.stdout()).isEqualTo("{\"level\": \"Major\",\n}");
+        assertThat(streamed.toString(StandardCharsets.UTF_8)).isEqualTo("{\"level\": \"Major\",\n}\n");
+    }
+
+    @Test
+    @DisplayName("output beyond the cap is discarded and flagged")
+    void capsOutput() throws Exception {
+        ProcessRunner runner = new ProcessRunner(100);
+
+        ProcessRunner.Result result = runner.run(
+                List.of("sh", "-c", "head -c 10000 /dev/zero | tr '\\0' x"), Duration.ofSeconds(10));
+
+        assertThat(result.stdout()).hasSize(100);
+        assertThat(result.truncated()).isTrue();
+    }
+
+    @Test
+    @DisplayName("the deadline covers the whole call and kills the process tree")
+    void killsProcessTreeOnDeadline() {
+        ProcessRunner runner = new ProcessRunner(1024);
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> runner.run(
+                List.of("sh", "-c", "sleep 30 & echo started; sleep 30"), Duration.ofMillis(500)))
+                .isInstanceOf(TimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+    }
+}
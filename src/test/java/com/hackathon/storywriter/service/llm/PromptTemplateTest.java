@@ -0,0 +1,56 @@
+package com.hackathon.storywriter.service.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromptTemplateTest {
+
+    private static final List<String> PARAMETERS = List.of("errorMessage", "source", "rootCause");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("named placeholders are filled by name, in any order and any number of times")
+    void namedPlaceholders() throws Exception {
+        PromptTemplate template = new PromptTemplate("root-cause",
+                "\n**Source:** {{source}}\n**Error:** {{ errorMessage }}\n\n{{rootCause}} ({{source}})\n",
+                PARAMETERS, registry);
+
+        Prompt prompt = template.render("NPE", "JUNIT", "null id");
+        StringWriter written = new StringWriter();
+        prompt.writeTo(written);
+
+        assertThat(prompt.toString()).isEqualTo("**Source:** JUNIT\n**Error:** NPE\n\nnull id (JUNIT)");
+        assertThat(written.toString()).isEqualTo(prompt.toString());
+        assertThat(registry.get("copilot.cli.prompt.render").tag("agent", "root-cause").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a %s template renders exactly like String.formatted")
+    void legacyTemplateMatchesFormatted() {
+        String legacy = "## Request\n\n**Error:** %s\n**Source:** %s%n100%% sure: %s\n";
+        PromptTemplate template = new PromptTemplate("root-cause", legacy, PARAMETERS, registry);
+
+        assertThat(template.render("NPE", null, "cause").toString())
+                .isEqualTo(legacy.formatted("NPE", null, "cause").strip());
+    }
+
+    @Test
+    @DisplayName("unknown placeholders and surplus %s are rejected when compiling")
+    void invalidTemplatesFailFast() {
+        assertThatThrownBy(() -> new PromptTemplate("severity", "{{errorMesage}}", PARAMETERS, registry))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{errorMesage}}");
+        assertThatThrownBy(() -> new PromptTemplate("severity", "%s %s %s %s", PARAMETERS, registry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PromptTemplate("severity", "{{source}}", PARAMETERS, registry).render("only one"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
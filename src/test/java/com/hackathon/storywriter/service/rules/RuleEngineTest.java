@@ -0,0 +1,87 @@
+package com.hackathon.storywriter.service.rules;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleEngineTest {
+
+    private static final TestFailureEvent MOCK_MVC_500 = new TestFailureEvent(
+            TestFailureEvent.FailureSource.MOCK_MVC, "com.example.OrderControllerTest#create",
+            "java.lang.AssertionError: Status expected:<201> but was:<500>",
+            "java.lang.AssertionError: Status expected:<201> but was:<500>\n"
+                    + "\tat org.springframework.test.web.servlet.result.StatusResultMatchers.lambda$matcher$9",
+            null);
+
+    private RuleEngine engine(String location, Duration reloadInterval) {
+        return new RuleEngine(new DefaultResourceLoader(), new SimpleMeterRegistry(), true, location, 0.8, reloadInterval);
+    }
+
+    @Test
+    @DisplayName("the bundled rules fill templates from named groups and tag the artifact with the rule id")
+    void bundledRuleRendersTemplates() {
+        RuleEngine engine = engine("classpath:triage-rules.yml", Duration.ofSeconds(5));
+
+        ArtifactResponse artifact = engine.triage(MOCK_MVC_500);
+
+        assertThat(artifact.generatedBy()).isEqualTo("rule:mockmvc-status-mismatch");
+        assertThat(artifact.bugReport().title())
+                .isEqualTo("Endpoint returns 500 instead of 201 in com.example.OrderControllerTest#create");
+        assertThat(artifact.severity().confidence()).isEqualTo(0.85);
+    }
+
+    @Test
+    @DisplayName("events matching no rule, or only the message but not the frame, fall through")
+    void unmatchedEventsFallThrough() {
+        RuleEngine engine = engine("classpath:triage-rules.yml", Duration.ofSeconds(5));
+        TestFailureEvent noFrame = new TestFailureEvent(TestFailureEvent.FailureSource.MOCK_MVC, null,
+                MOCK_MVC_500.errorMessage(), "at com.example.Foo.bar(Foo.java:1)", null);
+        TestFailureEvent other = new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, null,
+                "NullPointerException", null, null);
+
+        assertThat(engine.triage(noFrame)).isNull();
+        assertThat(engine.triage(other)).isNull();
+    }
+
+    @Test
+    @DisplayName("a changed rule file is reloaded; a broken one keeps the previous rules")
+    void hotReloadsRuleFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rules.yml");
+        Files.writeString(file, rule("npe", "NullPointerException"));
+        RuleEngine engine = engine("file:" + file, Duration.ZERO);
+        TestFailureEvent npe = new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, null,
+                "java.lang.NullPointerException", null, null);
+
+        assertThat(engine.triage(npe).generatedBy()).isEqualTo("rule:npe");
+
+        Files.writeString(file, rule("npe-v2", "NullPointerException"));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        assertThat(engine.triage(npe).generatedBy()).isEqualTo("rule:npe-v2");
+
+        Files.writeString(file, rule("broken", "(unclosed"));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(20)));
+        assertThat(engine.triage(npe).generatedBy()).isEqualTo("rule:npe-v2");
+    }
+
+    private static String rule(String id, String message) {
+        return """
+                rules:
+                  - id: %s
+                    message: '%s'
+                    confidence: 0.9
+                    root-cause: 'Something was null in {testName}'
+                """.formatted(id, message);
+    }
+}
@@ -0,0 +1,126 @@
+package com.hackathon.storywriter.service.similar;
+
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.SimilarResponse;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimilarFailureIndexTest {
+
+    private static final String TRACE = """
+            java.lang.IllegalStateException: order 42 has no lines
+            \tat com.example.OrderService.checkout(OrderService.java:88)
+            \tat com.example.OrderService.lambda$submit$0(OrderService.java:51)
+            \tat com.example.OrderController.post(OrderController.java:21)
+            \tat com.example.CartValidator.validate(CartValidator.java:12)
+            \tat com.example.CheckoutFacade.run(CheckoutFacade.java:40)
+            """;
+
+    /** The same failure seen through a Spring proxy, with other line numbers and lambda counters. */
+    private static final String NOISY_TRACE = """
+            java.lang.IllegalStateException: order 97 has no lines
+            \tat com.example.OrderService.checkout(OrderService.java:90)
+            \tat com.example.OrderService.lambda$submit$3(OrderService.java:53)
+            \tat java.base/jdk.internal.reflect.DirectMethodHandleAccessor.invoke(DirectMethodHandleAccessor.java:103)
+            \tat java.base/java.lang.reflect.Method.invoke(Method.java:580)
+            \tat org.springframework.aop.support.AopUtils.invokeJoinpointUsingReflection(AopUtils.java:355)
+            \tat com.example.OrderController$$SpringCGLIB$$0.post(<generated>)
+            \tat com.example.CartValidator.validate(CartValidator.java:14)
+            \tat com.example.CheckoutFacade.run(CheckoutFacade.java:41)
+            """;
+
+    /** The same failure reached through a different caller. */
+    private static final String NEAR_TRACE = TRACE.replace("CheckoutFacade.run", "ExpressCheckoutFacade.run");
+
+    private static final String OTHER_TRACE = """
+            java.net.ConnectException: Connection refused
+            \tat java.base/sun.nio.ch.Net.connect0(Native Method)
+            \tat com.example.PaymentClient.charge(PaymentClient.java:77)
+            """;
+
+    private final StackTraceSignature signatures = new StackTraceSignature("java.lang.reflect.,jdk.internal.,org.springframework.aop.", 12);
+
+    private static TestFailureEvent event(String testName, String trace) {
+        return new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, testName, "failed", trace, null);
+    }
+
+    private static ArtifactResponse artifact(long totalMs) {
+        return new ArtifactResponse(null, null, null, null, null, totalMs);
+    }
+
+    @Test
+    @DisplayName("line numbers, proxies, reflection and lambda counters do not change the signature")
+    void normalizesNoiseAway() {
+        StackTraceSignature.Signature clean = signatures.of(event("a", TRACE));
+        StackTraceSignature.Signature noisy = signatures.of(event("b", NOISY_TRACE));
+
+        assertThat(clean.frames()).containsExactly(
+                "com.example.OrderService.checkout", "com.example.OrderService.lambda$submit",
+                "com.example.OrderController.post", "com.example.CartValidator.validate",
+                "com.example.CheckoutFacade.run");
+        assertThat(noisy.exactHash()).isEqualTo(clean.exactHash());
+        assertThat(noisy.simHash()).isEqualTo(clean.simHash());
+    }
+
+    @Test
+    @DisplayName("lookup returns exact and near duplicates, nearest first, but not unrelated failures")
+    void findsNearestPreviousArtifacts() {
+        SimilarFailureIndex index = new SimilarFailureIndex(signatures, new SimpleMeterRegistry(), true, 100, 10);
+        index.add(event("OrderTest#checkout", TRACE), artifact(1));
+        index.add(event("ExpressTest#checkout", NEAR_TRACE), artifact(2));
+        index.add(event("PaymentTest#charge", OTHER_TRACE), artifact(3));
+
+        SimilarResponse response = index.nearest(event(null, NOISY_TRACE), 5, 10);
+
+        assertThat(response.matches()).extracting(SimilarResponse.Match::testName)
+                .containsExactly("OrderTest#checkout", "ExpressTest#checkout");
+        assertThat(response.matches().getFirst().distance()).isZero();
+        assertThat(response.matches().get(1).distance()).isPositive();
+        assertThat(index.nearest(event(null, NOISY_TRACE), 5, 0).matches()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("re-indexing a signature replaces its entry and the oldest entry is evicted when full")
+    void replacesAndEvictsEntries() {
+        SimilarFailureIndex index = new SimilarFailureIndex(signatures, new SimpleMeterRegistry(), true, 2, 6);
+        index.add(event("first", TRACE), artifact(1));
+        index.add(event("again", NOISY_TRACE), artifact(2));
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.nearest(event(null, TRACE), 5, 0).matches())
+                .singleElement().extracting(SimilarResponse.Match::testName).isEqualTo("again");
+
+        index.add(event("near", NEAR_TRACE), artifact(3));
+        index.add(event("other", OTHER_TRACE), artifact(4));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.nearest(event(null, TRACE), 5, 0).matches()).isEmpty();
+        assertThat(index.nearest(event(null, OTHER_TRACE), 5, 0).matches()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("after many evictions every live entry is still found and no evicted one is")
+    void survivesChurn() {
+        SimilarFailureIndex index = new SimilarFailureIndex(signatures, new SimpleMeterRegistry(), true, 64, 6);
+        for (int i = 0; i < 1000; i++) {
+            index.add(event("t" + i, churnTrace(i)), artifact(i));
+        }
+
+        assertThat(index.size()).isEqualTo(64);
+        for (int i = 0; i < 1000; i++) {
+            String testName = "t" + i;
+            boolean found = index.nearest(event(null, churnTrace(i)), 64, 0).matches().stream()
+                    .anyMatch(match -> match.testName().equals(testName));
+            assertThat(found).as(testName).isEqualTo(i >= 1000 - 64);
+        }
+    }
+
+    private static String churnTrace(int i) {
+        return "java.lang.IllegalStateException: boom\n"
+                + "\tat com.example.Service" + i % 37 + ".call(Service.java:1)\n"
+                + "\tat com.example.Caller" + i + ".run(Caller.java:2)\n";
+    }
+}
@@ -0,0 +1,208 @@
+package com.hackathon.storywriter.service.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hackathon.storywriter.model.ArtifactPage;
+import com.hackathon.storywriter.model.ArtifactResponse;
+import com.hackathon.storywriter.model.ArtifactResponse.SeverityAssessment;
+import com.hackathon.storywriter.model.StoredArtifact;
+import com.hackathon.storywriter.model.TestFailureEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactStoreTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+    private static final Instant T0 = Instant.parse("2026-02-01T10:00:00Z");
+
+    @TempDir Path dir;
+
+    private final List<ArtifactStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(ArtifactStore::close);
+    }
+
+    private ArtifactStore open(long segmentSize, Duration retention, int keepPerFingerprint, Clock clock) {
+        ArtifactStore store = new ArtifactStore(MAPPER, new SimpleMeterRegistry(), true, dir.toString(),
+                segmentSize, retention, keepPerFingerprint, false, clock);
+        opened.add(store);
+        return store;
+    }
+
+    private ArtifactStore open() {
+        return open(64 * 1024 * 1024, Duration.ZERO, 0, Clock.fixed(T0, ZoneOffset.UTC));
+    }
+
+    private static TestFailureEvent event(String testName) {
+        return new TestFailureEvent(TestFailureEvent.FailureSource.JUNIT, testName, "boom", null, null);
+    }
+
+    private static ArtifactResponse artifact(String severity) {
+        return new ArtifactResponse(null, null, null, null,
+                new SeverityAssessment(severity, "because", 0.9, 3L), 10L);
+    }
+
+    private static ArtifactStore.Query query(String fingerprint, String testName, String severity, Long cursor, int limit) {
+        return new ArtifactStore.Query(fingerprint, testName, severity, null, null, cursor, limit);
+    }
+
+    @Test
+    @DisplayName("artifacts can be queried by fingerprint, test name and severity, newest first, page by page")
+    void queriesByIndexedKeys() {
+        ArtifactStore store = open();
+        for (int i = 0; i < 5; i++) {
+            store.append("fp-a", event("OrderTest#" + i), artifact(i % 2 == 0 ? "Critical" : "Minor"));
+        }
+        long other = store.append("fp-b", event("OrderTest#0"), artifact("Major"));
+
+        assertThat(store.query(query("fp-a", null, null, null, 10)).items())
+                .extracting(StoredArtifact::id).containsExactly(4L, 3L, 2L, 1L, 0L);
+        assertThat(store.query(query(null, "OrderTest#0", null, null, 10)).items())
+                .extracting(StoredArtifact::id).containsExactly(other, 0L);
+        assertThat(store.query(query("fp-a", null, "critical", null, 10)).items())
+                .extracting(StoredArtifact::id).containsExactly(4L, 2L, 0L);
+
+        ArtifactPage first = store.query(query(null, null, null, null, 4));
+        assertThat(first.items()).extracting(StoredArtifact::id).containsExactly(5L, 4L, 3L, 2L);
+        ArtifactPage second = store.query(query(null, null, null, first.nextCursor(), 4));
+        assertThat(second.items()).extracting(StoredArtifact::id).containsExactly(1L, 0L);
+        assertThat(second.nextCursor()).isNull();
+
+        StoredArtifact stored = store.get(other).orElseThrow();
+        assertThat(stored.fingerprint()).isEqualTo("fp-b");
+        assertThat(stored.storedAt()).isEqualTo(T0);
+        assertThat(stored.artifact().severity().level()).isEqualTo("Major");
+    }
+
+    @Test
+    @DisplayName("the store survives a restart and drops a record whose index entry was never written")
+    void reopensAndRecoversTheActiveSegment() throws IOException {
+        ArtifactStore store = open();
+        store.append("fp-a", event("A#a"), artifact("Minor"));
+        store.append("fp-b", event("B#b"), artifact("Major"));
+        store.close();
+        opened.remove(store);
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.filter(f -> f.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        ArtifactStore reopened = open();
+        long id = reopened.append("fp-c", event("C#c"), artifact("Critical"));
+
+        assertThat(reopened.size()).isEqualTo(3);
+        assertThat(id).isEqualTo(2);
+        assertThat(reopened.get(1).orElseThrow().testName()).isEqualTo("B#b");
+        assertThat(reopened.get(2).orElseThrow().testName()).isEqualTo("C#c");
+    }
+
+    @Test
+    @DisplayName("compaction drops expired and superseded artifacts from sealed segments")
+    void compactsSealedSegments() throws IOException {
+        MutableClock clock = new MutableClock(T0);
+        // one record per segment, so every record but the newest is in a sealed segment
+        ArtifactStore store = open(1, Duration.ofDays(30), 2, clock);
+        long old = store.append("fp-old", event("Old#a"), artifact("Minor"));
+        clock.now = T0.plus(Duration.ofDays(40));
+        for (int i = 0; i < 4; i++) {
+            store.append("fp-a", event("OrderTest#" + i), artifact("Major"));
+        }
+
+        long removed = store.compact();
+
+        assertThat(removed).isEqualTo(3);
+        assertThat(store.get(old)).isEmpty();
+        assertThat(store.query(query("fp-a", null, null, null, 10)).items())
+                .extracting(StoredArtifact::testName).containsExactly("OrderTest#3", "OrderTest#2");
+        store.close();
+        opened.remove(store);
+        assertThat(open().query(query(null, null, "major", null, 10)).items()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("after compaction and a restart, appends still go to the active segment, not to the rewritten one")
+    void restartAfterCompactionKeepsTheActiveSegment() throws IOException {
+        MutableClock clock = new MutableClock(T0);
+        ArtifactStore store = open(64 * 1024 * 1024, Duration.ofDays(30), 0, clock);
+        store.append("fp-old", event("Old#a"), artifact("Minor"));
+        clock.now = T0.plus(Duration.ofDays(40));
+        long kept = store.append("fp-kept", event("Kept#a"), artifact("Major"));
+        store.close();
+        opened.remove(store);
+
+        // a 1-byte segment size seals segment 1 with the next append
+        store = open(1, Duration.ofDays(30), 0, clock);
+        long active = store.append("fp-new", event("New#a"), artifact("Major"));
+        assertThat(store.compact()).isEqualTo(1);
+        store.close();
+        opened.remove(store);
+        Path activeSegment = dir.resolve("segment-000002.log");
+        Path rewritten = dir.resolve("segment-000003.log");
+        long activeBytes = Files.size(activeSegment);
+        long rewrittenBytes = Files.size(rewritten);
+        Files.write(activeSegment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        ArtifactStore reopened = open(64 * 1024 * 1024, Duration.ofDays(30), 0, clock);
+        long appended = reopened.append("fp-next", event("Next#a"), artifact("Minor"));
+
+        assertThat(Files.size(rewritten)).isEqualTo(rewrittenBytes);
+        assertThat(Files.size(activeSegment)).isGreaterThan(activeBytes + 6);
+        assertThat(reopened.query(query(null, null, null, null, 10)).items())
+                .extracting(StoredArtifact::id).containsExactly(appended, active, kept);
+    }
+
+    @Test
+    @DisplayName("storedAt never decreases with the id, even when the clock steps back")
+    void timestampsFollowIdOrder() {
+        MutableClock clock = new MutableClock(T0.plusSeconds(60));
+        ArtifactStore store = open(64 * 1024 * 1024, Duration.ZERO, 0, clock);
+        long first = store.append("fp-a", event("A#a"), artifact("Minor"));
+        clock.now = T0;
+        long second = store.append("fp-b", event("B#b"), artifact("Minor"));
+
+        assertThat(store.get(second).orElseThrow().storedAt()).isEqualTo(store.get(first).orElseThrow().storedAt());
+        assertThat(store.query(new ArtifactStore.Query(null, null, null, T0.plusSeconds(60), null, null, 10)).items())
+                .extracting(StoredArtifact::id).containsExactly(second, first);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public java.time.ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}